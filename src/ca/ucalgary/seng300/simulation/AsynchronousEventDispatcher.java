@@ -0,0 +1,300 @@
+package ca.ucalgary.seng300.simulation;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * An event dispatcher that delivers events on its own threads, so that slow
+ * listeners do not delay the hardware. Events are published into one of a
+ * fixed number of bounded ring buffers ("lanes"), each drained by its own
+ * thread. All events from a given source go to the same lane, so they are
+ * delivered in order.
+ * <p>
+ * When a lane is full, the {@link OverflowPolicy} decides whether the
+ * publishing thread waits or an event is dropped. Dropped events are counted.
+ * A listener that publishes into its own full lane under
+ * {@link OverflowPolicy#BLOCK} cannot wait for itself; its thread instead
+ * delivers the oldest events in the lane until there is space.
+ * Exceptions thrown by listeners are passed to the uncaught-exception handler
+ * of the delivering thread, which then carries on.
+ * </p>
+ */
+public class AsynchronousEventDispatcher implements EventDispatcher {
+	/**
+	 * What to do when an event is published to a full lane.
+	 */
+	public enum OverflowPolicy {
+		/**
+		 * The publishing thread waits until there is space.
+		 */
+		BLOCK,
+		/**
+		 * The event being published is dropped.
+		 */
+		DROP_NEWEST,
+		/**
+		 * The oldest undelivered event in the lane is dropped to make space.
+		 */
+		DROP_OLDEST
+	}
+
+	private class Lane implements Runnable {
+		private final Runnable[] ring;
+		private int head = 0;
+		private int count = 0;
+		private Thread thread;
+		private final ReentrantLock lock = new ReentrantLock();
+		private final Condition notEmpty = lock.newCondition();
+		private final Condition notFull = lock.newCondition();
+
+		Lane(int capacity) {
+			ring = new Runnable[capacity];
+		}
+
+		void publish(Runnable event) {
+			lock.lock();
+
+			try {
+				if(shutdown)
+					throw new InvalidStateSimulationException("The dispatcher has been shut down.");
+
+				while(count == ring.length) {
+					if(policy == OverflowPolicy.DROP_NEWEST) {
+						dropped.incrementAndGet();
+						return;
+					}
+					else if(policy == OverflowPolicy.DROP_OLDEST) {
+						ring[head] = null;
+						head = (head + 1) % ring.length;
+						count--;
+						dropped.incrementAndGet();
+					}
+					else if(Thread.currentThread() == thread) {
+						Runnable oldest = take();
+						lock.unlock();
+
+						try {
+							deliver(oldest);
+						}
+						finally {
+							lock.lock();
+						}
+					}
+					else
+						notFull.awaitUninterruptibly();
+
+					if(shutdown)
+						throw new InvalidStateSimulationException("The dispatcher has been shut down.");
+				}
+
+				ring[(head + count) % ring.length] = event;
+				count++;
+				notEmpty.signal();
+			}
+			finally {
+				lock.unlock();
+			}
+		}
+
+		int size() {
+			lock.lock();
+
+			try {
+				return count;
+			}
+			finally {
+				lock.unlock();
+			}
+		}
+
+		@Override
+		public void run() {
+			while(true) {
+				Runnable event;
+
+				lock.lock();
+
+				try {
+					while(count == 0) {
+						if(shutdown)
+							return;
+
+						notEmpty.awaitUninterruptibly();
+					}
+
+					event = take();
+				}
+				finally {
+					lock.unlock();
+				}
+
+				deliver(event);
+			}
+		}
+
+		/*
+		 * Removes the oldest event. The lock must be held and the lane not empty.
+		 */
+		private Runnable take() {
+			Runnable event = ring[head];
+			ring[head] = null;
+			head = (head + 1) % ring.length;
+			count--;
+			notFull.signal();
+			return event;
+		}
+
+		private void deliver(Runnable event) {
+			try {
+				event.run();
+			}
+			catch(Throwable t) {
+				Thread thread = Thread.currentThread();
+				thread.getUncaughtExceptionHandler().uncaughtException(thread, t);
+			}
+			finally {
+				delivered.incrementAndGet();
+			}
+		}
+
+		void shutdown() {
+			lock.lock();
+
+			try {
+				notEmpty.signalAll();
+				notFull.signalAll();
+			}
+			finally {
+				lock.unlock();
+			}
+		}
+	}
+
+	private final Lane[] lanes;
+	private final Thread[] threads;
+	private final OverflowPolicy policy;
+	private final AtomicLong dropped = new AtomicLong();
+	private final AtomicLong delivered = new AtomicLong();
+	private volatile boolean shutdown = false;
+
+	/**
+	 * Creates a dispatcher and starts its delivery threads, which are daemons.
+	 * 
+	 * @param laneCount
+	 *            The number of lanes, and therefore of delivery threads. Must be
+	 *            positive.
+	 * @param laneCapacity
+	 *            The maximum number of undelivered events in each lane. Must be
+	 *            positive.
+	 * @param policy
+	 *            What to do when a lane is full. Cannot be null.
+	 * @throws InvalidArgumentSimulationException
+	 *             If either count is not positive.
+	 * @throws NullPointerSimulationException
+	 *             If the policy is null.
+	 */
+	public AsynchronousEventDispatcher(int laneCount, int laneCapacity, OverflowPolicy policy) {
+		if(laneCount <= 0)
+			throw new InvalidArgumentSimulationException("The number of lanes must be positive.");
+
+		if(laneCapacity <= 0)
+			throw new InvalidArgumentSimulationException("The capacity of each lane must be positive.");
+
+		if(policy == null)
+			throw new NullPointerSimulationException("policy");
+
+		this.policy = policy;
+		lanes = new Lane[laneCount];
+		threads = new Thread[laneCount];
+
+		for(int i = 0; i < laneCount; i++) {
+			lanes[i] = new Lane(laneCapacity);
+			threads[i] = new Thread(lanes[i], "EventDispatcher-" + i);
+			lanes[i].thread = threads[i];
+			threads[i].setDaemon(true);
+			threads[i].start();
+		}
+	}
+
+	/**
+	 * Publishes the indicated event into the lane of its source. Depending on the
+	 * overflow policy, this may wait for space or drop an event.
+	 * 
+	 * @throws InvalidStateSimulationException
+	 *             If the dispatcher has been shut down.
+	 * @throws NullPointerSimulationException
+	 *             If either argument is null.
+	 */
+	@Override
+	public void dispatch(Object source, Runnable event) {
+		if(source == null)
+			throw new NullPointerSimulationException("source");
+
+		if(event == null)
+			throw new NullPointerSimulationException("event");
+
+		int index = (System.identityHashCode(source) & 0x7fffffff) % lanes.length;
+		lanes[index].publish(event);
+	}
+
+	/**
+	 * Obtains the overflow policy of this dispatcher.
+	 * 
+	 * @return The policy.
+	 */
+	public OverflowPolicy getOverflowPolicy() {
+		return policy;
+	}
+
+	/**
+	 * Counts the events that have been dropped because a lane was full.
+	 * 
+	 * @return The number of dropped events.
+	 */
+	public long getDroppedEventCount() {
+		return dropped.get();
+	}
+
+	/**
+	 * Counts the events that have been delivered.
+	 * 
+	 * @return The number of delivered events.
+	 */
+	public long getDeliveredEventCount() {
+		return delivered.get();
+	}
+
+	/**
+	 * Counts the events that are waiting to be delivered.
+	 * 
+	 * @return The number of pending events.
+	 */
+	public int getPendingEventCount() {
+		int total = 0;
+
+		for(Lane lane : lanes)
+			total += lane.size();
+
+		return total;
+	}
+
+	/**
+	 * Stops accepting events, delivers those already published, and waits for the
+	 * delivery threads to finish. Publishers blocked on a full lane are released
+	 * with an exception.
+	 * 
+	 * @throws InterruptedException
+	 *             If interrupted while waiting for the delivery threads.
+	 */
+	public void shutdown() throws InterruptedException {
+		shutdown = true;
+
+		for(Lane lane : lanes)
+			lane.shutdown();
+
+		for(Thread thread : threads)
+			if(thread != Thread.currentThread())
+				thread.join();
+	}
+}
@@ -0,0 +1,20 @@
+package ca.ucalgary.seng300.simulation;
+
+/**
+ * Delivers events from simulated hardware to their listeners. Devices and
+ * components deliver events synchronously unless they are given a dispatcher,
+ * in which case each event is handed to the dispatcher as a task that notifies
+ * every listener registered when the event occurred.
+ */
+public interface EventDispatcher {
+	/**
+	 * Arranges for the indicated event to be delivered. Events from the same
+	 * source must be delivered in the order in which they were dispatched.
+	 * 
+	 * @param source
+	 *            The device or component on which the event occurred.
+	 * @param event
+	 *            The task that notifies the listeners of the event.
+	 */
+	void dispatch(Object source, Runnable event);
+}
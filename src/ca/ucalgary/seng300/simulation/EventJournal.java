@@ -0,0 +1,502 @@
+package ca.ucalgary.seng300.simulation;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * An append-only binary journal of hardware events, written through a
+ * memory-mapped file so that the state of a station can be rebuilt after a
+ * crash or power failure.
+ * <p>
+ * Appending copies the record into the mapped file and returns at once. A
+ * background thread forces the file to disk at most once per commit interval,
+ * covering every record appended since the last commit (group commit).
+ * {@link #sync(long)} waits until a given record is durable.
+ * </p>
+ * <p>
+ * Each record carries a sequence number and a CRC. When an existing journal is
+ * opened, it is scanned up to the first missing, torn or out-of-sequence
+ * record, and everything after that point is discarded.
+ * </p>
+ * <p>
+ * Layout: a 16-byte header (magic number, version, reserved), then records,
+ * each consisting of the body length (int), the CRC-32 of the body (int), and
+ * the body: sequence (long), time in milliseconds (long), source and event
+ * (each as an unsigned-short length and UTF-8 bytes), and the payload (an int
+ * length and UTF-8 bytes).
+ * </p>
+ */
+public final class EventJournal implements Closeable {
+	private static final int MAGIC = 0x534A4E4C;
+	private static final int VERSION = 1;
+	private static final int HEADER_LENGTH = 16;
+	private static final int RECORD_PREFIX = 8;
+
+	private final FileChannel channel;
+	private final MappedByteBuffer buffer;
+	private final long commitIntervalMillis;
+	private final Thread committer;
+
+	private final Object appendLock = new Object();
+	private int position; // guarded by appendLock
+	private long nextSequence; // guarded by appendLock
+	private volatile long appendedSequence;
+
+	private final Object commitLock = new Object();
+	private long durableSequence; // guarded by commitLock
+	private boolean syncRequested = false; // guarded by commitLock
+	private volatile boolean closed = false;
+
+	/**
+	 * Opens the journal in the indicated file, creating it if necessary, and
+	 * starts its commit thread.
+	 * 
+	 * @param file
+	 *            The file holding the journal. Cannot be null.
+	 * @param capacity
+	 *            The size of the file, in bytes. An existing, larger file keeps its
+	 *            size. Must be larger than the header.
+	 * @param commitIntervalMillis
+	 *            The longest time, in milliseconds, that a record may wait before
+	 *            being forced to disk. Must be positive.
+	 * @throws IOException
+	 *             If the file cannot be opened or mapped.
+	 * @throws NullPointerSimulationException
+	 *             If the file is null.
+	 * @throws InvalidArgumentSimulationException
+	 *             If the capacity or interval is out of range, or the file is not
+	 *             a journal.
+	 */
+	public EventJournal(Path file, int capacity, long commitIntervalMillis) throws IOException {
+		if(file == null)
+			throw new NullPointerSimulationException("file");
+
+		if(capacity <= HEADER_LENGTH)
+			throw new InvalidArgumentSimulationException("The capacity is too small: " + capacity);
+
+		if(commitIntervalMillis <= 0)
+			throw new InvalidArgumentSimulationException("The commit interval must be positive.");
+
+		this.commitIntervalMillis = commitIntervalMillis;
+		channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+		try {
+			long size = Math.max(capacity, Math.min(channel.size(), Integer.MAX_VALUE));
+			buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+			recover();
+		}
+		catch(IOException | RuntimeException e) {
+			channel.close();
+			throw e;
+		}
+
+		committer = new Thread(this::commitLoop, "EventJournal");
+		committer.setDaemon(true);
+		committer.start();
+	}
+
+	/*
+	 * Validates the header, finds the end of the valid records, and clears
+	 * everything after it so that stale bytes can never be mistaken for records.
+	 */
+	private void recover() {
+		int magic = buffer.getInt(0);
+
+		if(magic == 0) {
+			buffer.putInt(0, MAGIC);
+			buffer.putInt(4, VERSION);
+		}
+		else if(magic != MAGIC || buffer.getInt(4) != VERSION)
+			throw new InvalidArgumentSimulationException("The file is not an event journal.");
+
+		int offset = HEADER_LENGTH;
+		long sequence = 0;
+		Record record;
+
+		while((record = read(offset, sequence)) != null) {
+			offset += RECORD_PREFIX + buffer.getInt(offset);
+			sequence = record.sequence + 1;
+		}
+
+		for(int i = offset; i < buffer.capacity(); i++)
+			buffer.put(i, (byte)0);
+
+		buffer.force();
+
+		position = offset;
+		nextSequence = sequence;
+		appendedSequence = sequence - 1;
+		durableSequence = sequence - 1;
+	}
+
+	/*
+	 * Reads the record at the indicated offset, or returns null if there is no
+	 * valid record with the expected sequence number there.
+	 */
+	private Record read(int offset, long expectedSequence) {
+		if(offset + RECORD_PREFIX > buffer.capacity())
+			return null;
+
+		int length = buffer.getInt(offset);
+
+		if(length < 28 || length > buffer.capacity() - offset - RECORD_PREFIX)
+			return null;
+
+		byte[] body = new byte[length];
+		buffer.get(offset + RECORD_PREFIX, body);
+
+		CRC32 crc = new CRC32();
+		crc.update(body);
+
+		if((int)crc.getValue() != buffer.getInt(offset + 4))
+			return null;
+
+		ByteBuffer in = ByteBuffer.wrap(body);
+		long sequence = in.getLong();
+
+		if(sequence != expectedSequence)
+			return null;
+
+		long time = in.getLong();
+		String source = readString(in, in.getShort() & 0xFFFF);
+		String event = readString(in, in.getShort() & 0xFFFF);
+		String payload = readString(in, in.getInt());
+
+		return new Record(sequence, time, source, event, payload);
+	}
+
+	private static String readString(ByteBuffer in, int length) {
+		byte[] bytes = new byte[length];
+		in.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Appends a record. It is written to the mapped file before this returns, and
+	 * made durable by the next group commit.
+	 * 
+	 * @param source
+	 *            The name of the device or component where the event occurred.
+	 *            Cannot be null.
+	 * @param event
+	 *            The name of the event. Cannot be null.
+	 * @param payload
+	 *            The details of the event. May be null, which is recorded as the
+	 *            empty string.
+	 * @return The sequence number of the record.
+	 * @throws NullPointerSimulationException
+	 *             If the source or event is null.
+	 * @throws InvalidArgumentSimulationException
+	 *             If the source or event is too long.
+	 * @throws InvalidStateSimulationException
+	 *             If the journal is closed or full.
+	 */
+	public long append(String source, String event, String payload) {
+		if(source == null)
+			throw new NullPointerSimulationException("source");
+
+		if(event == null)
+			throw new NullPointerSimulationException("event");
+
+		byte[] sourceBytes = source.getBytes(StandardCharsets.UTF_8);
+		byte[] eventBytes = event.getBytes(StandardCharsets.UTF_8);
+		byte[] payloadBytes = payload == null ? new byte[0] : payload.getBytes(StandardCharsets.UTF_8);
+
+		if(sourceBytes.length > 0xFFFF || eventBytes.length > 0xFFFF)
+			throw new InvalidArgumentSimulationException("The source or event name is too long.");
+
+		int length = 28 + sourceBytes.length + eventBytes.length + payloadBytes.length;
+		ByteBuffer body = ByteBuffer.allocate(length);
+		CRC32 crc = new CRC32();
+
+		synchronized(appendLock) {
+			if(closed)
+				throw new InvalidStateSimulationException("The journal is closed.");
+
+			if(position + RECORD_PREFIX + length > buffer.capacity())
+				throw new InvalidStateSimulationException("The journal is full.");
+
+			long sequence = nextSequence++;
+
+			body.putLong(sequence);
+			body.putLong(System.currentTimeMillis());
+			body.putShort((short)sourceBytes.length).put(sourceBytes);
+			body.putShort((short)eventBytes.length).put(eventBytes);
+			body.putInt(payloadBytes.length).put(payloadBytes);
+			crc.update(body.array());
+
+			buffer.put(position + RECORD_PREFIX, body.array());
+			buffer.putInt(position + 4, (int)crc.getValue());
+			buffer.putInt(position, length);
+			position += RECORD_PREFIX + length;
+			appendedSequence = sequence;
+
+			return sequence;
+		}
+	}
+
+	/**
+	 * Obtains a writer that appends records for the indicated source.
+	 * 
+	 * @param source
+	 *            The name of the device or component. Cannot be null.
+	 * @return The writer.
+	 * @throws NullPointerSimulationException
+	 *             If the source is null.
+	 */
+	public Writer writer(String source) {
+		if(source == null)
+			throw new NullPointerSimulationException("source");
+
+		return new Writer(source);
+	}
+
+	/**
+	 * Waits until the indicated record, and every record before it, is durable.
+	 * 
+	 * @param sequence
+	 *            The sequence number of the record.
+	 * @throws InterruptedException
+	 *             If interrupted while waiting.
+	 * @throws InvalidStateSimulationException
+	 *             If the journal is closed before the record becomes durable.
+	 */
+	public void sync(long sequence) throws InterruptedException {
+		synchronized(commitLock) {
+			while(durableSequence < sequence) {
+				if(closed)
+					throw new InvalidStateSimulationException("The journal is closed.");
+
+				syncRequested = true;
+				commitLock.notifyAll();
+				commitLock.wait();
+			}
+		}
+	}
+
+	/**
+	 * Gets the sequence number of the last durable record.
+	 * 
+	 * @return The sequence number, or -1 if no record is durable.
+	 */
+	public long getDurableSequence() {
+		synchronized(commitLock) {
+			return durableSequence;
+		}
+	}
+
+	/**
+	 * Passes every record in the journal, in order, to the indicated consumer.
+	 * Records appended while replaying are not included.
+	 * 
+	 * @param consumer
+	 *            The consumer of the records. Cannot be null.
+	 * @throws NullPointerSimulationException
+	 *             If the consumer is null.
+	 */
+	public void replay(Consumer<Record> consumer) {
+		if(consumer == null)
+			throw new NullPointerSimulationException("consumer");
+
+		int end;
+
+		synchronized(appendLock) {
+			end = position;
+		}
+
+		int offset = HEADER_LENGTH;
+		long sequence = 0;
+
+		while(offset < end) {
+			Record record = read(offset, sequence);
+			consumer.accept(record);
+			offset += RECORD_PREFIX + buffer.getInt(offset);
+			sequence++;
+		}
+	}
+
+	private void commitLoop() {
+		while(true) {
+			long target;
+
+			synchronized(commitLock) {
+				if(!syncRequested && !closed) {
+					try {
+						commitLock.wait(commitIntervalMillis);
+					}
+					catch(InterruptedException e) {}
+				}
+
+				target = appendedSequence;
+
+				if(target <= durableSequence) {
+					syncRequested = false;
+					commitLock.notifyAll();
+
+					if(closed)
+						return;
+
+					continue;
+				}
+			}
+
+			buffer.force();
+
+			synchronized(commitLock) {
+				durableSequence = target;
+				syncRequested = false;
+				commitLock.notifyAll();
+			}
+		}
+	}
+
+	/**
+	 * Commits any outstanding records, stops the commit thread and closes the
+	 * file. Further appends fail.
+	 * 
+	 * @throws IOException
+	 *             If the file cannot be closed.
+	 */
+	@Override
+	public void close() throws IOException {
+		synchronized(appendLock) {
+			if(closed)
+				return;
+
+			closed = true;
+		}
+
+		synchronized(commitLock) {
+			commitLock.notifyAll();
+		}
+
+		try {
+			committer.join();
+		}
+		catch(InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+
+		channel.close();
+	}
+
+	/**
+	 * Appends records on behalf of one source.
+	 */
+	public final class Writer {
+		private final String source;
+
+		private Writer(String source) {
+			this.source = source;
+		}
+
+		/**
+		 * Appends a record for this writer's source.
+		 * 
+		 * @param event
+		 *            The name of the event. Cannot be null.
+		 * @param payload
+		 *            The details of the event. May be null.
+		 * @return The sequence number of the record.
+		 * @see EventJournal#append(String, String, String)
+		 */
+		public long append(String event, String payload) {
+			return EventJournal.this.append(source, event, payload);
+		}
+
+		/**
+		 * Gets the name of this writer's source.
+		 * 
+		 * @return The name.
+		 */
+		public String getSource() {
+			return source;
+		}
+
+		/**
+		 * Gets the journal that this writer appends to.
+		 * 
+		 * @return The journal.
+		 */
+		public EventJournal getJournal() {
+			return EventJournal.this;
+		}
+	}
+
+	/**
+	 * One event read back from a journal.
+	 */
+	public static final class Record {
+		private final long sequence;
+		private final long time;
+		private final String source;
+		private final String event;
+		private final String payload;
+
+		private Record(long sequence, long time, String source, String event, String payload) {
+			this.sequence = sequence;
+			this.time = time;
+			this.source = source;
+			this.event = event;
+			this.payload = payload;
+		}
+
+		/**
+		 * Gets the sequence number of this record.
+		 * 
+		 * @return The sequence number, counting from 0.
+		 */
+		public long getSequence() {
+			return sequence;
+		}
+
+		/**
+		 * Gets when this record was appended.
+		 * 
+		 * @return The time, in milliseconds since the epoch.
+		 */
+		public long getTime() {
+			return time;
+		}
+
+		/**
+		 * Gets the name of the source of the event.
+		 * 
+		 * @return The source.
+		 */
+		public String getSource() {
+			return source;
+		}
+
+		/**
+		 * Gets the name of the event.
+		 * 
+		 * @return The event.
+		 */
+		public String getEvent() {
+			return event;
+		}
+
+		/**
+		 * Gets the details of the event.
+		 * 
+		 * @return The payload. May be empty; never null.
+		 */
+		public String getPayload() {
+			return payload;
+		}
+
+		@Override
+		public String toString() {
+			return sequence + " " + source + " " + event + " " + payload;
+		}
+	}
+}
@@ -0,0 +1,210 @@
+package ca.ucalgary.seng300.simulation;
+
+import java.util.ArrayDeque;
+
+/**
+ * Holds the events raised by a device or component until the outermost
+ * operation in progress on the current thread has finished, then delivers them
+ * in the order in which they were raised.
+ * <p>
+ * State changes happen while the owner is locked, but listeners run outside
+ * that lock. An operation brackets its locked section with {@link #enter()}
+ * and {@link #exit(EventDispatcher)}. Operations nest when one piece of
+ * hardware hands cash to another while locked, as when a validator passes a
+ * coin to a dispenser; the events of every piece of hardware involved are then
+ * held until the outermost operation exits, so no listener runs while any of
+ * their monitors is held, and listeners that call back into other hardware
+ * cannot deadlock against them. An event raised outside any operation, and
+ * while the owner is not locked, is published at once.
+ * </p>
+ * <p>
+ * The events of each owner are delivered in order. When an outermost operation
+ * exits, each owner involved has its events delivered in turn, in the order in
+ * which the owners first held events back.
+ * </p>
+ * <p>
+ * Only one thread publishes a given owner's events at a time. An event raised
+ * while another thread (or an enclosing listener on the same thread) is
+ * publishing is left for that publisher, which preserves the order. Such an
+ * event is therefore delivered on the publishing thread, possibly after the
+ * method that raised it has returned.
+ * </p>
+ */
+public final class EventPublisher {
+	/*
+	 * The depth of operations in progress on each thread, and the publishers
+	 * whose events are held back until the outermost one exits.
+	 */
+	private static final class Scope {
+		int depth = 0;
+		final ArrayDeque<EventPublisher> held = new ArrayDeque<>();
+		final ArrayDeque<EventDispatcher> dispatchers = new ArrayDeque<>();
+	}
+
+	private static final ThreadLocal<Scope> SCOPE = ThreadLocal.withInitial(Scope::new);
+
+	private final Object owner;
+	private final ArrayDeque<Runnable> pending = new ArrayDeque<>();
+	private boolean publishing = false; // guarded by pending
+	private volatile boolean busy = false; // publishing or events pending; written under pending
+
+	/**
+	 * Creates a publisher for the indicated owner.
+	 * 
+	 * @param owner
+	 *            The object whose monitor guards the state that events describe.
+	 *            Cannot be null.
+	 * @throws NullPointerSimulationException
+	 *             If the owner is null.
+	 */
+	public EventPublisher(Object owner) {
+		if(owner == null)
+			throw new NullPointerSimulationException("owner");
+
+		this.owner = owner;
+	}
+
+	/**
+	 * Queues the indicated event. The caller publishes it by calling
+	 * {@link #publish(EventDispatcher)}.
+	 * 
+	 * @param event
+	 *            The task that notifies the listeners of the event.
+	 */
+	public void enqueue(Runnable event) {
+		synchronized(pending) {
+			pending.add(event);
+			busy = true;
+		}
+	}
+
+	/**
+	 * Determines whether an event could be delivered at once on the current
+	 * thread, without being queued: no events are queued or being published, the
+	 * current thread does not hold the owner's monitor, and no operation is in
+	 * progress on the current thread. A caller that delivers an event directly
+	 * should do so between {@link #enter()} and {@link #exit(EventDispatcher)}, so
+	 * that events raised by the listeners are delivered after them.
+	 * 
+	 * @return true if an event can be delivered directly; otherwise, false.
+	 */
+	public boolean isIdle() {
+		return !busy && SCOPE.get().depth == 0 && !Thread.holdsLock(owner);
+	}
+
+	/**
+	 * Begins an operation on the current thread. Events published before the
+	 * matching call to {@link #exit(EventDispatcher)} are held back until the
+	 * outermost operation exits.
+	 */
+	public static void enter() {
+		SCOPE.get().depth++;
+	}
+
+	/**
+	 * Ends an operation begun by {@link #enter()} on the current thread, then
+	 * publishes the queued events as {@link #publish(EventDispatcher)} does.
+	 * Must be called exactly once for each call to {@link #enter()}, normally
+	 * from a finally block.
+	 * 
+	 * @param dispatcher
+	 *            The dispatcher to hand the events to, or null to deliver them on
+	 *            the current thread.
+	 */
+	public void exit(EventDispatcher dispatcher) {
+		Scope scope = SCOPE.get();
+
+		if(scope.depth > 0)
+			scope.depth--;
+
+		publish(dispatcher);
+	}
+
+	/**
+	 * Delivers the queued events, unless the current thread still holds the
+	 * owner's monitor, an operation is in progress on the current thread, or the
+	 * events are already being published. Once the outermost operation has
+	 * exited, the events held back by other owners during it are delivered too.
+	 * <p>
+	 * If a listener throws an exception, it propagates to the caller. Events still
+	 * queued are delivered by the next call.
+	 * </p>
+	 * 
+	 * @param dispatcher
+	 *            The dispatcher to hand the events to, or null to deliver them on
+	 *            the current thread.
+	 */
+	public void publish(EventDispatcher dispatcher) {
+		if(Thread.holdsLock(owner))
+			return;
+
+		Scope scope = SCOPE.get();
+
+		if(scope.depth > 0) {
+			if(!scope.held.contains(this)) {
+				scope.held.add(this);
+				scope.dispatchers.add(dispatcher == null ? DIRECT : dispatcher);
+			}
+
+			return;
+		}
+
+		deliver(dispatcher);
+
+		while(!scope.held.isEmpty()) {
+			EventPublisher next = scope.held.poll();
+			EventDispatcher nextDispatcher = scope.dispatchers.poll();
+			next.deliver(nextDispatcher == DIRECT ? null : nextDispatcher);
+		}
+	}
+
+	/*
+	 * Stands for delivery on the current thread in the queue of held dispatchers,
+	 * which cannot hold null.
+	 */
+	private static final EventDispatcher DIRECT = (source, event) -> event.run();
+
+	private void deliver(EventDispatcher dispatcher) {
+		if(!busy)
+			return;
+
+		synchronized(pending) {
+			if(publishing || pending.isEmpty())
+				return;
+
+			publishing = true;
+		}
+
+		boolean done = false;
+
+		try {
+			while(true) {
+				Runnable event;
+
+				synchronized(pending) {
+					event = pending.poll();
+
+					if(event == null) {
+						publishing = false;
+						busy = false;
+						done = true;
+						return;
+					}
+				}
+
+				if(dispatcher == null)
+					event.run();
+				else
+					dispatcher.dispatch(owner, event);
+			}
+		}
+		finally {
+			if(!done) {
+				synchronized(pending) {
+					publishing = false;
+					busy = !pending.isEmpty();
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,169 @@
+package ca.ucalgary.seng300.simulation;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A concurrent histogram of latencies in nanoseconds, in the style of an HDR
+ * histogram. Values are counted in log-linear buckets: each power of two is
+ * split into 16 equal sub-buckets. As a result, every recorded value is known
+ * to within about 6%, from one nanosecond up to centuries, in a fixed
+ * 960-bucket array. Recording never locks or allocates.
+ */
+public final class LatencyHistogram {
+	private static final int SUB_BUCKET_BITS = 4;
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+	private static final int BUCKETS = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+	private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+	private final LongAdder count = new LongAdder();
+	private final LongAdder sum = new LongAdder();
+	private final AtomicLong max = new AtomicLong();
+
+	/**
+	 * Records one latency. Negative values are recorded as zero.
+	 * 
+	 * @param nanos
+	 *            The latency, in nanoseconds.
+	 */
+	public void record(long nanos) {
+		if(nanos < 0)
+			nanos = 0;
+
+		counts.incrementAndGet(indexOf(nanos));
+		count.increment();
+		sum.add(nanos);
+
+		long current = max.get();
+
+		while(nanos > current && !max.compareAndSet(current, nanos))
+			current = max.get();
+	}
+
+	/**
+	 * Takes a snapshot of the recorded latencies. Recording may continue
+	 * concurrently, in which case the snapshot may be slightly inconsistent.
+	 * 
+	 * @return The snapshot.
+	 */
+	public Snapshot snapshot() {
+		long[] copy = new long[BUCKETS];
+		long total = 0;
+
+		for(int i = 0; i < BUCKETS; i++) {
+			copy[i] = counts.get(i);
+			total += copy[i];
+		}
+
+		return new Snapshot(copy, total, sum.sum(), max.get());
+	}
+
+	/*
+	 * Maps a value to its bucket. Values below 16 get a bucket each; above that,
+	 * the bucket is chosen by the exponent and the next four bits.
+	 */
+	static int indexOf(long value) {
+		if(value < SUB_BUCKETS)
+			return (int)value;
+
+		int exponent = 63 - Long.numberOfLeadingZeros(value);
+		int mantissa = (int)(value >>> (exponent - SUB_BUCKET_BITS));
+
+		return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + (mantissa - SUB_BUCKETS);
+	}
+
+	/*
+	 * The largest value that maps to the indicated bucket.
+	 */
+	static long highestValueIn(int index) {
+		if(index < SUB_BUCKETS)
+			return index;
+
+		int exponent = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+		long lowest = (long)(SUB_BUCKETS + index % SUB_BUCKETS) << (exponent - SUB_BUCKET_BITS);
+
+		return lowest + (1L << (exponent - SUB_BUCKET_BITS)) - 1;
+	}
+
+	/**
+	 * An immutable view of a histogram at one moment.
+	 */
+	public static final class Snapshot {
+		private final long[] counts;
+		private final long count;
+		private final long sum;
+		private final long max;
+
+		private Snapshot(long[] counts, long count, long sum, long max) {
+			this.counts = counts;
+			this.count = count;
+			this.sum = sum;
+			this.max = max;
+		}
+
+		/**
+		 * Gets the number of recorded latencies.
+		 * 
+		 * @return The count.
+		 */
+		public long getCount() {
+			return count;
+		}
+
+		/**
+		 * Gets the largest recorded latency.
+		 * 
+		 * @return The maximum, in nanoseconds, or 0 if nothing was recorded.
+		 */
+		public long getMax() {
+			return max;
+		}
+
+		/**
+		 * Gets the mean recorded latency.
+		 * 
+		 * @return The mean, in nanoseconds, or 0 if nothing was recorded.
+		 */
+		public double getMean() {
+			return count == 0 ? 0 : (double)sum / count;
+		}
+
+		/**
+		 * Gets the latency below or at which the indicated fraction of the recorded
+		 * latencies fall, to the precision of the histogram.
+		 * 
+		 * @param fraction
+		 *            The fraction, between 0 and 1 inclusive; e.g., 0.99 for the
+		 *            99th percentile.
+		 * @return The latency, in nanoseconds, or 0 if nothing was recorded.
+		 * @throws InvalidArgumentSimulationException
+		 *             If the fraction is out of range.
+		 */
+		public long getValueAtPercentile(double fraction) {
+			if(!(fraction >= 0 && fraction <= 1))
+				throw new InvalidArgumentSimulationException("The fraction must be between 0 and 1.");
+
+			if(count == 0)
+				return 0;
+
+			long target = Math.max(1, (long)Math.ceil(fraction * count));
+			long seen = 0;
+
+			for(int i = 0; i < counts.length; i++) {
+				seen += counts[i];
+
+				if(seen >= target)
+					return Math.min(highestValueIn(i), max);
+			}
+
+			return max;
+		}
+
+		@Override
+		public String toString() {
+			return "count=" + count + " mean=" + Math.round(getMean()) + "ns p50=" + getValueAtPercentile(0.5)
+				+ "ns p99=" + getValueAtPercentile(0.99) + "ns max=" + max + "ns";
+		}
+	}
+}
@@ -0,0 +1,145 @@
+package ca.ucalgary.seng300.simulation;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Collects how often, and how long, the operations of simulated hardware run,
+ * and how long it takes to deliver each kind of event to listeners. Each
+ * operation or event has its own {@link LatencyHistogram}.
+ * <p>
+ * Hardware records nothing unless it has been given a metrics instance, so
+ * that the only cost while metrics are disabled is the check for one. A single
+ * instance can be shared by several devices to aggregate them.
+ * </p>
+ */
+public final class Metrics {
+	private final ConcurrentHashMap<String, LatencyHistogram> operations = new ConcurrentHashMap<>();
+	private final ConcurrentHashMap<String, LatencyHistogram> dispatches = new ConcurrentHashMap<>();
+
+	/**
+	 * Begins timing an operation, if metrics are enabled.
+	 * 
+	 * @param metrics
+	 *            The metrics to record into, or null if metrics are disabled.
+	 * @return The start time, or 0 if metrics are disabled.
+	 */
+	public static long start(Metrics metrics) {
+		return metrics == null ? 0 : System.nanoTime();
+	}
+
+	/**
+	 * Finishes timing an operation begun with {@link #start(Metrics)}.
+	 * 
+	 * @param metrics
+	 *            The metrics that were passed to start.
+	 * @param operation
+	 *            The name of the operation.
+	 * @param start
+	 *            The value returned by start.
+	 */
+	public static void stop(Metrics metrics, String operation, long start) {
+		if(metrics != null && start != 0)
+			metrics.recordOperation(operation, System.nanoTime() - start);
+	}
+
+	/**
+	 * Records one run of an operation.
+	 * 
+	 * @param operation
+	 *            The name of the operation.
+	 * @param nanos
+	 *            How long it took, in nanoseconds.
+	 */
+	public void recordOperation(String operation, long nanos) {
+		histogram(operations, operation).record(nanos);
+	}
+
+	/**
+	 * Records one delivery of an event to the listeners.
+	 * 
+	 * @param event
+	 *            The name of the event.
+	 * @param nanos
+	 *            How long the delivery took, in nanoseconds.
+	 */
+	public void recordDispatch(String event, long nanos) {
+		histogram(dispatches, event).record(nanos);
+	}
+
+	private static LatencyHistogram histogram(ConcurrentHashMap<String, LatencyHistogram> map, String name) {
+		LatencyHistogram histogram = map.get(name);
+
+		if(histogram == null)
+			histogram = map.computeIfAbsent(name, n -> new LatencyHistogram());
+
+		return histogram;
+	}
+
+	/**
+	 * Takes a snapshot of everything recorded so far.
+	 * 
+	 * @return The snapshot.
+	 */
+	public Snapshot snapshot() {
+		return new Snapshot(copy(operations), copy(dispatches));
+	}
+
+	private static Map<String, LatencyHistogram.Snapshot> copy(ConcurrentHashMap<String, LatencyHistogram> map) {
+		TreeMap<String, LatencyHistogram.Snapshot> copy = new TreeMap<>();
+
+		for(Map.Entry<String, LatencyHistogram> entry : map.entrySet())
+			copy.put(entry.getKey(), entry.getValue().snapshot());
+
+		return Collections.unmodifiableMap(copy);
+	}
+
+	/**
+	 * An immutable view of the metrics at one moment.
+	 */
+	public static final class Snapshot {
+		private final Map<String, LatencyHistogram.Snapshot> operations;
+		private final Map<String, LatencyHistogram.Snapshot> dispatches;
+
+		private Snapshot(Map<String, LatencyHistogram.Snapshot> operations,
+			Map<String, LatencyHistogram.Snapshot> dispatches) {
+			this.operations = operations;
+			this.dispatches = dispatches;
+		}
+
+		/**
+		 * Gets the latencies of each operation.
+		 * 
+		 * @return An unmodifiable map from operation names to their latencies,
+		 *             sorted by name.
+		 */
+		public Map<String, LatencyHistogram.Snapshot> getOperations() {
+			return operations;
+		}
+
+		/**
+		 * Gets the delivery latencies of each event.
+		 * 
+		 * @return An unmodifiable map from event names to their delivery
+		 *             latencies, sorted by name.
+		 */
+		public Map<String, LatencyHistogram.Snapshot> getDispatches() {
+			return dispatches;
+		}
+
+		@Override
+		public String toString() {
+			StringBuilder sb = new StringBuilder();
+
+			for(Map.Entry<String, LatencyHistogram.Snapshot> entry : operations.entrySet())
+				sb.append(entry.getKey()).append(": ").append(entry.getValue()).append('\n');
+
+			for(Map.Entry<String, LatencyHistogram.Snapshot> entry : dispatches.entrySet())
+				sb.append("dispatch ").append(entry.getKey()).append(": ").append(entry.getValue()).append('\n');
+
+			return sb.toString();
+		}
+	}
+}
@@ -0,0 +1,45 @@
+package ca.ucalgary.seng300.simulation;
+
+import java.util.SplittableRandom;
+
+/**
+ * The source of all the pseudorandom numbers used by the simulated hardware.
+ * <p>
+ * Each device, component, card or grid draws from its own stream, split from a
+ * common root when the object is created. Objects therefore never contend for
+ * a shared generator, and a simulation that calls {@link #seed(long)} before
+ * creating its hardware, and creates it in the same order, behaves
+ * reproducibly.
+ * </p>
+ * <p>
+ * A stream is not thread-safe; its owner must draw from it while holding its
+ * own lock.
+ * </p>
+ */
+public final class Randomness {
+	private static SplittableRandom root = new SplittableRandom();
+
+	/**
+	 * Instances of this class are not needed, so the constructor is private.
+	 */
+	private Randomness() {}
+
+	/**
+	 * Seeds the root from which all subsequent streams are split.
+	 * 
+	 * @param seed
+	 *            The seed to use.
+	 */
+	public static synchronized void seed(long seed) {
+		root = new SplittableRandom(seed);
+	}
+
+	/**
+	 * Splits a new, independent stream from the root.
+	 * 
+	 * @return The new stream.
+	 */
+	public static synchronized SplittableRandom newStream() {
+		return root.split();
+	}
+}
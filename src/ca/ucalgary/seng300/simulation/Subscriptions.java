@@ -0,0 +1,326 @@
+package ca.ucalgary.seng300.simulation;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.TypeVariable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * An immutable set of subscribers to the events of a device or component,
+ * together with the events each subscriber is interested in. Events are
+ * identified by the names of the subscriber methods that receive them, as in
+ * the "coinAdded" event.
+ * <p>
+ * For each event that any subscriber has restricted itself to, a dispatch list
+ * is precomputed. It holds only the subscribers that receive that event, in
+ * subscription order. Dispatching an event is then a walk over only the
+ * relevant subscribers. Adding or removing a subscriber produces a new
+ * instance, so a reference to an instance can be published through a volatile
+ * field and read without locking.
+ * </p>
+ * <p>
+ * Event names are checked against the methods of the listener interface, so a
+ * misspelled event is rejected rather than silently never delivered.
+ * </p>
+ * 
+ * @param <T>
+ *            The type of subscribers.
+ */
+public final class Subscriptions<T> {
+	private static final Subscriptions<?> EMPTY = new Subscriptions<>(null, List.of(), List.of());
+
+	/*
+	 * The names of the methods of each listener interface or, for a class, of
+	 * every interface it implements.
+	 */
+	private static final ClassValue<Set<String>> EVENTS = new ClassValue<>() {
+		@Override
+		protected Set<String> computeValue(Class<?> type) {
+			HashSet<String> names = new HashSet<>();
+
+			if(type.isInterface())
+				for(Method method : type.getMethods())
+					names.add(method.getName());
+			else
+				for(Class<?> c = type; c != null; c = c.getSuperclass())
+					for(Class<?> implemented : c.getInterfaces())
+						names.addAll(get(implemented));
+
+			return Set.copyOf(names);
+		}
+	};
+
+	private final Class<?> listenerType; // null if unknown
+	private final List<T> subscribers;
+	private final List<Set<String>> interests; // null entries mean "every event"
+	private final List<T> unrestricted;
+	private final Map<String, List<T>> dispatchLists;
+
+	/**
+	 * Obtains the empty set of subscriptions.
+	 * 
+	 * @param <T>
+	 *            The type of subscribers.
+	 * @return The empty set of subscriptions.
+	 */
+	@SuppressWarnings("unchecked")
+	public static <T> Subscriptions<T> empty() {
+		return (Subscriptions<T>)EMPTY;
+	}
+
+	/**
+	 * Obtains an empty set of subscriptions whose event names are checked against
+	 * the methods of the indicated listener interface.
+	 * 
+	 * @param <T>
+	 *            The type of subscribers.
+	 * @param listenerType
+	 *            The listener interface. Cannot be null.
+	 * @return The empty set of subscriptions.
+	 * @throws NullPointerSimulationException
+	 *             If the listener type is null.
+	 */
+	public static <T> Subscriptions<T> empty(Class<?> listenerType) {
+		if(listenerType == null)
+			throw new NullPointerSimulationException("listenerType");
+
+		return new Subscriptions<>(listenerType, List.of(), List.of());
+	}
+
+	/**
+	 * Determines the listener interface with which a subclass of a generic
+	 * device or component class instantiates its type parameter, as
+	 * <code>CoinSlotObserver</code> for <code>CoinSlot</code>, which extends
+	 * <code>AbstractComponent&lt;CoinSlotObserver&gt;</code>.
+	 * 
+	 * @param owner
+	 *            The class of the device or component.
+	 * @param generic
+	 *            The generic superclass whose first type parameter is the
+	 *            listener type.
+	 * @param bound
+	 *            The bound of that type parameter, used when the argument cannot
+	 *            be determined.
+	 * @return The listener interface.
+	 */
+	public static Class<?> listenerType(Class<?> owner, Class<?> generic, Class<?> bound) {
+		Class<?> c = owner;
+
+		while(c != null && c.getSuperclass() != generic)
+			c = c.getSuperclass();
+
+		if(c == null || !(c.getGenericSuperclass() instanceof ParameterizedType))
+			return bound;
+
+		Type argument = ((ParameterizedType)c.getGenericSuperclass()).getActualTypeArguments()[0];
+
+		if(argument instanceof TypeVariable)
+			argument = ((TypeVariable<?>)argument).getBounds()[0];
+
+		if(argument instanceof ParameterizedType)
+			argument = ((ParameterizedType)argument).getRawType();
+
+		if(argument instanceof Class && bound.isAssignableFrom((Class<?>)argument))
+			return (Class<?>)argument;
+
+		return bound;
+	}
+
+	private Subscriptions(Class<?> listenerType, List<T> subscribers, List<Set<String>> interests) {
+		this.listenerType = listenerType;
+		this.subscribers = List.copyOf(subscribers);
+		this.interests = interests;
+
+		ArrayList<T> unrestricted = new ArrayList<>();
+		HashMap<String, ArrayList<T>> lists = new HashMap<>();
+
+		for(Set<String> events : interests)
+			if(events != null)
+				for(String event : events)
+					lists.putIfAbsent(event, new ArrayList<>());
+
+		for(int i = 0; i < subscribers.size(); i++) {
+			T subscriber = subscribers.get(i);
+			Set<String> events = interests.get(i);
+
+			if(events == null) {
+				unrestricted.add(subscriber);
+
+				for(ArrayList<T> list : lists.values())
+					list.add(subscriber);
+			}
+			else
+				for(String event : events)
+					lists.get(event).add(subscriber);
+		}
+
+		HashMap<String, List<T>> dispatchLists = new HashMap<>();
+
+		for(Map.Entry<String, ArrayList<T>> entry : lists.entrySet())
+			dispatchLists.put(entry.getKey(), List.copyOf(entry.getValue()));
+
+		this.unrestricted = List.copyOf(unrestricted);
+		this.dispatchLists = Map.copyOf(dispatchLists);
+	}
+
+	/**
+	 * Obtains the empty set of subscriptions for the same listener interface.
+	 * 
+	 * @return The subscriptions with every subscriber removed.
+	 */
+	public Subscriptions<T> withoutAll() {
+		if(subscribers.isEmpty())
+			return this;
+
+		return new Subscriptions<>(listenerType, List.of(), List.of());
+	}
+
+	/**
+	 * Obtains all the subscribers, in subscription order.
+	 * 
+	 * @return An unmodifiable list of the subscribers.
+	 */
+	public List<T> all() {
+		return subscribers;
+	}
+
+	/**
+	 * Obtains the subscribers that receive the indicated event, in subscription
+	 * order.
+	 * 
+	 * @param event
+	 *            The name of the event.
+	 * @return An unmodifiable list of the subscribers interested in the event.
+	 */
+	public List<T> recipients(String event) {
+		List<T> list = dispatchLists.get(event);
+
+		if(list == null)
+			return unrestricted;
+
+		return list;
+	}
+
+	/**
+	 * Obtains the subscribers that receive either of the indicated events, in
+	 * subscription order.
+	 * 
+	 * @param event
+	 *            The name of one event.
+	 * @param other
+	 *            The name of the other event.
+	 * @return An unmodifiable list of the subscribers interested in either event.
+	 */
+	public List<T> recipients(String event, String other) {
+		List<T> first = dispatchLists.get(event);
+		List<T> second = dispatchLists.get(other);
+
+		if(first == null && second == null)
+			return unrestricted;
+		else if(second == null)
+			return first;
+		else if(first == null)
+			return second;
+
+		ArrayList<T> merged = new ArrayList<>();
+
+		for(T subscriber : subscribers)
+			if(first.contains(subscriber) || second.contains(subscriber))
+				merged.add(subscriber);
+
+		return merged;
+	}
+
+	/**
+	 * Obtains the events that the indicated subscriber is interested in.
+	 * 
+	 * @param subscriber
+	 *            The subscriber.
+	 * @return The names of the events, or null if the subscriber receives every
+	 *             event or is not subscribed.
+	 */
+	public String[] interestsOf(T subscriber) {
+		int index = subscribers.indexOf(subscriber);
+
+		if(index < 0 || interests.get(index) == null)
+			return null;
+
+		return interests.get(index).toArray(new String[0]);
+	}
+
+	/**
+	 * Adds a subscriber.
+	 * 
+	 * @param subscriber
+	 *            The subscriber to add. Cannot be null.
+	 * @param events
+	 *            The names of the events that the subscriber is interested in. If
+	 *            null or empty, the subscriber receives every event. Each must name
+	 *            a method of the listener interface or, if that is unknown, of an
+	 *            interface that the subscriber implements.
+	 * @return The subscriptions with the subscriber added.
+	 * @throws NullPointerSimulationException
+	 *             If the subscriber or any event name is null.
+	 * @throws InvalidArgumentSimulationException
+	 *             If an event name does not name a listener method.
+	 */
+	public Subscriptions<T> with(T subscriber, String... events) {
+		if(subscriber == null)
+			throw new NullPointerSimulationException("listener");
+
+		Set<String> interest = null;
+
+		if(events != null && events.length > 0) {
+			Set<String> methods = EVENTS.get(listenerType != null ? listenerType : subscriber.getClass());
+
+			for(String event : events) {
+				if(event == null)
+					throw new NullPointerSimulationException("event");
+
+				if(!methods.contains(event))
+					throw new InvalidArgumentSimulationException("No such event: " + event);
+			}
+
+			interest = Set.copyOf(Arrays.asList(events));
+		}
+
+		ArrayList<T> subscribers = new ArrayList<>(this.subscribers);
+		ArrayList<Set<String>> interests = new ArrayList<>(this.interests);
+		subscribers.add(subscriber);
+		interests.add(interest);
+
+		return new Subscriptions<>(listenerType, subscribers, interests);
+	}
+
+	/**
+	 * Removes the first occurrence of a subscriber.
+	 * 
+	 * @param subscriber
+	 *            The subscriber to remove.
+	 * @return The subscriptions with the subscriber removed, or this instance if
+	 *             it was not subscribed.
+	 */
+	public Subscriptions<T> without(T subscriber) {
+		if(subscriber == null)
+			return this;
+
+		int index = subscribers.indexOf(subscriber);
+
+		if(index < 0)
+			return this;
+
+		ArrayList<T> subscribers = new ArrayList<>(this.subscribers);
+		ArrayList<Set<String>> interests = new ArrayList<>(this.interests);
+		subscribers.remove(index);
+		interests.remove(index);
+
+		return new Subscriptions<>(listenerType, subscribers, interests);
+	}
+}
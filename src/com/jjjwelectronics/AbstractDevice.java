@@ -1,13 +1,18 @@
 package com.jjjwelectronics;
 
-import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 
+import ca.ucalgary.seng300.simulation.EventDispatcher;
+import ca.ucalgary.seng300.simulation.EventPublisher;
+import ca.ucalgary.seng300.simulation.Metrics;
 import ca.ucalgary.seng300.simulation.InvalidStateSimulationException;
 import ca.ucalgary.seng300.simulation.NullPointerSimulationException;
+import ca.ucalgary.seng300.simulation.Subscriptions;
 import powerutility.NoPowerException;
 import powerutility.PowerGrid;
+import powerutility.PowerGridListener;
 
 /**
  * The abstract base class for all devices from JJJW Electronics.
@@ -30,19 +35,49 @@ import powerutility.PowerGrid;
  * @author JJJW Electronics LLP
  */
 public abstract class AbstractDevice<T extends IDeviceListener> implements IDevice<T> {
-	private PowerGrid grid = null;
-	private boolean poweredUp;
+	private volatile PowerGrid grid = null;
+	private volatile PowerGrid.PowerState gridState = PowerGrid.PowerState.OUTAGE;
+	private final PowerGridListener gridListener = new PowerGridListener() {
+		@Override
+		public void powerStateChanged(PowerGrid grid, PowerGrid.PowerState state) {
+			gridState = state;
+		}
+	};
+
+	/*
+	 * The power and enable flags, packed into one word so that they can be read
+	 * without locking and changed by compare-and-set.
+	 */
+	private static final int POWERED_UP = 1;
+	private static final int DISABLED = 2;
+	private final AtomicInteger state = new AtomicInteger();
+
+	/*
+	 * Sets or clears the indicated flag, returning whether it changed.
+	 */
+	private boolean setFlag(int flag, boolean value) {
+		while(true) {
+			int current = state.get();
+			int next = value ? current | flag : current & ~flag;
+
+			if(current == next)
+				return false;
+
+			if(state.compareAndSet(current, next))
+				return true;
+		}
+	}
 
 	@Override
-	public synchronized boolean isPluggedIn() {
+	public boolean isPluggedIn() {
 		return grid != null;
 	}
 
 	@Override
-	public synchronized boolean isPoweredUp() {
+	public boolean isPoweredUp() {
 		if(grid != null) {
-			if(poweredUp) {
-				if(grid.hasPower())
+			if((state.get() & POWERED_UP) != 0) {
+				if(gridState.hasPower())
 					return true;
 			}
 		}
@@ -55,23 +90,27 @@ public abstract class AbstractDevice<T extends IDeviceListener> implements IDevi
 		if(grid == null)
 			throw new NullPointerSimulationException("You cannot plug into a non-existent grid.");
 
+		if(this.grid != null)
+			this.grid.deregister(gridListener);
+
+		grid.register(gridListener);
 		this.grid = grid;
 	}
 
 	@Override
 	public synchronized void unplug() {
+		if(grid != null)
+			grid.deregister(gridListener);
+
 		grid = null;
-		poweredUp = false;
+		setFlag(POWERED_UP, false);
 	}
 
 	@Override
-	public synchronized void turnOn() {
+	public void turnOn() {
 		if(grid != null) {
-			if(poweredUp == false) {
-				poweredUp = true;
-
+			if(setFlag(POWERED_UP, true))
 				notifyTurnedOn();
-			}
 
 			// else do nothing
 		}
@@ -80,87 +119,236 @@ public abstract class AbstractDevice<T extends IDeviceListener> implements IDevi
 	}
 
 	private void notifyTurnedOn() {
-		for(T listener : listeners)
-			listener.aDeviceHasBeenTurnedOn(this);
+		notifyListeners("aDeviceHasBeenTurnedOn", listener -> listener.aDeviceHasBeenTurnedOn(this));
 	}
 
 	@Override
-	public synchronized void turnOff() {
-		if(poweredUp == true) {
-			poweredUp = false;
-
+	public void turnOff() {
+		if(setFlag(POWERED_UP, false))
 			notifyTurnedOff();
-		}
 	}
 
 	private void notifyTurnedOff() {
-		for(T listener : listeners)
-			listener.aDeviceHasBeenTurnedOff(this);
+		notifyListeners("aDeviceHasBeenTurnedOff", listener -> listener.aDeviceHasBeenTurnedOff(this));
 	}
 
-	private ArrayList<T> listeners = new ArrayList<>();
+	/*
+	 * The registered listeners and their interests. The subscriptions are
+	 * replaced, never modified, when listeners are registered or deregistered, so
+	 * notification can read them without copying or locking.
+	 */
+	private volatile Subscriptions<T> subscriptions = Subscriptions
+		.empty(Subscriptions.listenerType(getClass(), AbstractDevice.class, IDeviceListener.class));
 
 	@Override
 	public List<T> listeners() {
-		@SuppressWarnings("unchecked")
-		List<T> clone = (List<T>)listeners.clone();
-
-		return Collections.unmodifiableList(clone);
+		return subscriptions.all();
 	}
 
 	@Override
 	public synchronized boolean deregister(T listener) {
-		return listeners.remove(listener);
+		Subscriptions<T> remaining = subscriptions.without(listener);
+
+		if(remaining == subscriptions)
+			return false;
+
+		subscriptions = remaining;
+		return true;
 	}
 
 	@Override
 	public synchronized void deregisterAll() {
-		listeners.clear();
+		subscriptions = subscriptions.withoutAll();
 	}
 
 	@Override
 	public final synchronized void register(T listener) {
-		if(listener == null)
-			throw new NullPointerSimulationException("listener");
+		subscriptions = subscriptions.with(listener);
+	}
+
+	@Override
+	public final synchronized void register(T listener, String... events) {
+		subscriptions = subscriptions.with(listener, events);
+	}
+
+	/**
+	 * Obtains the events that the indicated listener was registered for.
+	 * 
+	 * @param listener
+	 *            The listener.
+	 * @return The names of the events, or null if the listener receives every
+	 *             event or is not registered.
+	 */
+	protected final String[] interestsOf(T listener) {
+		return subscriptions.interestsOf(listener);
+	}
+
+	private volatile EventDispatcher dispatcher = null;
+
+	@Override
+	public void setEventDispatcher(EventDispatcher dispatcher) {
+		this.dispatcher = dispatcher;
+	}
+
+	@Override
+	public EventDispatcher getEventDispatcher() {
+		return dispatcher;
+	}
 
-		listeners.add(listener);
+	private volatile Metrics metrics = null;
+
+	@Override
+	public void setMetrics(Metrics metrics) {
+		this.metrics = metrics;
+	}
+
+	@Override
+	public Metrics getMetrics() {
+		return metrics;
+	}
+
+	/**
+	 * Begins timing an operation of this device, if metrics are enabled.
+	 * 
+	 * @return The start time, to be passed to {@link #stopOperation(String, long)}.
+	 */
+	protected final long startOperation() {
+		return Metrics.start(metrics);
 	}
 
-	private boolean disabled = false;
+	/**
+	 * Finishes timing an operation of this device, if metrics are enabled.
+	 * 
+	 * @param operation
+	 *            The name of the operation, normally the name of the method.
+	 * @param start
+	 *            The value returned by {@link #startOperation()}.
+	 */
+	protected final void stopOperation(String operation, long start) {
+		Metrics.stop(metrics, operation, start);
+	}
+
+	/*
+	 * Events raised while this device is locked wait here until it is unlocked.
+	 */
+	private final EventPublisher publisher = new EventPublisher(this);
+
+	/**
+	 * Announces an event to the listeners registered at this moment. If this device
+	 * is locked by the calling thread, or an operation begun by
+	 * {@link #holdEvents()} is in progress on it, the event is queued until the
+	 * lock is released and the outermost operation has ended; otherwise, it is
+	 * published immediately. Events are delivered in the order they were raised,
+	 * on the calling thread or through the dispatcher, if there is one; an event
+	 * raised while another thread is delivering this device's events is
+	 * delivered by that thread. Subclasses should use this in their notifyXXX methods, capturing any
+	 * mutable state in locals first.
+	 * 
+	 * @param name
+	 *            The name of the event, which is the name of the listener method
+	 *            that receives it. Only listeners interested in it are notified.
+	 * @param event
+	 *            The action to perform on each listener.
+	 */
+	protected final void notifyListeners(String name, Consumer<? super T> event) {
+		List<T> snapshot = subscriptions.recipients(name);
+
+		if(snapshot.isEmpty())
+			return;
+
+		EventDispatcher dispatcher = this.dispatcher;
+
+		if(dispatcher == null && publisher.isIdle()) {
+			// Nothing to order this event behind: deliver it without queuing
+			EventPublisher.enter();
+
+			try {
+				deliver(name, snapshot, event);
+			}
+			finally {
+				publisher.exit(null);
+			}
+
+			return;
+		}
+
+		publisher.enqueue(() -> deliver(name, snapshot, event));
+		publisher.publish(dispatcher);
+	}
+
+	private void deliver(String name, List<T> snapshot, Consumer<? super T> event) {
+		Metrics metrics = this.metrics;
+		long start = Metrics.start(metrics);
+
+		for(T listener : snapshot)
+			event.accept(listener);
+
+		if(start != 0)
+			metrics.recordDispatch(name, System.nanoTime() - start);
+	}
+
+	/**
+	 * Delivers the events raised while this device was locked. Does nothing if
+	 * the calling thread still holds the lock or is inside an operation begun by
+	 * {@link #holdEvents()}; the events are then delivered when the outermost
+	 * such operation ends.
+	 */
+	protected final void publishPendingEvents() {
+		publisher.publish(dispatcher);
+	}
+
+	/**
+	 * Begins an operation that changes state while locked and raises events.
+	 * Until the outermost operation in progress on the calling thread ends, the
+	 * events of this and any other hardware it hands off to are held back, so
+	 * that no listener runs while any of their locks is held. Each call must be
+	 * matched by a call to {@link #releaseEvents()}, normally as
+	 * <code>holdEvents(); try { synchronized(this) { ... } } finally { releaseEvents(); }</code>.
+	 */
+	protected final void holdEvents() {
+		EventPublisher.enter();
+	}
+
+	/**
+	 * Ends an operation begun by {@link #holdEvents()} and delivers the events
+	 * raised while this device was locked, once no enclosing operation remains
+	 * in progress on the calling thread.
+	 */
+	protected final void releaseEvents() {
+		publisher.exit(dispatcher);
+	}
 
 	@Override
-	public synchronized void disable() {
+	public void disable() {
 		if(!isPoweredUp())
 			throw new NoPowerException();
 
-		disabled = true;
+		setFlag(DISABLED, true);
 		notifyDisabled();
 	}
 
 	private void notifyDisabled() {
-		for(T listener : listeners())
-			listener.aDeviceHasBeenDisabled(this);
+		notifyListeners("aDeviceHasBeenDisabled", listener -> listener.aDeviceHasBeenDisabled(this));
 	}
 
 	@Override
-	public synchronized void enable() {
+	public void enable() {
 		if(!isPoweredUp())
 			throw new NoPowerException();
 
-		disabled = false;
+		setFlag(DISABLED, false);
 		notifyEnabled();
 	}
 
 	private void notifyEnabled() {
-		for(T listener : listeners())
-			listener.aDeviceHasBeenEnabled(this);
+		notifyListeners("aDeviceHasBeenEnabled", listener -> listener.aDeviceHasBeenEnabled(this));
 	}
 
 	@Override
-	public final synchronized boolean isDisabled() {
+	public final boolean isDisabled() {
 		if(!isPoweredUp())
 			throw new NoPowerException();
 
-		return disabled;
+		return (state.get() & DISABLED) != 0;
 	}
 }
@@ -2,6 +2,9 @@ package com.jjjwelectronics;
 
 import java.util.List;
 
+import ca.ucalgary.seng300.simulation.EventDispatcher;
+import ca.ucalgary.seng300.simulation.InvalidArgumentSimulationException;
+import ca.ucalgary.seng300.simulation.Metrics;
 import ca.ucalgary.seng300.simulation.NullPointerSimulationException;
 import ca.ucalgary.seng300.simulation.SimulationException;
 import powerutility.NoPowerException;
@@ -99,6 +102,23 @@ public interface IDevice<T extends IDeviceListener> {
 	 */
 	void register(T listener);
 
+	/**
+	 * Registers the indicated listener to receive only the indicated events from
+	 * this device. Events are named after the listener methods that receive them,
+	 * e.g., "aDeviceHasBeenEnabled". Does not require power.
+	 * 
+	 * @param listener
+	 *            The listener to be added.
+	 * @param events
+	 *            The names of the events of interest. If none are given, the
+	 *            listener receives every event.
+	 * @throws NullPointerSimulationException
+	 *             If the listener or any event name is null.
+	 * @throws InvalidArgumentSimulationException
+	 *             If an event name is not the name of a listener method.
+	 */
+	void register(T listener, String... events);
+
 	/**
 	 * Disables this device from receiving input and producing output. Announces
 	 * "disabled" event. Requires power.
@@ -125,4 +145,39 @@ public interface IDevice<T extends IDeviceListener> {
 	 * @return An unmodifiable list of the listeners registered on this device.
 	 */
 	List<T> listeners();
-}
\ No newline at end of file
+
+	/**
+	 * Sets the dispatcher through which events from this device are delivered to
+	 * its listeners. Does not require power.
+	 * 
+	 * @param dispatcher
+	 *            The dispatcher to use, or null to deliver events synchronously,
+	 *            on the thread that caused them (the default).
+	 */
+	void setEventDispatcher(EventDispatcher dispatcher);
+
+	/**
+	 * Obtains the dispatcher through which events from this device are delivered.
+	 * Does not require power.
+	 * 
+	 * @return The dispatcher, or null if events are delivered synchronously.
+	 */
+	EventDispatcher getEventDispatcher();
+
+	/**
+	 * Sets where this device records how often and how long its operations and
+	 * event deliveries take.
+	 * 
+	 * @param metrics
+	 *            The metrics to record into, or null to record nothing (the
+	 *            default).
+	 */
+	void setMetrics(Metrics metrics);
+
+	/**
+	 * Obtains where this device records its metrics.
+	 * 
+	 * @return The metrics, or null if none are recorded.
+	 */
+	Metrics getMetrics();
+}
@@ -71,18 +71,15 @@ public abstract class AbstractReusableBagDispenser extends AbstractDevice<Reusab
 	}
 
 	protected void notifyBagsLoaded(int count) {
-		for(ReusableBagDispenserListener listener : listeners())
-			listener.bagsHaveBeenLoadedIntoTheDispenser(count);
+		notifyListeners("bagsHaveBeenLoadedIntoTheDispenser", listener -> listener.bagsHaveBeenLoadedIntoTheDispenser(count));
 	}
 
 	protected void notifyBagDispensed() {
-		for(ReusableBagDispenserListener listener : listeners())
-			listener.aBagHasBeenDispensedByTheDispenser();
+		notifyListeners("aBagHasBeenDispensedByTheDispenser", listener -> listener.aBagHasBeenDispensedByTheDispenser());
 	}
 
 	protected void notifyOutOfBags() {
-		for(ReusableBagDispenserListener listener : listeners())
-			listener.theDispenserIsOutOfBags();
+		notifyListeners("theDispenserIsOutOfBags", listener -> listener.theDispenserIsOutOfBags());
 	}
 
 }
\ No newline at end of file
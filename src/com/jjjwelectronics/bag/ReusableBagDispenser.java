@@ -1,7 +1,5 @@
 package com.jjjwelectronics.bag;
 
-import java.util.Random;
-
 import ca.ucalgary.seng300.simulation.InvalidArgumentSimulationException;
 
 /**
@@ -13,8 +11,6 @@ import ca.ucalgary.seng300.simulation.InvalidArgumentSimulationException;
  * @author JJJW Electronics LLP
  */
 public class ReusableBagDispenser extends AbstractReusableBagDispenser {
-	private static final Random random = new Random();
-
 	/**
 	 * Basic constructor permitting the capacity to be set.
 	 * 
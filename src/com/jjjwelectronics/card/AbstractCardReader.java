@@ -1,12 +1,13 @@
 package com.jjjwelectronics.card;
 
 import java.io.IOException;
-import java.util.concurrent.ThreadLocalRandom;
+import java.util.SplittableRandom;
 
 import com.jjjwelectronics.AbstractDevice;
 import com.jjjwelectronics.card.Card.CardData;
 
 import ca.ucalgary.seng300.simulation.NullPointerSimulationException;
+import ca.ucalgary.seng300.simulation.Randomness;
 import powerutility.NoPowerException;
 
 /**
@@ -16,74 +17,110 @@ import powerutility.NoPowerException;
  */
 public abstract class AbstractCardReader extends AbstractDevice<CardReaderListener> implements ICardReader {
 	protected boolean cardIsInserted = false;
-	protected static final ThreadLocalRandom random = ThreadLocalRandom.current();
+	private final SplittableRandom random = Randomness.newStream();
 	protected double probabilityOfTapFailure = 0.05;
 	protected double probabilityOfInsertFailure = 0.05;
 	protected double probabilityOfSwipeFailure = 0.5;
 
+	/**
+	 * Obtains the stream of random numbers that decides whether reading a card
+	 * fails. Each reader has its own stream, handed out by {@link Randomness}
+	 * when the reader is built, so seeding {@link Randomness} first makes its
+	 * failures reproducible. Draw from it only while this reader is locked.
+	 * 
+	 * @return The stream of random numbers.
+	 */
+	protected final SplittableRandom getRandom() {
+		return random;
+	}
+
 	@Override
-	public synchronized CardData tap(Card card) throws IOException {
-		if(!isPoweredUp())
-			throw new NoPowerException();
+	public CardData tap(Card card) throws IOException {
+		holdEvents();
+		try {
+			synchronized(this) {
+				if(!isPoweredUp())
+					throw new NoPowerException();
 	
-		if(card.isTapEnabled) {
-			notifyCardTapped();
+				if(card.isTapEnabled) {
+					notifyCardTapped();
 	
-			if(random.nextDouble(0.0, 1.0) > probabilityOfTapFailure) {
-				CardData data = card.tap();
+					if(random.nextDouble(0.0, 1.0) > probabilityOfTapFailure) {
+						CardData data = card.tap();
 	
-				notifyCardDataRead(data);
+						notifyCardDataRead(data);
 	
-				return data;
-			}
-			else
-				throw new ChipFailureException();
-		}
+						return data;
+					}
+					else
+						throw new ChipFailureException();
+				}
 	
-		// else ignore
+				// else ignore
 	
-		return null;
+				return null;
+			}
+		}
+		finally {
+			releaseEvents();
+		}
 	}
 
 	@Override
-	public synchronized CardData swipe(Card card) throws IOException {
-		if(!isPoweredUp())
-			throw new NoPowerException();
+	public CardData swipe(Card card) throws IOException {
+		holdEvents();
+		try {
+			synchronized(this) {
+				if(!isPoweredUp())
+					throw new NoPowerException();
 	
-		notifyCardSwiped();
+				notifyCardSwiped();
 	
-		if(random.nextDouble(0.0, 1.0) > probabilityOfSwipeFailure) {
-			CardData data = card.swipe();
+				if(random.nextDouble(0.0, 1.0) > probabilityOfSwipeFailure) {
+					CardData data = card.swipe();
 	
-			notifyCardDataRead(data);
+					notifyCardDataRead(data);
 	
-			return data;
-		}
+					return data;
+				}
 	
-		throw new MagneticStripeFailureException();
+				throw new MagneticStripeFailureException();
+			}
+		}
+		finally {
+			releaseEvents();
+		}
 	}
 
 	@Override
-	public synchronized CardData insert(Card card, String pin) throws IOException {
-		if(!isPoweredUp())
-			throw new NoPowerException();
+	public CardData insert(Card card, String pin) throws IOException {
+		holdEvents();
+		try {
+			synchronized(this) {
+				if(!isPoweredUp())
+					throw new NoPowerException();
 	
-		if(cardIsInserted)
-			throw new IllegalStateException("There is already a card in the slot");
+				if(cardIsInserted)
+					throw new IllegalStateException("There is already a card in the slot");
 	
-		cardIsInserted = true;
+				cardIsInserted = true;
 	
-		notifyCardInserted();
+				notifyCardInserted();
 	
-		if(card.hasChip && random.nextDouble(0.0, 1.0) > probabilityOfInsertFailure) {
-			CardData data = card.insert(pin);
+				if(card.hasChip && random.nextDouble(0.0, 1.0) > probabilityOfInsertFailure) {
+					CardData data = card.insert(pin);
 	
-			notifyCardDataRead(data);
+					notifyCardDataRead(data);
 	
-			return data;
-		}
+					return data;
+				}
 	
-		throw new ChipFailureException();
+				throw new ChipFailureException();
+			}
+		}
+		finally {
+			releaseEvents();
+		}
 	}
 
 	@Override
@@ -99,27 +136,22 @@ public abstract class AbstractCardReader extends AbstractDevice<CardReaderListen
 	}
 
 	protected void notifyCardTapped() {
-		for(CardReaderListener l : listeners())
-			l.aCardHasBeenTapped();
+		notifyListeners("aCardHasBeenTapped", l -> l.aCardHasBeenTapped());
 	}
 
 	protected void notifyCardInserted() {
-		for(CardReaderListener l : listeners())
-			l.aCardHasBeenInserted();
+		notifyListeners("aCardHasBeenInserted", l -> l.aCardHasBeenInserted());
 	}
 
 	protected void notifyCardSwiped() {
-		for(CardReaderListener l : listeners())
-			l.aCardHasBeenSwiped();
+		notifyListeners("aCardHasBeenSwiped", l -> l.aCardHasBeenSwiped());
 	}
 
 	protected void notifyCardDataRead(CardData data) {
-		for(CardReaderListener l : listeners())
-			l.theDataFromACardHasBeenRead(data);
+		notifyListeners("theDataFromACardHasBeenRead", l -> l.theDataFromACardHasBeenRead(data));
 	}
 
 	protected void notifyCardRemoved() {
-		for(CardReaderListener l : listeners())
-			l.theCardHasBeenRemoved();
+		notifyListeners("theCardHasBeenRemoved", l -> l.theCardHasBeenRemoved());
 	}
 }
\ No newline at end of file
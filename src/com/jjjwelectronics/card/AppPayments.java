@@ -1,9 +1,10 @@
 package com.jjjwelectronics.card;
 
 import java.io.IOException;
-import java.util.Random;
+import java.util.SplittableRandom;
 
 import ca.ucalgary.seng300.simulation.NullPointerSimulationException;
+import ca.ucalgary.seng300.simulation.Randomness;
 import ca.ucalgary.seng300.simulation.SimulationException;
 
 /**
@@ -62,11 +63,11 @@ public final class AppPayments {
         this.isBlocked = false;
     }
 
-    private static final Random random = new Random(0);
+    private final SplittableRandom random = Randomness.newStream();
     private static final double PROBABILITY_OF_TAP_FAILURE = 0.005;
     private static final double PROBABILITY_OF_NETWORK_ERROR = 0.00001;
 
-    private String randomize(String original, double probability) {
+    private synchronized String randomize(String original, double probability) {
         if(random.nextDouble() <= probability) {
             int length = original.length();
             int index = random.nextInt(length);
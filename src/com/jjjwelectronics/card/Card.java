@@ -1,10 +1,11 @@
 package com.jjjwelectronics.card;
 
 import java.io.IOException;
-import java.util.Random;
+import java.util.SplittableRandom;
 
 import ca.ucalgary.seng300.simulation.InvalidArgumentSimulationException;
 import ca.ucalgary.seng300.simulation.NullPointerSimulationException;
+import ca.ucalgary.seng300.simulation.Randomness;
 import ca.ucalgary.seng300.simulation.SimulationException;
 
 /**
@@ -92,7 +93,7 @@ public final class Card {
 		this.hasChip = hasChip;
 	}
 
-	private static final Random random = new Random(0);
+	private final SplittableRandom random = Randomness.newStream();
 	private static final double PROBABILITY_OF_MAGNETIC_STRIPE_FAILURE = 0.01;
 	private static final double PROBABILITY_OF_TAP_FAILURE = 0.005;
 	private static final double PROBABILITY_OF_INSERT_FAILURE = 0.001;
@@ -161,7 +162,7 @@ public final class Card {
 		return null;
 	}
 
-	private String randomize(String original, double probability) {
+	private synchronized String randomize(String original, double probability) {
 		if(random.nextDouble() <= probability) {
 			int length = original.length();
 			int index = random.nextInt(length);
@@ -86,19 +86,35 @@ public abstract class AbstractKeyboard extends AbstractDevice<KeyboardListener>
 	}
 
 	@Override
-	public synchronized void turnOn() {
-		super.turnOn();
-
-		for(Key key : keys.values())
-			key.turnOnWithoutEvents();
+	public void turnOn() {
+		holdEvents();
+		try {
+			synchronized(this) {
+				super.turnOn();
+
+				for(Key key : keys.values())
+					key.turnOnWithoutEvents();
+			}
+		}
+		finally {
+			releaseEvents();
+		}
 	}
 
 	@Override
-	public synchronized void turnOff() {
-		super.turnOff();
-
-		for(Key key : keys.values())
-			key.turnOffWithoutEvents();
+	public void turnOff() {
+		holdEvents();
+		try {
+			synchronized(this) {
+				super.turnOff();
+
+				for(Key key : keys.values())
+					key.turnOffWithoutEvents();
+			}
+		}
+		finally {
+			releaseEvents();
+		}
 	}
 
 	@Override
@@ -118,28 +134,42 @@ public abstract class AbstractKeyboard extends AbstractDevice<KeyboardListener>
 	}
 
 	@Override
-	public synchronized void disable() {
-		super.disable();
-
-		for(Key key : keys.values())
-			key.disable(); // disable() has to be called so that other listeners can be notified
+	public void disable() {
+		holdEvents();
+		try {
+			synchronized(this) {
+				super.disable();
+
+				for(Key key : keys.values())
+					key.disable(); // disable() has to be called so that other listeners can be notified
+			}
+		}
+		finally {
+			releaseEvents();
+		}
 	}
 
 	@Override
-	public synchronized void enable() {
-		super.enable();
-
-		for(Key key : keys.values())
-			key.enable(); // enable() has to be called so that other listeners can be notified
+	public void enable() {
+		holdEvents();
+		try {
+			synchronized(this) {
+				super.enable();
+
+				for(Key key : keys.values())
+					key.enable(); // enable() has to be called so that other listeners can be notified
+			}
+		}
+		finally {
+			releaseEvents();
+		}
 	}
 
 	protected void notifyKeyPressed(String label) {
-		for(KeyboardListener listener : listeners())
-			listener.aKeyHasBeenPressed(label);
+		notifyListeners("aKeyHasBeenPressed", listener -> listener.aKeyHasBeenPressed(label));
 	}
 
 	protected void notifyKeyReleased(String label) {
-		for(KeyboardListener listener : listeners())
-			listener.aKeyHasBeenReleased(label);
+		notifyListeners("aKeyHasBeenReleased", listener -> listener.aKeyHasBeenReleased(label));
 	}
 }
\ No newline at end of file
@@ -1,6 +1,8 @@
 package com.jjjwelectronics.keyboard;
 
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 
 import com.jjjwelectronics.AbstractDevice;
 import com.jjjwelectronics.DisabledDevice;
@@ -24,18 +26,26 @@ public class Key extends AbstractDevice<KeyListener> {
 	 * @throws DisabledDevice
 	 *             if the key is disabled.
 	 */
-	public synchronized void press() throws DisabledDevice {
-		if(!isPoweredUp())
-			throw new NoPowerException();
-
-		if(isDisabled())
-			throw new DisabledDevice();
-
-		if(isPressed)
-			return; // it is already, so ignore
-
-		isPressed = true;
-		notifyKeyPressed();
+	public void press() throws DisabledDevice {
+		holdEvents();
+		try {
+			synchronized(this) {
+				if(!isPoweredUp())
+					throw new NoPowerException();
+
+				if(isDisabled())
+					throw new DisabledDevice();
+
+				if(isPressed)
+					return; // it is already, so ignore
+
+				isPressed = true;
+				notifyKeyPressed();
+			}
+		}
+		finally {
+			releaseEvents();
+		}
 	}
 
 	/**
@@ -46,18 +56,26 @@ public class Key extends AbstractDevice<KeyListener> {
 	 * @throws DisabledDevice
 	 *             if the key is disabled.
 	 */
-	public synchronized void release() throws DisabledDevice {
-		if(!isPoweredUp())
-			throw new NoPowerException();
-
-		if(isDisabled())
-			throw new DisabledDevice();
-
-		if(!isPressed)
-			return; // it is already, so ignore
-
-		isPressed = false;
-		notifyKeyReleased();
+	public void release() throws DisabledDevice {
+		holdEvents();
+		try {
+			synchronized(this) {
+				if(!isPoweredUp())
+					throw new NoPowerException();
+
+				if(isDisabled())
+					throw new DisabledDevice();
+
+				if(!isPressed)
+					return; // it is already, so ignore
+
+				isPressed = false;
+				notifyKeyReleased();
+			}
+		}
+		finally {
+			releaseEvents();
+		}
 	}
 
 	/**
@@ -99,53 +117,80 @@ public class Key extends AbstractDevice<KeyListener> {
 	}
 
 	private void notifyKeyPressed() {
+		// The keyboard tracks its keys synchronously; everyone else may be deferred
 		for(KeyListener l : listeners())
-			l.aKeyHasBeenPressed(this);
+			if(l instanceof AbstractKeyboard.SynchronizeKeyAndKeyboardState)
+				l.aKeyHasBeenPressed(this);
+
+		notifyListeners("aKeyHasBeenPressed", l -> {
+			if(!(l instanceof AbstractKeyboard.SynchronizeKeyAndKeyboardState))
+				l.aKeyHasBeenPressed(this);
+		});
 	}
 
 	private void notifyKeyReleased() {
+		// The keyboard tracks its keys synchronously; everyone else may be deferred
 		for(KeyListener l : listeners())
-			l.aKeyHasBeenReleased(this);
+			if(l instanceof AbstractKeyboard.SynchronizeKeyAndKeyboardState)
+				l.aKeyHasBeenReleased(this);
+
+		notifyListeners("aKeyHasBeenReleased", l -> {
+			if(!(l instanceof AbstractKeyboard.SynchronizeKeyAndKeyboardState))
+				l.aKeyHasBeenReleased(this);
+		});
+	}
+
+	private Map<KeyListener, String[]> interestsOf(List<KeyListener> listeners) {
+		Map<KeyListener, String[]> interests = new IdentityHashMap<>();
+
+		for(KeyListener listener : listeners)
+			interests.put(listener, interestsOf(listener));
+
+		return interests;
 	}
 
 	void disableWithoutEvents() {
 		List<KeyListener> listeners = listeners();
+		Map<KeyListener, String[]> interests = interestsOf(listeners);
 		deregisterAll();
 
 		disable();
 
 		for(KeyListener listener : listeners)
-			register(listener);
+			register(listener, interests.get(listener));
 	}
 
 	void enableWithoutEvents() {
 		List<KeyListener> listeners = listeners();
+		Map<KeyListener, String[]> interests = interestsOf(listeners);
 		deregisterAll();
 
 		enable();
 
 		for(KeyListener listener : listeners)
-			register(listener);
+			register(listener, interests.get(listener));
 	}
 
 	void turnOnWithoutEvents() {
 		List<KeyListener> listeners = listeners();
+		Map<KeyListener, String[]> interests = interestsOf(listeners);
 		deregisterAllSpecial();
 
 		turnOn();
 
 		for(KeyListener listener : listeners)
-			register(listener);
+			register(listener, interests.get(listener));
 	}
 
 	void turnOffWithoutEvents() {
 		List<KeyListener> listeners = listeners();
+		Map<KeyListener, String[]> interests = interestsOf(listeners);
 		deregisterAllSpecial();
 
 		turnOff();
 
 		for(KeyListener listener : listeners)
-			register(listener);
+			register(listener, interests.get(listener));
 	}
 
 	@Override
@@ -59,41 +59,52 @@ abstract class AbstractReceiptPrinter extends AbstractDevice<ReceiptPrinterListe
 	 *             If the extra character would spill off the end of the line.
 	 */
 	@Override
-	public synchronized void print(char c) throws EmptyDevice, OverloadedDevice {
-		if(!isPoweredUp())
-			throw new NoPowerException();
-
-		if(c == '\n') {
-			--linesOfPaperRemaining;
-			charactersOnCurrentLine = 0;
+	public void print(char c) throws EmptyDevice, OverloadedDevice {
+		long start = startOperation();
+
+		holdEvents();
+		try {
+			synchronized(this) {
+				if(!isPoweredUp())
+					throw new NoPowerException();
+
+				if(c == '\n') {
+					--linesOfPaperRemaining;
+					charactersOnCurrentLine = 0;
+				}
+				else if(c != ' ' && Character.isWhitespace(c))
+					return;
+				else if(charactersOnCurrentLine == CHARACTERS_PER_LINE)
+					throw new OverloadedDevice("The line is too long. Add a newline");
+				else if(linesOfPaperRemaining == 0)
+					throw new EmptyDevice("There is no paper in the printer.");
+				else
+					charactersOnCurrentLine++;
+
+				if(!Character.isWhitespace(c)) {
+					if(charactersOfInkRemaining == 0)
+						throw new EmptyDevice("There is no ink in the printer");
+
+					charactersOfInkRemaining--;
+				}
+
+				sb.append(c);
+
+				if(charactersOfInkRemaining == 0)
+					notifyOutOfInk();
+				else if(charactersOfInkRemaining <= MAXIMUM_INK * 0.1)
+					notifyLowInk();
+
+				if(linesOfPaperRemaining == 0)
+					notifyOutOfPaper();
+				else if(linesOfPaperRemaining <= MAXIMUM_PAPER * 0.1)
+					notifyLowPaper();
+			}
 		}
-		else if(c != ' ' && Character.isWhitespace(c))
-			return;
-		else if(charactersOnCurrentLine == CHARACTERS_PER_LINE)
-			throw new OverloadedDevice("The line is too long. Add a newline");
-		else if(linesOfPaperRemaining == 0)
-			throw new EmptyDevice("There is no paper in the printer.");
-		else
-			charactersOnCurrentLine++;
-
-		if(!Character.isWhitespace(c)) {
-			if(charactersOfInkRemaining == 0)
-				throw new EmptyDevice("There is no ink in the printer");
-
-			charactersOfInkRemaining--;
+		finally {
+			stopOperation("print", start);
+			releaseEvents();
 		}
-
-		sb.append(c);
-
-		if(charactersOfInkRemaining == 0)
-			notifyOutOfInk();
-		else if(charactersOfInkRemaining <= MAXIMUM_INK * 0.1)
-			notifyLowInk();
-
-		if(linesOfPaperRemaining == 0)
-			notifyOutOfPaper();
-		else if(linesOfPaperRemaining <= MAXIMUM_PAPER * 0.1)
-			notifyLowPaper();
 	}
 
 	/**
@@ -143,19 +154,27 @@ abstract class AbstractReceiptPrinter extends AbstractDevice<ReceiptPrinterListe
 	 *             greater than the printer's capacity.
 	 */
 	@Override
-	public synchronized void addInk(int quantity) throws OverloadedDevice {
-		if(!isPoweredUp())
-			throw new NoPowerException();
-
-		if(quantity < 0)
-			throw new InvalidArgumentSimulationException("Are you trying to remove ink?");
-
-		if(charactersOfInkRemaining + quantity > MAXIMUM_INK)
-			throw new OverloadedDevice("You spilled a bunch of ink!");
-
-		if(quantity > 0) {
-			charactersOfInkRemaining += quantity;
-			notifyInkAdded();
+	public void addInk(int quantity) throws OverloadedDevice {
+		holdEvents();
+		try {
+			synchronized(this) {
+				if(!isPoweredUp())
+					throw new NoPowerException();
+
+				if(quantity < 0)
+					throw new InvalidArgumentSimulationException("Are you trying to remove ink?");
+
+				if(charactersOfInkRemaining + quantity > MAXIMUM_INK)
+					throw new OverloadedDevice("You spilled a bunch of ink!");
+
+				if(quantity > 0) {
+					charactersOfInkRemaining += quantity;
+					notifyInkAdded();
+				}
+			}
+		}
+		finally {
+			releaseEvents();
 		}
 	}
 
@@ -172,50 +191,52 @@ abstract class AbstractReceiptPrinter extends AbstractDevice<ReceiptPrinterListe
 	 *             greater than the printer's capacity.
 	 */
 	@Override
-	public synchronized void addPaper(int units) throws OverloadedDevice {
-		if(!isPoweredUp())
-			throw new NoPowerException();
-
-		if(units < 0)
-			throw new InvalidArgumentSimulationException("Are you trying to remove paper?");
-
-		if(linesOfPaperRemaining + units > MAXIMUM_PAPER)
-			throw new OverloadedDevice("You may have broken the printer, jamming so much in there!");
-
-		if(units > 0) {
-			linesOfPaperRemaining += units;
-			notifyPaperAdded();
+	public void addPaper(int units) throws OverloadedDevice {
+		holdEvents();
+		try {
+			synchronized(this) {
+				if(!isPoweredUp())
+					throw new NoPowerException();
+
+				if(units < 0)
+					throw new InvalidArgumentSimulationException("Are you trying to remove paper?");
+
+				if(linesOfPaperRemaining + units > MAXIMUM_PAPER)
+					throw new OverloadedDevice("You may have broken the printer, jamming so much in there!");
+
+				if(units > 0) {
+					linesOfPaperRemaining += units;
+					notifyPaperAdded();
+				}
+			}
+		}
+		finally {
+			releaseEvents();
 		}
 	}
 
 	protected void notifyOutOfInk() {
-		for(ReceiptPrinterListener l : listeners())
-			l.thePrinterIsOutOfInk();
+		notifyListeners("thePrinterIsOutOfInk", l -> l.thePrinterIsOutOfInk());
 	}
 
 	protected void notifyInkAdded() {
-		for(ReceiptPrinterListener l : listeners())
-			l.inkHasBeenAddedToThePrinter();
+		notifyListeners("inkHasBeenAddedToThePrinter", l -> l.inkHasBeenAddedToThePrinter());
 	}
 
 	protected void notifyOutOfPaper() {
-		for(ReceiptPrinterListener l : listeners())
-			l.thePrinterIsOutOfPaper();
+		notifyListeners("thePrinterIsOutOfPaper", l -> l.thePrinterIsOutOfPaper());
 	}
 
 	protected void notifyPaperAdded() {
-		for(ReceiptPrinterListener l : listeners())
-			l.paperHasBeenAddedToThePrinter();
+		notifyListeners("paperHasBeenAddedToThePrinter", l -> l.paperHasBeenAddedToThePrinter());
 	}
 
 	protected void notifyLowInk() {
-		for(ReceiptPrinterListener l : listeners())
-			l.thePrinterHasLowInk();
+		notifyListeners("thePrinterHasLowInk", l -> l.thePrinterHasLowInk());
 	}
 
 	protected void notifyLowPaper() {
-		for(ReceiptPrinterListener l : listeners())
-			l.thePrinterHasLowPaper();
+		notifyListeners("thePrinterHasLowPaper", l -> l.thePrinterHasLowPaper());
 	}
 
 }
\ No newline at end of file
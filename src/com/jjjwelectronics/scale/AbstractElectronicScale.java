@@ -2,7 +2,7 @@ package com.jjjwelectronics.scale;
 
 import java.math.BigInteger;
 import java.util.ArrayList;
-import java.util.Random;
+import java.util.SplittableRandom;
 
 import com.jjjwelectronics.AbstractDevice;
 import com.jjjwelectronics.Item;
@@ -12,6 +12,7 @@ import com.jjjwelectronics.OverloadedDevice;
 
 import ca.ucalgary.seng300.simulation.InvalidArgumentSimulationException;
 import ca.ucalgary.seng300.simulation.NullPointerSimulationException;
+import ca.ucalgary.seng300.simulation.Randomness;
 import powerutility.NoPowerException;
 
 /**
@@ -32,6 +33,7 @@ public abstract class AbstractElectronicScale extends AbstractDevice<ElectronicS
 	protected Mass currentMass = Mass.ZERO;
 	private Mass massAtLastEvent = Mass.ZERO;
 	protected Mass sensitivityLimit;
+	private final SplittableRandom random = Randomness.newStream();
 
 	protected AbstractElectronicScale(Mass limit, Mass sensitivityLimit) {
 		super();
@@ -63,68 +65,82 @@ public abstract class AbstractElectronicScale extends AbstractDevice<ElectronicS
 	}
 
 	@Override
-	public synchronized void addAnItem(Item item) {
-		if(!isPoweredUp())
-			throw new NoPowerException();
+	public void addAnItem(Item item) {
+		holdEvents();
+		try {
+			synchronized(this) {
+				if(!isPoweredUp())
+					throw new NoPowerException();
 
-		if(item == null)
-			throw new NullPointerSimulationException("item");
+				if(item == null)
+					throw new NullPointerSimulationException("item");
 
-		if(items.contains(item))
-			throw new InvalidArgumentSimulationException("The same item cannot be added more than once to the scale.");
+				if(items.contains(item))
+					throw new InvalidArgumentSimulationException("The same item cannot be added more than once to the scale.");
 
-		currentMass = currentMass.sum(item.getMass());
+				currentMass = currentMass.sum(item.getMass());
 
-		items.add(item);
+				items.add(item);
 
-		if(currentMass.compareTo(massLimit) > 0)
-			notifyOverload();
+				if(currentMass.compareTo(massLimit) > 0)
+					notifyOverload();
 
-		MassDifference difference = currentMass.difference(massAtLastEvent);
-		if(difference.compareTo(sensitivityLimit) >= 0)
-			notifyMassChanged();
+				MassDifference difference = currentMass.difference(massAtLastEvent);
+				if(difference.compareTo(sensitivityLimit) >= 0)
+					notifyMassChanged();
+			}
+		}
+		finally {
+			releaseEvents();
+		}
 	}
 
 	@Override
-	public synchronized void removeAnItem(Item item) {
-		if(!isPoweredUp())
-			throw new NoPowerException();
-
-		if(!items.remove(item))
-			throw new InvalidArgumentSimulationException("The item was not found amongst those on the scale.");
-
-		// To avoid drift in the sum due to round-off error, recalculate the mass.
-		Mass newMass = Mass.ZERO;
-		for(Item itemOnScale : items)
-			newMass = newMass.sum(itemOnScale.getMass());
-
-		currentMass = newMass;
-
-		if(massAtLastEvent.compareTo(massLimit) > 0 && newMass.compareTo(massLimit) <= 0)
-			notifyOutOfOverload();
-
-		if(currentMass.compareTo(massLimit) <= 0
-			&& massAtLastEvent.difference(currentMass).abs().compareTo(sensitivityLimit) >= 0)
-			notifyMassChanged();
+	public void removeAnItem(Item item) {
+		holdEvents();
+		try {
+			synchronized(this) {
+				if(!isPoweredUp())
+					throw new NoPowerException();
+
+				if(!items.remove(item))
+					throw new InvalidArgumentSimulationException("The item was not found amongst those on the scale.");
+
+				// To avoid drift in the sum due to round-off error, recalculate the mass.
+				Mass newMass = Mass.ZERO;
+				for(Item itemOnScale : items)
+					newMass = newMass.sum(itemOnScale.getMass());
+
+				currentMass = newMass;
+
+				if(massAtLastEvent.compareTo(massLimit) > 0 && newMass.compareTo(massLimit) <= 0)
+					notifyOutOfOverload();
+
+				if(currentMass.compareTo(massLimit) <= 0
+					&& massAtLastEvent.difference(currentMass).abs().compareTo(sensitivityLimit) >= 0)
+					notifyMassChanged();
+			}
+		}
+		finally {
+			releaseEvents();
+		}
 	}
 
 	protected void notifyOverload() {
-		for(ElectronicScaleListener l : listeners())
-			l.theMassOnTheScaleHasExceededItsLimit(this);
+		notifyListeners("theMassOnTheScaleHasExceededItsLimit", l -> l.theMassOnTheScaleHasExceededItsLimit(this));
 	}
 
 	protected void notifyOutOfOverload() {
 		massAtLastEvent = currentMass;
 
-		for(ElectronicScaleListener l : listeners())
-			l.theMassOnTheScaleNoLongerExceedsItsLimit(this);
+		notifyListeners("theMassOnTheScaleNoLongerExceedsItsLimit", l -> l.theMassOnTheScaleNoLongerExceedsItsLimit(this));
 	}
 
 	protected void notifyMassChanged() {
 		massAtLastEvent = currentMass;
+		Mass mass = currentMass;
 
-		for(ElectronicScaleListener l : listeners())
-			l.theMassOnTheScaleHasChanged(this, currentMass);
+		notifyListeners("theMassOnTheScaleHasChanged", l -> l.theMassOnTheScaleHasChanged(this, mass));
 	}
 
 	/**
@@ -140,7 +156,7 @@ public abstract class AbstractElectronicScale extends AbstractDevice<ElectronicS
 
 		if(currentMass.compareTo(massLimit) <= 0) {
 			long s = sensitivityLimit.inMicrograms().longValue();
-			return currentMass.sum(new Mass(BigInteger.valueOf(Math.max(new Random().nextLong(s) - s / 2, 0))));
+			return currentMass.sum(new Mass(BigInteger.valueOf(Math.max(random.nextLong(s) - s / 2, 0))));
 		}
 
 		throw new OverloadedDevice();
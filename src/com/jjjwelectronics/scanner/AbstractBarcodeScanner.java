@@ -1,10 +1,11 @@
 package com.jjjwelectronics.scanner;
 
-import java.util.Random;
+import java.util.SplittableRandom;
 
 import com.jjjwelectronics.AbstractDevice;
 
 import ca.ucalgary.seng300.simulation.NullPointerSimulationException;
+import ca.ucalgary.seng300.simulation.Randomness;
 import powerutility.NoPowerException;
 
 /**
@@ -13,28 +14,38 @@ import powerutility.NoPowerException;
  * @author JJJW Electronics LLP
  */
 abstract class AbstractBarcodeScanner extends AbstractDevice<BarcodeScannerListener> implements IBarcodeScanner {
-	private Random random = new Random();
+	private final SplittableRandom random = Randomness.newStream();
 	protected int probabilityOfFailedScan = 0; /* out of 100 */
 
 	@Override
-	public synchronized void scan(BarcodedItem item) {
-		if(!isPoweredUp())
-			throw new NoPowerException();
+	public void scan(BarcodedItem item) {
+		long start = startOperation();
+
+		holdEvents();
+		try {
+			synchronized(this) {
+				if(!isPoweredUp())
+					throw new NoPowerException();
 	
-		if(item == null)
-			throw new NullPointerSimulationException("item");
+				if(item == null)
+					throw new NullPointerSimulationException("item");
 	
-		if(isDisabled())
-			return; // silently ignore
+				if(isDisabled())
+					return; // silently ignore
 	
-		if(random.nextInt(100) >= probabilityOfFailedScan)
-			notifyBarcodeScanned(item.getBarcode());
+				if(random.nextInt(100) >= probabilityOfFailedScan)
+					notifyBarcodeScanned(item.getBarcode());
 	
-		// else silently ignore it
+				// else silently ignore it
+			}
+		}
+		finally {
+			stopOperation("scan", start);
+			releaseEvents();
+		}
 	}
 
 	protected void notifyBarcodeScanned(Barcode barcode) {
-		for(BarcodeScannerListener l : listeners())
-			l.aBarcodeHasBeenScanned(this, barcode);
+		notifyListeners("aBarcodeHasBeenScanned", l -> l.aBarcodeHasBeenScanned(this, barcode));
 	}
 }
@@ -1,10 +1,20 @@
 package com.tdc;
 
-import java.util.ArrayList;
+import java.util.AbstractList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
+import ca.ucalgary.seng300.simulation.EventDispatcher;
+import ca.ucalgary.seng300.simulation.EventJournal;
+import ca.ucalgary.seng300.simulation.EventPublisher;
+import ca.ucalgary.seng300.simulation.Metrics;
 import ca.ucalgary.seng300.simulation.NullPointerSimulationException;
+import ca.ucalgary.seng300.simulation.Subscriptions;
 import powerutility.NoPowerException;
 import powerutility.PowerGrid;
+import powerutility.PowerGridListener;
 
 /**
  * The abstract base class for all components from TDC.
@@ -29,23 +39,53 @@ import powerutility.PowerGrid;
  * @author TDC, Inc.
  */
 public abstract class AbstractComponent<T extends IComponentObserver> implements IComponent<T> {
-	private PowerGrid grid = null;
-	private boolean isActivated = false;
+	private volatile PowerGrid grid = null;
+	private volatile PowerGrid.PowerState gridState = PowerGrid.PowerState.OUTAGE;
+	private final PowerGridListener gridListener = new PowerGridListener() {
+		@Override
+		public void powerStateChanged(PowerGrid grid, PowerGrid.PowerState state) {
+			gridState = state;
+		}
+	};
+
+	/*
+	 * The activation and enable flags, packed into one word so that they can be
+	 * read without locking and changed by compare-and-set.
+	 */
+	private static final int ACTIVATED = 1;
+	private static final int DISABLED = 2;
+	private final AtomicInteger state = new AtomicInteger();
+
+	/*
+	 * Sets or clears the indicated flag, returning whether it changed.
+	 */
+	private boolean setFlag(int flag, boolean value) {
+		while(true) {
+			int current = state.get();
+			int next = value ? current | flag : current & ~flag;
+
+			if(current == next)
+				return false;
+
+			if(state.compareAndSet(current, next))
+				return true;
+		}
+	}
 
 	@Override
-	public synchronized boolean isConnected() {
+	public boolean isConnected() {
 		return grid != null;
 	}
 
 	@Override
-	public synchronized boolean isActivated() {
-		return isActivated;
+	public boolean isActivated() {
+		return (state.get() & ACTIVATED) != 0;
 	}
 	
 	@Override
 	public boolean hasPower() {
 		if(grid != null)
-			return grid.hasPower();
+			return gridState.hasPower();
 		
 		return false;
 	}
@@ -55,37 +95,100 @@ public abstract class AbstractComponent<T extends IComponentObserver> implements
 		if(grid == null)
 			throw new NullPointerSimulationException();
 
+		if(this.grid != null)
+			this.grid.deregister(gridListener);
+
+		grid.register(gridListener);
 		this.grid = grid;
 	}
 
 	@Override
 	public synchronized void disconnect() {
+		if(grid != null)
+			grid.deregister(gridListener);
+
 		grid = null;
 	}
 
 	@Override
-	public synchronized void activate() {
-		isActivated = true;
+	public void activate() {
+		setFlag(ACTIVATED, true);
 	}
 
 	@Override
-	public synchronized void disactivate() {
-		isActivated = false;
+	public void disactivate() {
+		setFlag(ACTIVATED, false);
 	}
 
+	/*
+	 * The attached observers and their interests. The subscriptions are replaced,
+	 * never modified, when observers are attached or detached.
+	 */
+	private volatile Subscriptions<T> subscriptions = Subscriptions
+		.empty(Subscriptions.listenerType(getClass(), AbstractComponent.class, IComponentObserver.class));
+
 	/**
-	 * A list of the registered observers on this component.
+	 * Obtains the observers attached to this component.
+	 * 
+	 * @return An unmodifiable list of the observers, in attachment order.
 	 */
-	protected ArrayList<T> observers = new ArrayList<>();
+	protected final List<T> observers() {
+		return subscriptions.all();
+	}
+
+	/**
+	 * A live view of the observers attached to this component, in attachment
+	 * order, kept for subclasses written against the former list of observers.
+	 * Adding an observer to the end of the view attaches it, and removing one
+	 * detaches it; inserting elsewhere is not supported, and the view is no
+	 * longer an {@link java.util.ArrayList}.
+	 * 
+	 * @deprecated Use {@link #observers()} to read the observers, and
+	 *             {@link #attach(IComponentObserver)} and
+	 *             {@link #detach(IComponentObserver)} to change them.
+	 */
+	@Deprecated
+	protected final List<T> observers = new AbstractList<T>() {
+		@Override
+		public T get(int index) {
+			return subscriptions.all().get(index);
+		}
+
+		@Override
+		public int size() {
+			return subscriptions.all().size();
+		}
+
+		@Override
+		public void add(int index, T observer) {
+			if(index != size())
+				throw new UnsupportedOperationException("Observers can only be added at the end.");
+
+			attach(observer);
+		}
+
+		@Override
+		public T remove(int index) {
+			T observer = get(index);
+			detach(observer);
+			return observer;
+		}
+	};
 
 	@Override
 	public final synchronized boolean detach(T observer) {
-		return observers.remove(observer);
+		Subscriptions<T> remaining = subscriptions.without(observer);
+
+		if(remaining == subscriptions)
+			return false;
+
+		subscriptions = remaining;
+		return true;
 	}
 
 	@Override
 	public final synchronized void detachAll() {
-		observers.clear();
+		subscriptions = subscriptions.withoutAll();
 	}
 
 	@Override
@@ -93,46 +196,240 @@ public abstract class AbstractComponent<T extends IComponentObserver> implements
 		if(observer == null)
 			throw new NullPointerSimulationException("observer");
 
-		observers.add(observer);
+		subscriptions = subscriptions.with(observer);
+	}
+
+	@Override
+	public final synchronized void attach(T observer, String... events) {
+		if(observer == null)
+			throw new NullPointerSimulationException("observer");
+
+		subscriptions = subscriptions.with(observer, events);
+	}
+
+	private volatile EventDispatcher dispatcher = null;
+
+	@Override
+	public void setEventDispatcher(EventDispatcher dispatcher) {
+		this.dispatcher = dispatcher;
+	}
+
+	@Override
+	public EventDispatcher getEventDispatcher() {
+		return dispatcher;
 	}
 
-	private boolean disabled = false;
+	private volatile Metrics metrics = null;
+
+	@Override
+	public void setMetrics(Metrics metrics) {
+		this.metrics = metrics;
+	}
 
 	@Override
-	public final synchronized void disable() {
+	public Metrics getMetrics() {
+		return metrics;
+	}
+
+	/**
+	 * Begins timing an operation of this component, if metrics are enabled.
+	 * 
+	 * @return The start time, to be passed to {@link #stopOperation(String, long)}.
+	 */
+	protected final long startOperation() {
+		return Metrics.start(metrics);
+	}
+
+	/**
+	 * Finishes timing an operation of this component, if metrics are enabled.
+	 * 
+	 * @param operation
+	 *            The name of the operation, normally the name of the method.
+	 * @param start
+	 *            The value returned by {@link #startOperation()}.
+	 */
+	protected final void stopOperation(String operation, long start) {
+		Metrics.stop(metrics, operation, start);
+	}
+
+	private volatile EventJournal.Writer journal = null;
+
+	@Override
+	public void setJournal(EventJournal.Writer journal) {
+		this.journal = journal;
+	}
+
+	@Override
+	public EventJournal.Writer getJournal() {
+		return journal;
+	}
+
+	/**
+	 * Records a movement of items in the journal, if one is set. This only copies
+	 * the record into the journal; it never waits for the disk.
+	 * 
+	 * @param event
+	 *            The name of the movement, normally the name of the event
+	 *            announcing it.
+	 * @param payload
+	 *            Describes the items moved. Only called if a journal is set.
+	 */
+	protected final void journal(String event, Supplier<String> payload) {
+		EventJournal.Writer journal = this.journal;
+
+		if(journal != null)
+			journal.append(event, payload.get());
+	}
+
+	/*
+	 * Events raised while this component is locked wait here until it is unlocked.
+	 */
+	private final EventPublisher publisher = new EventPublisher(this);
+
+	/**
+	 * Announces an event to the observers attached at this moment. If this
+	 * component is locked by the calling thread, or an operation begun by
+	 * {@link #holdEvents()} is in progress on it, the event is queued until the
+	 * lock is released and the outermost operation has ended; otherwise, it is
+	 * published immediately. Events are delivered in the order they were raised,
+	 * on the calling thread or through the dispatcher, if there is one; an event
+	 * raised while another thread is delivering this component's events is
+	 * delivered by that thread. Subclasses should use this in their notifyXXX
+	 * methods, capturing any mutable state in locals first.
+	 * 
+	 * @param name
+	 *            The name of the event, which is the name of the observer method
+	 *            that receives it. Only observers interested in it are notified.
+	 * @param event
+	 *            The action to perform on each observer.
+	 */
+	protected final void notifyObservers(String name, Consumer<? super T> event) {
+		announce(name, subscriptions.recipients(name), event);
+	}
+
+	/**
+	 * Announces a batch event, as {@link #notifyObservers(String, Consumer)} does,
+	 * to the observers interested in it or in the corresponding per-unit event.
+	 * The observer method that receives a batch event fans out to the per-unit
+	 * method by default, so observers that only handle single units still see
+	 * every unit.
+	 * 
+	 * @param name
+	 *            The name of the batch event.
+	 * @param unitName
+	 *            The name of the corresponding per-unit event.
+	 * @param event
+	 *            The action to perform on each observer.
+	 */
+	protected final void notifyObservers(String name, String unitName, Consumer<? super T> event) {
+		announce(name, subscriptions.recipients(name, unitName), event);
+	}
+
+	private void announce(String name, List<T> snapshot, Consumer<? super T> event) {
+		if(snapshot.isEmpty())
+			return;
+
+		EventDispatcher dispatcher = this.dispatcher;
+
+		if(dispatcher == null && publisher.isIdle()) {
+			// Nothing to order this event behind: deliver it without queuing
+			EventPublisher.enter();
+
+			try {
+				deliver(name, snapshot, event);
+			}
+			finally {
+				publisher.exit(null);
+			}
+
+			return;
+		}
+
+		publisher.enqueue(() -> deliver(name, snapshot, event));
+		publisher.publish(dispatcher);
+	}
+
+	private void deliver(String name, List<T> snapshot, Consumer<? super T> event) {
+		Metrics metrics = this.metrics;
+		long start = Metrics.start(metrics);
+
+		for(T observer : snapshot)
+			event.accept(observer);
+
+		if(start != 0)
+			metrics.recordDispatch(name, System.nanoTime() - start);
+	}
+
+	/*
+	 * Queues an event that is not addressed to the observers of this component,
+	 * ordering it with the component's own events. The caller must publish it.
+	 */
+	void enqueueEvent(Runnable event) {
+		publisher.enqueue(event);
+	}
+
+	/**
+	 * Delivers the events raised while this component was locked. Does nothing if
+	 * the calling thread still holds the lock or is inside an operation begun by
+	 * {@link #holdEvents()}; the events are then delivered when the outermost
+	 * such operation ends.
+	 */
+	protected final void publishPendingEvents() {
+		publisher.publish(dispatcher);
+	}
+
+	/**
+	 * Begins an operation that changes state while locked and raises events.
+	 * Until the outermost operation in progress on the calling thread ends, the
+	 * events of this and any other hardware it hands off to are held back, so
+	 * that no listener runs while any of their locks is held. Each call must be
+	 * matched by a call to {@link #releaseEvents()}, normally as
+	 * <code>holdEvents(); try { synchronized(this) { ... } } finally { releaseEvents(); }</code>.
+	 */
+	protected final void holdEvents() {
+		EventPublisher.enter();
+	}
+
+	/**
+	 * Ends an operation begun by {@link #holdEvents()} and delivers the events
+	 * raised while this component was locked, once no enclosing operation remains
+	 * in progress on the calling thread.
+	 */
+	protected final void releaseEvents() {
+		publisher.exit(dispatcher);
+	}
+
+	@Override
+	public final void disable() {
 		if(!hasPower())
 			throw new NoPowerException();
 
-		disabled = true;
+		setFlag(DISABLED, true);
 		notifyDisabled();
 	}
 
 	private void notifyDisabled() {
-		for(T observer : observers)
-			observer.disabled(this);
+		notifyObservers("disabled", observer -> observer.disabled(this));
 	}
 
 	@Override
-	public final synchronized void enable() {
+	public final void enable() {
 		if(!hasPower())
 			throw new NoPowerException();
 
-		if(disabled) {
-			disabled = false;
+		if(setFlag(DISABLED, false))
 			notifyEnabled();
-		}
 	}
 
 	private void notifyEnabled() {
-		for(T listener : observers)
-			listener.enabled(this);
+		notifyObservers("enabled", observer -> observer.enabled(this));
 	}
 
 	@Override
-	public final synchronized boolean isDisabled() {
+	public final boolean isDisabled() {
 		if(!hasPower())
 			throw new NoPowerException();
 
-		return disabled;
+		return (state.get() & DISABLED) != 0;
 	}
 }
@@ -0,0 +1,268 @@
+package com.tdc;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+import ca.ucalgary.seng300.simulation.InvalidArgumentSimulationException;
+import ca.ucalgary.seng300.simulation.NullPointerSimulationException;
+import ca.ucalgary.seng300.simulation.Subscriptions;
+
+/**
+ * Batches the per-unit events of a cash-holding component into aggregated
+ * events for {@link CoalescedCashObserver}s. Additions and removals are
+ * accumulated and announced together when any of the following happens:
+ * <ul>
+ * <li>the batch size, {@value #DEFAULT_BATCH_SIZE} units unless changed, is
+ * reached;</li>
+ * <li>the direction changes (e.g., a removal follows additions);</li>
+ * <li>the level crosses a threshold;</li>
+ * <li>the component is loaded or unloaded directly; or</li>
+ * <li>{@link #flush()} is called.</li>
+ * </ul>
+ * <p>
+ * Observers of the component itself still receive every per-unit event. A
+ * coalescer with no observers only tracks the level, so it costs almost nothing
+ * when unused. Aggregated events are published in order with the component's
+ * own events, once the component is unlocked.
+ * </p>
+ * 
+ * @author TDC, Inc.
+ */
+public final class CashEventCoalescer {
+	/**
+	 * The number of units after which accumulated changes are announced, unless
+	 * another batch size is set.
+	 */
+	public static final int DEFAULT_BATCH_SIZE = 10;
+
+	private final AbstractComponent<?> component;
+	private volatile Subscriptions<CoalescedCashObserver> subscriptions = Subscriptions
+		.empty(CoalescedCashObserver.class);
+	private int batchSize = DEFAULT_BATCH_SIZE;
+	private int[] thresholds = new int[0];
+	private int level = 0;
+	private int pending = 0; // positive for additions, negative for removals
+
+	/**
+	 * Creates a coalescer for the indicated component.
+	 * 
+	 * @param component
+	 *            The component whose events are coalesced. Cannot be null.
+	 * @throws NullPointerSimulationException
+	 *             If the component is null.
+	 */
+	public CashEventCoalescer(AbstractComponent<?> component) {
+		if(component == null)
+			throw new NullPointerSimulationException("component");
+
+		this.component = component;
+	}
+
+	/**
+	 * Registers the indicated observer to receive aggregated events.
+	 * 
+	 * @param observer
+	 *            The observer to be added. Cannot be null.
+	 * @param events
+	 *            The names of the events of interest, e.g., "thresholdCrossed". If
+	 *            none are given, the observer receives every event.
+	 * @throws NullPointerSimulationException
+	 *             If the observer or any event name is null.
+	 * @throws InvalidArgumentSimulationException
+	 *             If an event name is not the name of an observer method.
+	 */
+	public synchronized void attach(CoalescedCashObserver observer, String... events) {
+		subscriptions = subscriptions.with(observer, events);
+	}
+
+	/**
+	 * Removes the indicated observer so that it no longer receives aggregated
+	 * events.
+	 * 
+	 * @param observer
+	 *            The observer to remove.
+	 * @return true if the observer was found and removed, false otherwise.
+	 */
+	public synchronized boolean detach(CoalescedCashObserver observer) {
+		Subscriptions<CoalescedCashObserver> remaining = subscriptions.without(observer);
+
+		if(remaining == subscriptions)
+			return false;
+
+		subscriptions = remaining;
+		return true;
+	}
+
+	/**
+	 * Sets the number of units after which accumulated additions or removals are
+	 * announced. The default is {@value #DEFAULT_BATCH_SIZE}; use
+	 * {@link Integer#MAX_VALUE} to announce them only at the other flush points.
+	 * 
+	 * @param batchSize
+	 *            The batch size. Must be positive.
+	 * @throws InvalidArgumentSimulationException
+	 *             If the batch size is not positive.
+	 */
+	public synchronized void setBatchSize(int batchSize) {
+		if(batchSize <= 0)
+			throw new InvalidArgumentSimulationException("The batch size must be positive.");
+
+		this.batchSize = batchSize;
+	}
+
+	/**
+	 * Gets the number of units after which accumulated changes are announced.
+	 * 
+	 * @return The batch size.
+	 */
+	public synchronized int getBatchSize() {
+		return batchSize;
+	}
+
+	/**
+	 * Sets the levels whose crossing is announced immediately. A threshold is
+	 * crossed upwards when the level goes from below it to at least it, and
+	 * downwards when it goes the other way.
+	 * 
+	 * @param thresholds
+	 *            The thresholds. Each must be positive.
+	 * @throws NullPointerSimulationException
+	 *             If the argument is null.
+	 * @throws InvalidArgumentSimulationException
+	 *             If any threshold is not positive.
+	 */
+	public synchronized void setThresholds(int... thresholds) {
+		if(thresholds == null)
+			throw new NullPointerSimulationException("thresholds");
+
+		int[] copy = thresholds.clone();
+		Arrays.sort(copy);
+
+		if(copy.length > 0 && copy[0] <= 0)
+			throw new InvalidArgumentSimulationException("Thresholds must be positive.");
+
+		this.thresholds = copy;
+	}
+
+	/**
+	 * Announces any accumulated additions or removals now.
+	 */
+	public void flush() {
+		synchronized(this) {
+			announcePending();
+		}
+
+		component.publishPendingEvents();
+	}
+
+	private void announcePending() {
+		if(pending == 0)
+			return;
+
+		int count = pending;
+		int after = level;
+		pending = 0;
+
+		if(count > 0)
+			notifyObservers("cashAdded", observer -> observer.cashAdded(component, count, after));
+		else
+			notifyObservers("cashRemoved", observer -> observer.cashRemoved(component, -count, after));
+	}
+
+	/**
+	 * Records that units have been added to the component. To be called by the
+	 * component after each addition.
+	 * 
+	 * @param count
+	 *            The number of units added.
+	 */
+	public void added(int count) {
+		synchronized(this) {
+			change(count);
+		}
+
+		component.publishPendingEvents();
+	}
+
+	/**
+	 * Records that units have been removed from the component. To be called by the
+	 * component after each removal.
+	 * 
+	 * @param count
+	 *            The number of units removed.
+	 */
+	public void removed(int count) {
+		synchronized(this) {
+			change(-count);
+		}
+
+		component.publishPendingEvents();
+	}
+
+	/**
+	 * Records that the component has been loaded or unloaded directly, leaving it
+	 * with the indicated number of units. Accumulated changes are announced first.
+	 * 
+	 * @param level
+	 *            The new number of units in the component.
+	 */
+	public void reset(int level) {
+		synchronized(this) {
+			announcePending();
+
+			int before = this.level;
+			this.level = level;
+			announceCrossings(before, level);
+		}
+
+		component.publishPendingEvents();
+	}
+
+	private void change(int delta) {
+		int before = level;
+		level += delta;
+
+		if(subscriptions.all().isEmpty())
+			return;
+
+		if(pending != 0 && (pending > 0) != (delta > 0))
+			announcePending();
+
+		pending += delta;
+
+		if(Math.abs(pending) >= batchSize || crosses(before, level))
+			announcePending();
+
+		announceCrossings(before, level);
+	}
+
+	private boolean crosses(int before, int after) {
+		for(int threshold : thresholds)
+			if((before < threshold) != (after < threshold))
+				return true;
+
+		return false;
+	}
+
+	private void announceCrossings(int before, int after) {
+		if(subscriptions.all().isEmpty())
+			return;
+
+		for(int threshold : thresholds)
+			if((before < threshold) != (after < threshold))
+				notifyObservers("thresholdCrossed", observer -> observer.thresholdCrossed(component, threshold, after));
+	}
+
+	private void notifyObservers(String name, Consumer<CoalescedCashObserver> event) {
+		List<CoalescedCashObserver> snapshot = subscriptions.recipients(name);
+
+		if(snapshot.isEmpty())
+			return;
+
+		component.enqueueEvent(() -> {
+			for(CoalescedCashObserver observer : snapshot)
+				event.accept(observer);
+		});
+	}
+}
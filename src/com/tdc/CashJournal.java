@@ -0,0 +1,171 @@
+package com.tdc;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Currency;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.tdc.banknote.Banknote;
+import com.tdc.coin.Coin;
+
+import ca.ucalgary.seng300.simulation.EventJournal;
+import ca.ucalgary.seng300.simulation.NullPointerSimulationException;
+
+/**
+ * Encodes the cash movements that components record in an
+ * {@link EventJournal}, and rebuilds the contents of each component from them.
+ * <p>
+ * An item of cash is written as its currency code and value at the scale of
+ * its minor unit (see {@link Money}), e.g. "CAD 0.25", so that items of equal
+ * value are written alike however their values were scaled; several items are
+ * separated by commas.
+ * </p>
+ */
+public final class CashJournal {
+	/**
+	 * Instances of this class are not needed, so the constructor is private.
+	 */
+	private CashJournal() {}
+
+	/**
+	 * Encodes a sequence of coins.
+	 * 
+	 * @param coins
+	 *            The coins to encode.
+	 * @return The encoded coins.
+	 */
+	public static String encode(Coin... coins) {
+		StringBuilder sb = new StringBuilder();
+
+		for(Coin coin : coins) {
+			if(sb.length() > 0)
+				sb.append(',');
+
+			sb.append(coin.getCurrency().getCurrencyCode()).append(' ').append(coin.getMoney().toBigDecimal().toPlainString());
+		}
+
+		return sb.toString();
+	}
+
+	/**
+	 * Encodes a sequence of banknotes.
+	 * 
+	 * @param banknotes
+	 *            The banknotes to encode.
+	 * @return The encoded banknotes.
+	 */
+	public static String encode(Banknote... banknotes) {
+		StringBuilder sb = new StringBuilder();
+
+		for(Banknote banknote : banknotes) {
+			if(sb.length() > 0)
+				sb.append(',');
+
+			sb.append(banknote.getCurrency().getCurrencyCode()).append(' ')
+				.append(banknote.getMoney().toBigDecimal().toPlainString());
+		}
+
+		return sb.toString();
+	}
+
+	/**
+	 * Decodes a sequence of coins.
+	 * 
+	 * @param items
+	 *            The items, each as produced by {@link #encode(Coin...)}.
+	 * @return The coins.
+	 */
+	public static Coin[] decodeCoins(List<String> items) {
+		Coin[] coins = new Coin[items.size()];
+
+		for(int i = 0; i < coins.length; i++) {
+			String item = items.get(i);
+			int space = item.indexOf(' ');
+			coins[i] = Coin.of(Currency.getInstance(item.substring(0, space)),
+				new BigDecimal(item.substring(space + 1)));
+		}
+
+		return coins;
+	}
+
+	/**
+	 * Decodes a sequence of banknotes.
+	 * 
+	 * @param items
+	 *            The items, each as produced by {@link #encode(Banknote...)}.
+	 * @return The banknotes.
+	 */
+	public static Banknote[] decodeBanknotes(List<String> items) {
+		Banknote[] banknotes = new Banknote[items.size()];
+
+		for(int i = 0; i < banknotes.length; i++) {
+			String item = items.get(i);
+			int space = item.indexOf(' ');
+			banknotes[i] = Banknote.of(Currency.getInstance(item.substring(0, space)),
+				new BigDecimal(item.substring(space + 1)));
+		}
+
+		return banknotes;
+	}
+
+	/**
+	 * Replays the indicated journal and determines what each source held at the
+	 * end of it. Records that are not cash movements are ignored.
+	 * 
+	 * @param journal
+	 *            The journal to replay. Cannot be null.
+	 * @return A map from each source's name to its encoded items, in the order in
+	 *             which they were added.
+	 * @throws NullPointerSimulationException
+	 *             If the journal is null.
+	 */
+	public static Map<String, List<String>> contents(EventJournal journal) {
+		if(journal == null)
+			throw new NullPointerSimulationException("journal");
+
+		Map<String, List<String>> contents = new HashMap<>();
+
+		journal.replay(record -> {
+			List<String> items = contents.computeIfAbsent(record.getSource(), k -> new ArrayList<>());
+
+			switch(record.getEvent()) {
+			case "coinAdded":
+			case "banknoteAdded":
+				items.add(record.getPayload());
+				break;
+
+			case "coinsLoaded":
+			case "banknotesLoaded":
+				if(!record.getPayload().isEmpty())
+					for(String item : record.getPayload().split(","))
+						items.add(item);
+				break;
+
+			case "coinRemoved":
+			case "banknoteRemoved":
+				items.remove(record.getPayload());
+				break;
+
+			case "coinsRemoved":
+			case "banknotesRemoved":
+				for(String item : record.getPayload().split(","))
+					items.remove(item);
+				break;
+
+			case "coinsUnloaded":
+			case "banknotesUnloaded":
+				items.clear();
+				break;
+
+			default:
+				break;
+			}
+		});
+
+		contents.values().removeIf(List::isEmpty);
+
+		return contents;
+	}
+}
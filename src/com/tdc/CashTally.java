@@ -0,0 +1,84 @@
+package com.tdc;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.Currency;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Running counts of cash by currency and denomination, with the total value of
+ * each currency kept up to date so that it can be read in constant time.
+ * Denominations that compare equal (e.g., 0.1 and 0.10) are counted together.
+ * <p>
+ * Instances are not thread-safe; the component that owns one must hold its own
+ * lock while using it.
+ * </p>
+ */
+public final class CashTally {
+	private final Map<Money, Integer> counts = new HashMap<>();
+	private final Map<Currency, BigDecimal> totals = new HashMap<>();
+
+	/**
+	 * Counts one more item of cash.
+	 *
+	 * @param amount
+	 *            The amount of the cash.
+	 */
+	public void add(Money amount) {
+		counts.merge(amount, 1, Integer::sum);
+		totals.merge(amount.getCurrency(), amount.toBigDecimal(), BigDecimal::add);
+	}
+
+	/**
+	 * Forgets all the cash counted.
+	 */
+	public void clear() {
+		counts.clear();
+		totals.clear();
+	}
+
+	/**
+	 * Gets the number of items of the indicated currency and denomination.
+	 *
+	 * @param currency
+	 *            The currency.
+	 * @param denomination
+	 *            The denomination.
+	 * @return The count.
+	 */
+	public int getCount(Currency currency, BigDecimal denomination) {
+		Integer count = counts.get(Money.of(currency, denomination));
+		return count == null ? 0 : count;
+	}
+
+	/**
+	 * Gets the number of items of each denomination of the indicated currency.
+	 *
+	 * @param currency
+	 *            The currency.
+	 * @return An unmodifiable copy of the counts, by increasing denomination.
+	 */
+	public Map<BigDecimal, Integer> getCounts(Currency currency) {
+		TreeMap<BigDecimal, Integer> map = new TreeMap<>();
+
+		for(Map.Entry<Money, Integer> entry : counts.entrySet())
+			if(entry.getKey().getCurrency().equals(currency))
+				map.put(entry.getKey().toBigDecimal(), entry.getValue());
+
+		return Collections.unmodifiableMap(map);
+	}
+
+	/**
+	 * Gets the total value of the items of the indicated currency.
+	 *
+	 * @param currency
+	 *            The currency.
+	 * @return The total value; zero if there are none.
+	 */
+	public BigDecimal getTotal(Currency currency) {
+		BigDecimal total = totals.get(currency);
+		return total == null ? BigDecimal.ZERO : total;
+	}
+}
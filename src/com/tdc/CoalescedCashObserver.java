@@ -0,0 +1,50 @@
+package com.tdc;
+
+/**
+ * Observes aggregated changes in the number of units of cash held by a
+ * component, as batched by a {@link CashEventCoalescer}. Suitable for observers
+ * that care about levels rather than about individual coins or banknotes.
+ * 
+ * @author TDC, Inc.
+ */
+public interface CoalescedCashObserver {
+	/**
+	 * Announces that units of cash have been added to the indicated component
+	 * since the last announcement.
+	 * 
+	 * @param component
+	 *            The component where the event occurred.
+	 * @param count
+	 *            The number of units added. Will be positive.
+	 * @param level
+	 *            The number of units in the component after the additions.
+	 */
+	void cashAdded(IComponent<? extends IComponentObserver> component, int count, int level);
+
+	/**
+	 * Announces that units of cash have been removed from the indicated component
+	 * since the last announcement.
+	 * 
+	 * @param component
+	 *            The component where the event occurred.
+	 * @param count
+	 *            The number of units removed. Will be positive.
+	 * @param level
+	 *            The number of units in the component after the removals.
+	 */
+	void cashRemoved(IComponent<? extends IComponentObserver> component, int count, int level);
+
+	/**
+	 * Announces that the number of units in the indicated component has crossed
+	 * one of the thresholds of its coalescer.
+	 * 
+	 * @param component
+	 *            The component where the event occurred.
+	 * @param threshold
+	 *            The threshold that was crossed.
+	 * @param level
+	 *            The number of units in the component after the crossing. It is
+	 *            at least the threshold when rising, and below it when falling.
+	 */
+	void thresholdCrossed(IComponent<? extends IComponentObserver> component, int threshold, int level);
+}
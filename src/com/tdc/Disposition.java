@@ -0,0 +1,30 @@
+package com.tdc;
+
+/**
+ * Describes where an item of cash delivered as part of a batch ended up.
+ */
+public enum Disposition {
+	/**
+	 * The item was accepted and sent to its normal destination.
+	 */
+	ACCEPTED,
+	/**
+	 * The item was accepted, but its normal destination was full, so it was sent
+	 * to overflow storage.
+	 */
+	OVERFLOWED,
+	/**
+	 * The item was rejected and returned to the customer.
+	 */
+	REJECTED,
+	/**
+	 * The item was accepted into a channel that delivers it later, so where it
+	 * will end up is not yet known.
+	 */
+	IN_FLIGHT,
+	/**
+	 * The item could not be taken, because the storage to which it had to go was
+	 * full, and stays with whoever offered it.
+	 */
+	REFUSED
+}
@@ -0,0 +1,193 @@
+package com.tdc;
+
+import java.util.AbstractList;
+import java.util.AbstractQueue;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+import java.util.function.BiPredicate;
+
+import ca.ucalgary.seng300.simulation.NullPointerSimulationException;
+
+/**
+ * A first-in, first-out queue of cash that treats interchangeable items (e.g.,
+ * coins of the same currency and value) as fungible. Consecutive
+ * interchangeable items are kept as a single count, so a queue holding one
+ * denomination uses constant memory regardless of how much it holds.
+ * <p>
+ * Items come out in the order in which they went in, but an item that comes
+ * out is the first of its run of interchangeable items, not necessarily the
+ * same object that went in at that position.
+ * </p>
+ *
+ * @param <T>
+ *            The type of cash held.
+ */
+public final class FungibleCashQueue<T> extends AbstractQueue<T> {
+	private static final class Run<T> {
+		final T item;
+		int count;
+
+		Run(T item, int count) {
+			this.item = item;
+			this.count = count;
+		}
+	}
+
+	private final BiPredicate<? super T, ? super T> interchangeable;
+	private final ArrayDeque<Run<T>> runs = new ArrayDeque<>();
+	private int size = 0;
+
+	/**
+	 * Creates an empty queue.
+	 *
+	 * @param interchangeable
+	 *            Determines whether two items of cash are interchangeable. Cannot
+	 *            be null.
+	 * @throws NullPointerSimulationException
+	 *             If the predicate is null.
+	 */
+	public FungibleCashQueue(BiPredicate<? super T, ? super T> interchangeable) {
+		if(interchangeable == null)
+			throw new NullPointerSimulationException("interchangeable");
+
+		this.interchangeable = interchangeable;
+	}
+
+	@Override
+	public boolean offer(T item) {
+		if(item == null)
+			throw new NullPointerSimulationException("item");
+
+		Run<T> last = runs.peekLast();
+
+		if(last != null && interchangeable.test(last.item, item))
+			last.count++;
+		else
+			runs.addLast(new Run<>(item, 1));
+
+		size++;
+		return true;
+	}
+
+	@Override
+	public T poll() {
+		Run<T> first = runs.peekFirst();
+
+		if(first == null)
+			return null;
+
+		if(--first.count == 0)
+			runs.removeFirst();
+
+		size--;
+		return first.item;
+	}
+
+	@Override
+	public T peek() {
+		Run<T> first = runs.peekFirst();
+		return first == null ? null : first.item;
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public void clear() {
+		runs.clear();
+		size = 0;
+	}
+
+	/**
+	 * Gets the number of runs of interchangeable items in this queue.
+	 *
+	 * @return The number of runs; 1 for a nonempty queue holding a single
+	 *             denomination.
+	 */
+	public int getRunCount() {
+		return runs.size();
+	}
+
+	/**
+	 * Removes everything from this queue in time proportional to the number of
+	 * runs rather than the number of items.
+	 *
+	 * @return An unmodifiable list of the items removed, in order. Items are
+	 *             produced from the runs as the list is read.
+	 */
+	public List<T> drain() {
+		List<Run<T>> snapshot = new ArrayList<>(runs.size());
+
+		for(Run<T> run : runs)
+			snapshot.add(new Run<>(run.item, run.count));
+
+		int total = size;
+		clear();
+
+		return new RunList<>(snapshot, total);
+	}
+
+	@Override
+	public Iterator<T> iterator() {
+		return new Iterator<T>() {
+			private final Iterator<Run<T>> runIterator = runs.iterator();
+			private Run<T> current = null;
+			private int remaining = 0;
+
+			@Override
+			public boolean hasNext() {
+				return remaining > 0 || runIterator.hasNext();
+			}
+
+			@Override
+			public T next() {
+				if(remaining == 0) {
+					if(!runIterator.hasNext())
+						throw new NoSuchElementException();
+
+					current = runIterator.next();
+					remaining = current.count;
+				}
+
+				remaining--;
+				return current.item;
+			}
+		};
+	}
+
+	private static final class RunList<T> extends AbstractList<T> implements RandomAccess {
+		private final List<Run<T>> runs;
+		private final int size;
+
+		RunList(List<Run<T>> runs, int size) {
+			this.runs = runs;
+			this.size = size;
+		}
+
+		@Override
+		public T get(int index) {
+			if(index < 0 || index >= size)
+				throw new IndexOutOfBoundsException(index);
+
+			for(Run<T> run : runs) {
+				if(index < run.count)
+					return run.item;
+
+				index -= run.count;
+			}
+
+			throw new IndexOutOfBoundsException(index);
+		}
+
+		@Override
+		public int size() {
+			return size;
+		}
+	}
+}
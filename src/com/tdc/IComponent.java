@@ -1,5 +1,9 @@
 package com.tdc;
 
+import ca.ucalgary.seng300.simulation.EventDispatcher;
+import ca.ucalgary.seng300.simulation.InvalidArgumentSimulationException;
+import ca.ucalgary.seng300.simulation.EventJournal;
+import ca.ucalgary.seng300.simulation.Metrics;
 import ca.ucalgary.seng300.simulation.NullPointerSimulationException;
 import powerutility.PowerGrid;
 
@@ -108,6 +112,23 @@ public interface IComponent<T extends IComponentObserver> {
 	 */
 	void attach(T observer);
 
+	/**
+	 * Registers the indicated observer to receive only the indicated events from
+	 * this component. Events are named after the observer methods that receive
+	 * them, e.g., "coinAdded".
+	 * 
+	 * @param observer
+	 *            The observer to be added.
+	 * @param events
+	 *            The names of the events of interest. If none are given, the
+	 *            observer receives every event.
+	 * @throws NullPointerSimulationException
+	 *             If the observer or any event name is null.
+	 * @throws InvalidArgumentSimulationException
+	 *             If an event name is not the name of an observer method.
+	 */
+	void attach(T observer, String... events);
+
 	/**
 	 * Disables this component from receiving input and producing output. Announces
 	 * "disabled" event. Requires power.
@@ -127,4 +148,57 @@ public interface IComponent<T extends IComponentObserver> {
 	 * @return true if the component is disabled; false if the component is enabled.
 	 */
 	boolean isDisabled();
-}
\ No newline at end of file
+
+	/**
+	 * Sets the dispatcher through which events from this component are delivered
+	 * to its observers.
+	 * 
+	 * @param dispatcher
+	 *            The dispatcher to use, or null to deliver events synchronously,
+	 *            on the thread that caused them (the default).
+	 */
+	void setEventDispatcher(EventDispatcher dispatcher);
+
+	/**
+	 * Obtains the dispatcher through which events from this component are
+	 * delivered.
+	 * 
+	 * @return The dispatcher, or null if events are delivered synchronously.
+	 */
+	EventDispatcher getEventDispatcher();
+
+	/**
+	 * Sets where this component records how often and how long its operations and
+	 * event deliveries take.
+	 * 
+	 * @param metrics
+	 *            The metrics to record into, or null to record nothing (the
+	 *            default).
+	 */
+	void setMetrics(Metrics metrics);
+
+	/**
+	 * Obtains where this component records its metrics.
+	 * 
+	 * @return The metrics, or null if none are recorded.
+	 */
+	Metrics getMetrics();
+
+	/**
+	 * Sets where this component records the movements of the items it holds, so
+	 * that its contents can be rebuilt after a failure. Components that hold
+	 * nothing record nothing.
+	 * 
+	 * @param journal
+	 *            The writer to record with, or null to record nothing (the
+	 *            default).
+	 */
+	void setJournal(EventJournal.Writer journal);
+
+	/**
+	 * Obtains where this component records the movements of the items it holds.
+	 * 
+	 * @return The writer, or null if nothing is recorded.
+	 */
+	EventJournal.Writer getJournal();
+}
@@ -0,0 +1,139 @@
+package com.tdc;
+
+import java.math.BigDecimal;
+import java.util.Currency;
+
+import ca.ucalgary.seng300.simulation.InvalidArgumentSimulationException;
+import ca.ucalgary.seng300.simulation.NullPointerSimulationException;
+
+/**
+ * An exact amount of a currency, held as a whole number of minor units (e.g.,
+ * cents). Amounts that are numerically equal are equal and hash alike
+ * regardless of how they were written (e.g., 0.1 and 0.10), and comparing or
+ * hashing them involves only primitives.
+ * <p>
+ * The minor unit is the currency's own (e.g., 0.01 for Canadian dollars),
+ * unless the amount is finer than that, in which case it is the finest unit
+ * needed to hold the amount exactly. Every amount of a currency that is
+ * numerically equal therefore has the same representation.
+ * </p>
+ */
+public final class Money implements Comparable<Money> {
+	private final Currency currency;
+	private final long units;
+	private final int scale;
+
+	private Money(Currency currency, long units, int scale) {
+		this.currency = currency;
+		this.units = units;
+		this.scale = scale;
+	}
+
+	/**
+	 * Obtains the exact representation of an amount.
+	 *
+	 * @param currency
+	 *            The currency of the amount. Cannot be null.
+	 * @param amount
+	 *            The amount, in multiples of the unit of currency. Cannot be null.
+	 * @return The amount.
+	 * @throws NullPointerSimulationException
+	 *             If either argument is null.
+	 * @throws InvalidArgumentSimulationException
+	 *             If the amount has too many digits to be held in minor units,
+	 *             i.e., if the number of minor units does not fit in a
+	 *             {@code long}.
+	 */
+	public static Money of(Currency currency, BigDecimal amount) {
+		if(currency == null)
+			throw new NullPointerSimulationException("currency");
+
+		if(amount == null)
+			throw new NullPointerSimulationException("amount");
+
+		int scale = Math.max(Math.max(currency.getDefaultFractionDigits(), 0), amount.stripTrailingZeros().scale());
+
+		try {
+			return new Money(currency, amount.movePointRight(scale).longValueExact(), scale);
+		}
+		catch(ArithmeticException e) {
+			throw new InvalidArgumentSimulationException("The amount is too large: " + amount);
+		}
+	}
+
+	/**
+	 * Gets the currency of this amount.
+	 *
+	 * @return The currency.
+	 */
+	public Currency getCurrency() {
+		return currency;
+	}
+
+	/**
+	 * Gets this amount as a whole number of minor units.
+	 *
+	 * @return The number of minor units.
+	 */
+	public long getMinorUnits() {
+		return units;
+	}
+
+	/**
+	 * Gets the number of decimal places in the minor unit of this amount.
+	 *
+	 * @return The scale; e.g., 2 for cents.
+	 */
+	public int getScale() {
+		return scale;
+	}
+
+	/**
+	 * Converts this amount back into multiples of the unit of currency.
+	 *
+	 * @return The amount, at the scale of its minor unit.
+	 */
+	public BigDecimal toBigDecimal() {
+		return BigDecimal.valueOf(units, scale);
+	}
+
+	/**
+	 * Orders amounts by currency code, then by value.
+	 */
+	@Override
+	public int compareTo(Money other) {
+		if(currency != other.currency) {
+			int c = currency.getCurrencyCode().compareTo(other.currency.getCurrencyCode());
+
+			if(c != 0)
+				return c;
+		}
+
+		if(scale == other.scale)
+			return Long.compare(units, other.units);
+
+		return toBigDecimal().compareTo(other.toBigDecimal());
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if(this == obj)
+			return true;
+
+		if(!(obj instanceof Money))
+			return false;
+
+		Money other = (Money)obj;
+		return units == other.units && scale == other.scale && currency.equals(other.currency);
+	}
+
+	@Override
+	public int hashCode() {
+		return 31 * (31 * currency.hashCode() + Long.hashCode(units)) + scale;
+	}
+
+	@Override
+	public String toString() {
+		return toBigDecimal().toPlainString() + " " + currency;
+	}
+}
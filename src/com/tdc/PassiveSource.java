@@ -1,5 +1,7 @@
 package com.tdc;
 
+import java.util.List;
+
 /**
  * A simple interface for components that emit cash, not on demand but when some
  * external action has caused it.
@@ -27,4 +29,27 @@ public interface PassiveSource<T> {
 	 *             full.
 	 */
 	public void reject(T cash) throws CashOverloadException, DisabledException, ComponentFailure;
+
+	/**
+	 * Allows a component to reject several items of cash together, forcing them
+	 * back to the source as one bundle. Sources that can take back more than one
+	 * item at a time should override this; by default, each item is rejected with
+	 * {@link #reject(Object)}. Requires power.
+	 * 
+	 * @param cash
+	 *            The items of cash to reject.
+	 * @throws DisabledException
+	 *             If the component at the end of the channel receiving the cash is
+	 *             disabled.
+	 * @throws ComponentFailure
+	 *             If the component at the end of the channel receiving the cash is not
+	 *             capable of rejecting cash.
+	 * @throws CashOverloadException
+	 *             If the component at the end of the channel receiving the cash is too
+	 *             full.
+	 */
+	public default void rejectAll(List<T> cash) throws CashOverloadException, DisabledException, ComponentFailure {
+		for(T item : cash)
+			reject(item);
+	}
 }
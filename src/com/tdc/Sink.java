@@ -1,5 +1,9 @@
 package com.tdc;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
 /**
  * Represents an abstract component that can receive cash.
  * 
@@ -28,4 +32,62 @@ public interface Sink<T> {
 	 * @return true if the sink can accept an item of cash; false otherwise.
 	 */
 	public boolean hasSpace();
+
+	/**
+	 * Returns whether the sink has space for the indicated number of additional
+	 * items of cash, so that a batch can be checked before any of it is moved.
+	 * Sinks that can hold more than one item should override this; by default,
+	 * only batches of at most one item are accepted. Requires power.
+	 * 
+	 * @param count
+	 *            The number of items.
+	 * @return true if the sink can accept that many items of cash; false
+	 *             otherwise.
+	 */
+	public default boolean hasSpace(int count) {
+		return count <= 0 || (count == 1 && hasSpace());
+	}
+
+	/**
+	 * Places each of the indicated items of cash into the sink, in order, and
+	 * reports where each one ended up. Sinks that can route a batch more cheaply
+	 * than one item at a time should override this; by default, each item is
+	 * placed with {@link #receive(Object)} and reported as accepted. If an item
+	 * cannot be placed, the items before it remain placed. Requires power.
+	 * 
+	 * @param cash
+	 *            The items of cash to place in the sink.
+	 * @return An unmodifiable list of the disposition of each item, in the same
+	 *             order as the items.
+	 * @throws CashOverloadException
+	 *             If the sink has no space for an item.
+	 * @throws DisabledException
+	 *             If the sink is currently disabled.
+	 */
+	public default List<Disposition> receiveAll(List<T> cash) throws CashOverloadException, DisabledException {
+		List<Disposition> dispositions = new ArrayList<>(cash.size());
+
+		for(T item : cash) {
+			receive(item);
+			dispositions.add(Disposition.ACCEPTED);
+		}
+
+		return Collections.unmodifiableList(dispositions);
+	}
+
+	/**
+	 * Takes back the indicated items of cash, which were placed in this sink and
+	 * have not moved on, as when a source abandons a batch that the sink refused
+	 * partway. Either all of them are taken back or none is. Sinks that can give
+	 * cash back should override this; by default, nothing is taken back.
+	 * 
+	 * @param cash
+	 *            The items of cash to take back, which must be the very items
+	 *            that were placed.
+	 * @return true if the items were taken back; false if the sink cannot give
+	 *             them back.
+	 */
+	public default boolean retract(List<T> cash) {
+		return false;
+	}
 }
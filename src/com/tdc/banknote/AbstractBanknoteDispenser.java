@@ -1,13 +1,18 @@
 package com.tdc.banknote;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Queue;
 
 import com.tdc.AbstractComponent;
+import com.tdc.CashJournal;
 import com.tdc.CashOverloadException;
 import com.tdc.DisabledException;
+import com.tdc.FungibleCashQueue;
 import com.tdc.NoCashAvailableException;
 import com.tdc.Sink;
 
@@ -23,17 +28,58 @@ import powerutility.NoPowerException;
  */
 public abstract class AbstractBanknoteDispenser extends AbstractComponent<BanknoteDispenserObserver> implements IBanknoteDispenser {
 	protected int maxCapacity;
-	private Queue<Banknote> queue = new LinkedList<Banknote>();
+	private final Queue<Banknote> queue;
+	private final FungibleCashQueue<Banknote> fungibleQueue;
 	/**
 	 * Represents the output sink of this dispenser.
 	 */
 	public Sink<Banknote> sink;
 
 	protected AbstractBanknoteDispenser(int capacity) {
+		this(capacity, false);
+	}
+
+	/**
+	 * Creates a banknote dispenser with the indicated maximum capacity and
+	 * storage mode.
+	 * 
+	 * @param capacity
+	 *            The maximum number of banknotes that can be stored in the
+	 *            dispenser. Must be positive.
+	 * @param fungible
+	 *            If true, banknotes of the same currency and denomination are
+	 *            stored as a count rather than individually, so memory use does
+	 *            not grow with the number of banknotes; the banknotes emitted are
+	 *            then equal in currency and denomination to those stored, but not
+	 *            necessarily the same objects.
+	 * @throws SimulationException
+	 *             if capacity is not positive.
+	 */
+	protected AbstractBanknoteDispenser(int capacity, boolean fungible) {
 		if(capacity <= 0)
 			throw new InvalidArgumentSimulationException("Capacity must be positive: " + capacity);
 
 		this.maxCapacity = capacity;
+
+		if(fungible) {
+			fungibleQueue = new FungibleCashQueue<>((a, b) -> a.getMoney().equals(b.getMoney()));
+			queue = fungibleQueue;
+		}
+		else {
+			fungibleQueue = null;
+			queue = new LinkedList<Banknote>();
+		}
+	}
+
+	/**
+	 * Determines whether this dispenser stores interchangeable banknotes as a
+	 * count. Does not require power.
+	 * 
+	 * @return true if the storage is fungible; false if each banknote is stored
+	 *             individually.
+	 */
+	public boolean isFungible() {
+		return fungibleQueue != null;
 	}
 
 	/**
@@ -50,33 +96,49 @@ public abstract class AbstractBanknoteDispenser extends AbstractComponent<Bankno
 	}
 
 	protected void receive(Banknote banknote) throws CashOverloadException, DisabledException {
-		if(!hasPower())
-			throw new NoPowerException();
+		holdEvents();
+		try {
+			synchronized(this) {
+				if(!hasPower())
+					throw new NoPowerException();
 
-		if(banknote == null)
-			throw new NullPointerSimulationException();
+				if(banknote == null)
+					throw new NullPointerSimulationException();
 
-		if(isDisabled())
-			throw new DisabledException();
+				if(isDisabled())
+					throw new DisabledException();
 
-		if(queue.size() + 1 > maxCapacity)
-			throw new CashOverloadException();
+				if(queue.size() + 1 > maxCapacity)
+					throw new CashOverloadException();
 
-		queue.add(banknote);
+				queue.add(banknote);
+				journal("banknoteAdded", () -> CashJournal.encode(banknote));
+
+				notifyBillAdded(banknote);
 
-		notifyBillAdded(banknote);
-		
-		if(!hasSpace())
-			notifyMoneyFull();
+				if(!hasSpace())
+					notifyMoneyFull();
+			}
+		}
+		finally {
+			releaseEvents();
+		}
 	}
 
-	protected boolean hasSpace() {
+	protected synchronized boolean hasSpace() {
 		if(!hasPower())
 			throw new NoPowerException();
 
 		return queue.size() < maxCapacity;
 	}
 
+	protected synchronized boolean hasSpace(int count) {
+		if(!hasPower())
+			throw new NoPowerException();
+
+		return queue.size() + count <= maxCapacity;
+	}
+
 	/**
 	 * Allows a set of banknotes to be loaded into the dispenser directly. Existing
 	 * banknotes in the dispenser are not removed. Announces "banknotesLoaded"
@@ -91,20 +153,29 @@ public abstract class AbstractBanknoteDispenser extends AbstractComponent<Bankno
 	 *             If any banknote is null.
 	 */
 	@Override
-	public synchronized void load(Banknote... banknotes) throws CashOverloadException {
-		if(!hasPower())
-			throw new NoPowerException();
-
-		if(maxCapacity < queue.size() + banknotes.length)
-			throw new CashOverloadException("Capacity of dispenser is exceeded by load");
-
-		for(Banknote banknote : banknotes)
-			if(banknote == null)
-				throw new NullPointerSimulationException("banknote instance");
-			else
-				queue.add(banknote);
-
-		notifyBanknotesLoaded(banknotes);
+	public void load(Banknote... banknotes) throws CashOverloadException {
+		holdEvents();
+		try {
+			synchronized(this) {
+				if(!hasPower())
+					throw new NoPowerException();
+
+				if(maxCapacity < queue.size() + banknotes.length)
+					throw new CashOverloadException("Capacity of dispenser is exceeded by load");
+
+				for(Banknote banknote : banknotes)
+					if(banknote == null)
+						throw new NullPointerSimulationException("banknote instance");
+					else
+						queue.add(banknote);
+
+				journal("banknotesLoaded", () -> CashJournal.encode(banknotes));
+				notifyBanknotesLoaded(banknotes);
+			}
+		}
+		finally {
+			releaseEvents();
+		}
 	}
 
 	/**
@@ -114,16 +185,32 @@ public abstract class AbstractBanknoteDispenser extends AbstractComponent<Bankno
 	 * @return A list of the banknotes unloaded. May be empty. Will never be null.
 	 */
 	@Override
-	public synchronized List<Banknote> unload() {
-		if(!hasPower())
-			throw new NoPowerException();
+	public List<Banknote> unload() {
+		holdEvents();
+		try {
+			synchronized(this) {
+				if(!hasPower())
+					throw new NoPowerException();
+
+				List<Banknote> result;
+
+				if(fungibleQueue != null)
+					result = fungibleQueue.drain();
+				else {
+					result = new ArrayList<>(queue);
+					queue.clear();
+				}
 
-		List<Banknote> result = new ArrayList<>(queue);
-		queue.clear();
+				journal("banknotesUnloaded", () -> "");
 
-		notifyBanknotesUnoaded(result.toArray(new Banknote[result.size()]));
+				notifyBanknotesUnoaded(result.toArray(new Banknote[result.size()]));
 
-		return result;
+				return result;
+			}
+		}
+		finally {
+			releaseEvents();
+		}
 	}
 
 	/**
@@ -151,62 +238,140 @@ public abstract class AbstractBanknoteDispenser extends AbstractComponent<Bankno
 	 *             if the dispenser is currently disabled.
 	 */
 	@Override
-	public synchronized void emit() throws NoCashAvailableException, DisabledException, CashOverloadException {
-		if(!hasPower())
-			throw new NoPowerException();
+	public void emit() throws NoCashAvailableException, DisabledException, CashOverloadException {
+		holdEvents();
+		try {
+			synchronized(this) {
+				if(!hasPower())
+					throw new NoPowerException();
 
-		if(isDisabled())
-			throw new DisabledException();
+				if(isDisabled())
+					throw new DisabledException();
 
-		if(queue.size() == 0)
-			throw new NoCashAvailableException();
+				if(queue.size() == 0)
+					throw new NoCashAvailableException();
 
-		Banknote banknote = queue.remove();
+				if(!sink.hasSpace())
+					throw new CashOverloadException("The sink is full.");
 
-		if(sink.hasSpace())
-			try {
+				// The banknote leaves the dispenser only once the sink has accepted it
+				Banknote banknote = queue.peek();
 				sink.receive(banknote);
+				queue.remove();
+
+				journal("banknoteRemoved", () -> CashJournal.encode(banknote));
+				notifyBanknoteRemoved(banknote);
+
+				if(queue.isEmpty())
+					notifyBanknotesEmpty();
 			}
-			catch(CashOverloadException e) {
-				// Should never happen
-				throw e;
+		}
+		finally {
+			releaseEvents();
+		}
+	}
+
+	@Override
+	public List<Banknote> emit(int count) throws NoCashAvailableException, DisabledException, CashOverloadException {
+		holdEvents();
+		try {
+			synchronized(this) {
+				if(!hasPower())
+					throw new NoPowerException();
+
+				if(isDisabled())
+					throw new DisabledException();
+
+				if(count <= 0)
+					throw new InvalidArgumentSimulationException("The count must be positive.");
+
+				if(queue.size() < count)
+					throw new NoCashAvailableException();
+
+				if(!sink.hasSpace(count))
+					throw new CashOverloadException("The sink cannot accept " + count + " banknotes.");
+
+				Banknote[] banknotes = new Banknote[count];
+				Iterator<Banknote> waiting = queue.iterator();
+
+				for(int i = 0; i < count; i++)
+					banknotes[i] = waiting.next();
+
+				int delivered = 0;
+
+				try {
+					// The banknotes leave the dispenser only once the sink has accepted all of them
+					for(; delivered < count; delivered++)
+						sink.receive(banknotes[delivered]);
+				}
+				catch(Throwable refusal) {
+					if(delivered > 0 && takeBack(banknotes, delivered, refusal))
+						delivered = 0;
+
+					throw refusal;
+				}
+				finally {
+					if(delivered > 0) {
+						for(int i = 0; i < delivered; i++)
+							queue.remove();
+
+						Banknote[] removed = delivered == count ? banknotes : Arrays.copyOf(banknotes, delivered);
+						journal("banknotesRemoved", () -> CashJournal.encode(removed));
+						notifyBanknotesRemoved(removed);
+
+						if(queue.isEmpty())
+							notifyBanknotesEmpty();
+					}
+				}
+
+				return Collections.unmodifiableList(Arrays.asList(banknotes));
 			}
-		else
-			throw new CashOverloadException("The sink is full.");
+		}
+		finally {
+			releaseEvents();
+		}
+	}
 
-		notifyBanknoteRemoved(banknote);
+	/*
+	 * Asks the sink to give back the first banknotes of a batch that it refused
+	 * partway. A failure to do so is attached to the refusal.
+	 */
+	private boolean takeBack(Banknote[] banknotes, int count, Throwable refusal) {
+		try {
+			return sink.retract(Arrays.asList(banknotes).subList(0, count));
+		}
+		catch(RuntimeException e) {
+			refusal.addSuppressed(e);
+			return false;
+		}
+	}
 
-		if(queue.isEmpty())
-			notifyBanknotesEmpty();
+	protected void notifyBanknotesRemoved(Banknote[] banknotes) {
+		notifyObservers("banknotesRemoved", "banknoteRemoved",
+			observer -> observer.banknotesRemoved(this, banknotes));
 	}
 
 	protected void notifyBanknoteRemoved(Banknote banknote) {
-		for(BanknoteDispenserObserver observer : observers)
-			observer.banknoteRemoved(this, banknote);
+		notifyObservers("banknoteRemoved", observer -> observer.banknoteRemoved(this, banknote));
 	}
 
 	protected void notifyBanknotesEmpty() {
-		for(BanknoteDispenserObserver observer : observers)
-			observer.banknotesEmpty(this);
+		notifyObservers("banknotesEmpty", observer -> observer.banknotesEmpty(this));
 	}
 
 	protected void notifyBanknotesLoaded(Banknote[] banknotes) {
-		for(BanknoteDispenserObserver observer : observers)
-			observer.banknotesLoaded(this, banknotes);
+		notifyObservers("banknotesLoaded", observer -> observer.banknotesLoaded(this, banknotes));
 	}
 
 	protected void notifyBanknotesUnoaded(Banknote[] banknotes) {
-		for(BanknoteDispenserObserver observer : observers)
-			observer.banknotesUnloaded(this, banknotes);
+		notifyObservers("banknotesUnloaded", observer -> observer.banknotesUnloaded(this, banknotes));
 	}
 
 	protected void notifyBillAdded(Banknote banknote) {
-		for(BanknoteDispenserObserver observer : observers)
-			observer.banknoteAdded(this, banknote);
+		notifyObservers("banknoteAdded", observer -> observer.banknoteAdded(this, banknote));
 	}
 
 	protected void notifyMoneyFull() {
-		for(BanknoteDispenserObserver observer : observers)
-			observer.moneyFull(this);
+		notifyObservers("moneyFull", observer -> observer.moneyFull(this));
 	}
 }
@@ -2,6 +2,9 @@ package com.tdc.banknote;
 
 import java.math.BigDecimal;
 import java.util.Currency;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.tdc.Money;
 
 import ca.ucalgary.seng300.simulation.InvalidArgumentSimulationException;
 import ca.ucalgary.seng300.simulation.NullPointerSimulationException;
@@ -13,8 +16,11 @@ import ca.ucalgary.seng300.simulation.SimulationException;
  * @author TDC, Inc.
  */
 public class Banknote {
-	private BigDecimal denomination;
-	private Currency currency;
+	private final BigDecimal denomination;
+	private final Currency currency;
+	private final Money money;
+
+	private static final ConcurrentHashMap<Money, Banknote> FLYWEIGHTS = new ConcurrentHashMap<>();
 
 	/**
 	 * Constructs a banknote.
@@ -27,6 +33,11 @@ public class Banknote {
 	 *             If the value &le; 0.
 	 * @throws SimulationException
 	 *             If currency is null.
+	 * @throws SimulationException
+	 *             If the denomination has too many digits to be held exactly as
+	 *             a whole number of minor units in a {@code long} (see
+	 *             {@link Money#of(Currency, BigDecimal)}), e.g., more than 18
+	 *             significant digits.
 	 */
 	public Banknote(Currency currency, BigDecimal denomination) {
 		if(currency == null)
@@ -38,6 +49,46 @@ public class Banknote {
 
 		this.denomination = denomination;
 		this.currency = currency;
+		this.money = Money.of(currency, denomination);
+	}
+
+	/**
+	 * Obtains the shared banknote of the indicated currency and denomination.
+	 * Every call with numerically equal arguments returns the same instance, so
+	 * code that does not need to tell individual banknotes apart can avoid
+	 * allocating one per banknote.
+	 * 
+	 * @param currency
+	 *            The currency represented by the banknote.
+	 * @param denomination
+	 *            The denomination of the banknote, in multiples of the unit of
+	 *            currency.
+	 * @return The shared banknote, whose denomination is at the scale of the
+	 *             currency's minor unit.
+	 * @throws SimulationException
+	 *             If the denomination is &le;0.
+	 * @throws SimulationException
+	 *             If either argument is null.
+	 */
+	public static Banknote of(Currency currency, BigDecimal denomination) {
+		if(currency == null)
+			throw new NullPointerSimulationException("currency");
+
+		if(denomination == null)
+			throw new NullPointerSimulationException("denomination");
+
+		Money money = Money.of(currency, denomination);
+		Banknote banknote = FLYWEIGHTS.get(money);
+
+		if(banknote == null) {
+			banknote = new Banknote(currency, money.toBigDecimal());
+			Banknote existing = FLYWEIGHTS.putIfAbsent(money, banknote);
+
+			if(existing != null)
+				banknote = existing;
+		}
+
+		return banknote;
 	}
 
 	/**
@@ -64,6 +115,17 @@ public class Banknote {
 		return currency;
 	}
 
+	/**
+	 * Accessor for the denomination as an exact amount in minor units. Two
+	 * banknotes have the same amount exactly when their currencies are the same
+	 * and their denominations are numerically equal.
+	 * 
+	 * @return The amount of this banknote.
+	 */
+	public Money getMoney() {
+		return money;
+	}
+
 	@Override
 	public String toString() {
 		return denomination.toString() + " " + currency;
@@ -10,6 +10,7 @@ import com.tdc.ComponentFailure;
 import com.tdc.DisabledException;
 import com.tdc.Sink;
 
+import ca.ucalgary.seng300.simulation.InvalidArgumentSimulationException;
 import ca.ucalgary.seng300.simulation.NullPointerSimulationException;
 import ca.ucalgary.seng300.simulation.SimulationException;
 import powerutility.NoPowerException;
@@ -35,6 +36,16 @@ public final class BanknoteDispensationSlot extends AbstractComponent<BanknoteDi
 	public BanknoteDispensationSlot() {
 	}
 
+	/**
+	 * Gets the maximum number of banknotes that can be accumulated to be
+	 * dispensed at once. Does not require power.
+	 * 
+	 * @return The capacity.
+	 */
+	public int getCapacity() {
+		return capacity;
+	}
+
 	/**
 	 * Receives the indicated banknote, adding it to the collection to be dispensed.
 	 * Requires power.
@@ -68,17 +79,91 @@ public final class BanknoteDispensationSlot extends AbstractComponent<BanknoteDi
 	 * Causes the accumulated banknotes to be dispensed to the customer, left
 	 * dangling until removed.
 	 */
-	public synchronized void dispense() {
+	public void dispense() {
+		holdEvents();
+		try {
+			synchronized(this) {
+				if(!isActivated())
+					throw new NoPowerException();
+
+				if(!danglingDispensedBanknotes.isEmpty())
+					throw new ComponentFailure("Attempt to dispense banknotes when the slot is already occupied.");
+
+				danglingDispensedBanknotes.addAll(banknotesToDispense);
+				banknotesToDispense.clear();
+
+				notifyBanknotesDispensed(danglingDispensedBanknotes);
+			}
+		}
+		finally {
+			releaseEvents();
+		}
+	}
+
+	/**
+	 * Takes back the indicated number of banknotes most recently accumulated, so
+	 * that they are not dispensed, as when a payout is abandoned before the
+	 * banknotes are presented. Causes no events. Requires power.
+	 * 
+	 * @param count
+	 *            The number of banknotes to take back. Cannot be negative.
+	 * @return The banknotes taken back, in the order in which they were received.
+	 * @throws SimulationException
+	 *             If the count is negative or exceeds the number of banknotes
+	 *             accumulated.
+	 */
+	public synchronized List<Banknote> retract(int count) {
+		if(!isActivated())
+			throw new NoPowerException();
+
+		if(count < 0 || count > banknotesToDispense.size())
+			throw new InvalidArgumentSimulationException("Cannot retract " + count + " banknotes.");
+
+		List<Banknote> tail = banknotesToDispense.subList(banknotesToDispense.size() - count,
+			banknotesToDispense.size());
+		List<Banknote> result = new ArrayList<>(tail);
+		tail.clear();
+
+		return result;
+	}
+
+	/**
+	 * Takes back the indicated banknotes from those accumulated, so that they are
+	 * not dispensed. Either all of them are taken back or none is. Causes no
+	 * events. Requires power.
+	 * 
+	 * @param banknotes
+	 *            The banknotes to take back, which must be the very banknotes
+	 *            that were received. Cannot be null.
+	 * @return true if the banknotes were taken back; false if any of them is not
+	 *             among those accumulated, in which case none is taken.
+	 * @throws SimulationException
+	 *             If the list is null.
+	 */
+	@Override
+	public synchronized boolean retract(List<Banknote> banknotes) {
 		if(!isActivated())
 			throw new NoPowerException();
 
-		if(!danglingDispensedBanknotes.isEmpty())
-			throw new ComponentFailure("Attempt to dispense banknotes when the slot is already occupied.");
+		if(banknotes == null)
+			throw new NullPointerSimulationException("banknotes");
+
+		List<Banknote> kept = new ArrayList<>(banknotesToDispense);
 
-		danglingDispensedBanknotes.addAll(banknotesToDispense);
-		banknotesToDispense.clear();
+		for(Banknote banknote : banknotes) {
+			int i = 0;
 
-		notifyBanknotesDispensed(danglingDispensedBanknotes);
+			while(i < kept.size() && kept.get(i) != banknote)
+				i++;
+
+			if(i == kept.size())
+				return false;
+
+			kept.remove(i);
+		}
+
+		banknotesToDispense = kept;
+		return true;
 	}
 
 	/**
@@ -88,16 +173,24 @@ public final class BanknoteDispensationSlot extends AbstractComponent<BanknoteDi
 	 * 
 	 * @return The formerly dangling banknote.
 	 */
-	public synchronized List<Banknote> removeDanglingBanknotes() {
-		if(danglingDispensedBanknotes.isEmpty())
-			throw new NullPointerSimulationException("danglingEjectedBanknote");
-
-		@SuppressWarnings("unchecked")
-		List<Banknote> banknotes = Collections.unmodifiableList((List<Banknote>)danglingDispensedBanknotes.clone());
-		danglingDispensedBanknotes.clear();
-		notifyBanknotesRemoved();
-
-		return banknotes;
+	public List<Banknote> removeDanglingBanknotes() {
+		holdEvents();
+		try {
+			synchronized(this) {
+				if(danglingDispensedBanknotes.isEmpty())
+					throw new NullPointerSimulationException("danglingEjectedBanknote");
+
+				@SuppressWarnings("unchecked")
+				List<Banknote> banknotes = Collections.unmodifiableList((List<Banknote>)danglingDispensedBanknotes.clone());
+				danglingDispensedBanknotes.clear();
+				notifyBanknotesRemoved();
+
+				return banknotes;
+			}
+		}
+		finally {
+			releaseEvents();
+		}
 	}
 
 	/**
@@ -124,16 +217,26 @@ public final class BanknoteDispensationSlot extends AbstractComponent<BanknoteDi
 		if(isDisabled())
 			return false;
 
-		return danglingDispensedBanknotes.isEmpty();
+		return danglingDispensedBanknotes.isEmpty() && banknotesToDispense.size() < capacity;
+	}
+
+	@Override
+	public synchronized boolean hasSpace(int count) {
+		if(!isActivated())
+			throw new NoPowerException();
+
+		if(isDisabled())
+			return false;
+
+		return danglingDispensedBanknotes.isEmpty() && banknotesToDispense.size() + count <= capacity;
 	}
 
 	private void notifyBanknotesDispensed(List<Banknote> banknotes) {
-		for(BanknoteDispensationSlotObserver observer : observers)
-			observer.banknoteDispensed(this, Collections.unmodifiableList(banknotes));
+		List<Banknote> dispensed = Collections.unmodifiableList(new ArrayList<>(banknotes));
+		notifyObservers("banknoteDispensed", observer -> observer.banknoteDispensed(this, dispensed));
 	}
 
 	private void notifyBanknotesRemoved() {
-		for(BanknoteDispensationSlotObserver observer : observers)
-			observer.banknotesRemoved(this);
+		notifyObservers("banknotesRemoved", observer -> observer.banknotesRemoved(this));
 	}
 }
@@ -27,6 +27,19 @@ public final class BanknoteDispenser extends AbstractBanknoteDispenser implement
 		super(MAX_CAPACITY);
 	}
 
+	/**
+	 * Creates a banknote dispenser that can be automatically refilled, with the
+	 * indicated storage mode.
+	 * 
+	 * @param fungible
+	 *            If true, banknotes of the same currency and denomination are
+	 *            stored as a count rather than individually.
+	 * @see AbstractBanknoteDispenser#AbstractBanknoteDispenser(int, boolean)
+	 */
+	public BanknoteDispenser(boolean fungible) {
+		super(MAX_CAPACITY, fungible);
+	}
+
 	@Override
 	public void receive(Banknote cash) throws CashOverloadException, DisabledException {
 		super.receive(cash);
@@ -36,4 +49,9 @@ public final class BanknoteDispenser extends AbstractBanknoteDispenser implement
 	public boolean hasSpace() {
 		return super.hasSpace();
 	}
+
+	@Override
+	public boolean hasSpace(int count) {
+		return super.hasSpace(count);
+	}
 }
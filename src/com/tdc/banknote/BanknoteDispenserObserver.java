@@ -48,6 +48,22 @@ public interface BanknoteDispenserObserver extends IComponentObserver {
 	 */
 	void banknoteRemoved(IBanknoteDispenser dispenser, Banknote banknote);
 
+	/**
+	 * Called to announce that the indicated banknotes have been emitted together
+	 * from the indicated banknote dispenser, by a single batch emission. By
+	 * default, announces each banknote through
+	 * {@link #banknoteRemoved(IBanknoteDispenser, Banknote)}.
+	 * 
+	 * @param dispenser
+	 *            The dispenser where the event occurred.
+	 * @param banknotes
+	 *            The banknotes that were removed, in the order they were emitted.
+	 */
+	default void banknotesRemoved(IBanknoteDispenser dispenser, Banknote... banknotes) {
+		for(Banknote banknote : banknotes)
+			banknoteRemoved(dispenser, banknote);
+	}
+
 	/**
 	 * Called to announce that the indicated sequence of banknotes has been added to
 	 * the indicated banknote dispenser. Used to simulate direct, physical loading
@@ -1,9 +1,15 @@
 package com.tdc.banknote;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
 import com.tdc.AbstractComponent;
 import com.tdc.CashOverloadException;
 import com.tdc.ComponentFailure;
 import com.tdc.DisabledException;
+import com.tdc.Disposition;
 import com.tdc.PassiveSource;
 import com.tdc.Sink;
 
@@ -15,6 +21,11 @@ import powerutility.NoPowerException;
  * Represents a simple banknote slot component that can either accept a banknote or
  * eject the most recently inserted banknote, leaving it dangling until the
  * customer removes it, via {@link #removeDanglingBanknote()}.
+ * <p>
+ * The slot can also take a stack of banknotes at once, via
+ * {@link #receiveAll(Banknote...)}, in which case the banknotes that are not
+ * accepted are returned together as one dangling stack.
+ * </p>
  *            
  * @author TDC, Inc.
  */
@@ -24,7 +35,7 @@ public final class BanknoteInsertionSlot extends AbstractComponent<BanknoteInser
 	 * Represents the output sink of this component.
 	 */
 	public Sink<Banknote> sink;
-	private Banknote danglingEjectedBanknote = null;
+	private final List<Banknote> danglingEjectedBanknotes = new ArrayList<>();
 
 	/**
 	 * Creates a banknote slot.
@@ -47,33 +58,104 @@ public final class BanknoteInsertionSlot extends AbstractComponent<BanknoteInser
 	 * @throws CashOverloadException
 	 *             If a banknote is dangling from the slot.
 	 */
-	public synchronized void receive(Banknote banknote) throws DisabledException, CashOverloadException {
-		if(!isActivated())
-			throw new NoPowerException();
+	public void receive(Banknote banknote) throws DisabledException, CashOverloadException {
+		holdEvents();
+		try {
+			synchronized(this) {
+				if(!isActivated())
+					throw new NoPowerException();
 
-		if(banknote == null)
-			throw new NullPointerSimulationException("banknote");
+				if(banknote == null)
+					throw new NullPointerSimulationException("banknote");
 
-		if(isDisabled())
-			throw new DisabledException();
+				if(isDisabled())
+					throw new DisabledException();
 
-		if(danglingEjectedBanknote != null)
-			throw new CashOverloadException("A banknote is dangling from the slot. Remove it before adding another.");
+				if(!danglingEjectedBanknotes.isEmpty())
+					throw new CashOverloadException("A banknote is dangling from the slot. Remove it before adding another.");
 
-		notifyBanknoteInserted();
+				notifyBanknoteInserted();
 
-		if(sink.hasSpace()) {
-			try {
-				sink.receive(banknote);
+				if(sink.hasSpace()) {
+					try {
+						sink.receive(banknote);
+					}
+					catch(CashOverloadException e) {
+						// Should never happen
+						throw e;
+					}
+				}
+				else {
+					danglingEjectedBanknotes.add(banknote);
+					notifyBanknoteEjected();
+				}
 			}
-			catch(CashOverloadException e) {
-				// Should never happen
-				throw e;
+		}
+		finally {
+			releaseEvents();
+		}
+	}
+
+	/**
+	 * Tells the banknote slot that the indicated banknotes are being inserted as
+	 * a stack. Announces one "banknotesInserted" event and feeds the stack on as
+	 * a single batch, so that the banknotes can be validated one after another
+	 * while earlier ones are still on their way to storage. The banknotes that are
+	 * not accepted are returned together, dangling from the slot as one stack,
+	 * with one "banknoteEjected" event. If the sink has no space at all, the whole
+	 * stack is returned. Requires power.
+	 * 
+	 * @param banknotes
+	 *            The banknotes to be added. Neither the array nor any banknote in
+	 *            it can be null.
+	 * @return An unmodifiable list of the disposition of each banknote, in the
+	 *             same order as the banknotes: accepted into storage, or rejected
+	 *             back to the slot; or in flight, if the slot feeds a channel
+	 *             that delivers later.
+	 * @throws DisabledException
+	 *             If the banknote slot is currently disabled.
+	 * @throws CashOverloadException
+	 *             If a banknote is dangling from the slot.
+	 * @throws SimulationException
+	 *             If the array or any banknote is null.
+	 */
+	public List<Disposition> receiveAll(Banknote... banknotes) throws DisabledException, CashOverloadException {
+		holdEvents();
+		try {
+			synchronized(this) {
+				if(!isActivated())
+					throw new NoPowerException();
+
+				if(isDisabled())
+					throw new DisabledException();
+
+				if(banknotes == null)
+					throw new NullPointerSimulationException("banknotes");
+
+				for(Banknote banknote : banknotes)
+					if(banknote == null)
+						throw new NullPointerSimulationException("banknote instance");
+
+				if(!danglingEjectedBanknotes.isEmpty())
+					throw new CashOverloadException("A banknote is dangling from the slot. Remove it before adding another.");
+
+				if(banknotes.length == 0)
+					return Collections.emptyList();
+
+				notifyBanknotesInserted(banknotes.length);
+				List<Banknote> stack = Arrays.asList(banknotes.clone());
+
+				if(sink.hasSpace())
+					return sink.receiveAll(stack);
+
+				danglingEjectedBanknotes.addAll(stack);
+				notifyBanknoteEjected();
+
+				return Collections.nCopies(stack.size(), Disposition.REJECTED);
 			}
 		}
-		else {
-			danglingEjectedBanknote = banknote;
-			notifyBanknoteEjected();
+		finally {
+			releaseEvents();
 		}
 	}
 
@@ -90,52 +172,136 @@ public final class BanknoteInsertionSlot extends AbstractComponent<BanknoteInser
 	 * @throws CashOverloadException
 	 *             If a banknote is already dangling from the slot.
 	 */
-	public synchronized void emit(Banknote banknote) throws DisabledException, CashOverloadException {
-		if(!isActivated())
-			throw new NoPowerException();
+	public void emit(Banknote banknote) throws DisabledException, CashOverloadException {
+		holdEvents();
+		try {
+			synchronized(this) {
+				if(!isActivated())
+					throw new NoPowerException();
 
-		if(isDisabled())
-			throw new DisabledException();
+				if(isDisabled())
+					throw new DisabledException();
 
-		if(banknote == null)
-			throw new NullPointerSimulationException("banknote");
+				if(banknote == null)
+					throw new NullPointerSimulationException("banknote");
 
-		if(danglingEjectedBanknote != null)
-			throw new CashOverloadException(
-				"A banknote is already dangling from the slot. Remove that before ejecting another.");
+				if(!danglingEjectedBanknotes.isEmpty())
+					throw new CashOverloadException(
+						"A banknote is already dangling from the slot. Remove that before ejecting another.");
 
-		danglingEjectedBanknote = banknote;
+				danglingEjectedBanknotes.add(banknote);
 
-		notifyBanknoteEjected();
+				notifyBanknoteEjected();
+			}
+		}
+		finally {
+			releaseEvents();
+		}
 	}
 
-	public synchronized void reject(Banknote banknote) {
-		if(!isActivated())
-			throw new NoPowerException();
+	public void reject(Banknote banknote) {
+		holdEvents();
+		try {
+			synchronized(this) {
+				if(!isActivated())
+					throw new NoPowerException();
 
-		if(danglingEjectedBanknote != null)
-			throw new ComponentFailure("Attempt to reject a banknote when the slot is already occupied.");
+				if(!danglingEjectedBanknotes.isEmpty())
+					throw new ComponentFailure("Attempt to reject a banknote when the slot is already occupied.");
 
-		danglingEjectedBanknote = banknote;
-		notifyBanknoteEjected();
+				danglingEjectedBanknotes.add(banknote);
+				notifyBanknoteEjected();
+			}
+		}
+		finally {
+			releaseEvents();
+		}
 	}
 
 	/**
-	 * Simulates the user removing a banknote that is dangling from the slot.
-	 * Announces "banknoteRemoved" event. Disabling has no effect on this method.
-	 * Does not require power.
+	 * Returns the indicated banknotes to the customer as one stack, leaving it
+	 * dangling until removed. Announces one "banknoteEjected" event, unless there
+	 * are no banknotes. Requires power.
+	 * 
+	 * @param banknotes
+	 *            The banknotes to be returned.
+	 * @throws ComponentFailure
+	 *             If a banknote is already dangling from the slot.
+	 */
+	@Override
+	public void rejectAll(List<Banknote> banknotes) {
+		holdEvents();
+		try {
+			synchronized(this) {
+				if(!isActivated())
+					throw new NoPowerException();
+
+				if(banknotes.isEmpty())
+					return;
+
+				if(!danglingEjectedBanknotes.isEmpty())
+					throw new ComponentFailure("Attempt to reject banknotes when the slot is already occupied.");
+
+				danglingEjectedBanknotes.addAll(banknotes);
+				notifyBanknoteEjected();
+			}
+		}
+		finally {
+			releaseEvents();
+		}
+	}
+
+	/**
+	 * Simulates the user removing a banknote that is dangling from the slot. If a
+	 * stack is dangling, its first banknote is removed. Announces
+	 * "banknoteRemoved" event. Disabling has no effect on this method. Does not
+	 * require power.
 	 * 
 	 * @return The formerly dangling banknote.
 	 */
-	public synchronized Banknote removeDanglingBanknote() {
-		if(danglingEjectedBanknote == null)
-			throw new NullPointerSimulationException("danglingEjectedBanknote");
+	public Banknote removeDanglingBanknote() {
+		holdEvents();
+		try {
+			synchronized(this) {
+				if(danglingEjectedBanknotes.isEmpty())
+					throw new NullPointerSimulationException("danglingEjectedBanknote");
 
-		Banknote banknote = danglingEjectedBanknote;
-		danglingEjectedBanknote = null;
-		notifyBanknoteRemoved();
+				Banknote banknote = danglingEjectedBanknotes.remove(0);
+				notifyBanknoteRemoved();
 
-		return banknote;
+				return banknote;
+			}
+		}
+		finally {
+			releaseEvents();
+		}
+	}
+
+	/**
+	 * Simulates the user removing everything that is dangling from the slot.
+	 * Announces one "banknoteRemoved" event. Disabling has no effect on this
+	 * method. Does not require power.
+	 * 
+	 * @return The formerly dangling banknotes, in the order in which they were
+	 *             ejected.
+	 */
+	public List<Banknote> removeDanglingBanknotes() {
+		holdEvents();
+		try {
+			synchronized(this) {
+				if(danglingEjectedBanknotes.isEmpty())
+					throw new NullPointerSimulationException("danglingEjectedBanknote");
+
+				List<Banknote> banknotes = new ArrayList<>(danglingEjectedBanknotes);
+				danglingEjectedBanknotes.clear();
+				notifyBanknoteRemoved();
+
+				return banknotes;
+			}
+		}
+		finally {
+			releaseEvents();
+		}
 	}
 
 	/**
@@ -145,7 +311,7 @@ public final class BanknoteInsertionSlot extends AbstractComponent<BanknoteInser
 	 * @return true if there is a dangling banknote; otherwise, false.
 	 */
 	public synchronized boolean hasDanglingBanknotes() {
-		return danglingEjectedBanknote != null;
+		return !danglingEjectedBanknotes.isEmpty();
 	}
 
 	/**
@@ -159,21 +325,23 @@ public final class BanknoteInsertionSlot extends AbstractComponent<BanknoteInser
 		if(!isActivated())
 			throw new NoPowerException();
 
-		return danglingEjectedBanknote == null;
+		return danglingEjectedBanknotes.isEmpty();
 	}
 
 	private void notifyBanknoteInserted() {
-		for(BanknoteInsertionSlotObserver observer : observers)
-			observer.banknoteInserted(this);
+		notifyObservers("banknoteInserted", observer -> observer.banknoteInserted(this));
+	}
+
+	private void notifyBanknotesInserted(int count) {
+		notifyObservers("banknotesInserted", "banknoteInserted",
+			observer -> observer.banknotesInserted(this, count));
 	}
 
 	private void notifyBanknoteEjected() {
-		for(BanknoteInsertionSlotObserver observer : observers)
-			observer.banknoteEjected(this);
+		notifyObservers("banknoteEjected", observer -> observer.banknoteEjected(this));
 	}
 
 	private void notifyBanknoteRemoved() {
-		for(BanknoteInsertionSlotObserver observer : observers)
-			observer.banknoteRemoved(this);
+		notifyObservers("banknoteRemoved", observer -> observer.banknoteRemoved(this));
 	}
 }
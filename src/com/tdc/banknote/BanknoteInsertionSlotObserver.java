@@ -16,6 +16,21 @@ public interface BanknoteInsertionSlotObserver extends IComponentObserver {
 	 */
 	void banknoteInserted(BanknoteInsertionSlot slot);
 
+	/**
+	 * An event announcing that a stack of banknotes has been inserted. By
+	 * default, announces each banknote through
+	 * {@link #banknoteInserted(BanknoteInsertionSlot)}.
+	 * 
+	 * @param slot
+	 *            The component on which the event occurred.
+	 * @param count
+	 *             The number of banknotes inserted.
+	 */
+	default void banknotesInserted(BanknoteInsertionSlot slot, int count) {
+		for(int i = 0; i < count; i++)
+			banknoteInserted(slot);
+	}
+
 	/**
 	 * An event announcing that a banknote has been returned to the user, dangling
 	 * from the slot.
@@ -1,10 +1,16 @@
 package com.tdc.banknote;
 
+import java.math.BigDecimal;
 import java.util.Arrays;
+import java.util.Currency;
 import java.util.List;
+import java.util.Map;
 
 import com.tdc.AbstractComponent;
+import com.tdc.CashEventCoalescer;
+import com.tdc.CashJournal;
 import com.tdc.CashOverloadException;
+import com.tdc.CashTally;
 import com.tdc.DisabledException;
 import com.tdc.Sink;
 
@@ -22,8 +28,10 @@ import powerutility.NoPowerException;
  * @author TDC, Inc.
  */
 public class BanknoteStorageUnit extends AbstractComponent<BanknoteStorageUnitObserver> implements Sink<Banknote> {
-	private Banknote[] storage;
+	private final Banknote[] storage;
 	private int nextIndex = 0;
+	private final CashEventCoalescer coalescer = new CashEventCoalescer(this);
+	private final CashTally tally = new CashTally();
 
 	/**
 	 * Creates a banknote storage unit that can hold the indicated number of
@@ -64,6 +72,53 @@ public class BanknoteStorageUnit extends AbstractComponent<BanknoteStorageUnitOb
 		return nextIndex;
 	}
 
+	/**
+	 * Gets the current count of banknotes of the indicated currency and denomination contained
+	 * in this storage unit. Takes constant time. Requires power.
+	 * 
+	 * @param currency
+	 *            The currency of interest.
+	 * @param denomination
+	 *            The denomination of interest.
+	 * @return The current count.
+	 */
+	public synchronized int getBanknoteCount(Currency currency, BigDecimal denomination) {
+		if(!isActivated())
+			throw new NoPowerException();
+
+		return tally.getCount(currency, denomination);
+	}
+
+	/**
+	 * Gets the current count of banknotes of each denomination of the indicated currency
+	 * contained in this storage unit. Requires power.
+	 * 
+	 * @param currency
+	 *            The currency of interest.
+	 * @return An unmodifiable map from denomination to count, by increasing denomination.
+	 */
+	public synchronized Map<BigDecimal, Integer> getBanknoteCounts(Currency currency) {
+		if(!isActivated())
+			throw new NoPowerException();
+
+		return tally.getCounts(currency);
+	}
+
+	/**
+	 * Gets the total value of the banknotes of the indicated currency contained in this
+	 * storage unit. Takes constant time. Requires power.
+	 * 
+	 * @param currency
+	 *            The currency of interest.
+	 * @return The total value; zero if there are none.
+	 */
+	public synchronized BigDecimal getTotalValue(Currency currency) {
+		if(!isActivated())
+			throw new NoPowerException();
+
+		return tally.getTotal(currency);
+	}
+
 	/**
 	 * Allows a set of banknotes to be loaded into the storage unit directly.
 	 * Existing banknotes in the dispenser are not removed. Announces
@@ -82,24 +137,37 @@ public class BanknoteStorageUnit extends AbstractComponent<BanknoteStorageUnitOb
 	 * @throws CashOverloadException
 	 *             If too many banknotes are stuffed in the unit.
 	 */
-	public synchronized void load(Banknote... banknotes) throws SimulationException, CashOverloadException {
-		if(!isActivated())
-			throw new NoPowerException();
+	public void load(Banknote... banknotes) throws SimulationException, CashOverloadException {
+		holdEvents();
+		try {
+			synchronized(this) {
+				if(!isActivated())
+					throw new NoPowerException();
 
-		if(banknotes == null)
-			throw new NullPointerSimulationException("banknotes");
+				if(banknotes == null)
+					throw new NullPointerSimulationException("banknotes");
 
-		if(banknotes.length + nextIndex > storage.length)
-			throw new CashOverloadException("You tried to stuff too many banknotes in the storage unit.");
+				if(banknotes.length + nextIndex > storage.length)
+					throw new CashOverloadException("You tried to stuff too many banknotes in the storage unit.");
 
-		for(Banknote banknote : banknotes)
-			if(banknote == null)
-				throw new NullPointerSimulationException("banknote instance");
+				for(Banknote banknote : banknotes)
+					if(banknote == null)
+						throw new NullPointerSimulationException("banknote instance");
 
-		System.arraycopy(banknotes, 0, storage, nextIndex, banknotes.length);
-		nextIndex += banknotes.length;
+				System.arraycopy(banknotes, 0, storage, nextIndex, banknotes.length);
+				nextIndex += banknotes.length;
 
-		notifyBanknotesLoaded();
+				for(Banknote banknote : banknotes)
+					tally.add(banknote.getMoney());
+
+				journal("banknotesLoaded", () -> CashJournal.encode(banknotes));
+				notifyBanknotesLoaded();
+				coalescer.reset(nextIndex);
+			}
+		}
+		finally {
+			releaseEvents();
+		}
 	}
 
 	/**
@@ -107,19 +175,31 @@ public class BanknoteStorageUnit extends AbstractComponent<BanknoteStorageUnitOb
 	 * "banknotesUnloaded" event. Disabling has no effect on this method. Requires
 	 * power.
 	 * 
-	 * @return A list of the banknotes unloaded. May be empty. Will never be null.
+	 * @return A list of the banknotes unloaded, holding only the banknotes that were in the
+	 *             unit. May be empty. Will never be null.
 	 */
-	public synchronized List<Banknote> unload() {
-		if(!isActivated())
-			throw new NoPowerException();
+	public List<Banknote> unload() {
+		holdEvents();
+		try {
+			synchronized(this) {
+				if(!isActivated())
+					throw new NoPowerException();
 
-		List<Banknote> banknotes = Arrays.asList(storage);
+				List<Banknote> banknotes = Arrays.asList(Arrays.copyOf(storage, nextIndex));
 
-		storage = new Banknote[storage.length];
-		nextIndex = 0;
-		notifyBanknotesUnloaded();
+				Arrays.fill(storage, 0, nextIndex, null);
+				nextIndex = 0;
+				tally.clear();
+				journal("banknotesUnloaded", () -> "");
+				notifyBanknotesUnloaded();
+				coalescer.reset(0);
 
-		return banknotes;
+				return banknotes;
+			}
+		}
+		finally {
+			releaseEvents();
+		}
 	}
 
 	/**
@@ -136,26 +216,47 @@ public class BanknoteStorageUnit extends AbstractComponent<BanknoteStorageUnitOb
 	 * @throws CashOverloadException
 	 *             If the unit is already full.
 	 */
-	public synchronized void receive(Banknote banknote) throws DisabledException, CashOverloadException {
-		if(!isActivated())
-			throw new NoPowerException();
+	public void receive(Banknote banknote) throws DisabledException, CashOverloadException {
+		holdEvents();
+		try {
+			synchronized(this) {
+				if(!isActivated())
+					throw new NoPowerException();
 
-		if(isDisabled())
-			throw new DisabledException();
+				if(isDisabled())
+					throw new DisabledException();
 
-		if(banknote == null)
-			throw new NullPointerSimulationException("banknote");
+				if(banknote == null)
+					throw new NullPointerSimulationException("banknote");
 
-		if(nextIndex < storage.length) {
-			storage[nextIndex++] = banknote;
+				if(nextIndex < storage.length) {
+					storage[nextIndex++] = banknote;
+					tally.add(banknote.getMoney());
+					journal("banknoteAdded", () -> CashJournal.encode(banknote));
 
-			notifyBanknoteAdded();
+					notifyBanknoteAdded();
+					coalescer.added(1);
 
-			if(nextIndex == storage.length)
-				notifyBanknotesFull();
+					if(nextIndex == storage.length)
+						notifyBanknotesFull();
+				}
+				else
+					throw new CashOverloadException();
+			}
 		}
-		else
-			throw new CashOverloadException();
+		finally {
+			releaseEvents();
+		}
+	}
+
+	/**
+	 * Obtains the coalescer that announces aggregated changes in the number of
+	 * banknotes in this storage unit. Does not require power.
+	 * 
+	 * @return The coalescer.
+	 */
+	public CashEventCoalescer getEventCoalescer() {
+		return coalescer;
 	}
 
 	@Override
@@ -166,23 +267,27 @@ public class BanknoteStorageUnit extends AbstractComponent<BanknoteStorageUnitOb
 		return nextIndex < storage.length;
 	}
 
+	@Override
+	public synchronized boolean hasSpace(int count) {
+		if(!isActivated())
+			throw new NoPowerException();
+
+		return nextIndex + count <= storage.length;
+	}
+
 	private void notifyBanknotesLoaded() {
-		for(BanknoteStorageUnitObserver observer : observers)
-			observer.banknotesLoaded(this);
+		notifyObservers("banknotesLoaded", observer -> observer.banknotesLoaded(this));
 	}
 
 	private void notifyBanknotesUnloaded() {
-		for(BanknoteStorageUnitObserver observer : observers)
-			observer.banknotesUnloaded(this);
+		notifyObservers("banknotesUnloaded", observer -> observer.banknotesUnloaded(this));
 	}
 
 	private void notifyBanknotesFull() {
-		for(BanknoteStorageUnitObserver l : observers)
-			l.banknotesFull(this);
+		notifyObservers("banknotesFull", l -> l.banknotesFull(this));
 	}
 
 	private void notifyBanknoteAdded() {
-		for(BanknoteStorageUnitObserver l : observers)
-			l.banknoteAdded(this);
+		notifyObservers("banknoteAdded", l -> l.banknoteAdded(this));
 	}
 }
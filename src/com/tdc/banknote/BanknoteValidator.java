@@ -1,20 +1,32 @@
 package com.tdc.banknote;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Currency;
+import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Random;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import com.tdc.AbstractComponent;
 import com.tdc.CashOverloadException;
 import com.tdc.ComponentFailure;
 import com.tdc.DisabledException;
+import com.tdc.Disposition;
+import com.tdc.IComponent;
+import com.tdc.IComponentObserver;
+import com.tdc.Money;
 import com.tdc.PassiveSource;
 import com.tdc.Sink;
 
 import ca.ucalgary.seng300.simulation.InvalidArgumentSimulationException;
 import ca.ucalgary.seng300.simulation.NullPointerSimulationException;
+import ca.ucalgary.seng300.simulation.Randomness;
 import ca.ucalgary.seng300.simulation.SimulationException;
 import powerutility.NoPowerException;
 
@@ -22,6 +34,12 @@ import powerutility.NoPowerException;
  * Represents a component for optically and/or magnetically validating banknotes.
  * Banknotes deemed valid are moved to storage; banknotes deemed invalid are
  * ejected.
+ * <p>
+ * The validator can also recycle banknotes: once set up with
+ * {@link #setupRecycling(Map)}, valid banknotes of a recycled denomination are
+ * routed to the channel leading to that denomination's dispenser while it has
+ * space, and only overflow to storage once it is full.
+ * </p>
  *            
  * @author TDC, Inc.
  */
@@ -31,7 +49,8 @@ public final class BanknoteValidator extends AbstractComponent<BanknoteValidator
 	 * Represents the kind of currency supported by this component.
 	 */
 	public final Currency currency;
-	private final BigDecimal[] denominations;
+	private final Set<Money> acceptedDenominations = new HashSet<>();
+	private final Map<Money, Route> recyclingRoutes = new HashMap<>();
 	/**
 	 * Represents the input source for the validator.
 	 */
@@ -72,31 +91,181 @@ public final class BanknoteValidator extends AbstractComponent<BanknoteValidator
 		this.currency = currency;
 		Arrays.sort(denominations);
 
-		HashSet<BigDecimal> set = new HashSet<>();
-
 		for(BigDecimal denomination : denominations) {
 			if(denomination.compareTo(BigDecimal.ZERO) <= 0)
 				throw new InvalidArgumentSimulationException(
 					"Non-positive denomination detected: " + denomination + ".");
 
-			if(set.contains(denomination))
+			if(!acceptedDenominations.add(Money.of(currency, denomination)))
 				throw new InvalidArgumentSimulationException(
 					"Each denomination must be unique, but " + denomination + " is repeated.");
+		}
+	}
+
+	/**
+	 * Connects the channels that lead to the dispensers into which banknotes are
+	 * recycled. Valid banknotes of each denomination given are then routed to its
+	 * channel while that has space, and to the sink otherwise. Setting up a
+	 * denomination again replaces its channel. Causes no events. Does not require
+	 * power. Note that this is a method for use by infrastructural setup; it will
+	 * not be used otherwise.
+	 * 
+	 * @param dispenserSinks
+	 *            The channels leading to the dispensers, indexed by denomination.
+	 * @throws SimulationException
+	 *             If the argument or any channel is null.
+	 * @throws SimulationException
+	 *             If any denomination is not supported by this validator.
+	 * @throws SimulationException
+	 *             If any channel is used for more than one denomination.
+	 */
+	public synchronized void setupRecycling(Map<BigDecimal, Sink<Banknote>> dispenserSinks) {
+		if(dispenserSinks == null)
+			throw new NullPointerSimulationException("dispenserSinks");
+
+		HashSet<Sink<Banknote>> set = new HashSet<>();
 
-			set.add(denomination);
+		for(Map.Entry<BigDecimal, Sink<Banknote>> entry : dispenserSinks.entrySet()) {
+			if(entry.getValue() == null)
+				throw new NullPointerSimulationException("sink for denomination " + entry.getKey());
+
+			if(!acceptedDenominations.contains(Money.of(currency, entry.getKey())))
+				throw new InvalidArgumentSimulationException("Unsupported denomination: " + entry.getKey());
+
+			if(!set.add(entry.getValue()))
+				throw new InvalidArgumentSimulationException("Each channel must be unique.");
 		}
 
-		this.denominations = denominations;
+		for(Map.Entry<BigDecimal, Sink<Banknote>> entry : dispenserSinks.entrySet()) {
+			Route route = recyclingRoutes.computeIfAbsent(Money.of(currency, entry.getKey()), m -> new Route());
+			route.sink = entry.getValue();
+		}
 	}
 
-	private final Random pseudoRandomNumberGenerator = new Random();
+	/**
+	 * Keeps the routing of banknotes of the indicated recycled denomination up to
+	 * date from the events of the dispenser behind its channel, rather than by
+	 * asking the channel whether it has space. Tracking a different dispenser for
+	 * the same denomination replaces the previous one. Causes no events. Does not
+	 * require power. Note that this is a method for use by infrastructural setup;
+	 * it will not be used otherwise.
+	 * <p>
+	 * Events may arrive late. A banknote routed to a dispenser that turns out to
+	 * be full is sent to the sink instead.
+	 * </p>
+	 * 
+	 * @param denomination
+	 *            The denomination whose channel leads to the dispenser.
+	 * @param dispenser
+	 *            The dispenser to track.
+	 * @throws SimulationException
+	 *             If either argument is null.
+	 * @throws SimulationException
+	 *             If the denomination has not been set up for recycling.
+	 */
+	public synchronized void trackDispenser(BigDecimal denomination, IBanknoteDispenser dispenser) {
+		if(denomination == null)
+			throw new NullPointerSimulationException("denomination");
+
+		if(dispenser == null)
+			throw new NullPointerSimulationException("dispenser");
+
+		Route route = recyclingRoutes.get(Money.of(currency, denomination));
+
+		if(route == null)
+			throw new InvalidArgumentSimulationException("Denomination is not recycled: " + denomination);
+
+		Tracker old = route.tracker;
+
+		if(old != null)
+			old.dispenser.detach(old);
+
+		Tracker tracker = new Tracker(dispenser);
+		dispenser.attach(tracker);
+		route.tracker = tracker;
+	}
+
+	/*
+	 * The route to the dispenser recycling banknotes of one denomination.
+	 */
+	private static final class Route {
+		volatile Sink<Banknote> sink;
+		volatile Tracker tracker;
+	}
+
+	/*
+	 * Follows the number of banknotes in a dispenser from its events. The full and
+	 * empty events resynchronize the count.
+	 */
+	private static final class Tracker implements BanknoteDispenserObserver {
+		final IBanknoteDispenser dispenser;
+		final int capacity;
+		final AtomicInteger count;
+
+		Tracker(IBanknoteDispenser dispenser) {
+			this.dispenser = dispenser;
+			capacity = dispenser.getCapacity();
+			count = new AtomicInteger(dispenser.isActivated() ? dispenser.size() : 0);
+		}
+
+		boolean hasSpace() {
+			return count.get() < capacity;
+		}
+
+		@Override
+		public void moneyFull(IBanknoteDispenser dispenser) {
+			count.set(capacity);
+		}
+
+		@Override
+		public void banknotesEmpty(IBanknoteDispenser dispenser) {
+			count.set(0);
+		}
+
+		@Override
+		public void banknoteAdded(IBanknoteDispenser dispenser, Banknote banknote) {
+			count.incrementAndGet();
+		}
+
+		@Override
+		public void banknoteRemoved(IBanknoteDispenser dispenser, Banknote banknote) {
+			count.decrementAndGet();
+		}
+
+		@Override
+		public void banknotesRemoved(IBanknoteDispenser dispenser, Banknote... banknotes) {
+			count.addAndGet(-banknotes.length);
+		}
+
+		@Override
+		public void banknotesLoaded(IBanknoteDispenser dispenser, Banknote... banknotes) {
+			count.addAndGet(banknotes.length);
+		}
+
+		@Override
+		public void banknotesUnloaded(IBanknoteDispenser dispenser, Banknote... banknotes) {
+			count.set(0);
+		}
+
+		@Override
+		public void enabled(IComponent<? extends IComponentObserver> component) {}
+
+		@Override
+		public void disabled(IComponent<? extends IComponentObserver> component) {}
+
+		@Override
+		public void turnedOn(IComponent<? extends IComponentObserver> component) {}
+
+		@Override
+		public void turnedOff(IComponent<? extends IComponentObserver> component) {}
+	}
+
+	private final SplittableRandom pseudoRandomNumberGenerator = Randomness.newStream();
 	private static final int PROBABILITY_OF_FALSE_REJECTION = 1; /* out of 100 */
 
 	private synchronized boolean isValid(Banknote banknote) {
-		if(currency.equals(banknote.getCurrency()))
-			for(BigDecimal denomination : denominations)
-				if(denomination.equals(banknote.getDenomination()))
-					return pseudoRandomNumberGenerator.nextInt(100) >= PROBABILITY_OF_FALSE_REJECTION;
+		if(acceptedDenominations.contains(banknote.getMoney()))
+			return pseudoRandomNumberGenerator.nextInt(100) >= PROBABILITY_OF_FALSE_REJECTION;
 
 		return false;
 	}
@@ -106,8 +275,10 @@ public final class BanknoteValidator extends AbstractComponent<BanknoteValidator
 	 * If the banknote is valid, announces "validBanknoteDetected" event; otherwise,
 	 * announces "invalidBanknoteDetected" event. Requires power.
 	 * <p>
-	 * If there is space in the machine to store a valid banknote, it is passed to
-	 * the sink channel.
+	 * If the banknote is valid and its denomination is recycled into a dispenser
+	 * that has space, it is passed to that dispenser's channel. Otherwise, if
+	 * there is space in the machine to store a valid banknote, it is passed to the
+	 * sink channel.
 	 * </p>
 	 * <p>
 	 * If there is no space in the machine to store it or the banknote is invalid,
@@ -122,48 +293,201 @@ public final class BanknoteValidator extends AbstractComponent<BanknoteValidator
 	 *             If the banknote is null.
 	 */
 	@Override
-	public synchronized void receive(Banknote banknote) throws DisabledException, CashOverloadException {
-		if(!isActivated())
-			throw new NoPowerException();
+	public void receive(Banknote banknote) throws DisabledException, CashOverloadException {
+		holdEvents();
+		try {
+			synchronized(this) {
+				if(!isActivated())
+					throw new NoPowerException();
 
-		if(isDisabled())
-			throw new DisabledException();
+				if(isDisabled())
+					throw new DisabledException();
 
-		if(banknote == null)
-			throw new NullPointerSimulationException("banknote");
+				if(banknote == null)
+					throw new NullPointerSimulationException("banknote");
 
-		if(isValid(banknote)) {
-			notifyGoodBanknote(banknote);
+				if(isValid(banknote)) {
+					notifyGoodBanknote(banknote);
 
-			if(sink.hasSpace()) {
-				try {
-					sink.receive(banknote);
+					if(recycle(banknote))
+						return;
+
+					if(sink.hasSpace()) {
+						try {
+							sink.receive(banknote);
+						}
+						catch(CashOverloadException e) {
+							// Should never happen
+							throw e;
+						}
+					}
+					else {
+						try {
+							source.reject(banknote);
+						}
+						catch(CashOverloadException e) {
+							// Should never happen
+							throw e;
+						}
+					}
 				}
-				catch(CashOverloadException e) {
-					// Should never happen
-					throw e;
+				else {
+					notifyBadBanknote();
+
+					try {
+						source.reject(banknote);
+					}
+					catch(CashOverloadException e) {
+						// Should never happen
+						throw e;
+					}
 				}
 			}
-			else {
+		}
+		finally {
+			releaseEvents();
+		}
+	}
+
+	/**
+	 * Tells the banknote validator that the indicated banknotes are being fed in
+	 * as a stack. Each banknote is validated in turn. Valid banknotes of a
+	 * recycled denomination go to their dispenser while it has space; the other
+	 * valid ones are passed to the sink as one batch when it has space for all of
+	 * them, so that
+	 * an asynchronous channel can carry them to storage while the stack is still
+	 * being read; otherwise, they are passed one at a time while the sink has
+	 * space. Announces one "goodBanknotes" event for the valid banknotes and a
+	 * "badBanknote" event for each invalid one. The banknotes not passed to the
+	 * sink are returned to the source together, as one bundle. Requires power.
+	 * 
+	 * @param banknotes
+	 *            The banknotes to be added. Neither the list nor any banknote in
+	 *            it can be null.
+	 * @return An unmodifiable list of the disposition of each banknote, in the
+	 *             same order as the banknotes: accepted into its dispenser or into
+	 *             storage, sent to storage because its dispenser was full, or
+	 *             rejected back to the source.
+	 * @throws DisabledException
+	 *             If the banknote validator is currently disabled.
+	 * @throws SimulationException
+	 *             If the list or any banknote is null.
+	 */
+	@Override
+	public List<Disposition> receiveAll(List<Banknote> banknotes) throws DisabledException, CashOverloadException {
+		long start = startOperation();
+		List<BigDecimal> values = new ArrayList<>();
+
+		holdEvents();
+		try {
+			synchronized(this) {
+				if(!isActivated())
+					throw new NoPowerException();
+
+				if(isDisabled())
+					throw new DisabledException();
+
+				if(banknotes == null)
+					throw new NullPointerSimulationException("banknotes");
+
+				for(Banknote banknote : banknotes)
+					if(banknote == null)
+						throw new NullPointerSimulationException("banknote instance");
+
+				Disposition[] dispositions = new Disposition[banknotes.size()];
+				List<Banknote> good = new ArrayList<>(banknotes.size());
+
 				try {
-					source.reject(banknote);
+					for(int i = 0; i < dispositions.length; i++) {
+						Banknote banknote = banknotes.get(i);
+
+						if(isValid(banknote)) {
+							values.add(banknote.getDenomination());
+
+							if(recycle(banknote))
+								dispositions[i] = Disposition.ACCEPTED;
+							else
+								good.add(banknote);
+						}
+						else {
+							notifyBadBanknote();
+							dispositions[i] = Disposition.REJECTED;
+						}
+					}
 				}
-				catch(CashOverloadException e) {
-					// Should never happen
-					throw e;
+				finally {
+					if(!values.isEmpty())
+						notifyGoodBanknotes(values.toArray(new BigDecimal[values.size()]));
 				}
+
+				// The banknotes still without a disposition are to be stored
+				boolean batch = sink.hasSpace(good.size());
+
+				if(batch)
+					sink.receiveAll(good);
+
+				for(int i = 0; i < dispositions.length; i++) {
+					if(dispositions[i] != null)
+						continue;
+
+					Banknote banknote = banknotes.get(i);
+
+					if(batch || sink.hasSpace()) {
+						if(!batch)
+							sink.receive(banknote);
+
+						dispositions[i] = recyclingRoutes.containsKey(banknote.getMoney()) ? Disposition.OVERFLOWED
+							: Disposition.ACCEPTED;
+					}
+					else
+						dispositions[i] = Disposition.REJECTED;
+				}
+
+				List<Banknote> rejects = new ArrayList<>();
+
+				for(int i = 0; i < dispositions.length; i++)
+					if(dispositions[i] == Disposition.REJECTED)
+						rejects.add(banknotes.get(i));
+
+				if(!rejects.isEmpty())
+					source.rejectAll(rejects);
+
+				return Collections.unmodifiableList(Arrays.asList(dispositions));
 			}
 		}
-		else {
-			notifyBadBanknote();
+		finally {
+			stopOperation("receiveAll", start);
+			releaseEvents();
+		}
+	}
 
-			try {
-				source.reject(banknote);
-			}
-			catch(CashOverloadException e) {
+	/*
+	 * Sends a valid banknote to the dispenser recycling its denomination, if there
+	 * is one and it has space. Returns false if the banknote is still to be
+	 * stored.
+	 */
+	private boolean recycle(Banknote banknote) throws DisabledException, CashOverloadException {
+		Route route = recyclingRoutes.get(banknote.getMoney());
+
+		if(route == null)
+			return false;
+
+		Tracker tracker = route.tracker;
+
+		if(tracker != null ? !tracker.hasSpace() : !route.sink.hasSpace())
+			return false;
+
+		try {
+			route.sink.receive(banknote);
+			return true;
+		}
+		catch(CashOverloadException e) {
+			if(tracker == null)
 				// Should never happen
 				throw e;
-			}
+
+			// The dispenser filled before its event arrived
+			return false;
 		}
 	}
 
@@ -185,12 +509,15 @@ public final class BanknoteValidator extends AbstractComponent<BanknoteValidator
 	}
 
 	private void notifyGoodBanknote(Banknote banknote) {
-		for(BanknoteValidatorObserver observer : observers)
-			observer.goodBanknote(this, banknote.getCurrency(), banknote.getDenomination());
+		notifyObservers("goodBanknote", observer -> observer.goodBanknote(this, banknote.getCurrency(), banknote.getDenomination()));
+	}
+
+	private void notifyGoodBanknotes(BigDecimal[] denominations) {
+		notifyObservers("goodBanknotes", "goodBanknote",
+			observer -> observer.goodBanknotes(this, currency, denominations));
 	}
 
 	private void notifyBadBanknote() {
-		for(BanknoteValidatorObserver observer : observers)
-			observer.badBanknote(this);
+		notifyObservers("badBanknote", observer -> observer.badBanknote(this));
 	}
 }
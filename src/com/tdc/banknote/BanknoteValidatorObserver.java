@@ -24,6 +24,25 @@ public interface BanknoteValidatorObserver extends IComponentObserver {
 	 */
 	void goodBanknote(BanknoteValidator validator, Currency currency, BigDecimal denomination);
 
+	/**
+	 * An event announcing that the indicated banknotes, inserted together, have
+	 * been detected and determined to be valid. By default, announces each
+	 * banknote through
+	 * {@link #goodBanknote(BanknoteValidator, Currency, BigDecimal)}.
+	 * 
+	 * @param validator
+	 *            The component on which the event occurred.
+	 * @param currency
+	 *            The kind of currency of the banknotes.
+	 * @param denominations
+	 *            The values of the banknotes, in the order in which they were
+	 *            inserted.
+	 */
+	default void goodBanknotes(BanknoteValidator validator, Currency currency, BigDecimal... denominations) {
+		for(BigDecimal denomination : denominations)
+			goodBanknote(validator, currency, denomination);
+	}
+
 	/**
 	 * An event announcing that the indicated banknote has been detected and
 	 * determined to be invalid.
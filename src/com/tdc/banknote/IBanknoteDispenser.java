@@ -7,6 +7,7 @@ import com.tdc.DisabledException;
 import com.tdc.IComponent;
 import com.tdc.NoCashAvailableException;
 
+import ca.ucalgary.seng300.simulation.InvalidArgumentSimulationException;
 import ca.ucalgary.seng300.simulation.SimulationException;
 
 /**
@@ -67,4 +68,34 @@ public interface IBanknoteDispenser extends IComponent<BanknoteDispenserObserver
 	 *             if the dispenser is currently disabled.
 	 */
 	void emit() throws NoCashAvailableException, DisabledException, CashOverloadException;
+
+	/**
+	 * Emits the indicated number of banknotes from this banknote dispenser as a
+	 * single operation. Either all the banknotes are emitted or, if any check
+	 * fails, none are. If successful, announces one "banknotesRemoved" event for
+	 * the whole batch. If the batch causes the dispenser to become empty,
+	 * announces "banknotesEmpty" event. Requires power.
+	 * <p>
+	 * The banknotes leave the dispenser only once the sink has accepted all of
+	 * them. If the sink refuses a banknote despite having reported space, as when
+	 * another component fills it in the meantime, the banknotes it already
+	 * accepted are taken back from it (see {@link com.tdc.Sink#retract(List)})
+	 * and the exception propagates. Only a sink that cannot give cash back keeps
+	 * the banknotes it accepted, which are then announced as removed.
+	 * </p>
+	 * 
+	 * @param count
+	 *            The number of banknotes to emit. Must be positive.
+	 * @return An unmodifiable list of the banknotes emitted, in the order in
+	 *             which they were emitted.
+	 * @throws CashOverloadException
+	 *             if the output channel is unable to accept that many banknotes.
+	 * @throws NoCashAvailableException
+	 *             if fewer than that many banknotes are present in the dispenser.
+	 * @throws DisabledException
+	 *             if the dispenser is currently disabled.
+	 * @throws InvalidArgumentSimulationException
+	 *             if the count is not positive.
+	 */
+	List<Banknote> emit(int count) throws NoCashAvailableException, DisabledException, CashOverloadException;
 }
\ No newline at end of file
@@ -1,14 +1,20 @@
 package com.tdc.coin;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Queue;
 
 import com.tdc.AbstractComponent;
+import com.tdc.CashEventCoalescer;
+import com.tdc.CashJournal;
 import com.tdc.CashOverloadException;
 import com.tdc.ComponentFailure;
 import com.tdc.DisabledException;
+import com.tdc.FungibleCashQueue;
 import com.tdc.NoCashAvailableException;
 import com.tdc.Sink;
 import com.tdc.Source;
@@ -31,7 +37,9 @@ import powerutility.NoPowerException;
  */
 public abstract class AbstractCoinDispenser extends AbstractComponent<CoinDispenserObserver> implements ICoinDispenser {
 	private int maxCapacity;
-	private Queue<Coin> queue = new LinkedList<Coin>();
+	private final Queue<Coin> queue;
+	private final FungibleCashQueue<Coin> fungibleQueue;
+	private final CashEventCoalescer coalescer = new CashEventCoalescer(this);
 	/**
 	 * Represents the output sink of this component.
 	 */
@@ -47,10 +55,50 @@ public abstract class AbstractCoinDispenser extends AbstractComponent<CoinDispen
 	 *             if capacity is not positive.
 	 */
 	public AbstractCoinDispenser(int capacity) {
+		this(capacity, false);
+	}
+
+	/**
+	 * Creates a coin dispenser with the indicated maximum capacity and storage
+	 * mode.
+	 * 
+	 * @param capacity
+	 *            The maximum number of coins that can be stored in the dispenser.
+	 *            Must be positive.
+	 * @param fungible
+	 *            If true, coins of the same currency and value are stored as a
+	 *            count rather than individually, so memory use does not grow with
+	 *            the number of coins; the coins released are then equal in
+	 *            currency and value to those stored, but not necessarily the same
+	 *            objects.
+	 * @throws SimulationException
+	 *             if capacity is not positive.
+	 */
+	public AbstractCoinDispenser(int capacity, boolean fungible) {
 		if(capacity <= 0)
 			throw new InvalidArgumentSimulationException("Capacity must be positive: " + capacity);
 
 		this.maxCapacity = capacity;
+
+		if(fungible) {
+			fungibleQueue = new FungibleCashQueue<>((a, b) -> a.getMoney().equals(b.getMoney()));
+			queue = fungibleQueue;
+		}
+		else {
+			fungibleQueue = null;
+			queue = new LinkedList<Coin>();
+		}
+	}
+
+	/**
+	 * Determines whether this dispenser stores interchangeable coins as a count.
+	 * Does not require power.
+	 * 
+	 * @return true if the storage is fungible; false if each coin is stored
+	 *             individually.
+	 */
+	public boolean isFungible() {
+		return fungibleQueue != null;
 	}
 
 	/**
@@ -80,25 +128,34 @@ public abstract class AbstractCoinDispenser extends AbstractComponent<CoinDispen
 	 *             If any coin is null.
 	 */
 	@Override
-	public synchronized void load(Coin... coins) throws SimulationException, CashOverloadException {
-		if(!isActivated())
-			throw new NoPowerException();
-
-		if(maxCapacity < queue.size() + coins.length)
-			throw new CashOverloadException("Capacity of dispenser is exceeded by load");
-
-		for(Coin coin : coins)
-			if(coin == null)
-				throw new NullPointerSimulationException("coin instance");
-			else
-				queue.add(coin);
-
-		notifyLoad(coins);
+	public void load(Coin... coins) throws SimulationException, CashOverloadException {
+		holdEvents();
+		try {
+			synchronized(this) {
+				if(!isActivated())
+					throw new NoPowerException();
+
+				if(maxCapacity < queue.size() + coins.length)
+					throw new CashOverloadException("Capacity of dispenser is exceeded by load");
+
+				for(Coin coin : coins)
+					if(coin == null)
+						throw new NullPointerSimulationException("coin instance");
+					else
+						queue.add(coin);
+
+				journal("coinsLoaded", () -> CashJournal.encode(coins));
+				notifyLoad(coins);
+				coalescer.reset(queue.size());
+			}
+		}
+		finally {
+			releaseEvents();
+		}
 	}
 
 	private void notifyLoad(Coin[] coins) {
-		for(CoinDispenserObserver observer : observers)
-			observer.coinsLoaded(this, coins);
+		notifyObservers("coinsLoaded", observer -> observer.coinsLoaded(this, coins));
 	}
 
 	/**
@@ -108,21 +165,37 @@ public abstract class AbstractCoinDispenser extends AbstractComponent<CoinDispen
 	 * @return A list of the coins unloaded. May be empty. Will never be null.
 	 */
 	@Override
-	public synchronized List<Coin> unload() {
-		if(!isActivated())
-			throw new NoPowerException();
-
-		List<Coin> result = new ArrayList<>(queue);
-		queue.clear();
-
-		notifyUnload(result.toArray(new Coin[result.size()]));
-
-		return result;
+	public List<Coin> unload() {
+		holdEvents();
+		try {
+			synchronized(this) {
+				if(!isActivated())
+					throw new NoPowerException();
+
+				List<Coin> result;
+
+				if(fungibleQueue != null)
+					result = fungibleQueue.drain();
+				else {
+					result = new ArrayList<>(queue);
+					queue.clear();
+				}
+
+				journal("coinsUnloaded", () -> "");
+
+				notifyUnload(result.toArray(new Coin[result.size()]));
+				coalescer.reset(0);
+
+				return result;
+			}
+		}
+		finally {
+			releaseEvents();
+		}
 	}
 
 	private void notifyUnload(Coin[] coins) {
-		for(CoinDispenserObserver observer : observers)
-			observer.coinsUnloaded(this, coins);
+		notifyObservers("coinsUnloaded", observer -> observer.coinsUnloaded(this, coins));
 	}
 
 	/**
@@ -136,24 +209,34 @@ public abstract class AbstractCoinDispenser extends AbstractComponent<CoinDispen
 	}
 
 	@Override
-	public synchronized void receive(Coin coin) throws CashOverloadException, DisabledException {
-		if(!isActivated())
-			throw new NoPowerException();
-
-		if(isDisabled())
-			throw new DisabledException();
+	public void receive(Coin coin) throws CashOverloadException, DisabledException {
+		holdEvents();
+		try {
+			synchronized(this) {
+				if(!isActivated())
+					throw new NoPowerException();
 
-		if(coin == null)
-			throw new NullPointerSimulationException("coin");
+				if(isDisabled())
+					throw new DisabledException();
 
-		if(queue.size() >= maxCapacity)
-			throw new CashOverloadException();
+				if(coin == null)
+					throw new NullPointerSimulationException("coin");
 
-		queue.add(coin);
-		notifyCoinAdded(coin);
+				if(queue.size() >= maxCapacity)
+					throw new CashOverloadException();
 
-		if(queue.size() >= maxCapacity)
-			notifyCoinsFull();
+				queue.add(coin);
+				journal("coinAdded", () -> CashJournal.encode(coin));
+				notifyCoinAdded(coin);
+				coalescer.added(1);
+
+				if(queue.size() >= maxCapacity)
+					notifyCoinsFull();
+			}
+		}
+		finally {
+			releaseEvents();
+		}
 	}
 
 	/**
@@ -169,23 +252,122 @@ public abstract class AbstractCoinDispenser extends AbstractComponent<CoinDispen
 	 *             If the dispenser is currently disabled.
 	 */
 	@Override
-	public synchronized void emit() throws CashOverloadException, NoCashAvailableException, DisabledException {
-		if(!isActivated())
-			throw new NoPowerException();
-
-		if(isDisabled())
-			throw new DisabledException();
-
-		if(queue.size() == 0)
-			throw new NoCashAvailableException();
+	public void emit() throws CashOverloadException, NoCashAvailableException, DisabledException {
+		holdEvents();
+		try {
+			synchronized(this) {
+				if(!isActivated())
+					throw new NoPowerException();
+
+				if(isDisabled())
+					throw new DisabledException();
+
+				if(queue.size() == 0)
+					throw new NoCashAvailableException();
+
+				// The coin leaves the dispenser only once the sink has accepted it
+				Coin coin = queue.peek();
+				sink.receive(coin);
+				queue.remove();
+				journal("coinRemoved", () -> CashJournal.encode(coin));
+
+				notifyCoinRemoved(coin);
+				coalescer.removed(1);
+
+				if(queue.isEmpty())
+					notifyCoinsEmpty();
+			}
+		}
+		finally {
+			releaseEvents();
+		}
+	}
 
-		Coin coin = queue.remove();
+	@Override
+	public List<Coin> emit(int count) throws CashOverloadException, NoCashAvailableException, DisabledException {
+		holdEvents();
+		try {
+			synchronized(this) {
+				if(!isActivated())
+					throw new NoPowerException();
+
+				if(isDisabled())
+					throw new DisabledException();
+
+				if(count <= 0)
+					throw new InvalidArgumentSimulationException("The count must be positive.");
+
+				if(queue.size() < count)
+					throw new NoCashAvailableException();
+
+				if(!sink.hasSpace(count))
+					throw new CashOverloadException("The sink cannot accept " + count + " coins.");
+
+				Coin[] coins = new Coin[count];
+				Iterator<Coin> waiting = queue.iterator();
+
+				for(int i = 0; i < count; i++)
+					coins[i] = waiting.next();
+
+				int delivered = 0;
+
+				try {
+					// The coins leave the dispenser only once the sink has accepted all of them
+					for(; delivered < count; delivered++)
+						sink.receive(coins[delivered]);
+				}
+				catch(Throwable refusal) {
+					if(delivered > 0 && takeBack(coins, delivered, refusal))
+						delivered = 0;
+
+					throw refusal;
+				}
+				finally {
+					if(delivered > 0) {
+						for(int i = 0; i < delivered; i++)
+							queue.remove();
+
+						Coin[] removed = delivered == count ? coins : Arrays.copyOf(coins, delivered);
+						journal("coinsRemoved", () -> CashJournal.encode(removed));
+						notifyCoinsRemoved(removed);
+						coalescer.removed(delivered);
+
+						if(queue.isEmpty())
+							notifyCoinsEmpty();
+					}
+				}
+
+				return Collections.unmodifiableList(Arrays.asList(coins));
+			}
+		}
+		finally {
+			releaseEvents();
+		}
+	}
 
-		notifyCoinRemoved(coin);
-		sink.receive(coin);
+	/*
+	 * Asks the sink to give back the first coins of a batch that it refused
+	 * partway. A failure to do so is attached to the refusal.
+	 */
+	private boolean takeBack(Coin[] coins, int count, Throwable refusal) {
+		try {
+			return sink.retract(Arrays.asList(coins).subList(0, count));
+		}
+		catch(RuntimeException e) {
+			refusal.addSuppressed(e);
+			return false;
+		}
+	}
 
-		if(queue.isEmpty())
-			notifyCoinsEmpty();
+	/**
+	 * Obtains the coalescer that announces aggregated changes in the number of
+	 * coins in this dispenser. Does not require power.
+	 * 
+	 * @return The coalescer.
+	 */
+	@Override
+	public CashEventCoalescer getEventCoalescer() {
+		return coalescer;
 	}
 
 	@Override
@@ -196,6 +378,14 @@ public abstract class AbstractCoinDispenser extends AbstractComponent<CoinDispen
 		return queue.size() < maxCapacity;
 	}
 
+	@Override
+	public synchronized boolean hasSpace(int count) {
+		if(!isActivated())
+			throw new NoPowerException();
+
+		return queue.size() + count <= maxCapacity;
+	}
+
 	/**
 	 * The dispenser cannot accept rejected coins from its output sink, only from
 	 * its input source. Requires power.
@@ -209,22 +399,22 @@ public abstract class AbstractCoinDispenser extends AbstractComponent<CoinDispen
 	}
 
 	private void notifyCoinAdded(Coin coin) {
-		for(CoinDispenserObserver observer : observers)
-			observer.coinAdded(this, coin);
+		notifyObservers("coinAdded", observer -> observer.coinAdded(this, coin));
 	}
 
 	private void notifyCoinRemoved(Coin coin) {
-		for(CoinDispenserObserver observer : observers)
-			observer.coinRemoved(this, coin);
+		notifyObservers("coinRemoved", observer -> observer.coinRemoved(this, coin));
+	}
+
+	private void notifyCoinsRemoved(Coin[] coins) {
+		notifyObservers("coinsRemoved", "coinRemoved", observer -> observer.coinsRemoved(this, coins));
 	}
 
 	private void notifyCoinsFull() {
-		for(CoinDispenserObserver observer : observers)
-			observer.coinsFull(this);
+		notifyObservers("coinsFull", observer -> observer.coinsFull(this));
 	}
 
 	private void notifyCoinsEmpty() {
-		for(CoinDispenserObserver observer : observers)
-			observer.coinsEmpty(this);
+		notifyObservers("coinsEmpty", observer -> observer.coinsEmpty(this));
 	}
 }
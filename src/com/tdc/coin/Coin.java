@@ -2,6 +2,9 @@ package com.tdc.coin;
 
 import java.math.BigDecimal;
 import java.util.Currency;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.tdc.Money;
 
 import ca.ucalgary.seng300.simulation.InvalidArgumentSimulationException;
 import ca.ucalgary.seng300.simulation.NullPointerSimulationException;
@@ -13,8 +16,11 @@ import ca.ucalgary.seng300.simulation.SimulationException;
  * @author TDC, Inc.
  */
 public class Coin {
-	private BigDecimal value;
-	private Currency currency;
+	private final BigDecimal value;
+	private final Currency currency;
+	private final Money money;
+
+	private static final ConcurrentHashMap<Money, Coin> FLYWEIGHTS = new ConcurrentHashMap<>();
 
 	/**
 	 * Rather than specifying a currency for every coin, a default currency can be
@@ -31,6 +37,11 @@ public class Coin {
 	 *             If the value is &le;0.
 	 * @throws SimulationException
 	 *             If the argument is null.
+	 * @throws SimulationException
+	 *             If the value has too many digits to be held exactly as a whole
+	 *             number of minor units in a {@code long} (see
+	 *             {@link Money#of(Currency, BigDecimal)}), e.g., more than 18
+	 *             significant digits.
 	 */
 	public Coin(BigDecimal value) {
 		if(DEFAULT_CURRENCY == null)
@@ -42,6 +53,7 @@ public class Coin {
 
 		this.value = value;
 		this.currency = DEFAULT_CURRENCY;
+		this.money = Money.of(currency, value);
 	}
 
 	/**
@@ -55,6 +67,11 @@ public class Coin {
 	 *             If the value is &le;0.
 	 * @throws SimulationException
 	 *             If either argument is null.
+	 * @throws SimulationException
+	 *             If the value has too many digits to be held exactly as a whole
+	 *             number of minor units in a {@code long} (see
+	 *             {@link Money#of(Currency, BigDecimal)}), e.g., more than 18
+	 *             significant digits.
 	 */
 	public Coin(Currency currency, BigDecimal value) {
 		if(currency == null)
@@ -66,6 +83,44 @@ public class Coin {
 
 		this.value = value;
 		this.currency = currency;
+		this.money = Money.of(currency, value);
+	}
+
+	/**
+	 * Obtains the shared coin of the indicated currency and value. Every call with
+	 * numerically equal arguments returns the same instance, so code that does not
+	 * need to tell individual coins apart can avoid allocating one per coin.
+	 * 
+	 * @param currency
+	 *            The currency represented by the coin.
+	 * @param value
+	 *            The value of the coin, in multiples of the unit of currency.
+	 * @return The shared coin, whose value is at the scale of the currency's minor
+	 *             unit.
+	 * @throws SimulationException
+	 *             If the value is &le;0.
+	 * @throws SimulationException
+	 *             If either argument is null.
+	 */
+	public static Coin of(Currency currency, BigDecimal value) {
+		if(currency == null)
+			throw new NullPointerSimulationException("currency");
+
+		if(value == null)
+			throw new NullPointerSimulationException("value");
+
+		Money money = Money.of(currency, value);
+		Coin coin = FLYWEIGHTS.get(money);
+
+		if(coin == null) {
+			coin = new Coin(currency, money.toBigDecimal());
+			Coin existing = FLYWEIGHTS.putIfAbsent(money, coin);
+
+			if(existing != null)
+				coin = existing;
+		}
+
+		return coin;
 	}
 
 	/**
@@ -89,6 +144,17 @@ public class Coin {
 		return currency;
 	}
 
+	/**
+	 * Accessor for the value as an exact amount in minor units. Two coins have the
+	 * same amount exactly when their currencies are the same and their values are
+	 * numerically equal.
+	 * 
+	 * @return The amount of this coin.
+	 */
+	public Money getMoney() {
+		return money;
+	}
+
 	@Override
 	public String toString() {
 		return value + " " + currency;
@@ -34,6 +34,24 @@ public final class CoinDispenser extends AbstractCoinDispenser implements Sink<C
 		super(capacity);
 	}
 
+	/**
+	 * Creates a coin dispenser with the indicated maximum capacity and storage
+	 * mode.
+	 * 
+	 * @param capacity
+	 *            The maximum number of coins that can be stored in the dispenser.
+	 *            Must be positive.
+	 * @param fungible
+	 *            If true, coins of the same currency and value are stored as a
+	 *            count rather than individually.
+	 * @throws SimulationException
+	 *             if capacity is not positive.
+	 * @see AbstractCoinDispenser#AbstractCoinDispenser(int, boolean)
+	 */
+	public CoinDispenser(int capacity, boolean fungible) {
+		super(capacity, fungible);
+	}
+
 	/**
 	 * Causes the indicated coin to be added into the dispenser. If successful,
 	 * announces "coinAdded" event. If a successful coin addition causes the
@@ -47,7 +65,7 @@ public final class CoinDispenser extends AbstractCoinDispenser implements Sink<C
 	 *             If the coin dispenser is already full.
 	 */
 	@Override
-	public synchronized void receive(Coin coin) throws CashOverloadException, DisabledException {
+	public void receive(Coin coin) throws CashOverloadException, DisabledException {
 		super.receive(coin);
 	}
 
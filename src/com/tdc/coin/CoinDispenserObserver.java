@@ -46,6 +46,21 @@ public interface CoinDispenserObserver extends IComponentObserver {
 	 */
 	void coinRemoved(ICoinDispenser dispenser, Coin coin);
 
+	/**
+	 * Announces that the indicated coins have been released together from the
+	 * indicated coin dispenser, by a single batch emission. By default, announces
+	 * each coin through {@link #coinRemoved(ICoinDispenser, Coin)}.
+	 * 
+	 * @param dispenser
+	 *            The dispenser where the event occurred.
+	 * @param coins
+	 *            The coins that were removed, in the order they were released.
+	 */
+	default void coinsRemoved(ICoinDispenser dispenser, Coin... coins) {
+		for(Coin coin : coins)
+			coinRemoved(dispenser, coin);
+	}
+
 	/**
 	 * Announces that the indicated sequence of coins has been added to the
 	 * indicated coin dispenser. Used to simulate direct, physical loading of the
@@ -1,8 +1,13 @@
 package com.tdc.coin;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
 import com.tdc.AbstractComponent;
 import com.tdc.CashOverloadException;
 import com.tdc.DisabledException;
+import com.tdc.Disposition;
 import com.tdc.Sink;
 
 import ca.ucalgary.seng300.simulation.NullPointerSimulationException;
@@ -40,29 +45,91 @@ public final class CoinSlot extends AbstractComponent<CoinSlotObserver> implemen
 	 * @throws SimulationException
 	 *             If coin is null.
 	 */
-	public synchronized void receive(Coin coin) throws DisabledException, CashOverloadException {
-		if(!isActivated())
-			throw new NoPowerException();
+	public void receive(Coin coin) throws DisabledException, CashOverloadException {
+		holdEvents();
+		try {
+			synchronized(this) {
+				if(!isActivated())
+					throw new NoPowerException();
 
-		if(isDisabled())
-			throw new DisabledException();
+				if(isDisabled())
+					throw new DisabledException();
 
-		if(coin == null)
-			throw new NullPointerSimulationException("coin");
+				if(coin == null)
+					throw new NullPointerSimulationException("coin");
 
-		notifyCoinInserted();
+				notifyCoinInserted();
 
-		if(sink.hasSpace()) {
-			try {
-				sink.receive(coin);
+				if(sink.hasSpace()) {
+					try {
+						sink.receive(coin);
+					}
+					catch(CashOverloadException e) {
+						// Should never happen
+						throw e;
+					}
+				}
+				else
+					throw new CashOverloadException("Unable to route coin: Output channel is full");
 			}
-			catch(CashOverloadException e) {
-				// Should never happen
-				throw e;
+		}
+		finally {
+			releaseEvents();
+		}
+	}
+
+	/**
+	 * Tells the coin slot that the indicated coins are being inserted together,
+	 * as when a handful of coins is poured in. If the slot is enabled, announces
+	 * one "coinsInserted" event and passes the coins on as a single batch, so
+	 * that they can be validated and routed in one pass. Requires power.
+	 * 
+	 * @param coins
+	 *            The coins to be added. Neither the array nor any coin in it can
+	 *            be null.
+	 * @return An unmodifiable list of the disposition of each coin, in the same
+	 *             order as the coins: accepted into its dispenser, sent to
+	 *             overflow storage, rejected to the coin tray, or refused because
+	 *             the tray or overflow storage is full; or in flight, if the slot
+	 *             feeds a channel that delivers later.
+	 * @throws DisabledException
+	 *             If the coin slot is currently disabled.
+	 * @throws CashOverloadException
+	 *             If the sink has no space.
+	 * @throws SimulationException
+	 *             If the array or any coin is null.
+	 */
+	public List<Disposition> receiveAll(Coin... coins) throws DisabledException, CashOverloadException {
+		holdEvents();
+		try {
+			synchronized(this) {
+				if(!isActivated())
+					throw new NoPowerException();
+
+				if(isDisabled())
+					throw new DisabledException();
+
+				if(coins == null)
+					throw new NullPointerSimulationException("coins");
+
+				for(Coin coin : coins)
+					if(coin == null)
+						throw new NullPointerSimulationException("coin instance");
+
+				if(coins.length == 0)
+					return Collections.emptyList();
+
+				notifyCoinsInserted(coins.length);
+
+				if(sink.hasSpace())
+					return sink.receiveAll(Arrays.asList(coins.clone()));
+				else
+					throw new CashOverloadException("Unable to route coins: Output channel is full");
 			}
 		}
-		else
-			throw new CashOverloadException("Unable to route coin: Output channel is full");
+		finally {
+			releaseEvents();
+		}
 	}
 
 	@Override
@@ -73,8 +140,11 @@ public final class CoinSlot extends AbstractComponent<CoinSlotObserver> implemen
 		return sink.hasSpace();
 	}
 
+	private void notifyCoinsInserted(int count) {
+		notifyObservers("coinsInserted", "coinInserted", observer -> observer.coinsInserted(this, count));
+	}
+
 	private void notifyCoinInserted() {
-		for(CoinSlotObserver observer : observers)
-			observer.coinInserted(this);
+		notifyObservers("coinInserted", observer -> observer.coinInserted(this));
 	}
 }
@@ -15,4 +15,18 @@ public interface CoinSlotObserver extends IComponentObserver {
 	 *             The component on which the event occurred.
 	 */
 	void coinInserted(CoinSlot slot);
+
+	/**
+	 * An event announcing that several coins have been inserted together. By
+	 * default, announces each coin through {@link #coinInserted(CoinSlot)}.
+	 * 
+	 * @param slot
+	 *             The component on which the event occurred.
+	 * @param count
+	 *             The number of coins inserted.
+	 */
+	default void coinsInserted(CoinSlot slot, int count) {
+		for(int i = 0; i < count; i++)
+			coinInserted(slot);
+	}
 }
@@ -1,10 +1,16 @@
 package com.tdc.coin;
 
+import java.math.BigDecimal;
 import java.util.Arrays;
+import java.util.Currency;
 import java.util.List;
+import java.util.Map;
 
 import com.tdc.AbstractComponent;
+import com.tdc.CashEventCoalescer;
+import com.tdc.CashJournal;
 import com.tdc.CashOverloadException;
+import com.tdc.CashTally;
 import com.tdc.DisabledException;
 import com.tdc.Sink;
 
@@ -22,8 +28,10 @@ import powerutility.NoPowerException;
  * @author TDC, Inc.
  */
 public class CoinStorageUnit extends AbstractComponent<CoinStorageUnitObserver> implements Sink<Coin> {
-	private Coin[] storage;
+	private final Coin[] storage;
 	private int nextIndex = 0;
+	private final CashEventCoalescer coalescer = new CashEventCoalescer(this);
+	private final CashTally tally = new CashTally();
 
 	/**
 	 * Creates a coin storage unit that can hold the indicated number of coins.
@@ -63,6 +71,53 @@ public class CoinStorageUnit extends AbstractComponent<CoinStorageUnitObserver>
 		return nextIndex;
 	}
 
+	/**
+	 * Gets the current count of coins of the indicated currency and value contained
+	 * in this storage unit. Takes constant time. Requires power.
+	 * 
+	 * @param currency
+	 *            The currency of interest.
+	 * @param value
+	 *            The value of interest.
+	 * @return The current count.
+	 */
+	public synchronized int getCoinCount(Currency currency, BigDecimal value) {
+		if(!isActivated())
+			throw new NoPowerException();
+
+		return tally.getCount(currency, value);
+	}
+
+	/**
+	 * Gets the current count of coins of each value of the indicated currency
+	 * contained in this storage unit. Requires power.
+	 * 
+	 * @param currency
+	 *            The currency of interest.
+	 * @return An unmodifiable map from value to count, by increasing value.
+	 */
+	public synchronized Map<BigDecimal, Integer> getCoinCounts(Currency currency) {
+		if(!isActivated())
+			throw new NoPowerException();
+
+		return tally.getCounts(currency);
+	}
+
+	/**
+	 * Gets the total value of the coins of the indicated currency contained in this
+	 * storage unit. Takes constant time. Requires power.
+	 * 
+	 * @param currency
+	 *            The currency of interest.
+	 * @return The total value; zero if there are none.
+	 */
+	public synchronized BigDecimal getTotalValue(Currency currency) {
+		if(!isActivated())
+			throw new NoPowerException();
+
+		return tally.getTotal(currency);
+	}
+
 	/**
 	 * Allows a set of coins to be loaded into the storage unit directly. Existing
 	 * coins in the dispenser are not removed. Announces "coinsLoaded" event.
@@ -80,43 +135,68 @@ public class CoinStorageUnit extends AbstractComponent<CoinStorageUnitObserver>
 	 * @throws CashOverloadException
 	 *             If too many coins are loaded.
 	 */
-	public synchronized void load(Coin... coins) throws SimulationException, CashOverloadException {
-		if(!isActivated())
-			throw new NoPowerException();
+	public void load(Coin... coins) throws SimulationException, CashOverloadException {
+		holdEvents();
+		try {
+			synchronized(this) {
+				if(!isActivated())
+					throw new NoPowerException();
 
-		if(coins == null)
-			throw new NullPointerSimulationException("coins");
+				if(coins == null)
+					throw new NullPointerSimulationException("coins");
 
-		if(coins.length + nextIndex > storage.length)
-			throw new CashOverloadException("You tried to stuff too many coins in the storage unit.");
+				if(coins.length + nextIndex > storage.length)
+					throw new CashOverloadException("You tried to stuff too many coins in the storage unit.");
 
-		for(Coin coin : coins)
-			if(coin == null)
-				throw new NullPointerSimulationException("coin instance");
+				for(Coin coin : coins)
+					if(coin == null)
+						throw new NullPointerSimulationException("coin instance");
 
-		System.arraycopy(coins, 0, storage, nextIndex, coins.length);
-		nextIndex += coins.length;
+				System.arraycopy(coins, 0, storage, nextIndex, coins.length);
+				nextIndex += coins.length;
 
-		notifyCoinsLoaded();
+				for(Coin coin : coins)
+					tally.add(coin.getMoney());
+
+				journal("coinsLoaded", () -> CashJournal.encode(coins));
+				notifyCoinsLoaded();
+				coalescer.reset(nextIndex);
+			}
+		}
+		finally {
+			releaseEvents();
+		}
 	}
 
 	/**
 	 * Unloads coins from the storage unit directly. Announces "coinsUnloaded"
 	 * event. Requires power.
 	 * 
-	 * @return A list of the coins unloaded. May be empty. Will never be null.
+	 * @return A list of the coins unloaded, holding only the coins that were in the
+	 *             unit. May be empty. Will never be null.
 	 */
-	public synchronized List<Coin> unload() {
-		if(!isActivated())
-			throw new NoPowerException();
+	public List<Coin> unload() {
+		holdEvents();
+		try {
+			synchronized(this) {
+				if(!isActivated())
+					throw new NoPowerException();
 
-		List<Coin> coins = Arrays.asList(storage);
+				List<Coin> coins = Arrays.asList(Arrays.copyOf(storage, nextIndex));
 
-		storage = new Coin[storage.length];
-		nextIndex = 0;
-		notifyCoinsUnloaded();
+				Arrays.fill(storage, 0, nextIndex, null);
+				nextIndex = 0;
+				tally.clear();
+				journal("coinsUnloaded", () -> "");
+				notifyCoinsUnloaded();
+				coalescer.reset(0);
 
-		return coins;
+				return coins;
+			}
+		}
+		finally {
+			releaseEvents();
+		}
 	}
 
 	/**
@@ -133,26 +213,47 @@ public class CoinStorageUnit extends AbstractComponent<CoinStorageUnitObserver>
 	 * @throws CashOverloadException
 	 *             If the unit is already full.
 	 */
-	public synchronized void receive(Coin coin) throws DisabledException, CashOverloadException {
-		if(!isActivated())
-			throw new NoPowerException();
+	public void receive(Coin coin) throws DisabledException, CashOverloadException {
+		holdEvents();
+		try {
+			synchronized(this) {
+				if(!isActivated())
+					throw new NoPowerException();
 
-		if(isDisabled())
-			throw new DisabledException();
+				if(isDisabled())
+					throw new DisabledException();
 
-		if(coin == null)
-			throw new NullPointerSimulationException("coin");
+				if(coin == null)
+					throw new NullPointerSimulationException("coin");
 
-		if(nextIndex < storage.length) {
-			storage[nextIndex++] = coin;
+				if(nextIndex < storage.length) {
+					storage[nextIndex++] = coin;
+					tally.add(coin.getMoney());
+					journal("coinAdded", () -> CashJournal.encode(coin));
 
-			notifyCoinAdded();
+					notifyCoinAdded();
+					coalescer.added(1);
 
-			if(nextIndex == storage.length)
-				notifyCoinsFull();
+					if(nextIndex == storage.length)
+						notifyCoinsFull();
+				}
+				else
+					throw new CashOverloadException();
+			}
 		}
-		else
-			throw new CashOverloadException();
+		finally {
+			releaseEvents();
+		}
+	}
+
+	/**
+	 * Obtains the coalescer that announces aggregated changes in the number of
+	 * coins in this storage unit. Does not require power.
+	 * 
+	 * @return The coalescer.
+	 */
+	public CashEventCoalescer getEventCoalescer() {
+		return coalescer;
 	}
 
 	@Override
@@ -163,23 +264,27 @@ public class CoinStorageUnit extends AbstractComponent<CoinStorageUnitObserver>
 		return nextIndex < storage.length;
 	}
 
+	@Override
+	public synchronized boolean hasSpace(int count) {
+		if(!isActivated())
+			throw new NoPowerException();
+
+		return nextIndex + count <= storage.length;
+	}
+
 	private void notifyCoinsLoaded() {
-		for(CoinStorageUnitObserver observer : observers)
-			observer.coinsLoaded(this);
+		notifyObservers("coinsLoaded", observer -> observer.coinsLoaded(this));
 	}
 
 	private void notifyCoinsUnloaded() {
-		for(CoinStorageUnitObserver observer : observers)
-			observer.coinsUnloaded(this);
+		notifyObservers("coinsUnloaded", observer -> observer.coinsUnloaded(this));
 	}
 
 	private void notifyCoinsFull() {
-		for(CoinStorageUnitObserver observer : observers)
-			observer.coinsFull(this);
+		notifyObservers("coinsFull", observer -> observer.coinsFull(this));
 	}
 
 	private void notifyCoinAdded() {
-		for(CoinStorageUnitObserver observer : observers)
-			observer.coinAdded(this);
+		notifyObservers("coinAdded", observer -> observer.coinAdded(this));
 	}
 }
@@ -1,23 +1,30 @@
 package com.tdc.coin;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Currency;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import com.tdc.AbstractComponent;
 import com.tdc.CashOverloadException;
 import com.tdc.ComponentFailure;
+import com.tdc.IComponent;
+import com.tdc.IComponentObserver;
 import com.tdc.DisabledException;
+import com.tdc.Disposition;
+import com.tdc.Money;
 import com.tdc.PassiveSource;
 import com.tdc.Sink;
 
 import ca.ucalgary.seng300.simulation.InvalidArgumentSimulationException;
 import ca.ucalgary.seng300.simulation.NullPointerSimulationException;
+import ca.ucalgary.seng300.simulation.Randomness;
 import ca.ucalgary.seng300.simulation.SimulationException;
 import powerutility.NoPowerException;
 
@@ -34,6 +41,7 @@ public final class CoinValidator extends AbstractComponent<CoinValidatorObserver
 	 */
 	public final Currency currency;
 	private List<BigDecimal> denominations;
+	private final Map<Money, Route> routes = new HashMap<>();
 	/**
 	 * Represents the output sink of this component when a coin is rejected.
 	 */
@@ -45,7 +53,8 @@ public final class CoinValidator extends AbstractComponent<CoinValidatorObserver
 	public Sink<Coin> overflowSink;
 	/**
 	 * Represents the set of output sinks to which to route valid coins, indexed by
-	 * the supported denomination of the coins.
+	 * the supported denomination of the coins. Sinks installed through
+	 * {@link #setup(Sink, Map, Sink)} are also entered in the routing table.
 	 */
 	public final Map<BigDecimal, Sink<Coin>> standardSinks;
 
@@ -94,6 +103,10 @@ public final class CoinValidator extends AbstractComponent<CoinValidatorObserver
 				throw new InvalidArgumentSimulationException(
 					"Each denomination must be unique, but " + denomination + " is repeated.");
 
+			if(routes.putIfAbsent(Money.of(currency, denomination), new Route(denomination)) != null)
+				throw new InvalidArgumentSimulationException(
+					"Each denomination must be unique, but " + denomination + " is repeated.");
+
 			standardSinks.put(denomination, null);
 		}
 
@@ -165,18 +178,151 @@ public final class CoinValidator extends AbstractComponent<CoinValidatorObserver
 
 		this.standardSinks.putAll(standardSinks);
 		this.overflowSink = overflowSink;
+
+		for(Route route : routes.values())
+			route.sink = this.standardSinks.get(route.denomination);
+	}
+
+	/**
+	 * Keeps the routing of coins of the indicated denomination up to date from
+	 * the events of the dispenser behind its standard sink. Valid coins of that
+	 * denomination are then routed by consulting a count maintained from the
+	 * dispenser's events, rather than by asking the sink whether it has space.
+	 * Tracking a different dispenser for the same denomination replaces the
+	 * previous one. Causes no events. Does not require power. Note that this is a
+	 * method for use by infrastructural setup; it will not be used otherwise.
+	 * <p>
+	 * Events may arrive late. A coin routed to a dispenser that turns out to be
+	 * full is sent to the overflow sink instead; a coin routed to the overflow
+	 * sink while a dispenser is being emptied is simply stored there.
+	 * </p>
+	 * 
+	 * @param denomination
+	 *            The denomination whose standard sink leads to the dispenser.
+	 * @param dispenser
+	 *            The dispenser to track.
+	 * @throws SimulationException
+	 *             If either argument is null.
+	 * @throws SimulationException
+	 *             If the denomination is not supported by this validator.
+	 */
+	public synchronized void trackDispenser(BigDecimal denomination, ICoinDispenser dispenser) {
+		if(denomination == null)
+			throw new NullPointerSimulationException("denomination");
+
+		if(dispenser == null)
+			throw new NullPointerSimulationException("dispenser");
+
+		Route route = routes.get(Money.of(currency, denomination));
+
+		if(route == null)
+			throw new InvalidArgumentSimulationException("Unsupported denomination: " + denomination);
+
+		Tracker old = route.tracker;
+
+		if(old != null)
+			old.dispenser.detach(old);
+
+		Tracker tracker = new Tracker(dispenser);
+		dispenser.attach(tracker);
+		route.tracker = tracker;
 	}
 
-	private final Random pseudoRandomNumberGenerator = new Random();
+	/*
+	 * The precomputed route for coins of one accepted denomination.
+	 */
+	private static final class Route {
+		final BigDecimal denomination;
+		volatile Sink<Coin> sink;
+		volatile Tracker tracker;
+
+		Route(BigDecimal denomination) {
+			this.denomination = denomination;
+		}
+	}
+
+	/*
+	 * Follows the number of coins in a dispenser from its events. The full and
+	 * empty events resynchronize the count.
+	 */
+	private static final class Tracker implements CoinDispenserObserver {
+		final ICoinDispenser dispenser;
+		final int capacity;
+		final AtomicInteger count;
+
+		Tracker(ICoinDispenser dispenser) {
+			this.dispenser = dispenser;
+			capacity = dispenser.getCapacity();
+			count = new AtomicInteger(dispenser.isActivated() ? dispenser.size() : 0);
+		}
+
+		boolean hasSpace() {
+			return count.get() < capacity;
+		}
+
+		@Override
+		public void coinsFull(ICoinDispenser dispenser) {
+			count.set(capacity);
+		}
+
+		@Override
+		public void coinsEmpty(ICoinDispenser dispenser) {
+			count.set(0);
+		}
+
+		@Override
+		public void coinAdded(ICoinDispenser dispenser, Coin coin) {
+			count.incrementAndGet();
+		}
+
+		@Override
+		public void coinRemoved(ICoinDispenser dispenser, Coin coin) {
+			count.decrementAndGet();
+		}
+
+		@Override
+		public void coinsRemoved(ICoinDispenser dispenser, Coin... coins) {
+			count.addAndGet(-coins.length);
+		}
+
+		@Override
+		public void coinsLoaded(ICoinDispenser dispenser, Coin... coins) {
+			count.addAndGet(coins.length);
+		}
+
+		@Override
+		public void coinsUnloaded(ICoinDispenser dispenser, Coin... coins) {
+			count.set(0);
+		}
+
+		@Override
+		public void enabled(IComponent<? extends IComponentObserver> component) {}
+
+		@Override
+		public void disabled(IComponent<? extends IComponentObserver> component) {}
+
+		@Override
+		public void turnedOn(IComponent<? extends IComponentObserver> component) {}
+
+		@Override
+		public void turnedOff(IComponent<? extends IComponentObserver> component) {}
+	}
+
+	private final SplittableRandom pseudoRandomNumberGenerator = Randomness.newStream();
 	private static final int PROBABILITY_OF_FALSE_REJECTION = 1; /* out of 100 */
 
-	private boolean isValid(Coin coin) {
-		if(currency.equals(coin.getCurrency()))
-			for(BigDecimal denomination : denominations)
-				if(denomination.equals(coin.getValue()))
-					return pseudoRandomNumberGenerator.nextInt(100) >= PROBABILITY_OF_FALSE_REJECTION;
+	/*
+	 * Finds the route for the coin by hashing its exact amount rather than
+	 * comparing it against each denomination in turn. Returns null if the coin is
+	 * not accepted.
+	 */
+	private Route validate(Coin coin) {
+		Route route = routes.get(coin.getMoney());
 
-		return false;
+		if(route != null && pseudoRandomNumberGenerator.nextInt(100) >= PROBABILITY_OF_FALSE_REJECTION)
+			return route;
+
+		return null;
 	}
 
 	/**
@@ -203,51 +349,176 @@ public final class CoinValidator extends AbstractComponent<CoinValidatorObserver
 	 * @throws SimulationException
 	 *             If the coin cannot be delivered.
 	 */
-	public synchronized void receive(Coin coin) throws DisabledException, CashOverloadException {
-		if(!isActivated())
-			throw new NoPowerException();
+	public void receive(Coin coin) throws DisabledException, CashOverloadException {
+		long start = startOperation();
 
-		if(isDisabled())
-			throw new DisabledException();
+		holdEvents();
+		try {
+			synchronized(this) {
+				if(!isActivated())
+					throw new NoPowerException();
 
-		if(coin == null)
-			throw new NullPointerSimulationException("coin");
+				if(isDisabled())
+					throw new DisabledException();
 
-		if(isValid(coin)) {
-			notifyValidCoinDetected(coin);
+				if(coin == null)
+					throw new NullPointerSimulationException("coin");
 
-			Sink<Coin> sink = standardSinks.get(coin.getValue());
+				Route route = validate(coin);
 
-			if(sink.hasSpace()) {
-				try {
-					sink.receive(coin);
+				if(route != null) {
+					notifyValidCoinDetected(coin);
+					deliver(coin, route);
 				}
-				catch(CashOverloadException e) {
-					// Should never happen
-					throw e;
+				else {
+					notifyInvalidCoinDetected(coin);
+
+					try {
+						rejectionSink.receive(coin);
+					}
+					catch(CashOverloadException e) {
+						// Should never happen
+						throw e;
+					}
 				}
 			}
-			else {
+		}
+		finally {
+			stopOperation("receive", start);
+			releaseEvents();
+		}
+	}
+
+	/**
+	 * Tells the coin validator that the indicated coins are being inserted
+	 * together. Each coin is validated and routed as by {@link #receive(Coin)},
+	 * but in a single pass: the valid coins are announced together in one
+	 * "validCoinsDetected" event, and each invalid coin is announced in an
+	 * "invalidCoinDetected" event. Requires power.
+	 * 
+	 * @param coins
+	 *            The coins to be added. Neither the list nor any coin in it can be
+	 *            null.
+	 * @return An unmodifiable list of the disposition of each coin, in the same
+	 *             order as the coins. A coin whose rejection or overflow sink is
+	 *             full is {@link Disposition#REFUSED}, and the coins after it are
+	 *             still routed.
+	 * @throws DisabledException
+	 *             if the coin validator is currently disabled.
+	 * @throws CashOverloadException
+	 *             if a standard sink that is not tracked refuses a coin despite
+	 *             having reported space. The coins before it remain where they
+	 *             were routed.
+	 * @throws SimulationException
+	 *             If the list or any coin is null.
+	 */
+	@Override
+	public List<Disposition> receiveAll(List<Coin> coins) throws DisabledException, CashOverloadException {
+		long start = startOperation();
+		List<BigDecimal> values = new ArrayList<>();
+
+		holdEvents();
+		try {
+			synchronized(this) {
+				if(!isActivated())
+					throw new NoPowerException();
+
+				if(isDisabled())
+					throw new DisabledException();
+
+				if(coins == null)
+					throw new NullPointerSimulationException("coins");
+
+				for(Coin coin : coins)
+					if(coin == null)
+						throw new NullPointerSimulationException("coin instance");
+
+				List<Disposition> dispositions = new ArrayList<>(coins.size());
+
 				try {
-					overflowSink.receive(coin);
+					for(Coin coin : coins) {
+						Route route = validate(coin);
+
+						if(route != null) {
+							values.add(coin.getValue());
+
+							if(deliverToStandardSink(coin, route))
+								dispositions.add(Disposition.ACCEPTED);
+							else
+								dispositions.add(offer(overflowSink, coin, Disposition.OVERFLOWED));
+						}
+						else {
+							notifyInvalidCoinDetected(coin);
+							dispositions.add(offer(rejectionSink, coin, Disposition.REJECTED));
+						}
+					}
 				}
-				catch(CashOverloadException e) {
-					// Should never happen
-					throw e;
+				finally {
+					if(!values.isEmpty())
+						notifyValidCoinsDetected(values.toArray(new BigDecimal[values.size()]));
 				}
+
+				return Collections.unmodifiableList(dispositions);
 			}
 		}
-		else {
-			notifyInvalidCoinDetected(coin);
+		finally {
+			stopOperation("receiveAll", start);
+			releaseEvents();
+		}
+	}
 
+	/*
+	 * Sends a valid coin along its route: to its standard sink if that has space,
+	 * otherwise to the overflow sink.
+	 */
+	private void deliver(Coin coin, Route route) throws DisabledException, CashOverloadException {
+		if(!deliverToStandardSink(coin, route))
+			overflowSink.receive(coin);
+	}
+
+	/*
+	 * Sends a valid coin to its standard sink, if that has space.
+	 */
+	private boolean deliverToStandardSink(Coin coin, Route route) throws DisabledException, CashOverloadException {
+		Sink<Coin> sink = route.sink;
+
+		if(sink == null)
+			sink = standardSinks.get(route.denomination);
+
+		Tracker tracker = route.tracker;
+
+		if(tracker != null ? tracker.hasSpace() : sink.hasSpace()) {
 			try {
-				rejectionSink.receive(coin);
+				sink.receive(coin);
+				return true;
 			}
 			catch(CashOverloadException e) {
-				// Should never happen
-				throw e;
+				if(tracker == null)
+					// Should never happen
+					throw e;
+
+				// The dispenser filled before its event arrived
 			}
 		}
+
+		return false;
+	}
+
+	/*
+	 * Passes a coin of a batch to the indicated sink, or refuses it if the sink
+	 * is full, so that one full sink does not abandon the rest of the batch.
+	 */
+	private static Disposition offer(Sink<Coin> sink, Coin coin, Disposition disposition) throws DisabledException {
+		if(!sink.hasSpace())
+			return Disposition.REFUSED;
+
+		try {
+			sink.receive(coin);
+			return disposition;
+		}
+		catch(CashOverloadException e) {
+			return Disposition.REFUSED;
+		}
 	}
 
 	@Override
@@ -268,12 +539,15 @@ public final class CoinValidator extends AbstractComponent<CoinValidatorObserver
 	}
 
 	private void notifyValidCoinDetected(Coin coin) {
-		for(CoinValidatorObserver observer : observers)
-			observer.validCoinDetected(this, coin.getValue());
+		notifyObservers("validCoinDetected", observer -> observer.validCoinDetected(this, coin.getValue()));
+	}
+
+	private void notifyValidCoinsDetected(BigDecimal[] values) {
+		notifyObservers("validCoinsDetected", "validCoinDetected",
+			observer -> observer.validCoinsDetected(this, values));
 	}
 
 	private void notifyInvalidCoinDetected(Coin coin) {
-		for(CoinValidatorObserver observer : observers)
-			observer.invalidCoinDetected(this);
+		notifyObservers("invalidCoinDetected", observer -> observer.invalidCoinDetected(this));
 	}
 }
@@ -21,6 +21,22 @@ public interface CoinValidatorObserver extends IComponentObserver {
 	 */
 	void validCoinDetected(CoinValidator validator, BigDecimal value);
 
+	/**
+	 * An event announcing that the indicated coins, inserted together, have been
+	 * detected and determined to be valid. By default, announces each coin
+	 * through {@link #validCoinDetected(CoinValidator, BigDecimal)}.
+	 * 
+	 * @param validator
+	 *            The component on which the event occurred.
+	 * @param values
+	 *            The values of the coins, in the order in which they were
+	 *            inserted.
+	 */
+	default void validCoinsDetected(CoinValidator validator, BigDecimal... values) {
+		for(BigDecimal value : values)
+			validCoinDetected(validator, value);
+	}
+
 	/**
 	 * An event announcing that a coin has been detected and determined to be
 	 * invalid.
@@ -2,12 +2,14 @@ package com.tdc.coin;
 
 import java.util.List;
 
+import com.tdc.CashEventCoalescer;
 import com.tdc.CashOverloadException;
 import com.tdc.DisabledException;
 import com.tdc.IComponent;
 import com.tdc.NoCashAvailableException;
 import com.tdc.Sink;
 
+import ca.ucalgary.seng300.simulation.InvalidArgumentSimulationException;
 import ca.ucalgary.seng300.simulation.SimulationException;
 
 /**
@@ -67,6 +69,36 @@ public interface ICoinDispenser extends IComponent<CoinDispenserObserver>, Sink<
 	 */
 	void emit() throws CashOverloadException, NoCashAvailableException, DisabledException;
 
+	/**
+	 * Releases the indicated number of coins from this coin dispenser as a single
+	 * operation. Either all the coins are released or, if any check fails, none
+	 * are. If successful, announces one "coinsRemoved" event for the whole batch.
+	 * If the batch causes the dispenser to become empty, announces "coinsEmpty"
+	 * event. Requires power.
+	 * <p>
+	 * The coins leave the dispenser only once the sink has accepted all of them.
+	 * If the sink refuses a coin despite having reported space, as when another
+	 * component fills it in the meantime, the coins it already accepted are taken
+	 * back from it (see {@link com.tdc.Sink#retract(List)}) and the exception
+	 * propagates. Only a sink that cannot give cash back keeps the coins it
+	 * accepted, which are then announced as removed.
+	 * </p>
+	 * 
+	 * @param count
+	 *            The number of coins to release. Must be positive.
+	 * @return An unmodifiable list of the coins released, in the order in which
+	 *             they were released.
+	 * @throws CashOverloadException
+	 *             If the output channel is unable to accept that many coins.
+	 * @throws NoCashAvailableException
+	 *             If fewer than that many coins are present in the dispenser.
+	 * @throws DisabledException
+	 *             If the dispenser is currently disabled.
+	 * @throws InvalidArgumentSimulationException
+	 *             If the count is not positive.
+	 */
+	List<Coin> emit(int count) throws CashOverloadException, NoCashAvailableException, DisabledException;
+
 	/**
 	 * The dispenser cannot accept rejected coins from its output sink, only from
 	 * its input source. Requires power.
@@ -76,4 +108,12 @@ public interface ICoinDispenser extends IComponent<CoinDispenserObserver>, Sink<
 	 * @throws CashOverloadException If the component is already full.
 	 */
 	void reject(Coin coin) throws DisabledException, CashOverloadException;
-}
\ No newline at end of file
+
+	/**
+	 * Obtains the coalescer that announces aggregated changes in the number of
+	 * coins in this dispenser. Does not require power.
+	 * 
+	 * @return The coalescer.
+	 */
+	CashEventCoalescer getEventCoalescer();
+}
@@ -15,6 +15,10 @@ import com.jjjwelectronics.printer.IReceiptPrinter;
 import com.jjjwelectronics.scale.IElectronicScale;
 import com.jjjwelectronics.scanner.IBarcodeScanner;
 import com.jjjwelectronics.screen.ITouchScreen;
+import com.tdc.CashJournal;
+import com.tdc.CashOverloadException;
+import com.tdc.IComponent;
+import com.tdc.Sink;
 import com.tdc.banknote.AbstractBanknoteDispenser;
 import com.tdc.banknote.Banknote;
 import com.tdc.banknote.BanknoteDispensationSlot;
@@ -29,6 +33,8 @@ import com.tdc.coin.CoinStorageUnit;
 import com.tdc.coin.CoinValidator;
 import com.tdc.coin.ICoinDispenser;
 
+import ca.ucalgary.seng300.simulation.EventDispatcher;
+import ca.ucalgary.seng300.simulation.EventJournal;
 import ca.ucalgary.seng300.simulation.InvalidArgumentSimulationException;
 import ca.ucalgary.seng300.simulation.NullPointerSimulationException;
 import powerutility.PowerGrid;
@@ -71,6 +77,56 @@ public abstract class AbstractSelfCheckoutStation implements ISelfCheckoutStatio
 		coinDispenserCapacityConfiguration = count;
 	}
 
+	protected static boolean fungibleDispensersConfiguration;
+
+	/**
+	 * Configures whether the coin and banknote dispensers store interchangeable
+	 * cash as a count rather than individually.
+	 * 
+	 * @param fungible
+	 *            true to count interchangeable cash; false to store each item.
+	 */
+	public static void configureFungibleDispensers(boolean fungible) {
+		fungibleDispensersConfiguration = fungible;
+	}
+
+	protected static boolean banknoteRecyclingConfiguration;
+
+	/**
+	 * Configures whether valid banknotes inserted by the customer are recycled:
+	 * routed to the banknote dispenser of their denomination until it is full,
+	 * and only then to the banknote storage unit, as coins are.
+	 * 
+	 * @param recycling
+	 *            true to recycle banknotes; false to store them all.
+	 */
+	public static void configureBanknoteRecycling(boolean recycling) {
+		banknoteRecyclingConfiguration = recycling;
+	}
+
+	protected static int asynchronousChannelCapacityConfiguration;
+
+	/**
+	 * Configures whether cash inserted by the customer travels through
+	 * asynchronous channels, which hold the indicated number of items in flight
+	 * and deliver them on a pool of daemon threads shared by all stations, rather
+	 * than being handed from component to component by the inserting thread.
+	 * Coins that reach a full dispenser this way continue to the coin storage
+	 * unit. Cash inserted as a batch is reported as
+	 * {@link com.tdc.Disposition#IN_FLIGHT}, since where it ends up is not known
+	 * when the batch is inserted. Cash dispensed to the customer always travels
+	 * synchronously.
+	 * 
+	 * @param capacity
+	 *            The number of items each channel can hold in flight, or 0 for
+	 *            synchronous channels.
+	 */
+	public static void configureAsynchronousChannels(int capacity) {
+		if(capacity < 0)
+			throw new InvalidArgumentSimulationException("Capacity cannot be negative.");
+		asynchronousChannelCapacityConfiguration = capacity;
+	}
+
 	protected static int banknoteStorageUnitCapacityConfiguration;
 
 	/**
@@ -230,6 +286,9 @@ public abstract class AbstractSelfCheckoutStation implements ISelfCheckoutStatio
 		coinDispenserCapacityConfiguration = 100;
 		coinStorageUnitCapacityConfiguration = 1000;
 		coinTrayCapacityConfiguration = 25;
+		fungibleDispensersConfiguration = false;
+		banknoteRecyclingConfiguration = false;
+		asynchronousChannelCapacityConfiguration = 0;
 		currencyConfiguration = Currency.getInstance(Locale.CANADA);
 		reusableBagDispenserCapacityConfiguration = 100;
 		scaleMaximumWeightConfiguration = 5000.0;
@@ -256,6 +315,8 @@ public abstract class AbstractSelfCheckoutStation implements ISelfCheckoutStatio
 	protected List<BigDecimal> coinDenominations;
 	protected Map<BigDecimal, ICoinDispenser> coinDispensers;
 	protected CoinTray coinTray;
+	private final List<AsynchronousChannel<Coin>> asynchronousCoinChannels = new ArrayList<>();
+	private final List<AsynchronousChannel<Banknote>> asynchronousBanknoteChannels = new ArrayList<>();
 
 	protected AbstractSelfCheckoutStation(IElectronicScale baggingArea, IElectronicScale scanningArea,
 		ITouchScreen screen, IReusableBagDispenser bagDispenser, IReceiptPrinter printer, ICardReader cardReader,
@@ -495,6 +556,174 @@ public abstract class AbstractSelfCheckoutStation implements ISelfCheckoutStatio
 		reusableBagDispenser.turnOff();
 	}
 
+	@Override
+	public void setEventDispatcher(EventDispatcher dispatcher) {
+		baggingArea.setEventDispatcher(dispatcher);
+		for(IBanknoteDispenser bd : banknoteDispensers.values())
+			bd.setEventDispatcher(dispatcher);
+		banknoteInput.setEventDispatcher(dispatcher);
+		banknoteOutput.setEventDispatcher(dispatcher);
+		banknoteStorage.setEventDispatcher(dispatcher);
+		banknoteValidator.setEventDispatcher(dispatcher);
+		cardReader.setEventDispatcher(dispatcher);
+		for(ICoinDispenser cd : coinDispensers.values())
+			cd.setEventDispatcher(dispatcher);
+		coinSlot.setEventDispatcher(dispatcher);
+		coinStorage.setEventDispatcher(dispatcher);
+		coinTray.setEventDispatcher(dispatcher);
+		coinValidator.setEventDispatcher(dispatcher);
+		handheldScanner.setEventDispatcher(dispatcher);
+		mainScanner.setEventDispatcher(dispatcher);
+		printer.setEventDispatcher(dispatcher);
+		scanningArea.setEventDispatcher(dispatcher);
+		screen.setEventDispatcher(dispatcher);
+		reusableBagDispenser.setEventDispatcher(dispatcher);
+	}
+
+	@Override
+	public void journalTo(EventJournal journal) {
+		coinStorage.setJournal(journal == null ? null : journal.writer("coinStorage"));
+		banknoteStorage.setJournal(journal == null ? null : journal.writer("banknoteStorage"));
+		for(Map.Entry<BigDecimal, ICoinDispenser> e : coinDispensers.entrySet())
+			e.getValue().setJournal(journal == null ? null : journal.writer("coinDispenser " + e.getKey().toPlainString()));
+		for(Map.Entry<BigDecimal, IBanknoteDispenser> e : banknoteDispensers.entrySet())
+			e.getValue().setJournal(journal == null ? null : journal.writer("banknoteDispenser " + e.getKey().toPlainString()));
+	}
+
+	@Override
+	public void restoreFrom(EventJournal journal) throws CashOverloadException {
+		Map<String, List<String>> contents = CashJournal.contents(journal);
+		List<String> items;
+
+		if((items = contents.get("coinStorage")) != null) {
+			Coin[] coins = CashJournal.decodeCoins(items);
+			restore(coinStorage, () -> coinStorage.load(coins));
+		}
+
+		if((items = contents.get("banknoteStorage")) != null) {
+			Banknote[] banknotes = CashJournal.decodeBanknotes(items);
+			restore(banknoteStorage, () -> banknoteStorage.load(banknotes));
+		}
+
+		for(Map.Entry<BigDecimal, ICoinDispenser> e : coinDispensers.entrySet())
+			if((items = contents.get("coinDispenser " + e.getKey().toPlainString())) != null) {
+				Coin[] coins = CashJournal.decodeCoins(items);
+				restore(e.getValue(), () -> e.getValue().load(coins));
+			}
+
+		for(Map.Entry<BigDecimal, IBanknoteDispenser> e : banknoteDispensers.entrySet())
+			if((items = contents.get("banknoteDispenser " + e.getKey().toPlainString())) != null) {
+				Banknote[] banknotes = CashJournal.decodeBanknotes(items);
+				restore(e.getValue(), () -> e.getValue().load(banknotes));
+			}
+	}
+
+	private interface Load {
+		void run() throws CashOverloadException;
+	}
+
+	/*
+	 * Loads a component without recording the load in its journal.
+	 */
+	private static void restore(IComponent<?> component, Load load) throws CashOverloadException {
+		EventJournal.Writer writer = component.getJournal();
+		component.setJournal(null);
+
+		try {
+			load.run();
+		}
+		finally {
+			component.setJournal(writer);
+		}
+	}
+
+	@Override
+	public boolean awaitCashInFlight(long timeoutMillis) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + timeoutMillis;
+		List<AsynchronousChannel<?>> channels = new ArrayList<>(asynchronousCoinChannels);
+		channels.addAll(asynchronousBanknoteChannels);
+
+		// A channel may refill from an earlier one, so check until all are empty
+		boolean busy = true;
+
+		while(busy) {
+			busy = false;
+
+			for(AsynchronousChannel<?> channel : channels) {
+				if(channel.getInFlightCount() > 0) {
+					busy = true;
+
+					if(!channel.awaitDelivery(Math.max(0, deadline - System.currentTimeMillis())))
+						return false;
+				}
+			}
+		}
+
+		return true;
+	}
+
+	@Override
+	public List<Coin> clearJammedCoins() {
+		List<Coin> coins = new ArrayList<>();
+
+		for(AsynchronousChannel<Coin> channel : asynchronousCoinChannels)
+			coins.addAll(channel.clearJam());
+
+		return coins;
+	}
+
+	@Override
+	public List<Banknote> clearJammedBanknotes() {
+		List<Banknote> banknotes = new ArrayList<>();
+
+		for(AsynchronousChannel<Banknote> channel : asynchronousBanknoteChannels)
+			banknotes.addAll(channel.clearJam());
+
+		return banknotes;
+	}
+
+	/**
+	 * Creates a channel that carries inserted coins to the indicated sink: an
+	 * asynchronous channel if so configured, otherwise a synchronous one.
+	 * 
+	 * @param sink
+	 *            The component at the output end of the channel.
+	 * @param fallback
+	 *            Where an asynchronous channel sends coins that the sink refuses.
+	 *            May be null.
+	 * @return The channel.
+	 */
+	protected Sink<Coin> coinChannel(Sink<Coin> sink, Sink<Coin> fallback) {
+		if(asynchronousChannelCapacityConfiguration == 0)
+			return new OneWayChannel<Coin>(sink);
+
+		AsynchronousChannel<Coin> channel = new AsynchronousChannel<>(sink, fallback,
+			asynchronousChannelCapacityConfiguration);
+		asynchronousCoinChannels.add(channel);
+		return channel;
+	}
+
+	/**
+	 * Creates a channel that carries inserted banknotes to the indicated sink: an
+	 * asynchronous channel if so configured, otherwise a synchronous one.
+	 * 
+	 * @param sink
+	 *            The component at the output end of the channel.
+	 * @param fallback
+	 *            Where an asynchronous channel sends banknotes that the sink
+	 *            refuses. May be null.
+	 * @return The channel.
+	 */
+	protected Sink<Banknote> banknoteChannel(Sink<Banknote> sink, Sink<Banknote> fallback) {
+		if(asynchronousChannelCapacityConfiguration == 0)
+			return new OneWayChannel<Banknote>(sink);
+
+		AsynchronousChannel<Banknote> channel = new AsynchronousChannel<>(sink, fallback,
+			asynchronousChannelCapacityConfiguration);
+		asynchronousBanknoteChannels.add(channel);
+		return channel;
+	}
+
 	protected void interconnect(BanknoteInsertionSlot slot, BanknoteValidator validator) {
 		TwoWayChannel<Banknote> channel = new TwoWayChannel<Banknote>(slot, validator);
 		slot.sink = channel;
@@ -502,8 +731,7 @@ public abstract class AbstractSelfCheckoutStation implements ISelfCheckoutStatio
 	}
 
 	protected void interconnect(BanknoteValidator validator, BanknoteStorageUnit storage) {
-		OneWayChannel<Banknote> channel = new OneWayChannel<Banknote>(storage);
-		validator.sink = channel;
+		validator.sink = banknoteChannel(storage, null);
 	}
 
 	protected void interconnect(IBanknoteDispenser dispenser, BanknoteDispensationSlot slot) {
@@ -512,8 +740,7 @@ public abstract class AbstractSelfCheckoutStation implements ISelfCheckoutStatio
 	}
 
 	protected void interconnect(CoinSlot slot, CoinValidator validator) {
-		OneWayChannel<Coin> channel = new OneWayChannel<Coin>(validator);
-		slot.sink = channel;
+		slot.sink = coinChannel(validator, null);
 	}
 
 	protected void interconnect(ICoinDispenser dispenser, CoinTray tray) {
@@ -0,0 +1,317 @@
+package com.thelocalmarketplace.hardware;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.tdc.CashOverloadException;
+import com.tdc.DisabledException;
+import com.tdc.Disposition;
+import com.tdc.Sink;
+
+import ca.ucalgary.seng300.simulation.InvalidArgumentSimulationException;
+import ca.ucalgary.seng300.simulation.InvalidStateSimulationException;
+import ca.ucalgary.seng300.simulation.NullPointerSimulationException;
+
+/**
+ * Represents a channel (like, say, a tube) that things take time to travel
+ * through, so that the device at the input end can carry on while they are in
+ * flight. Things entering the channel are placed in a bounded queue and handed
+ * to the device at the output end by a delivery thread, so the devices at
+ * either end never hold each other's locks.
+ * <p>
+ * The delivery threads are daemons shared by all channels: a channel borrows
+ * one only while it has things in flight, delivers them in order, and gives it
+ * back, and a thread that stays idle for a second finishes. An idle channel
+ * therefore holds no thread, and needs no shutting down however many stations
+ * create channels.
+ * </p>
+ * <p>
+ * The channel has space while its queue does; it cannot know whether the
+ * device at the output end will have space when a thing arrives. A thing that
+ * the output device refuses is passed to the fallback sink, if there is one;
+ * otherwise, or if the fallback also refuses it, it stays jammed in the channel
+ * until removed with {@link #clearJam()}. Other failures to deliver, such as a
+ * loss of power, also jam the thing, and are passed to the uncaught-exception
+ * handler of the delivery thread.
+ * </p>
+ *
+ * @param <T>
+ *            The type of the things to be transported.
+ */
+final class AsynchronousChannel<T> implements Sink<T> {
+	private final Sink<T> sink;
+	private final Sink<T> fallback;
+	private final int capacity;
+	private final ConcurrentLinkedQueue<T> queue = new ConcurrentLinkedQueue<>();
+	private final AtomicInteger inFlight = new AtomicInteger();
+	private final ConcurrentLinkedQueue<T> jammed = new ConcurrentLinkedQueue<>();
+	private final Object idle = new Object();
+	private final AtomicBoolean delivering = new AtomicBoolean();
+	private volatile boolean closed = false;
+
+	private static final Executor DELIVERERS = new ThreadPoolExecutor(0, Integer.MAX_VALUE, 1, TimeUnit.SECONDS,
+		new SynchronousQueue<>(), task -> {
+			Thread thread = new Thread(task, "AsynchronousChannel");
+			thread.setDaemon(true);
+			return thread;
+		});
+
+	/**
+	 * Constructs a new channel whose output is connected to the indicated sink.
+	 *
+	 * @param sink
+	 *            The device at the output end of the channel. Cannot be null.
+	 * @param fallback
+	 *            The device to which things refused by the output device are
+	 *            passed. May be null.
+	 * @param capacity
+	 *            The maximum number of things in flight. Must be positive.
+	 * @throws NullPointerSimulationException
+	 *             If the sink is null.
+	 * @throws InvalidArgumentSimulationException
+	 *             If the capacity is not positive.
+	 */
+	public AsynchronousChannel(Sink<T> sink, Sink<T> fallback, int capacity) {
+		if(sink == null)
+			throw new NullPointerSimulationException("sink");
+
+		if(capacity <= 0)
+			throw new InvalidArgumentSimulationException("The capacity must be positive.");
+
+		this.sink = sink;
+		this.fallback = fallback;
+		this.capacity = capacity;
+	}
+
+	/**
+	 * Places the indicated thing in the channel, to be delivered to the sink
+	 * later. This method should be called by the source device, and not by an
+	 * external application.
+	 *
+	 * @param thing
+	 *            The thing to transport via the channel. Cannot be null.
+	 * @throws CashOverloadException
+	 *             If the channel is full.
+	 * @throws NullPointerSimulationException
+	 *             If the thing is null.
+	 * @throws InvalidStateSimulationException
+	 *             If the channel has been closed.
+	 */
+	@Override
+	public void receive(T thing) throws CashOverloadException {
+		if(thing == null)
+			throw new NullPointerSimulationException("thing");
+
+		reserve(1);
+		queue.offer(thing);
+		startDelivery();
+	}
+
+	/**
+	 * Places the indicated things in the channel together, to be delivered to the
+	 * sink later, one at a time. Either all of them fit or none is placed. Where
+	 * each thing ends up is not known until it is delivered, so the dispositions
+	 * report only that the things entered the channel.
+	 *
+	 * @param things
+	 *            The things to transport via the channel. Cannot be null or
+	 *            contain null.
+	 * @return A list with {@link Disposition#IN_FLIGHT} for each thing.
+	 * @throws CashOverloadException
+	 *             If the channel lacks space for all of the things.
+	 * @throws NullPointerSimulationException
+	 *             If the list or any thing is null.
+	 * @throws InvalidStateSimulationException
+	 *             If the channel has been closed.
+	 */
+	@Override
+	public List<Disposition> receiveAll(List<T> things) throws CashOverloadException {
+		if(things == null)
+			throw new NullPointerSimulationException("things");
+
+		for(T thing : things)
+			if(thing == null)
+				throw new NullPointerSimulationException("thing");
+
+		reserve(things.size());
+		queue.addAll(things);
+		startDelivery();
+
+		return Collections.nCopies(things.size(), Disposition.IN_FLIGHT);
+	}
+
+	/*
+	 * Claims space for the indicated number of things without locking.
+	 */
+	private void reserve(int count) throws CashOverloadException {
+		if(closed)
+			throw new InvalidStateSimulationException("The channel has been closed.");
+
+		int current;
+
+		do {
+			current = inFlight.get();
+
+			if(current + count > capacity)
+				throw new CashOverloadException("The channel is full.");
+		}
+		while(!inFlight.compareAndSet(current, current + count));
+	}
+
+	/**
+	 * Returns whether the channel has space for at least one more thing.
+	 *
+	 * @return true if the channel can accept a thing; false otherwise.
+	 */
+	@Override
+	public boolean hasSpace() {
+		return hasSpace(1);
+	}
+
+	/**
+	 * Returns whether the channel has space for the indicated number of things.
+	 *
+	 * @param count
+	 *            The number of things.
+	 * @return true if the channel can accept that many things; false otherwise.
+	 */
+	@Override
+	public boolean hasSpace(int count) {
+		return !closed && inFlight.get() + count <= capacity;
+	}
+
+	/**
+	 * Gets the maximum number of things that can be in flight.
+	 *
+	 * @return The capacity.
+	 */
+	public int getCapacity() {
+		return capacity;
+	}
+
+	/**
+	 * Counts the things placed in the channel and not yet delivered.
+	 *
+	 * @return The number of things in flight.
+	 */
+	public int getInFlightCount() {
+		return inFlight.get();
+	}
+
+	/**
+	 * Removes the things that could be delivered neither to the sink nor to the
+	 * fallback.
+	 *
+	 * @return The jammed things, in the order in which they jammed. May be empty.
+	 */
+	public List<T> clearJam() {
+		List<T> result = new ArrayList<>();
+		T thing;
+
+		while((thing = jammed.poll()) != null)
+			result.add(thing);
+
+		return result;
+	}
+
+	/**
+	 * Waits until every thing placed in the channel so far has been delivered,
+	 * passed to the fallback, or jammed.
+	 *
+	 * @param timeoutMillis
+	 *            The longest time to wait, in milliseconds.
+	 * @return true if the channel emptied; false if the time ran out.
+	 * @throws InterruptedException
+	 *             If interrupted while waiting.
+	 */
+	public boolean awaitDelivery(long timeoutMillis) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + timeoutMillis;
+
+		synchronized(idle) {
+			while(inFlight.get() > 0) {
+				long remaining = deadline - System.currentTimeMillis();
+
+				if(remaining <= 0)
+					return false;
+
+				idle.wait(remaining);
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * Stops accepting things. Things already in flight are still delivered.
+	 */
+	public void close() {
+		closed = true;
+	}
+
+	/*
+	 * Borrows a delivery thread unless one is already draining this channel, so
+	 * that things are delivered one at a time and in order.
+	 */
+	private void startDelivery() {
+		if(delivering.compareAndSet(false, true))
+			DELIVERERS.execute(this::drain);
+	}
+
+	/*
+	 * Delivers until the queue is empty, then gives the thread back. A thing
+	 * queued after the last poll but before the flag is cleared is picked up by
+	 * the recheck, since its sender saw the flag still set.
+	 */
+	private void drain() {
+		do {
+			T thing;
+
+			while((thing = queue.poll()) != null) {
+				deliver(thing);
+
+				if(inFlight.decrementAndGet() == 0) {
+					synchronized(idle) {
+						idle.notifyAll();
+					}
+				}
+			}
+
+			delivering.set(false);
+		}
+		while(!queue.isEmpty() && delivering.compareAndSet(false, true));
+	}
+
+	private void deliver(T thing) {
+		if(tryReceive(sink, thing) || (fallback != null && tryReceive(fallback, thing)))
+			return;
+
+		jammed.offer(thing);
+	}
+
+	/*
+	 * Failures other than a full or disabled sink are passed to the
+	 * uncaught-exception handler of the delivery thread, which then carries on.
+	 */
+	private boolean tryReceive(Sink<T> target, T thing) {
+		try {
+			target.receive(thing);
+			return true;
+		}
+		catch(CashOverloadException | DisabledException e) {
+			return false;
+		}
+		catch(RuntimeException e) {
+			Thread thread = Thread.currentThread();
+			thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+			return false;
+		}
+	}
+}
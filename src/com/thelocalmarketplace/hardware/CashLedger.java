@@ -0,0 +1,531 @@
+package com.thelocalmarketplace.hardware;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.Currency;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.UnaryOperator;
+
+import com.tdc.IComponent;
+import com.tdc.IComponentObserver;
+import com.tdc.Money;
+import com.tdc.banknote.Banknote;
+import com.tdc.banknote.BanknoteDispenserObserver;
+import com.tdc.banknote.BanknoteStorageUnit;
+import com.tdc.banknote.BanknoteStorageUnitObserver;
+import com.tdc.banknote.IBanknoteDispenser;
+import com.tdc.coin.Coin;
+import com.tdc.coin.CoinDispenserObserver;
+import com.tdc.coin.CoinStorageUnit;
+import com.tdc.coin.CoinStorageUnitObserver;
+import com.tdc.coin.ICoinDispenser;
+
+import ca.ucalgary.seng300.simulation.NullPointerSimulationException;
+import powerutility.NoPowerException;
+
+/**
+ * Keeps a running inventory of the cash in a station's dispensers and storage
+ * units, maintained from their events, so that it can be read without touching
+ * the hardware.
+ * <p>
+ * The inventory is held as an immutable {@link Snapshot} that each event
+ * replaces with a compare-and-set, so reading it takes constant time, never
+ * blocks, and always gives a consistent view of every component at once.
+ * Dispenser events carry the cash moved and are applied as changes; storage
+ * unit events do not, so on those the ledger reads the unit's counts.
+ * </p>
+ * <p>
+ * Components are named as in
+ * {@link ISelfCheckoutStation#journalTo(ca.ucalgary.seng300.simulation.EventJournal)}:
+ * "coinStorage", "banknoteStorage", and "coinDispenser" or "banknoteDispenser"
+ * followed by a space and the denomination.
+ * </p>
+ */
+public final class CashLedger {
+	/**
+	 * An immutable view of the cash in every component at one moment.
+	 */
+	public static final class Snapshot {
+		private final Map<String, Map<Money, Integer>> counts;
+		private final Map<String, BigDecimal> values;
+		private final BigDecimal total;
+		private final long version;
+
+		private Snapshot(Map<String, Map<Money, Integer>> counts, Map<String, BigDecimal> values, BigDecimal total,
+			long version) {
+			this.counts = counts;
+			this.values = values;
+			this.total = total;
+			this.version = version;
+		}
+
+		/*
+		 * Makes the snapshot that follows this one after the indicated component's
+		 * counts change.
+		 */
+		private Snapshot with(String component, Map<Money, Integer> newCounts) {
+			BigDecimal value = BigDecimal.ZERO;
+
+			for(Map.Entry<Money, Integer> entry : newCounts.entrySet())
+				value = value.add(entry.getKey().toBigDecimal().multiply(BigDecimal.valueOf(entry.getValue())));
+
+			Map<String, Map<Money, Integer>> c = new HashMap<>(counts);
+			c.put(component, Collections.unmodifiableMap(newCounts));
+			Map<String, BigDecimal> v = new HashMap<>(values);
+			BigDecimal old = v.put(component, value);
+
+			return new Snapshot(Collections.unmodifiableMap(c), Collections.unmodifiableMap(v),
+				total.subtract(old == null ? BigDecimal.ZERO : old).add(value), version + 1);
+		}
+
+		/**
+		 * Gets the number of changes applied to the ledger before this snapshot
+		 * was taken.
+		 *
+		 * @return The version; later snapshots have higher versions.
+		 */
+		public long getVersion() {
+			return version;
+		}
+
+		/**
+		 * Gets the names of the components in this snapshot.
+		 *
+		 * @return An unmodifiable set of names.
+		 */
+		public Set<String> getComponents() {
+			return counts.keySet();
+		}
+
+		/**
+		 * Gets the number of items of each denomination in the indicated
+		 * component.
+		 *
+		 * @param component
+		 *            The name of the component.
+		 * @return An unmodifiable map from denomination to count, by increasing
+		 *             denomination. Empty if the component is unknown.
+		 */
+		public Map<BigDecimal, Integer> getCounts(String component) {
+			Map<Money, Integer> map = counts.get(component);
+
+			if(map == null)
+				return Collections.emptyMap();
+
+			TreeMap<BigDecimal, Integer> result = new TreeMap<>();
+
+			for(Map.Entry<Money, Integer> entry : map.entrySet())
+				if(entry.getValue() != 0)
+					result.put(entry.getKey().toBigDecimal(), entry.getValue());
+
+			return Collections.unmodifiableMap(result);
+		}
+
+		/**
+		 * Gets the number of items of the indicated denomination in the indicated
+		 * component.
+		 *
+		 * @param component
+		 *            The name of the component.
+		 * @param denomination
+		 *            The denomination.
+		 * @return The count; 0 if the component is unknown.
+		 */
+		public int getCount(String component, BigDecimal denomination) {
+			Map<Money, Integer> map = counts.get(component);
+
+			if(map == null)
+				return 0;
+
+			for(Map.Entry<Money, Integer> entry : map.entrySet())
+				if(entry.getKey().toBigDecimal().compareTo(denomination) == 0)
+					return entry.getValue();
+
+			return 0;
+		}
+
+		/**
+		 * Gets the total value of the cash in the indicated component.
+		 *
+		 * @param component
+		 *            The name of the component.
+		 * @return The value; zero if the component is unknown.
+		 */
+		public BigDecimal getValue(String component) {
+			BigDecimal value = values.get(component);
+			return value == null ? BigDecimal.ZERO : value;
+		}
+
+		/**
+		 * Gets the total value of the cash in every component.
+		 *
+		 * @return The value.
+		 */
+		public BigDecimal getTotalValue() {
+			return total;
+		}
+
+		@Override
+		public String toString() {
+			return "v" + version + " " + new TreeMap<>(values) + " total " + total;
+		}
+	}
+
+	private final AtomicReference<Snapshot> snapshot = new AtomicReference<>(
+		new Snapshot(Collections.emptyMap(), Collections.emptyMap(), BigDecimal.ZERO, 0));
+	private final Currency currency;
+	private final Map<ICoinDispenser, CoinDispenserObserver> coinDispenserObservers = new HashMap<>();
+	private final Map<IBanknoteDispenser, BanknoteDispenserObserver> banknoteDispenserObservers = new HashMap<>();
+	private final CoinStorageUnit coinStorage;
+	private final CoinStorageUnitObserver coinStorageObserver;
+	private final BanknoteStorageUnit banknoteStorage;
+	private final BanknoteStorageUnitObserver banknoteStorageObserver;
+
+	/**
+	 * Creates a ledger for the indicated station and starts following its cash
+	 * components. Cash already in a powered component is counted. The ledger
+	 * should be created while no cash is moving.
+	 *
+	 * @param station
+	 *            The station. Cannot be null.
+	 * @throws NullPointerSimulationException
+	 *             If the station is null.
+	 */
+	public CashLedger(ISelfCheckoutStation station) {
+		this(nonNull(station).getCoinValidator().currency, station.getCoinDispensers(),
+			station.getBanknoteDispensers(), station.getCoinStorage(), station.getBanknoteStorage());
+	}
+
+	private static ISelfCheckoutStation nonNull(ISelfCheckoutStation station) {
+		if(station == null)
+			throw new NullPointerSimulationException("station");
+
+		return station;
+	}
+
+	/**
+	 * Creates a ledger for the indicated components and starts following them.
+	 * Cash already in a powered component is counted. The ledger should be
+	 * created while no cash is moving.
+	 *
+	 * @param currency
+	 *            The currency whose cash is counted in the storage units. Cannot
+	 *            be null.
+	 * @param coinDispensers
+	 *            The coin dispensers, keyed by denomination. Cannot be null.
+	 * @param banknoteDispensers
+	 *            The banknote dispensers, keyed by denomination. Cannot be null.
+	 * @param coinStorage
+	 *            The coin storage unit. Cannot be null.
+	 * @param banknoteStorage
+	 *            The banknote storage unit. Cannot be null.
+	 * @throws NullPointerSimulationException
+	 *             If any argument is null.
+	 */
+	public CashLedger(Currency currency, Map<BigDecimal, ICoinDispenser> coinDispensers,
+		Map<BigDecimal, IBanknoteDispenser> banknoteDispensers, CoinStorageUnit coinStorage,
+		BanknoteStorageUnit banknoteStorage) {
+		if(currency == null)
+			throw new NullPointerSimulationException("currency");
+
+		if(coinDispensers == null)
+			throw new NullPointerSimulationException("coinDispensers");
+
+		if(banknoteDispensers == null)
+			throw new NullPointerSimulationException("banknoteDispensers");
+
+		if(coinStorage == null)
+			throw new NullPointerSimulationException("coinStorage");
+
+		if(banknoteStorage == null)
+			throw new NullPointerSimulationException("banknoteStorage");
+
+		this.currency = currency;
+		this.coinStorage = coinStorage;
+		this.banknoteStorage = banknoteStorage;
+
+		for(Map.Entry<BigDecimal, ICoinDispenser> entry : coinDispensers.entrySet()) {
+			String name = "coinDispenser " + entry.getKey().toPlainString();
+			ICoinDispenser dispenser = entry.getValue();
+			replace(name, initialCounts(dispenser, entry.getKey()));
+			CoinDispenserObserver observer = new CoinDispenserTracker(name);
+			dispenser.attach(observer);
+			coinDispenserObservers.put(dispenser, observer);
+		}
+
+		for(Map.Entry<BigDecimal, IBanknoteDispenser> entry : banknoteDispensers.entrySet()) {
+			String name = "banknoteDispenser " + entry.getKey().toPlainString();
+			IBanknoteDispenser dispenser = entry.getValue();
+			replace(name, initialCounts(dispenser, entry.getKey()));
+			BanknoteDispenserObserver observer = new BanknoteDispenserTracker(name);
+			dispenser.attach(observer);
+			banknoteDispenserObservers.put(dispenser, observer);
+		}
+
+		coinStorageObserver = new CoinStorageTracker();
+		resyncCoinStorage();
+		coinStorage.attach(coinStorageObserver);
+
+		banknoteStorageObserver = new BanknoteStorageTracker();
+		resyncBanknoteStorage();
+		banknoteStorage.attach(banknoteStorageObserver);
+	}
+
+	/*
+	 * A dispenser's current contents are not visible without unloading it, so
+	 * they are assumed to be of its denomination.
+	 */
+	private Map<Money, Integer> initialCounts(IComponent<?> dispenser, BigDecimal denomination) {
+		Map<Money, Integer> counts = new HashMap<>();
+
+		if(dispenser.isActivated()) {
+			int size = dispenser instanceof ICoinDispenser ? ((ICoinDispenser)dispenser).size()
+				: ((IBanknoteDispenser)dispenser).size();
+
+			if(size > 0)
+				counts.put(Money.of(currency, denomination), size);
+		}
+
+		return counts;
+	}
+
+	/**
+	 * Obtains the current state of the ledger. Takes constant time and never
+	 * blocks.
+	 *
+	 * @return The current snapshot.
+	 */
+	public Snapshot getSnapshot() {
+		return snapshot.get();
+	}
+
+	/**
+	 * Stops following the components. The ledger keeps its last state.
+	 */
+	public void detach() {
+		for(Map.Entry<ICoinDispenser, CoinDispenserObserver> entry : coinDispenserObservers.entrySet())
+			entry.getKey().detach(entry.getValue());
+
+		for(Map.Entry<IBanknoteDispenser, BanknoteDispenserObserver> entry : banknoteDispenserObservers.entrySet())
+			entry.getKey().detach(entry.getValue());
+
+		coinStorage.detach(coinStorageObserver);
+		banknoteStorage.detach(banknoteStorageObserver);
+	}
+
+	/*
+	 * Applies a change to one component's counts. The change may be applied more
+	 * than once if another thread wins the race, so it must not have side
+	 * effects.
+	 */
+	private void update(String component, UnaryOperator<Map<Money, Integer>> change) {
+		Snapshot current, next;
+
+		do {
+			current = snapshot.get();
+			Map<Money, Integer> counts = current.counts.get(component);
+			next = current.with(component, change.apply(counts == null ? new HashMap<>() : new HashMap<>(counts)));
+		}
+		while(!snapshot.compareAndSet(current, next));
+	}
+
+	private void replace(String component, Map<Money, Integer> counts) {
+		update(component, old -> counts);
+	}
+
+	private void add(String component, Money[] amounts, int sign) {
+		update(component, counts -> {
+			for(Money amount : amounts)
+				counts.merge(amount, sign, Integer::sum);
+
+			return counts;
+		});
+	}
+
+	private static Money[] amounts(Coin... coins) {
+		Money[] amounts = new Money[coins.length];
+
+		for(int i = 0; i < coins.length; i++)
+			amounts[i] = coins[i].getMoney();
+
+		return amounts;
+	}
+
+	private static Money[] amounts(Banknote... banknotes) {
+		Money[] amounts = new Money[banknotes.length];
+
+		for(int i = 0; i < banknotes.length; i++)
+			amounts[i] = banknotes[i].getMoney();
+
+		return amounts;
+	}
+
+	private void resyncCoinStorage() {
+		try {
+			if(coinStorage.isActivated())
+				replace("coinStorage", toMoney(coinStorage.getCoinCounts(currency)));
+			else
+				update("coinStorage", counts -> counts);
+		}
+		catch(NoPowerException e) {
+			// Power was lost after the event; the next event will resynchronize
+		}
+	}
+
+	private void resyncBanknoteStorage() {
+		try {
+			if(banknoteStorage.isActivated())
+				replace("banknoteStorage", toMoney(banknoteStorage.getBanknoteCounts(currency)));
+			else
+				update("banknoteStorage", counts -> counts);
+		}
+		catch(NoPowerException e) {
+			// Power was lost after the event; the next event will resynchronize
+		}
+	}
+
+	private Map<Money, Integer> toMoney(Map<BigDecimal, Integer> counts) {
+		Map<Money, Integer> result = new HashMap<>();
+
+		for(Map.Entry<BigDecimal, Integer> entry : counts.entrySet())
+			result.put(Money.of(currency, entry.getKey()), entry.getValue());
+
+		return result;
+	}
+
+	private abstract static class ComponentTracker implements IComponentObserver {
+		@Override
+		public void enabled(IComponent<? extends IComponentObserver> component) {}
+
+		@Override
+		public void disabled(IComponent<? extends IComponentObserver> component) {}
+
+		@Override
+		public void turnedOn(IComponent<? extends IComponentObserver> component) {}
+
+		@Override
+		public void turnedOff(IComponent<? extends IComponentObserver> component) {}
+	}
+
+	private class CoinDispenserTracker extends ComponentTracker implements CoinDispenserObserver {
+		private final String name;
+
+		CoinDispenserTracker(String name) {
+			this.name = name;
+		}
+
+		@Override
+		public void coinsFull(ICoinDispenser dispenser) {}
+
+		@Override
+		public void coinsEmpty(ICoinDispenser dispenser) {}
+
+		@Override
+		public void coinAdded(ICoinDispenser dispenser, Coin coin) {
+			add(name, amounts(coin), 1);
+		}
+
+		@Override
+		public void coinRemoved(ICoinDispenser dispenser, Coin coin) {
+			add(name, amounts(coin), -1);
+		}
+
+		@Override
+		public void coinsRemoved(ICoinDispenser dispenser, Coin... coins) {
+			add(name, amounts(coins), -1);
+		}
+
+		@Override
+		public void coinsLoaded(ICoinDispenser dispenser, Coin... coins) {
+			add(name, amounts(coins), 1);
+		}
+
+		@Override
+		public void coinsUnloaded(ICoinDispenser dispenser, Coin... coins) {
+			add(name, amounts(coins), -1);
+		}
+	}
+
+	private class BanknoteDispenserTracker extends ComponentTracker implements BanknoteDispenserObserver {
+		private final String name;
+
+		BanknoteDispenserTracker(String name) {
+			this.name = name;
+		}
+
+		@Override
+		public void moneyFull(IBanknoteDispenser dispenser) {}
+
+		@Override
+		public void banknotesEmpty(IBanknoteDispenser dispenser) {}
+
+		@Override
+		public void banknoteAdded(IBanknoteDispenser dispenser, Banknote banknote) {
+			add(name, amounts(banknote), 1);
+		}
+
+		@Override
+		public void banknoteRemoved(IBanknoteDispenser dispenser, Banknote banknote) {
+			add(name, amounts(banknote), -1);
+		}
+
+		@Override
+		public void banknotesRemoved(IBanknoteDispenser dispenser, Banknote... banknotes) {
+			add(name, amounts(banknotes), -1);
+		}
+
+		@Override
+		public void banknotesLoaded(IBanknoteDispenser dispenser, Banknote... banknotes) {
+			add(name, amounts(banknotes), 1);
+		}
+
+		@Override
+		public void banknotesUnloaded(IBanknoteDispenser dispenser, Banknote... banknotes) {
+			add(name, amounts(banknotes), -1);
+		}
+	}
+
+	private class CoinStorageTracker extends ComponentTracker implements CoinStorageUnitObserver {
+		@Override
+		public void coinsFull(CoinStorageUnit unit) {}
+
+		@Override
+		public void coinAdded(CoinStorageUnit unit) {
+			resyncCoinStorage();
+		}
+
+		@Override
+		public void coinsLoaded(CoinStorageUnit unit) {
+			resyncCoinStorage();
+		}
+
+		@Override
+		public void coinsUnloaded(CoinStorageUnit unit) {
+			resyncCoinStorage();
+		}
+	}
+
+	private class BanknoteStorageTracker extends ComponentTracker implements BanknoteStorageUnitObserver {
+		@Override
+		public void banknotesFull(BanknoteStorageUnit unit) {}
+
+		@Override
+		public void banknoteAdded(BanknoteStorageUnit unit) {
+			resyncBanknoteStorage();
+		}
+
+		@Override
+		public void banknotesLoaded(BanknoteStorageUnit unit) {
+			resyncBanknoteStorage();
+		}
+
+		@Override
+		public void banknotesUnloaded(BanknoteStorageUnit unit) {
+			resyncBanknoteStorage();
+		}
+	}
+}
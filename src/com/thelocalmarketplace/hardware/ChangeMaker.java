@@ -0,0 +1,820 @@
+package com.thelocalmarketplace.hardware;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.tdc.CashOverloadException;
+import com.tdc.DisabledException;
+import com.tdc.IComponent;
+import com.tdc.IComponentObserver;
+import com.tdc.NoCashAvailableException;
+import com.tdc.banknote.Banknote;
+import com.tdc.banknote.BanknoteDispensationSlot;
+import com.tdc.banknote.BanknoteDispensationSlotObserver;
+import com.tdc.banknote.IBanknoteDispenser;
+import com.tdc.coin.Coin;
+import com.tdc.coin.ICoinDispenser;
+
+import ca.ucalgary.seng300.simulation.InvalidArgumentSimulationException;
+import ca.ucalgary.seng300.simulation.InvalidStateSimulationException;
+import ca.ucalgary.seng300.simulation.NullPointerSimulationException;
+
+/**
+ * Works out how to pay a given amount of change from a station's coin and
+ * banknote dispensers using as few coins and banknotes as possible, and pays it
+ * out.
+ * <p>
+ * Plans are exact for any set of denominations, not only those for which
+ * always taking the largest denomination works, and respect the number of coins
+ * and banknotes actually in each dispenser. The unlimited-supply solution for
+ * each set of denominations is computed once and shared by every change maker
+ * with the same denominations; it is used whenever the dispensers hold enough,
+ * and otherwise a solution bounded by their current contents is computed.
+ * </p>
+ * <p>
+ * Change is paid out as a {@link Payout}, which reserves the coins and
+ * banknotes it needs so that other payouts from the same change maker plan
+ * around them, and which passes banknotes through the dispensation slot in
+ * waves no larger than the slot can hold. A wave that fails is rolled back:
+ * the cash it had moved is returned to its dispensers before the customer can
+ * reach it.
+ * </p>
+ */
+public class ChangeMaker {
+	/*
+	 * Unlimited-supply tables, shared by all change makers with the same
+	 * denominations (in units of the smallest scale).
+	 */
+	private static final Map<List<Long>, Table> tables = new ConcurrentHashMap<>();
+
+	private final BanknoteDispensationSlot banknoteOutput;
+	private final CoinTray coinTray;
+	private final int[] reserved;
+	private final BigDecimal[] denominations;
+	private final Object[] dispensers;
+	private final long[] units;
+	private final int scale;
+	private final Table table;
+
+	/**
+	 * Creates a change maker for the indicated station.
+	 *
+	 * @param station
+	 *            The station whose dispensers will pay out change. Cannot be null.
+	 * @throws NullPointerSimulationException
+	 *             If the station is null.
+	 */
+	public ChangeMaker(ISelfCheckoutStation station) {
+		this(nonNull(station).getCoinDispensers(), station.getBanknoteDispensers(), station.getBanknoteOutput(),
+			station.getCoinTray());
+	}
+
+	private static ISelfCheckoutStation nonNull(ISelfCheckoutStation station) {
+		if(station == null)
+			throw new NullPointerSimulationException("station");
+
+		return station;
+	}
+
+	/**
+	 * Creates a change maker for the indicated dispensers.
+	 *
+	 * @param coinDispensers
+	 *            The coin dispensers, keyed by denomination. Cannot be null.
+	 * @param banknoteDispensers
+	 *            The banknote dispensers, keyed by denomination. Cannot be null.
+	 * @param banknoteOutput
+	 *            The slot into which the banknote dispensers emit. Cannot be null.
+	 * @throws NullPointerSimulationException
+	 *             If any argument is null.
+	 * @throws InvalidArgumentSimulationException
+	 *             If any denomination is not positive.
+	 */
+	public ChangeMaker(Map<BigDecimal, ICoinDispenser> coinDispensers,
+		Map<BigDecimal, IBanknoteDispenser> banknoteDispensers, BanknoteDispensationSlot banknoteOutput) {
+		this(coinDispensers, banknoteDispensers, banknoteOutput, null);
+	}
+
+	/**
+	 * Creates a change maker for the indicated dispensers, which can take coins
+	 * back from the indicated coin tray when a payout fails.
+	 *
+	 * @param coinDispensers
+	 *            The coin dispensers, keyed by denomination. Cannot be null.
+	 * @param banknoteDispensers
+	 *            The banknote dispensers, keyed by denomination. Cannot be null.
+	 * @param banknoteOutput
+	 *            The slot into which the banknote dispensers emit. Cannot be null.
+	 * @param coinTray
+	 *            The tray into which the coin dispensers emit. May be null, in
+	 *            which case coins emitted by a failed payout stay in the tray.
+	 * @throws NullPointerSimulationException
+	 *             If any argument other than the coin tray is null.
+	 * @throws InvalidArgumentSimulationException
+	 *             If any denomination is not positive.
+	 */
+	public ChangeMaker(Map<BigDecimal, ICoinDispenser> coinDispensers,
+		Map<BigDecimal, IBanknoteDispenser> banknoteDispensers, BanknoteDispensationSlot banknoteOutput,
+		CoinTray coinTray) {
+		if(coinDispensers == null)
+			throw new NullPointerSimulationException("coinDispensers");
+
+		if(banknoteDispensers == null)
+			throw new NullPointerSimulationException("banknoteDispensers");
+
+		if(banknoteOutput == null)
+			throw new NullPointerSimulationException("banknoteOutput");
+
+		this.banknoteOutput = banknoteOutput;
+		this.coinTray = coinTray;
+
+		List<Map.Entry<BigDecimal, ?>> entries = new ArrayList<>();
+		entries.addAll(banknoteDispensers.entrySet());
+		entries.addAll(coinDispensers.entrySet());
+		entries.sort((a, b) -> b.getKey().compareTo(a.getKey()));
+
+		int n = entries.size();
+		denominations = new BigDecimal[n];
+		dispensers = new Object[n];
+		int s = 0;
+
+		for(int i = 0; i < n; i++) {
+			denominations[i] = entries.get(i).getKey();
+			dispensers[i] = entries.get(i).getValue();
+
+			if(denominations[i].signum() <= 0)
+				throw new InvalidArgumentSimulationException("Denominations must be positive.");
+
+			s = Math.max(s, denominations[i].stripTrailingZeros().scale());
+		}
+
+		scale = s;
+		reserved = new int[n];
+		units = new long[n];
+		List<Long> key = new ArrayList<>();
+
+		for(int i = 0; i < n; i++) {
+			units[i] = denominations[i].movePointRight(scale).longValueExact();
+			key.add(units[i]);
+		}
+
+		table = tables.computeIfAbsent(key, k -> new Table(units.clone()));
+	}
+
+	/**
+	 * Works out the fewest coins and banknotes that make up the indicated amount
+	 * from the current contents of the dispensers, less those reserved by
+	 * payouts in progress. Requires power.
+	 *
+	 * @param amount
+	 *            The amount of change. Cannot be null or negative.
+	 * @return The plan, or null if the amount cannot be paid exactly.
+	 * @throws NullPointerSimulationException
+	 *             If the amount is null.
+	 * @throws InvalidArgumentSimulationException
+	 *             If the amount is negative.
+	 */
+	public Plan plan(BigDecimal amount) {
+		if(amount == null)
+			throw new NullPointerSimulationException("amount");
+
+		if(amount.signum() < 0)
+			throw new InvalidArgumentSimulationException("The amount cannot be negative.");
+
+		if(amount.stripTrailingZeros().scale() > scale)
+			return null;
+
+		long target = amount.movePointRight(scale).longValueExact();
+		int[] available = available();
+		long total = 0;
+
+		for(int i = 0; i < units.length; i++)
+			total += available[i] * units[i];
+
+		if(target > total || target >= Integer.MAX_VALUE)
+			return null;
+
+		int[] counts = table.solve((int)target);
+
+		if(counts == null)
+			return null;
+
+		for(int i = 0; i < units.length; i++)
+			if(counts[i] > available[i]) {
+				counts = solveBounded((int)target, available);
+				break;
+			}
+
+		return counts == null ? null : toPlan(counts);
+	}
+
+	/**
+	 * Works out how to pay the indicated amount, as with {@link #plan(BigDecimal)},
+	 * and pays it out, as with {@link #pay(BigDecimal)}. Requires power.
+	 *
+	 * @param amount
+	 *            The amount of change. Cannot be null or negative.
+	 * @return The plan being paid out.
+	 * @throws NoCashAvailableException
+	 *             If the amount cannot be paid exactly. Nothing is emitted.
+	 * @throws DisabledException
+	 *             If a dispenser that is needed is disabled. Nothing is paid.
+	 * @throws CashOverloadException
+	 *             If the banknote slot or coin tray overflows. Nothing is paid.
+	 */
+	public Plan dispense(BigDecimal amount) throws NoCashAvailableException, DisabledException, CashOverloadException {
+		return pay(amount).getPlan();
+	}
+
+	/**
+	 * Reserves the coins and banknotes needed to pay the indicated amount and
+	 * pays out the first wave: as many of the banknotes as the dispensation slot
+	 * can hold, dispensed together, and all of the coins. Each further wave of
+	 * banknotes is dispensed when the customer removes the previous one; a
+	 * failure then cancels the payout and is reported by
+	 * {@link Payout#getFailure()}. Requires power.
+	 *
+	 * @param amount
+	 *            The amount of change. Cannot be null or negative.
+	 * @return The payout.
+	 * @throws NoCashAvailableException
+	 *             If the amount cannot be paid exactly. Nothing is emitted.
+	 * @throws DisabledException
+	 *             If a dispenser that is needed is disabled. Nothing is paid.
+	 * @throws CashOverloadException
+	 *             If the banknote slot or coin tray overflows. Nothing is paid.
+	 */
+	public Payout pay(BigDecimal amount) throws NoCashAvailableException, DisabledException, CashOverloadException {
+		Payout payout = begin(amount);
+
+		try {
+			payout.dispenseWave();
+
+			if(!payout.isComplete())
+				payout.stream();
+		}
+		catch(Exception e) {
+			payout.cancel();
+			throw e;
+		}
+
+		return payout;
+	}
+
+	/**
+	 * Reserves the coins and banknotes needed to pay the indicated amount,
+	 * without moving any of them. The caller then pays them out with
+	 * {@link Payout#dispenseWave()}, or releases them with
+	 * {@link Payout#cancel()}. Requires power.
+	 *
+	 * @param amount
+	 *            The amount of change. Cannot be null or negative.
+	 * @return The payout.
+	 * @throws NoCashAvailableException
+	 *             If the amount cannot be paid exactly from the coins and
+	 *             banknotes not already reserved.
+	 */
+	public synchronized Payout begin(BigDecimal amount) throws NoCashAvailableException {
+		Plan plan = plan(amount);
+
+		if(plan == null)
+			throw new NoCashAvailableException();
+
+		for(int i = 0; i < units.length; i++)
+			reserved[i] += plan.counts[i];
+
+		return new Payout(plan);
+	}
+
+	private synchronized int[] available() {
+		int[] available = new int[units.length];
+
+		for(int i = 0; i < units.length; i++)
+			available[i] = Math.max(0, size(i) - reserved[i]);
+
+		return available;
+	}
+
+	private synchronized void release(int[] counts) {
+		for(int i = 0; i < units.length; i++)
+			reserved[i] -= counts[i];
+	}
+
+	private int size(int i) {
+		if(dispensers[i] instanceof ICoinDispenser)
+			return ((ICoinDispenser)dispensers[i]).size();
+
+		return ((IBanknoteDispenser)dispensers[i]).size();
+	}
+
+	/*
+	 * Bounded minimum-count change: each denomination is split into items of
+	 * 1, 2, 4, ... units so that a 0/1 knapsack over the items covers every
+	 * count up to the number available.
+	 */
+	private int[] solveBounded(int target, int[] available) {
+		List<int[]> items = new ArrayList<>(); // {denomination index, count}
+
+		for(int i = 0; i < units.length; i++) {
+			long usable = Math.min(available[i], target / units[i]);
+
+			for(int k = 1; usable > 0; k <<= 1) {
+				int c = (int)Math.min(k, usable);
+				items.add(new int[] { i, c });
+				usable -= c;
+			}
+		}
+
+		int[] best = new int[target + 1];
+		Arrays.fill(best, Integer.MAX_VALUE);
+		best[0] = 0;
+		BitSet[] taken = new BitSet[items.size()];
+
+		for(int t = 0; t < items.size(); t++) {
+			int[] item = items.get(t);
+			int weight = (int)(units[item[0]] * item[1]);
+			taken[t] = new BitSet(target + 1);
+
+			for(int v = target; v >= weight; v--)
+				if(best[v - weight] != Integer.MAX_VALUE && best[v - weight] + item[1] < best[v]) {
+					best[v] = best[v - weight] + item[1];
+					taken[t].set(v);
+				}
+		}
+
+		if(best[target] == Integer.MAX_VALUE)
+			return null;
+
+		int[] counts = new int[units.length];
+		int v = target;
+
+		for(int t = items.size() - 1; t >= 0; t--)
+			if(taken[t].get(v)) {
+				int[] item = items.get(t);
+				counts[item[0]] += item[1];
+				v -= units[item[0]] * item[1];
+			}
+
+		return counts;
+	}
+
+	private Plan toPlan(int[] counts) {
+		Map<BigDecimal, Integer> coins = new LinkedHashMap<>();
+		Map<BigDecimal, Integer> banknotes = new LinkedHashMap<>();
+		BigDecimal total = BigDecimal.ZERO;
+		int count = 0;
+
+		for(int i = 0; i < counts.length; i++)
+			if(counts[i] > 0) {
+				if(dispensers[i] instanceof ICoinDispenser)
+					coins.merge(denominations[i], counts[i], Integer::sum);
+				else
+					banknotes.merge(denominations[i], counts[i], Integer::sum);
+
+				total = total.add(denominations[i].multiply(BigDecimal.valueOf(counts[i])));
+				count += counts[i];
+			}
+
+		return new Plan(counts, Collections.unmodifiableMap(coins), Collections.unmodifiableMap(banknotes), total,
+			count);
+	}
+
+	/*
+	 * Minimum-count change with an unlimited supply of each denomination, grown
+	 * on demand to cover the largest amount requested so far, but never beyond a
+	 * limit set by the denominations. A fewest-count solution holds fewer than
+	 * L / gcd(L, d) units of each smaller denomination d, where L is the largest,
+	 * since that many could be swapped for fewer units of L. Every amount at or
+	 * above the limit therefore takes at least one unit of L, so larger amounts
+	 * are brought under the limit by taking units of L first.
+	 */
+	private static final class Table {
+		private final long[] units;
+		private final long limit;
+		private int[] best = { 0 };
+		private int[] choice = { -1 };
+
+		Table(long[] units) {
+			this.units = units;
+
+			long rest = 0;
+
+			for(int i = 1; i < units.length; i++)
+				rest += (units[0] / gcd(units[0], units[i]) - 1) * units[i];
+
+			limit = units.length == 0 ? 1 : rest + units[0];
+		}
+
+		private static long gcd(long a, long b) {
+			return b == 0 ? a : gcd(b, a % b);
+		}
+
+		synchronized int[] solve(int target) {
+			int largest = 0;
+
+			if(target >= limit) {
+				largest = (int)((target - limit) / units[0] + 1);
+				target -= largest * units[0];
+			}
+
+			if(target >= best.length)
+				grow((int)Math.min(limit, Math.max(target + 1, best.length + 1024)));
+
+			if(best[target] == Integer.MAX_VALUE)
+				return null;
+
+			int[] counts = new int[units.length];
+
+			for(int v = target; v > 0; v -= units[choice[v]])
+				counts[choice[v]]++;
+
+			if(largest > 0)
+				counts[0] += largest;
+
+			return counts;
+		}
+
+		private void grow(int length) {
+			int from = best.length;
+			best = Arrays.copyOf(best, length);
+			choice = Arrays.copyOf(choice, length);
+
+			for(int v = from; v < length; v++) {
+				best[v] = Integer.MAX_VALUE;
+				choice[v] = -1;
+
+				for(int i = 0; i < units.length; i++)
+					if(units[i] <= v && best[v - (int)units[i]] != Integer.MAX_VALUE
+						&& best[v - (int)units[i]] + 1 < best[v]) {
+						best[v] = best[v - (int)units[i]] + 1;
+						choice[v] = i;
+					}
+			}
+		}
+	}
+
+	/**
+	 * The payment of one amount of change, whose coins and banknotes are reserved
+	 * until they are paid or the payout is cancelled.
+	 * <p>
+	 * Each wave is all or nothing. Its banknotes are accumulated in the
+	 * dispensation slot and its coins are emitted into the coin tray before the
+	 * banknotes are dispensed; if any step fails, the banknotes are taken back
+	 * from the slot, the coins it emitted are taken back from the tray (when the
+	 * change maker knows the tray), leaving any other coins there, both are
+	 * loaded back into their dispensers, and the payout is cancelled. Waves
+	 * already dispensed stay with the customer.
+	 * </p>
+	 */
+	public final class Payout {
+		private final Plan plan;
+		private final int[] remaining;
+		private boolean coinsPaid = false;
+		private boolean cancelled = false;
+		private int waves = 0;
+		private volatile Exception failure;
+		private Streamer streamer;
+
+		private Payout(Plan plan) {
+			this.plan = plan;
+			remaining = plan.counts.clone();
+		}
+
+		/**
+		 * Gets the plan being paid out.
+		 *
+		 * @return The plan.
+		 */
+		public Plan getPlan() {
+			return plan;
+		}
+
+		/**
+		 * Determines whether every coin and banknote in the plan has been paid.
+		 *
+		 * @return true if the payout is complete; otherwise, false.
+		 */
+		public synchronized boolean isComplete() {
+			return getRemainingCount() == 0;
+		}
+
+		/**
+		 * Determines whether the payout was cancelled, whether by
+		 * {@link #cancel()} or by a failure.
+		 *
+		 * @return true if the payout was cancelled; otherwise, false.
+		 */
+		public synchronized boolean isCancelled() {
+			return cancelled;
+		}
+
+		/**
+		 * Counts the coins and banknotes in the plan that have not been paid.
+		 *
+		 * @return The count.
+		 */
+		public synchronized int getRemainingCount() {
+			int count = 0;
+
+			for(int c : remaining)
+				count += c;
+
+			return count;
+		}
+
+		/**
+		 * Counts the waves paid so far.
+		 *
+		 * @return The number of waves.
+		 */
+		public synchronized int getWaveCount() {
+			return waves;
+		}
+
+		/**
+		 * Gets the failure that cancelled a wave dispensed when the customer
+		 * removed the previous one.
+		 *
+		 * @return The failure, or null if there has been none.
+		 */
+		public Exception getFailure() {
+			return failure;
+		}
+
+		/**
+		 * Pays the next wave: as many of the remaining banknotes as the
+		 * dispensation slot can hold, largest first, dispensed together, and, in
+		 * the first wave, all of the coins. Requires power.
+		 *
+		 * @throws InvalidStateSimulationException
+		 *             If the payout is complete or cancelled.
+		 * @throws NoCashAvailableException
+		 *             If a dispenser no longer holds its reserved cash. The wave
+		 *             is rolled back and the payout cancelled.
+		 * @throws DisabledException
+		 *             If a dispenser that is needed is disabled. The wave is
+		 *             rolled back and the payout cancelled.
+		 * @throws CashOverloadException
+		 *             If banknotes are still dangling from the slot, or if the coin
+		 *             tray overflows. The wave is rolled back and the payout
+		 *             cancelled.
+		 */
+		public synchronized void dispenseWave()
+			throws NoCashAvailableException, DisabledException, CashOverloadException {
+			if(cancelled)
+				throw new InvalidStateSimulationException("The payout has been cancelled.");
+
+			if(isComplete())
+				throw new InvalidStateSimulationException("The payout is complete.");
+
+			int room = 0;
+
+			for(int i = 0; i < units.length; i++)
+				if(dispensers[i] instanceof IBanknoteDispenser)
+					room += remaining[i];
+
+			int banknotes = Math.min(room, banknoteOutput.getCapacity());
+			int[] wave = new int[units.length];
+			int coins = 0;
+			room = banknotes;
+
+			for(int i = 0; i < units.length; i++)
+				if(dispensers[i] instanceof IBanknoteDispenser) {
+					wave[i] = Math.min(remaining[i], room);
+					room -= wave[i];
+				}
+				else if(!coinsPaid) {
+					wave[i] = remaining[i];
+					coins += wave[i];
+				}
+
+			List<Integer> emittedBanknotes = new ArrayList<>();
+			Map<Integer, List<Coin>> emittedCoins = new LinkedHashMap<>();
+
+			try {
+				if(banknotes > 0 && !banknoteOutput.hasSpace(banknotes))
+					throw new CashOverloadException("The banknote slot cannot take the next wave.");
+
+				if(coins > 0 && coinTray != null && !coinTray.hasSpace(coins))
+					throw new CashOverloadException("The coin tray cannot take " + coins + " coins.");
+
+				for(int i = 0; i < units.length; i++)
+					if(wave[i] > 0 && dispensers[i] instanceof IBanknoteDispenser) {
+						((IBanknoteDispenser)dispensers[i]).emit(wave[i]);
+						emittedBanknotes.add(i);
+					}
+
+				for(int i = 0; i < units.length; i++)
+					if(wave[i] > 0 && dispensers[i] instanceof ICoinDispenser)
+						emittedCoins.put(i, ((ICoinDispenser)dispensers[i]).emit(wave[i]));
+
+				if(banknotes > 0)
+					banknoteOutput.dispense();
+			}
+			catch(Exception e) {
+				rollback(wave, emittedBanknotes, emittedCoins, e);
+				cancel();
+				throw e;
+			}
+
+			for(int i = 0; i < units.length; i++)
+				remaining[i] -= wave[i];
+
+			release(wave);
+			coinsPaid = true;
+			waves++;
+
+			if(isComplete())
+				stopStreaming();
+		}
+
+		/**
+		 * Cancels the rest of the payout, releasing the coins and banknotes not
+		 * yet paid. Does nothing if the payout is complete or already cancelled.
+		 */
+		public synchronized void cancel() {
+			if(cancelled || isComplete())
+				return;
+
+			cancelled = true;
+			release(remaining);
+			stopStreaming();
+		}
+
+		/*
+		 * Returns the cash emitted in a failed wave to its dispensers, in the order
+		 * in which it was emitted. Failures while doing so are attached to the
+		 * original failure.
+		 */
+		private void rollback(int[] wave, List<Integer> emittedBanknotes, Map<Integer, List<Coin>> emittedCoins,
+			Exception failure) {
+			int banknotes = 0;
+
+			for(int i : emittedBanknotes)
+				banknotes += wave[i];
+
+			try {
+				if(banknotes > 0) {
+					List<Banknote> back = banknoteOutput.retract(banknotes);
+					int next = 0;
+
+					for(int i : emittedBanknotes)
+						if(dispensers[i] instanceof IBanknoteDispenser) {
+							List<Banknote> part = back.subList(next, next + wave[i]);
+							((IBanknoteDispenser)dispensers[i]).load(part.toArray(new Banknote[part.size()]));
+							next += wave[i];
+						}
+				}
+			}
+			catch(Exception e) {
+				failure.addSuppressed(e);
+			}
+
+			try {
+				if(!emittedCoins.isEmpty()) {
+					if(coinTray == null)
+						throw new InvalidStateSimulationException("The coins cannot be taken back from the tray.");
+
+					List<Coin> back = new ArrayList<>();
+
+					for(List<Coin> part : emittedCoins.values())
+						back.addAll(part);
+
+					if(!coinTray.retract(back))
+						throw new InvalidStateSimulationException("The coins have left the tray.");
+
+					for(Map.Entry<Integer, List<Coin>> part : emittedCoins.entrySet())
+						((ICoinDispenser)dispensers[part.getKey()]).load(part.getValue().toArray(new Coin[0]));
+				}
+			}
+			catch(Exception e) {
+				failure.addSuppressed(e);
+			}
+		}
+
+		private synchronized void stream() {
+			if(streamer == null && !cancelled && !isComplete()) {
+				streamer = new Streamer();
+				banknoteOutput.attach(streamer);
+			}
+		}
+
+		private void stopStreaming() {
+			if(streamer != null) {
+				banknoteOutput.detach(streamer);
+				streamer = null;
+			}
+		}
+
+		/*
+		 * Dispenses the next wave whenever the customer removes the previous one.
+		 */
+		private final class Streamer implements BanknoteDispensationSlotObserver {
+			@Override
+			public void banknotesRemoved(BanknoteDispensationSlot slot) {
+				synchronized(Payout.this) {
+					if(cancelled || isComplete())
+						return;
+
+					try {
+						dispenseWave();
+					}
+					catch(Exception e) {
+						failure = e;
+						cancel();
+					}
+				}
+			}
+
+			@Override
+			public void banknoteDispensed(BanknoteDispensationSlot slot, List<Banknote> banknotes) {}
+
+			@Override
+			public void enabled(IComponent<? extends IComponentObserver> component) {}
+
+			@Override
+			public void disabled(IComponent<? extends IComponentObserver> component) {}
+
+			@Override
+			public void turnedOn(IComponent<? extends IComponentObserver> component) {}
+
+			@Override
+			public void turnedOff(IComponent<? extends IComponentObserver> component) {}
+		}
+
+		@Override
+		public String toString() {
+			return plan + ", " + getRemainingCount() + " remaining" + (cancelled ? ", cancelled" : "");
+		}
+	}
+
+	/**
+	 * The coins and banknotes that make up an amount of change.
+	 */
+	public static final class Plan {
+		private final int[] counts;
+		private final Map<BigDecimal, Integer> coins;
+		private final Map<BigDecimal, Integer> banknotes;
+		private final BigDecimal total;
+		private final int count;
+
+		private Plan(int[] counts, Map<BigDecimal, Integer> coins, Map<BigDecimal, Integer> banknotes,
+			BigDecimal total, int count) {
+			this.counts = counts;
+			this.coins = coins;
+			this.banknotes = banknotes;
+			this.total = total;
+			this.count = count;
+		}
+
+		/**
+		 * Gets the number of coins of each denomination in this plan.
+		 *
+		 * @return An unmodifiable map from denomination to count, largest
+		 *             denomination first. Denominations not used are absent.
+		 */
+		public Map<BigDecimal, Integer> getCoins() {
+			return coins;
+		}
+
+		/**
+		 * Gets the number of banknotes of each denomination in this plan.
+		 *
+		 * @return An unmodifiable map from denomination to count, largest
+		 *             denomination first. Denominations not used are absent.
+		 */
+		public Map<BigDecimal, Integer> getBanknotes() {
+			return banknotes;
+		}
+
+		/**
+		 * Gets the value of this plan.
+		 *
+		 * @return The total of the coins and banknotes.
+		 */
+		public BigDecimal getTotal() {
+			return total;
+		}
+
+		/**
+		 * Gets the number of coins and banknotes in this plan.
+		 *
+		 * @return The count.
+		 */
+		public int getCount() {
+			return count;
+		}
+
+		@Override
+		public String toString() {
+			return "banknotes " + banknotes + ", coins " + coins;
+		}
+	}
+}
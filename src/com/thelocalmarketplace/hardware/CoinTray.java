@@ -1,6 +1,7 @@
 package com.thelocalmarketplace.hardware;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import com.tdc.AbstractComponent;
@@ -76,16 +77,67 @@ public class CoinTray extends AbstractComponent<IComponentObserver> implements S
 			}
 		}
 
+		nextIndex = 0;
 		return result;
 	}
 
+	/**
+	 * Takes back the indicated coins, so that the user does not collect them, as
+	 * when a payout is abandoned before the user can reach the tray. Other coins
+	 * in the tray stay where they are. Either all of the coins are taken back or
+	 * none is. Causes no events.
+	 * 
+	 * @param toRetract
+	 *            The coins to take back, which must be the very coins that were
+	 *            added. Cannot be null.
+	 * @return true if the coins were taken back; false if any of them is no
+	 *             longer in the tray, in which case none is taken.
+	 * @throws SimulationException
+	 *             If the list is null.
+	 */
+	@Override
+	public synchronized boolean retract(List<Coin> toRetract) {
+		if(toRetract == null)
+			throw new NullPointerSimulationException("toRetract");
+
+		Coin[] kept = coins.clone();
+
+		for(Coin coin : toRetract) {
+			int i = 0;
+
+			while(i < nextIndex && kept[i] != coin)
+				i++;
+
+			if(i == nextIndex)
+				return false;
+
+			kept[i] = null;
+		}
+
+		int count = 0;
+
+		for(int i = 0; i < nextIndex; i++)
+			if(kept[i] != null)
+				kept[count++] = kept[i];
+
+		Arrays.fill(kept, count, coins.length, null);
+		coins = kept;
+		nextIndex = count;
+		return true;
+	}
+
 	/**
 	 * Returns whether this coin receptacle has enough space to accept at least one
-	 * more coin: always true. Causes no events.
+	 * more coin. Causes no events.
 	 */
 	@Override
 	public synchronized boolean hasSpace() {
-		return true;
+		return nextIndex < coins.length;
+	}
+
+	@Override
+	public synchronized boolean hasSpace(int count) {
+		return nextIndex + count <= coins.length;
 	}
 
 	@Override
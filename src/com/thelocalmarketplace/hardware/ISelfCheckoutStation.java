@@ -10,16 +10,21 @@ import com.jjjwelectronics.printer.IReceiptPrinter;
 import com.jjjwelectronics.scale.IElectronicScale;
 import com.jjjwelectronics.scanner.IBarcodeScanner;
 import com.jjjwelectronics.screen.ITouchScreen;
+import com.tdc.CashOverloadException;
+import com.tdc.banknote.Banknote;
 import com.tdc.banknote.BanknoteDispensationSlot;
 import com.tdc.banknote.BanknoteInsertionSlot;
 import com.tdc.banknote.BanknoteStorageUnit;
 import com.tdc.banknote.BanknoteValidator;
 import com.tdc.banknote.IBanknoteDispenser;
+import com.tdc.coin.Coin;
 import com.tdc.coin.CoinSlot;
 import com.tdc.coin.CoinStorageUnit;
 import com.tdc.coin.CoinValidator;
 import com.tdc.coin.ICoinDispenser;
 
+import ca.ucalgary.seng300.simulation.EventDispatcher;
+import ca.ucalgary.seng300.simulation.EventJournal;
 import powerutility.PowerGrid;
 
 /**
@@ -201,6 +206,71 @@ public interface ISelfCheckoutStation {
 	 */
 	public void turnOff();
 
+	/**
+	 * Sets the dispatcher through which all the devices in the station deliver
+	 * their events.
+	 * 
+	 * @param dispatcher
+	 *            The dispatcher to use, or null to deliver events synchronously.
+	 */
+	public void setEventDispatcher(EventDispatcher dispatcher);
+
+	/**
+	 * Records every movement of cash into and out of the station's storage units
+	 * and dispensers in the indicated journal. The coin storage unit is recorded
+	 * as "coinStorage", the banknote storage unit as "banknoteStorage", and each
+	 * dispenser as "coinDispenser" or "banknoteDispenser" followed by a space and
+	 * its denomination.
+	 * 
+	 * @param journal
+	 *            The journal to record in, or null to stop recording.
+	 */
+	public void journalTo(EventJournal journal);
+
+	/**
+	 * Loads the station's storage units and dispensers with the contents recorded
+	 * in the indicated journal, e.g., after a crash. The components should be
+	 * empty. Restoring is not itself recorded, since the journal already
+	 * describes the contents; the same journal can then be passed to
+	 * {@link #journalTo(EventJournal)} to continue recording. Requires power.
+	 * 
+	 * @param journal
+	 *            The journal to restore from. Cannot be null.
+	 * @throws CashOverloadException
+	 *             If the recorded contents do not fit in a component.
+	 */
+	public void restoreFrom(EventJournal journal) throws CashOverloadException;
+
+	/**
+	 * Waits until no cash is in flight in the station's asynchronous channels
+	 * (see {@link AbstractSelfCheckoutStation#configureAsynchronousChannels(int)}).
+	 * Returns immediately if the station's channels are synchronous.
+	 * 
+	 * @param timeoutMillis
+	 *            The longest time to wait, in milliseconds.
+	 * @return true if all the cash in flight was delivered or jammed; false if
+	 *             the time ran out.
+	 * @throws InterruptedException
+	 *             If interrupted while waiting.
+	 */
+	public boolean awaitCashInFlight(long timeoutMillis) throws InterruptedException;
+
+	/**
+	 * Removes the coins that jammed in the station's asynchronous channels because
+	 * no component could accept them.
+	 * 
+	 * @return The jammed coins. May be empty.
+	 */
+	public List<Coin> clearJammedCoins();
+
+	/**
+	 * Removes the banknotes that jammed in the station's asynchronous channels
+	 * because no component could accept them.
+	 * 
+	 * @return The jammed banknotes. May be empty.
+	 */
+	public List<Banknote> clearJammedBanknotes();
+
 	/**
 	 * Determines whether this station is supervised by an attendant station.
 	 * 
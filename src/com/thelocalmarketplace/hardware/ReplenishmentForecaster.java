@@ -0,0 +1,575 @@
+package com.thelocalmarketplace.hardware;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.LongSupplier;
+
+import com.tdc.IComponent;
+import com.tdc.IComponentObserver;
+import com.tdc.banknote.Banknote;
+import com.tdc.banknote.BanknoteDispenserObserver;
+import com.tdc.banknote.IBanknoteDispenser;
+import com.tdc.coin.Coin;
+import com.tdc.coin.CoinDispenserObserver;
+import com.tdc.coin.ICoinDispenser;
+
+import ca.ucalgary.seng300.simulation.InvalidArgumentSimulationException;
+import ca.ucalgary.seng300.simulation.NullPointerSimulationException;
+
+/**
+ * Forecasts when the dispensers of a fleet of self-checkout stations will run
+ * empty or fill up, so that an attendant can refill or empty them before a
+ * customer is affected, and proposes a plan for doing so.
+ * <p>
+ * The forecaster follows the events of each dispenser watched. Cash paid out
+ * and cash taken in are each measured as an exponentially weighted rate, in
+ * which an item counts for half as much after each half-life has passed;
+ * loading and unloading by an attendant change the level but not the rates.
+ * Each event does a constant amount of work on the state of its own dispenser
+ * only, so events from many stations do not contend with one another.
+ * </p>
+ * <p>
+ * Dispensers are named as in {@link CashLedger}.
+ * </p>
+ */
+public final class ReplenishmentForecaster {
+	/**
+	 * Indicates that an event is not expected to occur.
+	 */
+	public static final long NEVER = Long.MAX_VALUE;
+
+	/**
+	 * The forecast for one dispenser at one moment.
+	 */
+	public static final class Forecast {
+		private final ISelfCheckoutStation station;
+		private final String component;
+		private final BigDecimal denomination;
+		private final int level;
+		private final int capacity;
+		private final double payoutRate;
+		private final double intakeRate;
+		private final long timeToEmpty;
+		private final long timeToFull;
+
+		private Forecast(ISelfCheckoutStation station, String component, BigDecimal denomination, int level,
+			int capacity, double payoutRate, double intakeRate) {
+			this.station = station;
+			this.component = component;
+			this.denomination = denomination;
+			this.level = level;
+			this.capacity = capacity;
+			this.payoutRate = payoutRate;
+			this.intakeRate = intakeRate;
+
+			double net = payoutRate - intakeRate;
+
+			if(net > 0) {
+				timeToEmpty = toMillis(level / net);
+				timeToFull = NEVER;
+			}
+			else if(net < 0) {
+				timeToEmpty = NEVER;
+				timeToFull = toMillis((capacity - level) / -net);
+			}
+			else {
+				timeToEmpty = level == 0 ? 0 : NEVER;
+				timeToFull = level >= capacity ? 0 : NEVER;
+			}
+		}
+
+		private static long toMillis(double millis) {
+			return millis >= NEVER ? NEVER : (long)Math.ceil(millis);
+		}
+
+		/**
+		 * Gets the station that the dispenser belongs to.
+		 *
+		 * @return The station, or null if the dispenser was watched on its own.
+		 */
+		public ISelfCheckoutStation getStation() {
+			return station;
+		}
+
+		/**
+		 * Gets the name of the dispenser.
+		 *
+		 * @return The name, e.g., "coinDispenser 0.25".
+		 */
+		public String getComponent() {
+			return component;
+		}
+
+		/**
+		 * Gets the denomination that the dispenser holds.
+		 *
+		 * @return The denomination.
+		 */
+		public BigDecimal getDenomination() {
+			return denomination;
+		}
+
+		/**
+		 * Gets the number of items in the dispenser.
+		 *
+		 * @return The level.
+		 */
+		public int getLevel() {
+			return level;
+		}
+
+		/**
+		 * Gets the capacity of the dispenser.
+		 *
+		 * @return The capacity.
+		 */
+		public int getCapacity() {
+			return capacity;
+		}
+
+		/**
+		 * Gets the rate at which the dispenser has been paying out.
+		 *
+		 * @return The rate, in items per second.
+		 */
+		public double getPayoutRate() {
+			return payoutRate * 1000;
+		}
+
+		/**
+		 * Gets the rate at which the dispenser has been taking in cash from
+		 * customers.
+		 *
+		 * @return The rate, in items per second.
+		 */
+		public double getIntakeRate() {
+			return intakeRate * 1000;
+		}
+
+		/**
+		 * Gets the expected time until the dispenser is empty.
+		 *
+		 * @return The time in milliseconds, or {@link ReplenishmentForecaster#NEVER}.
+		 */
+		public long getTimeToEmpty() {
+			return timeToEmpty;
+		}
+
+		/**
+		 * Gets the expected time until the dispenser is full.
+		 *
+		 * @return The time in milliseconds, or {@link ReplenishmentForecaster#NEVER}.
+		 */
+		public long getTimeToFull() {
+			return timeToFull;
+		}
+
+		/*
+		 * The time until the dispenser needs attention.
+		 */
+		private long urgency() {
+			return Math.min(timeToEmpty, timeToFull);
+		}
+
+		@Override
+		public String toString() {
+			return component + ": " + level + "/" + capacity + ", empty in " + timeToEmpty + " ms, full in "
+				+ timeToFull + " ms";
+		}
+	}
+
+	/**
+	 * One step of a replenishment plan: the number of items to load into, or
+	 * remove from, one dispenser.
+	 */
+	public static final class Refill {
+		private final Forecast forecast;
+		private final int change;
+
+		private Refill(Forecast forecast, int change) {
+			this.forecast = forecast;
+			this.change = change;
+		}
+
+		/**
+		 * Gets the forecast that called for this step.
+		 *
+		 * @return The forecast.
+		 */
+		public Forecast getForecast() {
+			return forecast;
+		}
+
+		/**
+		 * Gets the number of items to load into the dispenser; negative if items are
+		 * to be removed instead.
+		 *
+		 * @return The change in level.
+		 */
+		public int getChange() {
+			return change;
+		}
+
+		@Override
+		public String toString() {
+			return (change > 0 ? "load " + change : "remove " + -change) + " at " + forecast.component;
+		}
+	}
+
+	private final LongSupplier clock;
+	private final double tau;
+	private final List<Gauge> gauges = new CopyOnWriteArrayList<>();
+
+	/**
+	 * Creates a forecaster that uses the system clock.
+	 *
+	 * @param halfLifeMillis
+	 *            The time after which an item counts for half as much in the
+	 *            rates, in milliseconds. Must be positive.
+	 * @throws InvalidArgumentSimulationException
+	 *             If the half-life is not positive.
+	 */
+	public ReplenishmentForecaster(long halfLifeMillis) {
+		this(System::currentTimeMillis, halfLifeMillis);
+	}
+
+	/**
+	 * Creates a forecaster that uses the indicated clock.
+	 *
+	 * @param clock
+	 *            The source of the current time, in milliseconds; e.g.,
+	 *            {@link powerutility.VirtualClockFaultScheduler#currentTimeMillis()}.
+	 *            Cannot be null.
+	 * @param halfLifeMillis
+	 *            The time after which an item counts for half as much in the
+	 *            rates, in milliseconds. Must be positive.
+	 * @throws NullPointerSimulationException
+	 *             If the clock is null.
+	 * @throws InvalidArgumentSimulationException
+	 *             If the half-life is not positive.
+	 */
+	public ReplenishmentForecaster(LongSupplier clock, long halfLifeMillis) {
+		if(clock == null)
+			throw new NullPointerSimulationException("clock");
+
+		if(halfLifeMillis <= 0)
+			throw new InvalidArgumentSimulationException("The half-life must be positive.");
+
+		this.clock = clock;
+		this.tau = halfLifeMillis / Math.log(2);
+	}
+
+	/**
+	 * Starts watching the dispensers of every station currently supervised by
+	 * the indicated attendant station. Stations added to it later must be
+	 * watched individually.
+	 *
+	 * @param attendant
+	 *            The attendant station. Cannot be null.
+	 * @throws NullPointerSimulationException
+	 *             If the attendant station is null.
+	 */
+	public void watch(AttendantStation attendant) {
+		if(attendant == null)
+			throw new NullPointerSimulationException("attendant");
+
+		for(ISelfCheckoutStation station : attendant.supervisedStations())
+			watch(station);
+	}
+
+	/**
+	 * Starts watching the dispensers of the indicated station.
+	 *
+	 * @param station
+	 *            The station. Cannot be null.
+	 * @throws NullPointerSimulationException
+	 *             If the station is null.
+	 */
+	public void watch(ISelfCheckoutStation station) {
+		if(station == null)
+			throw new NullPointerSimulationException("station");
+
+		watch(station, station.getCoinDispensers(), station.getBanknoteDispensers());
+	}
+
+	/**
+	 * Starts watching the indicated dispensers. Items already in a powered
+	 * dispenser are counted.
+	 *
+	 * @param station
+	 *            The station that the dispensers belong to, to be reported in
+	 *            forecasts. May be null.
+	 * @param coinDispensers
+	 *            The coin dispensers, keyed by denomination. Cannot be null.
+	 * @param banknoteDispensers
+	 *            The banknote dispensers, keyed by denomination. Cannot be null.
+	 * @throws NullPointerSimulationException
+	 *             If either map is null.
+	 */
+	public void watch(ISelfCheckoutStation station, Map<BigDecimal, ICoinDispenser> coinDispensers,
+		Map<BigDecimal, IBanknoteDispenser> banknoteDispensers) {
+		if(coinDispensers == null)
+			throw new NullPointerSimulationException("coinDispensers");
+
+		if(banknoteDispensers == null)
+			throw new NullPointerSimulationException("banknoteDispensers");
+
+		for(Map.Entry<BigDecimal, ICoinDispenser> entry : coinDispensers.entrySet()) {
+			ICoinDispenser dispenser = entry.getValue();
+			Gauge gauge = new Gauge(station, "coinDispenser " + entry.getKey().toPlainString(), entry.getKey(),
+				dispenser.getCapacity(), dispenser.isActivated() ? dispenser.size() : 0);
+			CoinDispenserObserver observer = new CoinGauge(gauge);
+			gauge.detacher = () -> dispenser.detach(observer);
+			dispenser.attach(observer);
+			gauges.add(gauge);
+		}
+
+		for(Map.Entry<BigDecimal, IBanknoteDispenser> entry : banknoteDispensers.entrySet()) {
+			IBanknoteDispenser dispenser = entry.getValue();
+			Gauge gauge = new Gauge(station, "banknoteDispenser " + entry.getKey().toPlainString(), entry.getKey(),
+				dispenser.getCapacity(), dispenser.isActivated() ? dispenser.size() : 0);
+			BanknoteDispenserObserver observer = new BanknoteGauge(gauge);
+			gauge.detacher = () -> dispenser.detach(observer);
+			dispenser.attach(observer);
+			gauges.add(gauge);
+		}
+	}
+
+	/**
+	 * Stops watching every dispenser and forgets them.
+	 */
+	public void detach() {
+		for(Gauge gauge : gauges)
+			gauge.detacher.run();
+
+		gauges.clear();
+	}
+
+	/**
+	 * Forecasts every dispenser watched, as of now.
+	 *
+	 * @return The forecasts, most urgent first.
+	 */
+	public List<Forecast> getForecasts() {
+		long now = clock.getAsLong();
+		List<Forecast> forecasts = new ArrayList<>(gauges.size());
+
+		for(Gauge gauge : gauges)
+			forecasts.add(gauge.forecast(now));
+
+		forecasts.sort(Comparator.comparingLong(Forecast::urgency));
+		return Collections.unmodifiableList(forecasts);
+	}
+
+	/**
+	 * Plans the visits needed so that no dispenser watched runs empty or fills up
+	 * within the indicated horizon, at the current rates. A dispenser expected to
+	 * run empty is filled to capacity, so that it lasts as long as possible; one
+	 * expected to fill up is emptied just enough to leave room for the horizon,
+	 * so that it keeps as much change as possible.
+	 *
+	 * @param horizonMillis
+	 *            The time to plan for, in milliseconds. Must not be negative.
+	 * @return The steps of the plan, most urgent first. Empty if no dispenser
+	 *             needs attention.
+	 * @throws InvalidArgumentSimulationException
+	 *             If the horizon is negative.
+	 */
+	public List<Refill> getPlan(long horizonMillis) {
+		if(horizonMillis < 0)
+			throw new InvalidArgumentSimulationException("The horizon cannot be negative.");
+
+		List<Refill> plan = new ArrayList<>();
+
+		for(Forecast forecast : getForecasts()) {
+			int change = 0;
+
+			if(forecast.timeToEmpty <= horizonMillis)
+				change = forecast.capacity - forecast.level;
+			else if(forecast.timeToFull <= horizonMillis) {
+				double net = forecast.intakeRate - forecast.payoutRate;
+				int headroom = (int)Math.min(forecast.capacity, Math.ceil(net * horizonMillis));
+				change = Math.min(0, forecast.capacity - headroom - forecast.level);
+			}
+
+			if(change != 0)
+				plan.add(new Refill(forecast, change));
+		}
+
+		return Collections.unmodifiableList(plan);
+	}
+
+	/*
+	 * The state kept for one dispenser. Each rate is held as an exponentially
+	 * decayed sum of items, which divided by the time constant gives the rate;
+	 * the sum is corrected for the time before the first event, during which it
+	 * could not yet have built up.
+	 */
+	private final class Gauge {
+		final ISelfCheckoutStation station;
+		final String component;
+		final BigDecimal denomination;
+		final int capacity;
+		Runnable detacher;
+		private int level;
+		private double payouts = 0;
+		private double intake = 0;
+		private final long start;
+		private long last;
+
+		Gauge(ISelfCheckoutStation station, String component, BigDecimal denomination, int capacity, int level) {
+			this.station = station;
+			this.component = component;
+			this.denomination = denomination;
+			this.capacity = capacity;
+			this.level = level;
+			this.start = this.last = clock.getAsLong();
+		}
+
+		private void decay(long now) {
+			if(now > last) {
+				double factor = Math.exp(-(now - last) / tau);
+				payouts *= factor;
+				intake *= factor;
+				last = now;
+			}
+		}
+
+		synchronized void paidOut(int count) {
+			decay(clock.getAsLong());
+			payouts += count;
+			level = Math.max(0, level - count);
+		}
+
+		synchronized void tookIn(int count) {
+			decay(clock.getAsLong());
+			intake += count;
+			level = Math.min(capacity, level + count);
+		}
+
+		synchronized void changeLevel(int count) {
+			level = Math.max(0, Math.min(capacity, level + count));
+		}
+
+		synchronized void setLevel(int level) {
+			this.level = level;
+		}
+
+		synchronized Forecast forecast(long now) {
+			long elapsed = Math.max(now, last) - start;
+			double window = tau * -Math.expm1(-elapsed / tau);
+			double factor = now > last ? Math.exp(-(now - last) / tau) : 1;
+			double payoutRate = window > 0 ? payouts * factor / window : 0;
+			double intakeRate = window > 0 ? intake * factor / window : 0;
+
+			return new Forecast(station, component, denomination, level, capacity, payoutRate, intakeRate);
+		}
+	}
+
+	private abstract static class ComponentGauge implements IComponentObserver {
+		final Gauge gauge;
+
+		ComponentGauge(Gauge gauge) {
+			this.gauge = gauge;
+		}
+
+		@Override
+		public void enabled(IComponent<? extends IComponentObserver> component) {}
+
+		@Override
+		public void disabled(IComponent<? extends IComponentObserver> component) {}
+
+		@Override
+		public void turnedOn(IComponent<? extends IComponentObserver> component) {}
+
+		@Override
+		public void turnedOff(IComponent<? extends IComponentObserver> component) {}
+	}
+
+	private static final class CoinGauge extends ComponentGauge implements CoinDispenserObserver {
+		CoinGauge(Gauge gauge) {
+			super(gauge);
+		}
+
+		@Override
+		public void coinsFull(ICoinDispenser dispenser) {
+			gauge.setLevel(gauge.capacity);
+		}
+
+		@Override
+		public void coinsEmpty(ICoinDispenser dispenser) {
+			gauge.setLevel(0);
+		}
+
+		@Override
+		public void coinAdded(ICoinDispenser dispenser, Coin coin) {
+			gauge.tookIn(1);
+		}
+
+		@Override
+		public void coinRemoved(ICoinDispenser dispenser, Coin coin) {
+			gauge.paidOut(1);
+		}
+
+		@Override
+		public void coinsRemoved(ICoinDispenser dispenser, Coin... coins) {
+			gauge.paidOut(coins.length);
+		}
+
+		@Override
+		public void coinsLoaded(ICoinDispenser dispenser, Coin... coins) {
+			gauge.changeLevel(coins.length);
+		}
+
+		@Override
+		public void coinsUnloaded(ICoinDispenser dispenser, Coin... coins) {
+			gauge.changeLevel(-coins.length);
+		}
+	}
+
+	private static final class BanknoteGauge extends ComponentGauge implements BanknoteDispenserObserver {
+		BanknoteGauge(Gauge gauge) {
+			super(gauge);
+		}
+
+		@Override
+		public void moneyFull(IBanknoteDispenser dispenser) {
+			gauge.setLevel(gauge.capacity);
+		}
+
+		@Override
+		public void banknotesEmpty(IBanknoteDispenser dispenser) {
+			gauge.setLevel(0);
+		}
+
+		@Override
+		public void banknoteAdded(IBanknoteDispenser dispenser, Banknote banknote) {
+			gauge.tookIn(1);
+		}
+
+		@Override
+		public void banknoteRemoved(IBanknoteDispenser dispenser, Banknote banknote) {
+			gauge.paidOut(1);
+		}
+
+		@Override
+		public void banknotesRemoved(IBanknoteDispenser dispenser, Banknote... banknotes) {
+			gauge.paidOut(banknotes.length);
+		}
+
+		@Override
+		public void banknotesLoaded(IBanknoteDispenser dispenser, Banknote... banknotes) {
+			gauge.changeLevel(banknotes.length);
+		}
+
+		@Override
+		public void banknotesUnloaded(IBanknoteDispenser dispenser, Banknote... banknotes) {
+			gauge.changeLevel(-banknotes.length);
+		}
+	}
+}
@@ -72,11 +72,14 @@ import com.tdc.coin.*;
  * <li>the banknote input slot is connected to the banknote validator (this is a
  * <b>two</b>-directional chain of devices as any entered banknotes that are
  * rejected by the validator can be returned to the customer);</li>
- * <li>the banknote validator is connected to the banknote storage unit (this is
- * a one-directional chain of devices); and,</li>
- * <li>each banknote dispenser is connected to the output banknote slot; these
- * dispensers cannot be replenished by banknotes provided by customers (this is
- * a one-directional chain of devices).</li>
+ * <li>the banknote validator is connected to the banknote storage unit and, if
+ * banknote recycling is configured, to each of the banknote dispensers, with
+ * the storage unit taking any overflow banknotes that do not fit in the
+ * dispensers (this is a one-directional chain of devices); and,</li>
+ * <li>each banknote dispenser is connected to the output banknote slot; unless
+ * banknote recycling is configured, these dispensers cannot be replenished by
+ * banknotes provided by customers (this is a one-directional chain of
+ * devices).</li>
  * </ul>
  * <p>
  * All other functionality of the system must be performed in software,
@@ -103,14 +106,18 @@ public class SelfCheckoutStation extends AbstractSelfCheckoutStation {
 			new CoinTray(coinTrayCapacityConfiguration));
 
 		for(int i = 0; i < coinDenominations.size(); i++)
-			coinDispensers.put(coinDenominations.get(i), new CoinDispenser(coinDispenserCapacityConfiguration));
+			coinDispensers.put(coinDenominations.get(i), new CoinDispenser(coinDispenserCapacityConfiguration, fungibleDispensersConfiguration));
+
+		for(int i = 0; i < banknoteDenominations.length; i++)
+			banknoteDispensers.put(banknoteDenominations[i], new BanknoteDispenser(fungibleDispensersConfiguration));
 
 		// Hook up everything.
 		interconnect(banknoteInput, banknoteValidator);
-		interconnect(banknoteValidator, banknoteStorage);
 
-		for(int i = 0; i < banknoteDenominations.length; i++)
-			banknoteDispensers.put(banknoteDenominations[i], new BanknoteDispenser());
+		if(banknoteRecyclingConfiguration)
+			interconnect(banknoteValidator, banknoteStorage, banknoteDispensers);
+		else
+			interconnect(banknoteValidator, banknoteStorage);
 
 		for(IBanknoteDispenser dispenser : banknoteDispensers.values())
 			interconnect(dispenser, banknoteOutput);
@@ -122,20 +129,37 @@ public class SelfCheckoutStation extends AbstractSelfCheckoutStation {
 			interconnect(coinDispenser, coinTray);
 	}
 
+	private void interconnect(BanknoteValidator validator, BanknoteStorageUnit storage,
+		Map<BigDecimal, IBanknoteDispenser> dispensers) {
+		Sink<Banknote> overflowChannel = banknoteChannel(storage, null);
+		Map<BigDecimal, Sink<Banknote>> dispenserChannels = new HashMap<BigDecimal, Sink<Banknote>>();
+
+		for(BigDecimal denomination : dispensers.keySet()) {
+			BanknoteDispenser dispenser = (BanknoteDispenser)dispensers.get(denomination);
+			dispenserChannels.put(denomination, banknoteChannel(dispenser, overflowChannel));
+		}
+
+		validator.sink = overflowChannel;
+		validator.setupRecycling(dispenserChannels);
+
+		for(Map.Entry<BigDecimal, IBanknoteDispenser> entry : dispensers.entrySet())
+			validator.trackDispenser(entry.getKey(), entry.getValue());
+	}
+
 	private void interconnect(CoinValidator validator, CoinTray tray, Map<BigDecimal, ICoinDispenser> dispensers,
 		CoinStorageUnit storage) {
-		OneWayChannel<Coin> rejectChannel = new OneWayChannel<Coin>(tray);
+		Sink<Coin> rejectChannel = coinChannel(tray, null);
+		Sink<Coin> overflowChannel = coinChannel(storage, null);
 		Map<BigDecimal, Sink<Coin>> dispenserChannels = new HashMap<BigDecimal, Sink<Coin>>();
 
 		for(BigDecimal denomination : dispensers.keySet()) {
 			ICoinDispenser dispenser = dispensers.get(denomination);
-			dispenserChannels.put(denomination, new OneWayChannel<Coin>(dispenser));
+			dispenserChannels.put(denomination, coinChannel(dispenser, overflowChannel));
 		}
 
-		OneWayChannel<Coin> overflowChannel = new OneWayChannel<Coin>(storage);
+		validator.setup(rejectChannel, dispenserChannels, overflowChannel);
 
-		validator.rejectionSink = rejectChannel;
-		validator.standardSinks.putAll(dispenserChannels);
-		validator.overflowSink = overflowChannel;
+		for(Map.Entry<BigDecimal, ICoinDispenser> entry : dispensers.entrySet())
+			validator.trackDispenser(entry.getKey(), entry.getValue());
 	}
 }
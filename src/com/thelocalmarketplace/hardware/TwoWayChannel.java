@@ -1,7 +1,10 @@
 package com.thelocalmarketplace.hardware;
 
+import java.util.List;
+
 import com.tdc.CashOverloadException;
 import com.tdc.DisabledException;
+import com.tdc.Disposition;
 import com.tdc.PassiveSource;
 import com.tdc.Sink;
 
@@ -45,6 +48,22 @@ final class TwoWayChannel<T> implements Sink<T>, PassiveSource<T> {
 		source.reject(thing);
 	}
 
+	/**
+	 * Moves the indicated things to the source as one bundle. This method should
+	 * be called by the sink device, and not by an external application.
+	 * 
+	 * @param things
+	 *            The things to transport via the channel.
+	 * @throws CashOverloadException
+	 *             if the source has no space for the things.
+	 * @throws DisabledException
+	 *             if the source is currently disabled.
+	 */
+	@Override
+	public synchronized void rejectAll(List<T> things) throws CashOverloadException, DisabledException {
+		source.rejectAll(things);
+	}
+
 	/**
 	 * Moves the indicated banknote to the sink. This method should be called by the
 	 * source device, and not by an external application.
@@ -68,4 +87,45 @@ final class TwoWayChannel<T> implements Sink<T>, PassiveSource<T> {
 	public synchronized boolean hasSpace() {
 		return sink.hasSpace();
 	}
+
+	/**
+	 * Returns whether the sink has space for the indicated number of things.
+	 * 
+	 * @param count
+	 *            The number of things.
+	 * @return true if the channel can accept that many things; false otherwise.
+	 */
+	@Override
+	public synchronized boolean hasSpace(int count) {
+		return sink.hasSpace(count);
+	}
+
+	/**
+	 * Moves the indicated things to the sink as one batch, so that the sink can
+	 * route them together.
+	 * 
+	 * @param things
+	 *            The things to transport via the channel.
+	 * @return The disposition of each thing, as reported by the sink.
+	 * @throws CashOverloadException
+	 *             If the sink has no space for a thing.
+	 * @throws DisabledException
+	 *             If the sink is currently disabled.
+	 */
+	@Override
+	public synchronized List<Disposition> receiveAll(List<T> things) throws CashOverloadException, DisabledException {
+		return sink.receiveAll(things);
+	}
+
+	/**
+	 * Asks the sink to give back the indicated things.
+	 * 
+	 * @param things
+	 *            The things to take back.
+	 * @return true if the sink gave them back; false otherwise.
+	 */
+	@Override
+	public synchronized boolean retract(List<T> things) {
+		return sink.retract(things);
+	}
 }
@@ -4,10 +4,13 @@ import java.math.BigDecimal;
 import java.util.Calendar;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.Random;
+import java.util.SplittableRandom;
 
+import ca.ucalgary.seng300.simulation.EventJournal;
 import ca.ucalgary.seng300.simulation.InvalidArgumentSimulationException;
+import ca.ucalgary.seng300.simulation.Metrics;
 import ca.ucalgary.seng300.simulation.NullPointerSimulationException;
+import ca.ucalgary.seng300.simulation.Randomness;
 import ca.ucalgary.seng300.simulation.SimulationException;
 
 /**
@@ -202,7 +205,121 @@ public class CardIssuer {
 		database.put(number, cr);
 	}
 
-	private static final Random random = new Random();
+	private final SplittableRandom random = Randomness.newStream();
+
+	private volatile Metrics metrics = null;
+
+	/**
+	 * Sets where this issuer records how often and how long its authorization
+	 * operations take.
+	 * 
+	 * @param metrics
+	 *            The metrics to record into, or null to record nothing (the
+	 *            default).
+	 */
+	public void setMetrics(Metrics metrics) {
+		this.metrics = metrics;
+	}
+
+	/**
+	 * Obtains where this issuer records its metrics.
+	 * 
+	 * @return The metrics, or null if none are recorded.
+	 */
+	public Metrics getMetrics() {
+		return metrics;
+	}
+
+	private volatile EventJournal.Writer journal = null;
+
+	/**
+	 * Sets where this issuer records the holds it places and releases and the
+	 * transactions it posts, so that they can be restored after a failure with
+	 * {@link #restoreFrom(EventJournal, String)}.
+	 * 
+	 * @param journal
+	 *            The writer to record with, or null to record nothing (the
+	 *            default).
+	 */
+	public void setJournal(EventJournal.Writer journal) {
+		this.journal = journal;
+	}
+
+	/**
+	 * Obtains where this issuer records its holds and transactions.
+	 * 
+	 * @return The writer, or null if nothing is recorded.
+	 */
+	public EventJournal.Writer getJournal() {
+		return journal;
+	}
+
+	/*
+	 * Records a change to the holds on a card. Called while the card record is
+	 * locked, so that the journal sees the changes to each card in order.
+	 */
+	private void journal(String event, String cardNumber, long holdNumber, BigDecimal amount) {
+		EventJournal.Writer journal = this.journal;
+
+		if(journal != null)
+			journal.append(event,
+				cardNumber + " " + holdNumber + (amount == null ? "" : " " + amount.toPlainString()));
+	}
+
+	/**
+	 * Reapplies the holds and transactions recorded in the indicated journal for
+	 * the indicated source to the cards in this issuer's database, e.g., after a
+	 * crash. The cards must already have been added, with their original amounts.
+	 * Records for unknown cards are ignored. Restoring is not itself recorded.
+	 * 
+	 * @param journal
+	 *            The journal to restore from. Cannot be null.
+	 * @param source
+	 *            The name under which this issuer's records were written. Cannot
+	 *            be null.
+	 * @throws NullPointerSimulationException
+	 *             If either argument is null.
+	 */
+	public void restoreFrom(EventJournal journal, String source) {
+		if(journal == null)
+			throw new NullPointerSimulationException("journal");
+
+		if(source == null)
+			throw new NullPointerSimulationException("source");
+
+		journal.replay(record -> {
+			if(!record.getSource().equals(source))
+				return;
+
+			String[] fields = record.getPayload().split(" ");
+			CardRecord cr = database.get(fields[0]);
+
+			if(cr == null)
+				return;
+
+			Long holdNumber = Long.parseLong(fields[1]);
+
+			synchronized(cr) {
+				switch(record.getEvent()) {
+				case "holdPlaced":
+					cr.holds.put(holdNumber, new BigDecimal(fields[2]));
+					break;
+
+				case "transactionPosted":
+					cr.available = cr.available.subtract(new BigDecimal(fields[2]));
+					cr.holds.remove(holdNumber);
+					break;
+
+				case "holdReleased":
+					cr.holds.remove(holdNumber);
+					break;
+
+				default:
+					break;
+				}
+			}
+		});
+	}
 
 	/**
 	 * Authorizes a hold on the indicated amount for the card with the indicated
@@ -217,6 +334,18 @@ public class CardIssuer {
 	 *             a code to reference the hold.
 	 */
 	public long authorizeHold(String cardNumber, double amount) {
+		Metrics metrics = this.metrics;
+		long start = Metrics.start(metrics);
+
+		try {
+			return placeHold(cardNumber, amount);
+		}
+		finally {
+			Metrics.stop(metrics, "authorizeHold", start);
+		}
+	}
+
+	private long placeHold(String cardNumber, double amount) {
 		if(amount <= 0.0)
 			return -1L;
 		
@@ -237,12 +366,16 @@ public class CardIssuer {
 				Long holdNumber;
 
 				while(true) {
-					holdNumber = random.nextLong(maximumHoldCount);
+					synchronized(random) {
+						holdNumber = random.nextLong(maximumHoldCount);
+					}
+
 					if(!cr.holds.containsKey(holdNumber))
 						break;
 				}
 
 				cr.holds.put(holdNumber, amountBD);
+				journal("holdPlaced", cardNumber, holdNumber, amountBD);
 
 				return holdNumber;
 			}
@@ -262,6 +395,18 @@ public class CardIssuer {
 	 * @return true, if the hold has been successfully released; otherwise, false.
 	 */
 	public boolean releaseHold(String cardNumber, long holdNumber) {
+		Metrics metrics = this.metrics;
+		long start = Metrics.start(metrics);
+
+		try {
+			return removeHold(cardNumber, holdNumber);
+		}
+		finally {
+			Metrics.stop(metrics, "releaseHold", start);
+		}
+	}
+
+	private boolean removeHold(String cardNumber, long holdNumber) {
 		if(holdNumber < 0)
 			return false;
 
@@ -274,7 +419,8 @@ public class CardIssuer {
 			if(cr.isBlocked)
 				return false;
 
-			cr.holds.remove(holdNumber);
+			if(cr.holds.remove(holdNumber) != null)
+				journal("holdReleased", cardNumber, holdNumber, null);
 		}
 
 		return true;
@@ -297,6 +443,18 @@ public class CardIssuer {
 	 * @return true, if the posting was successful; otherwise, false.
 	 */
 	public boolean postTransaction(String cardNumber, long holdNumber, double actualAmount) {
+		Metrics metrics = this.metrics;
+		long start = Metrics.start(metrics);
+
+		try {
+			return post(cardNumber, holdNumber, actualAmount);
+		}
+		finally {
+			Metrics.stop(metrics, "postTransaction", start);
+		}
+	}
+
+	private boolean post(String cardNumber, long holdNumber, double actualAmount) {
 		BigDecimal actualAmountBD = new BigDecimal(actualAmount);
 		
 		if(holdNumber < 0)
@@ -319,10 +477,12 @@ public class CardIssuer {
 			if(heldAmount.subtract(actualAmountBD).compareTo(BigDecimal.ZERO) >= 0) {
 				cr.available = cr.available.subtract(actualAmountBD);
 				cr.holds.remove(holdNumber);
+				journal("transactionPosted", cardNumber, holdNumber, actualAmountBD);
 				return true;
 			}
 			else {
 				cr.holds.remove(holdNumber);
+				journal("holdReleased", cardNumber, holdNumber, null);
 				return false;
 			}
 		}
@@ -0,0 +1,50 @@
+package powerutility;
+
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A fault scheduler that runs tasks in real time on a single daemon thread. The
+ * thread is only created when a task is first scheduled, and it terminates when
+ * no task has been pending for a second, so an idle scheduler costs nothing.
+ */
+public class ExecutorFaultScheduler implements FaultScheduler {
+	private ScheduledThreadPoolExecutor executor = null;
+
+	/**
+	 * Creates a scheduler. No thread is started until a task is scheduled.
+	 */
+	public ExecutorFaultScheduler() {}
+
+	@Override
+	public synchronized Future<?> schedule(Runnable task, long delay, TimeUnit unit) {
+		if(executor == null) {
+			executor = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+				@Override
+				public Thread newThread(Runnable r) {
+					Thread t = new Thread(r, "PowerGrid");
+					t.setDaemon(true);
+					return t;
+				}
+			});
+			executor.setRemoveOnCancelPolicy(true);
+			executor.setKeepAliveTime(1, TimeUnit.SECONDS);
+			executor.allowCoreThreadTimeOut(true);
+		}
+
+		return executor.schedule(task, delay, unit);
+	}
+
+	/**
+	 * Cancels all pending tasks and stops the thread, if any. The scheduler can
+	 * still be used afterwards; a new thread will be started when needed.
+	 */
+	public synchronized void shutdown() {
+		if(executor != null) {
+			executor.shutdownNow();
+			executor = null;
+		}
+	}
+}
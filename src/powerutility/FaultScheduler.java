@@ -0,0 +1,25 @@
+package powerutility;
+
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Provides the timing used by a {@link PowerGrid} to inject outages and surges.
+ * The grid decides when the next fault occurs and what it is; the scheduler
+ * only has to run the grid's task after the requested delay. A single scheduler
+ * may be shared by many grids.
+ */
+public interface FaultScheduler {
+	/**
+	 * Arranges for the indicated task to be run once, after the indicated delay.
+	 * 
+	 * @param task
+	 *            The task to run.
+	 * @param delay
+	 *            The delay before running the task.
+	 * @param unit
+	 *            The unit of the delay.
+	 * @return A future through which the task can be cancelled.
+	 */
+	Future<?> schedule(Runnable task, long delay, TimeUnit unit);
+}
@@ -1,143 +1,478 @@
 package powerutility;
 
-import java.lang.Thread.UncaughtExceptionHandler;
-import java.util.Random;
+import java.util.Collections;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.WeakHashMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import ca.ucalgary.seng300.simulation.Randomness;
 
 /**
- * Represents the electrical power grid as a Singleton. The grid can experience
- * outages and surges; the former should cause plugged-in devices to stop
- * functioning and the latter risks to damage them. The grid can be connected to
- * a regular, imperfect source (the mains); a faulty source that constantly
- * surges; or be disconnected completely.
+ * Represents an electrical power grid. A default grid is available through
+ * {@link #instance()}, but any number of independent grids (e.g., one per
+ * circuit) can be created and looked up through {@link PowerGridRegistry}.
+ * Each grid can experience outages and surges; the former should cause
+ * plugged-in devices to stop functioning and the latter risks to damage them.
+ * Each grid can be connected to a regular, imperfect source (the mains); a
+ * faulty source that constantly surges; or be disconnected completely.
+ * <p>
+ * The state of the grid only changes when a fault is injected or forced, or
+ * when the source is changed. Checking for power is a simple read of the
+ * current state, and changes are pushed to registered
+ * {@link PowerGridListener}s.
+ * </p>
+ * <p>
+ * Random faults are generated from a seedable schedule and timed by a
+ * {@link FaultScheduler}. Nothing is scheduled until a listener is registered
+ * (e.g., a device is plugged in), and scheduling stops when the grid has no
+ * listeners, is not in the normal state, or cannot fail.
+ * </p>
  */
 public class PowerGrid {
-	private final Random pseudorandomNumberGenerator = new Random();
-	private static int probabilityOfPowerFailure = 1;
-	private static int probabilityOfPowerSurge = 5;
+	/*
+	 * The interval, in milliseconds, over which the probabilities of failure and
+	 * surge apply.
+	 */
+	private static final long FAULT_INTERVAL = 10;
+	private static final FaultScheduler DEFAULT_FAULT_SCHEDULER = new ExecutorFaultScheduler();
+
+	private SplittableRandom pseudorandomNumberGenerator = Randomness.newStream();
+	private FaultScheduler faultScheduler = DEFAULT_FAULT_SCHEDULER;
+	private Future<?> pendingFault = null;
+	private long faultGeneration = 0;
+	private long stateGeneration = 0;
+	private int probabilityOfPowerFailure = 1;
+	private int probabilityOfPowerSurge = 5;
+	private PowerSource source = PowerSource.MAINS;
 
 	/**
-	 * Disconnects from the main power grid, so all power fails.
+	 * Disconnects the default grid from the main power grid, so all power fails.
 	 */
 	public static void disconnect() {
-		probabilityOfPowerFailure = 10000;
-		probabilityOfPowerSurge = 0;
+		instance.setSource(PowerSource.DISCONNECTED);
 	}
 
 	/**
-	 * Connects to a power source that always causes surges.
+	 * Connects the default grid to a power source that always causes surges.
 	 */
 	public static void engageFaultyPowerSource() {
-		probabilityOfPowerFailure = 0;
-		probabilityOfPowerSurge = 10000;
+		instance.setSource(PowerSource.FAULTY);
 	}
 
 	/**
-	 * Disconnects from the main power grid to use a well-conditioned, battery
-	 * backup.
+	 * Disconnects the default grid from the main power grid to use a
+	 * well-conditioned, battery backup.
 	 */
 	public static void engageUninterruptiblePowerSource() {
-		probabilityOfPowerFailure = 0;
-		probabilityOfPowerSurge = 0;
+		instance.setSource(PowerSource.UNINTERRUPTIBLE);
 	}
 
 	/**
-	 * Reconnects to the main power grid.
+	 * Reconnects the default grid to the main power grid.
 	 */
 	public static void reconnectToMains() {
-		probabilityOfPowerFailure = 1;
-		probabilityOfPowerSurge = 5;
+		instance.setSource(PowerSource.MAINS);
 	}
 
-	private final long stateCheckInterval = 1000;
+	/**
+	 * The sources to which a power grid can be connected.
+	 */
+	public enum PowerSource {
+		/**
+		 * The main power grid, which occasionally fails or surges.
+		 */
+		MAINS,
+		/**
+		 * A well-conditioned battery backup, which never fails or surges.
+		 */
+		UNINTERRUPTIBLE,
+		/**
+		 * A faulty source that constantly surges.
+		 */
+		FAULTY,
+		/**
+		 * No source at all, so all power fails.
+		 */
+		DISCONNECTED
+	}
 
-	enum PowerState {
-		NORMAL, SURGE, OUTAGE
+	/**
+	 * The possible states of a power grid.
+	 */
+	public enum PowerState {
+		/**
+		 * Power is available.
+		 */
+		NORMAL,
+		/**
+		 * The grid is surging.
+		 */
+		SURGE,
+		/**
+		 * The grid has no power.
+		 */
+		OUTAGE;
+
+		/**
+		 * Determines whether this state provides power.
+		 * 
+		 * @return true if this state is {@link #NORMAL}.
+		 * @throws PowerSurge
+		 *             If this state is {@link #SURGE}.
+		 * @throws NoPowerException
+		 *             If this state is {@link #OUTAGE}.
+		 */
+		public boolean hasPower() {
+			if(this == SURGE)
+				throw new PowerSurge();
+			else if(this == OUTAGE)
+				throw new NoPowerException();
+
+			return true;
+		}
 	}
 
-	private PowerState state = PowerState.NORMAL;
+	private volatile PowerState state = PowerState.NORMAL;
+	/*
+	 * Whether the current state was caused by the source (disconnection or a
+	 * faulty source) rather than by a fault or a forced change.
+	 */
+	private boolean sourceFault = false;
+	private final Set<PowerGridListener> listeners = Collections.newSetFromMap(new WeakHashMap<>());
 
 	private static PowerGrid instance = new PowerGrid();
 
-	PowerGrid() {
-		UncaughtExceptionHandler h = Thread.currentThread().getUncaughtExceptionHandler();
-		PowerHandler ph = new PowerHandler(h);
-		Thread.currentThread().setUncaughtExceptionHandler(ph);
-		
-		Thread t = new Thread() {
-			@Override
-			public void run() {
-				while(true) {
-					try {
-						Thread.sleep(10);
-					}
-					catch(InterruptedException e) {}
-				
-					hasPower();
-				}
-			};
-		};
-		t.setName("PowerGrid");
-		t.setPriority(Thread.MAX_PRIORITY);
-		t.start();
+	/**
+	 * Creates a grid connected to the mains, with its own state, fault profile,
+	 * and unseeded fault schedule. Grids are independent of each other and of
+	 * the default grid.
+	 */
+	public PowerGrid() {}
+
+	/**
+	 * Connects this grid to the indicated source, which resets the probabilities
+	 * of failure and surge to those of the source. Disconnecting causes an
+	 * outage and a faulty source causes a surge; these end when the grid is
+	 * connected to a good source.
+	 * 
+	 * @param source
+	 *            The source to connect to. Cannot be null.
+	 * @throws NullPointerException
+	 *             If the source is null.
+	 */
+	public synchronized void setSource(PowerSource source) {
+		if(source == null)
+			throw new NullPointerException("source");
+
+		this.source = source;
+
+		switch(source) {
+		case MAINS:
+			probabilityOfPowerFailure = 1;
+			probabilityOfPowerSurge = 5;
+			clearSourceFault();
+			break;
+		case UNINTERRUPTIBLE:
+			probabilityOfPowerFailure = 0;
+			probabilityOfPowerSurge = 0;
+			clearSourceFault();
+			break;
+		case FAULTY:
+			probabilityOfPowerFailure = 0;
+			probabilityOfPowerSurge = 10000;
+			changeState(PowerState.SURGE, true);
+			break;
+		case DISCONNECTED:
+			probabilityOfPowerFailure = 10000;
+			probabilityOfPowerSurge = 0;
+			changeState(PowerState.OUTAGE, true);
+			break;
+		}
+
+		rescheduleFault();
+	}
+
+	/**
+	 * Obtains the source to which this grid is connected.
+	 * 
+	 * @return The current source.
+	 */
+	public synchronized PowerSource getSource() {
+		return source;
+	}
+
+	/**
+	 * Changes the fault profile of this grid without changing its source. Each
+	 * probability is out of 10000, per 10 ms of operation; a surge occurs when the
+	 * random draw is at least the probability of failure but less than the
+	 * probability of surge. Any pending fault is rescheduled.
+	 * 
+	 * @param probabilityOfPowerFailure
+	 *            The probability of an outage. Must be in [0, 10000].
+	 * @param probabilityOfPowerSurge
+	 *            The probability threshold of a surge. Must be in [0, 10000].
+	 * @throws IllegalArgumentException
+	 *             If either probability is out of range.
+	 */
+	public synchronized void setFaultProbabilities(int probabilityOfPowerFailure, int probabilityOfPowerSurge) {
+		if(probabilityOfPowerFailure < 0 || probabilityOfPowerFailure > 10000)
+			throw new IllegalArgumentException("Probability of failure out of range: " + probabilityOfPowerFailure);
+
+		if(probabilityOfPowerSurge < 0 || probabilityOfPowerSurge > 10000)
+			throw new IllegalArgumentException("Probability of surge out of range: " + probabilityOfPowerSurge);
+
+		this.probabilityOfPowerFailure = probabilityOfPowerFailure;
+		this.probabilityOfPowerSurge = probabilityOfPowerSurge;
+		rescheduleFault();
+	}
+
+	/**
+	 * Obtains the probability of an outage, out of 10000 per 10 ms.
+	 * 
+	 * @return The probability of failure.
+	 */
+	public synchronized int getProbabilityOfPowerFailure() {
+		return probabilityOfPowerFailure;
+	}
+
+	/**
+	 * Obtains the probability threshold of a surge, out of 10000 per 10 ms.
+	 * 
+	 * @return The probability of surge.
+	 */
+	public synchronized int getProbabilityOfPowerSurge() {
+		return probabilityOfPowerSurge;
+	}
+
+	/**
+	 * Seeds the generator from which faults are drawn, so that the schedule of
+	 * faults can be reproduced. Any pending fault is rescheduled.
+	 * 
+	 * @param seed
+	 *            The seed to use.
+	 */
+	public synchronized void setSeed(long seed) {
+		pseudorandomNumberGenerator = new SplittableRandom(seed);
+		rescheduleFault();
+	}
+
+	/**
+	 * Changes the scheduler used to time faults. Any pending fault is cancelled
+	 * and rescheduled on the new scheduler.
+	 * 
+	 * @param scheduler
+	 *            The scheduler to use. Cannot be null.
+	 * @throws NullPointerException
+	 *             If the scheduler is null.
+	 */
+	public synchronized void setFaultScheduler(FaultScheduler scheduler) {
+		if(scheduler == null)
+			throw new NullPointerException("scheduler");
+
+		cancelFault();
+		faultScheduler = scheduler;
+		rescheduleFault();
 	}
 
 	/**
 	 * For testability, forces a power surge to occur.
 	 */
 	public void forcePowerSurge() {
-		state = PowerState.SURGE;
+		changeState(PowerState.SURGE, false);
 	}
 
 	/**
 	 * For testability, forces a power outage to occur.
 	 */
 	public void forcePowerOutage() {
-		state = PowerState.OUTAGE;
+		changeState(PowerState.OUTAGE, false);
 	}
 
 	/**
 	 * For testability, forces the power to be restored.
 	 */
 	public void forcePowerRestore() {
-		state = PowerState.NORMAL;
+		changeState(PowerState.NORMAL, false);
 	}
 
 	/**
-	 * Obtains the unique instance of PowerGrid.
+	 * Obtains the default instance of PowerGrid, which is the one configured by
+	 * the static methods of this class.
 	 * 
-	 * @return The unique instance.
+	 * @return The default instance.
 	 */
 	public static PowerGrid instance() {
 		return instance;
 	}
 
 	/**
-	 * Determines whether the power grid currently has power.
+	 * Obtains the current state of this grid. Never throws.
 	 * 
-	 * @return true if the grid has power; otherwise, false.
+	 * @return The current state.
 	 */
-	public final boolean hasPower() {
-		int probability = pseudorandomNumberGenerator.nextInt(10000);
+	public PowerState getState() {
+		return state;
+	}
+
+	/**
+	 * Registers the indicated listener to be informed of changes in the state of
+	 * this grid. The listener is immediately informed of the current state. The
+	 * grid only holds a weak reference to the listener.
+	 * 
+	 * @param listener
+	 *            The listener to register.
+	 * @throws NullPointerException
+	 *             If the listener is null.
+	 */
+	public synchronized void register(PowerGridListener listener) {
+		if(listener == null)
+			throw new NullPointerException("listener");
 
-		if(state == PowerState.SURGE)
-			throw new PowerSurge();
-		else if(state == PowerState.OUTAGE)
-			throw new NoPowerException();
+		listeners.add(listener);
+		listener.powerStateChanged(this, state);
+
+		if(pendingFault == null)
+			rescheduleFault();
+	}
+
+	/**
+	 * Stops informing the indicated listener of changes in the state of this grid.
+	 * 
+	 * @param listener
+	 *            The listener to deregister.
+	 * @return true if the listener was registered; otherwise, false.
+	 */
+	public synchronized boolean deregister(PowerGridListener listener) {
+		boolean result = listeners.remove(listener);
+
+		if(listeners.isEmpty())
+			cancelFault();
+
+		return result;
+	}
 
-		if(probability < probabilityOfPowerFailure) {
-			state = PowerState.OUTAGE;
-			throw new NoPowerException();
+	private synchronized void changeState(PowerState newState, boolean causedBySource) {
+		sourceFault = causedBySource;
+
+		if(state == newState)
+			return;
+
+		state = newState;
+		stateGeneration++;
+
+		for(PowerGridListener listener : listeners.toArray(new PowerGridListener[listeners.size()]))
+			listener.powerStateChanged(this, newState);
+
+		if(newState == PowerState.NORMAL) {
+			if(pendingFault == null)
+				rescheduleFault();
 		}
-		else if(probability < probabilityOfPowerSurge) {
-			try {
-				state = PowerState.SURGE;
-				throw new PowerSurge();
-			}
-			finally {
-				state = PowerState.NORMAL;
+		else
+			cancelFault();
+	}
+
+	private synchronized void clearSourceFault() {
+		if(sourceFault)
+			changeState(PowerState.NORMAL, false);
+	}
+
+	private synchronized void cancelFault() {
+		if(pendingFault != null) {
+			pendingFault.cancel(false);
+			pendingFault = null;
+		}
+
+		faultGeneration++;
+	}
+
+	/*
+	 * Draws the time until the next fault and schedules it. The chance of a fault
+	 * in each interval is that of the more likely of a failure or a surge, so the
+	 * number of intervals until the next fault is geometrically distributed.
+	 */
+	private synchronized void rescheduleFault() {
+		cancelFault();
+
+		int threshold = Math.max(probabilityOfPowerFailure, probabilityOfPowerSurge);
+
+		if(listeners.isEmpty() || state != PowerState.NORMAL || threshold <= 0)
+			return;
+
+		long intervals = 1;
+
+		if(threshold < 10000) {
+			double p = threshold / 10000.0;
+			double u = 1.0 - pseudorandomNumberGenerator.nextDouble();
+			intervals = Math.max(1, (long)Math.ceil(Math.log(u) / Math.log(1.0 - p)));
+		}
+
+		final long generation = faultGeneration;
+
+		pendingFault = faultScheduler.schedule(new Runnable() {
+			@Override
+			public void run() {
+				injectFault(generation);
 			}
+		}, intervals * FAULT_INTERVAL, TimeUnit.MILLISECONDS);
+	}
+
+	/*
+	 * Causes the scheduled fault: an outage persists until power is restored,
+	 * while a surge lasts for one fault interval, so that devices operating in
+	 * that interval experience it.
+	 */
+	private synchronized void injectFault(long generation) {
+		if(generation != faultGeneration)
+			return; // This fault was cancelled after it started to run
+
+		pendingFault = null;
+
+		if(state != PowerState.NORMAL)
+			return;
+
+		int threshold = Math.max(probabilityOfPowerFailure, probabilityOfPowerSurge);
+
+		if(threshold <= 0)
+			return;
+
+		if(pseudorandomNumberGenerator.nextInt(threshold) < probabilityOfPowerFailure)
+			changeState(PowerState.OUTAGE, false);
+		else {
+			changeState(PowerState.SURGE, false);
+
+			final long surge = stateGeneration;
+
+			faultScheduler.schedule(new Runnable() {
+				@Override
+				public void run() {
+					endSurge(surge);
+				}
+			}, FAULT_INTERVAL, TimeUnit.MILLISECONDS);
 		}
+	}
 
-		return true;
+	/*
+	 * Ends a surge caused by a fault, unless something else has changed the
+	 * state since.
+	 */
+	private synchronized void endSurge(long generation) {
+		if(generation == stateGeneration && !sourceFault)
+			changeState(PowerState.NORMAL, false);
+	}
+
+	/**
+	 * Determines whether the power grid currently has power. This only reads the
+	 * current state; faults are injected separately.
+	 * 
+	 * @return true if the grid has power.
+	 * @throws PowerSurge
+	 *             If the grid is surging.
+	 * @throws NoPowerException
+	 *             If the grid has an outage.
+	 */
+	public final boolean hasPower() {
+		return state.hasPower();
 	}
-}
\ No newline at end of file
+}
@@ -0,0 +1,24 @@
+package powerutility;
+
+/**
+ * Receives notification of changes in the state of a power grid. Plugged-in
+ * devices and connected components use this to track the grid without having
+ * to query it on every operation.
+ * <p>
+ * Notifications are delivered synchronously by the thread that caused the
+ * transition, while the grid is locked, so implementations must be brief and
+ * must not call back into the grid.
+ * </p>
+ */
+public interface PowerGridListener {
+	/**
+	 * Announces that the state of the indicated grid has changed. This is also
+	 * called once, with the current state, when the listener is registered.
+	 *
+	 * @param grid
+	 *            The grid whose state has changed.
+	 * @param state
+	 *            The new state of the grid.
+	 */
+	void powerStateChanged(PowerGrid grid, PowerGrid.PowerState state);
+}
@@ -0,0 +1,102 @@
+package powerutility;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A directory of named power grids, so that many stations in one process can
+ * each be plugged into the grid of their own circuit, aisle, or store. Grids
+ * obtained here are independent of each other and of
+ * {@link PowerGrid#instance()}.
+ */
+public class PowerGridRegistry {
+	/**
+	 * Instances of this class are not needed, so the constructor is private.
+	 */
+	private PowerGridRegistry() {}
+
+	private static final ConcurrentHashMap<String, PowerGrid> grids = new ConcurrentHashMap<>();
+
+	/**
+	 * Obtains the grid with the indicated name, creating a new grid connected to
+	 * the mains if there is none.
+	 * 
+	 * @param name
+	 *            The name of the grid. Cannot be null.
+	 * @return The grid with that name.
+	 * @throws NullPointerException
+	 *             If the name is null.
+	 */
+	public static PowerGrid obtain(String name) {
+		if(name == null)
+			throw new NullPointerException("name");
+
+		return grids.computeIfAbsent(name, n -> new PowerGrid());
+	}
+
+	/**
+	 * Looks up the grid with the indicated name.
+	 * 
+	 * @param name
+	 *            The name of the grid. Cannot be null.
+	 * @return The grid with that name, or null if there is none.
+	 * @throws NullPointerException
+	 *             If the name is null.
+	 */
+	public static PowerGrid lookup(String name) {
+		if(name == null)
+			throw new NullPointerException("name");
+
+		return grids.get(name);
+	}
+
+	/**
+	 * Records the indicated grid under the indicated name, replacing any grid
+	 * already recorded under that name.
+	 * 
+	 * @param name
+	 *            The name of the grid. Cannot be null.
+	 * @param grid
+	 *            The grid. Cannot be null.
+	 * @return The grid previously recorded under that name, or null.
+	 * @throws NullPointerException
+	 *             If either argument is null.
+	 */
+	public static PowerGrid register(String name, PowerGrid grid) {
+		if(name == null)
+			throw new NullPointerException("name");
+
+		if(grid == null)
+			throw new NullPointerException("grid");
+
+		return grids.put(name, grid);
+	}
+
+	/**
+	 * Forgets the grid with the indicated name. Devices already plugged into it
+	 * are unaffected.
+	 * 
+	 * @param name
+	 *            The name of the grid. Cannot be null.
+	 * @return The grid that was removed, or null if there was none.
+	 * @throws NullPointerException
+	 *             If the name is null.
+	 */
+	public static PowerGrid remove(String name) {
+		if(name == null)
+			throw new NullPointerException("name");
+
+		return grids.remove(name);
+	}
+
+	/**
+	 * Obtains the names of all the recorded grids.
+	 * 
+	 * @return An unmodifiable, sorted snapshot of the names.
+	 */
+	public static Set<String> names() {
+		return Collections.unmodifiableSet(new TreeSet<>(grids.keySet()));
+	}
+}
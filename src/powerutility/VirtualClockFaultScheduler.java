@@ -0,0 +1,100 @@
+package powerutility;
+
+import java.util.PriorityQueue;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A fault scheduler driven by a virtual clock. Time only passes when
+ * {@link #advance(long, TimeUnit)} is called, and tasks are then run, in order,
+ * by the calling thread. Together with a seeded grid, this makes the sequence
+ * of faults fully reproducible.
+ */
+public class VirtualClockFaultScheduler implements FaultScheduler {
+	private static class Entry implements Comparable<Entry> {
+		final long time;
+		final long sequence;
+		final FutureTask<?> task;
+
+		Entry(long time, long sequence, FutureTask<?> task) {
+			this.time = time;
+			this.sequence = sequence;
+			this.task = task;
+		}
+
+		@Override
+		public int compareTo(Entry other) {
+			if(time != other.time)
+				return Long.compare(time, other.time);
+
+			return Long.compare(sequence, other.sequence);
+		}
+	}
+
+	private final PriorityQueue<Entry> queue = new PriorityQueue<>();
+	private long now = 0;
+	private long nextSequence = 0;
+
+	/**
+	 * Creates a scheduler whose clock starts at zero.
+	 */
+	public VirtualClockFaultScheduler() {}
+
+	@Override
+	public synchronized Future<?> schedule(Runnable task, long delay, TimeUnit unit) {
+		FutureTask<Void> future = new FutureTask<>(task, null);
+		queue.add(new Entry(now + Math.max(unit.toMillis(delay), 0), nextSequence++, future));
+
+		return future;
+	}
+
+	/**
+	 * Obtains the current time on the virtual clock.
+	 * 
+	 * @return The number of milliseconds that have been advanced so far.
+	 */
+	public synchronized long currentTimeMillis() {
+		return now;
+	}
+
+	/**
+	 * Advances the virtual clock, running every task that becomes due, in order.
+	 * Tasks scheduled by those tasks are also run if they become due.
+	 * 
+	 * @param duration
+	 *            The amount of time to advance. Must not be negative.
+	 * @param unit
+	 *            The unit of the duration.
+	 * @throws IllegalArgumentException
+	 *             If the duration is negative.
+	 */
+	public void advance(long duration, TimeUnit unit) {
+		if(duration < 0)
+			throw new IllegalArgumentException("The clock cannot go backwards.");
+
+		long target;
+
+		synchronized(this) {
+			target = now + unit.toMillis(duration);
+		}
+
+		while(true) {
+			Entry entry;
+
+			synchronized(this) {
+				entry = queue.peek();
+
+				if(entry == null || entry.time > target) {
+					now = target;
+					return;
+				}
+
+				queue.poll();
+				now = entry.time;
+			}
+
+			entry.task.run();
+		}
+	}
+}
@@ -0,0 +1,207 @@
+package ca.ucalgary.seng300.simulation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Currency;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.tdc.CashOverloadException;
+import com.tdc.DisabledException;
+import com.tdc.IComponent;
+import com.tdc.IComponentObserver;
+import com.tdc.StandardSinkStub;
+import com.tdc.coin.Coin;
+import com.tdc.coin.CoinSlot;
+import com.tdc.coin.CoinSlotObserver;
+
+import ca.ucalgary.seng300.simulation.AsynchronousEventDispatcher.OverflowPolicy;
+import powerutility.PowerGrid;
+
+@SuppressWarnings("javadoc")
+public class AsynchronousEventDispatcherTest {
+	private AsynchronousEventDispatcher dispatcher;
+
+	@Before
+	public void setup() {
+		PowerGrid.engageUninterruptiblePowerSource();
+		PowerGrid.instance().forcePowerRestore();
+	}
+
+	@After
+	public void teardown() throws InterruptedException {
+		if(dispatcher != null)
+			dispatcher.shutdown();
+
+		PowerGrid.reconnectToMains();
+	}
+
+	@Test(expected = InvalidArgumentSimulationException.class)
+	public void testBadLaneCount() {
+		new AsynchronousEventDispatcher(0, 1, OverflowPolicy.BLOCK);
+	}
+
+	@Test(expected = NullPointerSimulationException.class)
+	public void testNullPolicy() {
+		new AsynchronousEventDispatcher(1, 1, null);
+	}
+
+	@Test
+	public void testListenerPublishingIntoItsOwnFullLane() throws InterruptedException {
+		dispatcher = new AsynchronousEventDispatcher(1, 1, OverflowPolicy.BLOCK);
+		Object source = new Object();
+		List<Integer> delivered = Collections.synchronizedList(new ArrayList<>());
+		CountDownLatch done = new CountDownLatch(1);
+
+		dispatcher.dispatch(source, () -> {
+			for(int i = 0; i < 3; i++) {
+				int n = i;
+				dispatcher.dispatch(source, () -> delivered.add(n));
+			}
+
+			dispatcher.dispatch(source, done::countDown);
+		});
+
+		assertTrue(done.await(5, TimeUnit.SECONDS));
+		assertEquals(List.of(0, 1, 2), delivered);
+		assertEquals(0, dispatcher.getDroppedEventCount());
+	}
+
+	@Test
+	public void testEventsFromOneSourceStayInOrder() throws InterruptedException {
+		dispatcher = new AsynchronousEventDispatcher(4, 8, OverflowPolicy.BLOCK);
+		Object source = new Object();
+		List<Integer> delivered = Collections.synchronizedList(new ArrayList<>());
+
+		for(int i = 0; i < 1000; i++) {
+			int n = i;
+			dispatcher.dispatch(source, () -> delivered.add(n));
+		}
+
+		dispatcher.shutdown();
+
+		assertEquals(1000, delivered.size());
+		for(int i = 0; i < 1000; i++)
+			assertEquals(i, (int)delivered.get(i));
+		assertEquals(0, dispatcher.getDroppedEventCount());
+		assertEquals(1000, dispatcher.getDeliveredEventCount());
+	}
+
+	@Test
+	public void testDropPolicies() throws InterruptedException {
+		for(OverflowPolicy policy : new OverflowPolicy[] { OverflowPolicy.DROP_NEWEST, OverflowPolicy.DROP_OLDEST }) {
+			dispatcher = new AsynchronousEventDispatcher(1, 2, policy);
+			Object source = new Object();
+			CountDownLatch started = new CountDownLatch(1);
+			CountDownLatch release = new CountDownLatch(1);
+			List<Integer> delivered = Collections.synchronizedList(new ArrayList<>());
+
+			dispatcher.dispatch(source, () -> {
+				started.countDown();
+				try {
+					release.await();
+				}
+				catch(InterruptedException e) {}
+			});
+			started.await();
+
+			for(int i = 1; i <= 4; i++) {
+				int n = i;
+				dispatcher.dispatch(source, () -> delivered.add(n));
+			}
+
+			assertEquals(2, dispatcher.getDroppedEventCount());
+			release.countDown();
+			dispatcher.shutdown();
+
+			if(policy == OverflowPolicy.DROP_NEWEST)
+				assertEquals(List.of(1, 2), delivered);
+			else
+				assertEquals(List.of(3, 4), delivered);
+		}
+	}
+
+	@Test
+	public void testListenerFailureDoesNotStopDelivery() throws InterruptedException {
+		dispatcher = new AsynchronousEventDispatcher(1, 4, OverflowPolicy.BLOCK);
+		Object source = new Object();
+		List<Integer> delivered = Collections.synchronizedList(new ArrayList<>());
+		Thread.UncaughtExceptionHandler old = Thread.getDefaultUncaughtExceptionHandler();
+		Thread.setDefaultUncaughtExceptionHandler((t, e) -> {});
+
+		try {
+			dispatcher.dispatch(source, () -> {
+				throw new RuntimeException();
+			});
+			dispatcher.dispatch(source, () -> delivered.add(1));
+			dispatcher.shutdown();
+		}
+		finally {
+			Thread.setDefaultUncaughtExceptionHandler(old);
+		}
+
+		assertEquals(List.of(1), delivered);
+	}
+
+	@Test(expected = InvalidStateSimulationException.class)
+	public void testDispatchAfterShutdown() throws InterruptedException {
+		dispatcher = new AsynchronousEventDispatcher(1, 1, OverflowPolicy.BLOCK);
+		dispatcher.shutdown();
+		dispatcher.dispatch(new Object(), () -> {});
+	}
+
+	@Test
+	public void testComponentEventsAreDeliveredOnDispatcherThread() throws Exception {
+		dispatcher = new AsynchronousEventDispatcher(2, 16, OverflowPolicy.BLOCK);
+		CoinSlot slot = new CoinSlot();
+		slot.connect(PowerGrid.instance());
+		slot.activate();
+		slot.sink = new StandardSinkStub<Coin>(true) {
+			@Override
+			public void receive(Coin thing) throws CashOverloadException, DisabledException {}
+		};
+		slot.setEventDispatcher(dispatcher);
+		assertEquals(dispatcher, slot.getEventDispatcher());
+
+		CountDownLatch latch = new CountDownLatch(1);
+		Thread[] deliveredOn = new Thread[1];
+		slot.attach(new CoinSlotObserver() {
+			@Override
+			public void enabled(IComponent<? extends IComponentObserver> component) {}
+
+			@Override
+			public void disabled(IComponent<? extends IComponentObserver> component) {}
+
+			@Override
+			public void turnedOn(IComponent<? extends IComponentObserver> component) {}
+
+			@Override
+			public void turnedOff(IComponent<? extends IComponentObserver> component) {}
+
+			@Override
+			public void coinsInserted(CoinSlot slot, int count) {}
+
+			@Override
+			public void coinInserted(CoinSlot slot) {
+				deliveredOn[0] = Thread.currentThread();
+				latch.countDown();
+			}
+		});
+
+		slot.receive(new Coin(Currency.getInstance(Locale.CANADA), BigDecimal.ONE));
+
+		assertTrue(latch.await(5, TimeUnit.SECONDS));
+		assertNotEquals(Thread.currentThread(), deliveredOn[0]);
+	}
+}
@@ -0,0 +1,104 @@
+package ca.ucalgary.seng300.simulation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+@SuppressWarnings("javadoc")
+public class EventJournalTest {
+	private Path file;
+	private EventJournal journal;
+
+	@Before
+	public void setup() throws IOException {
+		file = Files.createTempFile("journal", ".bin");
+		Files.delete(file);
+		journal = new EventJournal(file, 4096, 5);
+	}
+
+	@After
+	public void teardown() throws IOException {
+		journal.close();
+		Files.deleteIfExists(file);
+	}
+
+	private static List<String> records(EventJournal journal) {
+		List<String> records = new ArrayList<>();
+		journal.replay(r -> records.add(r.toString()));
+		return records;
+	}
+
+	@Test
+	public void testAppendAndReplay() {
+		assertEquals(0, journal.append("a", "x", "1"));
+		assertEquals(1, journal.writer("b").append("y", null));
+		assertEquals(List.of("0 a x 1", "1 b y "), records(journal));
+	}
+
+	@Test
+	public void testSyncMakesRecordsDurable() throws InterruptedException {
+		assertEquals(-1, journal.getDurableSequence());
+		long seq = journal.append("a", "x", "1");
+		journal.sync(seq);
+		assertTrue(journal.getDurableSequence() >= seq);
+	}
+
+	@Test
+	public void testReopenRecoversRecords() throws IOException {
+		journal.append("a", "x", "1");
+		journal.append("a", "y", "2");
+		journal.close();
+
+		journal = new EventJournal(file, 4096, 5);
+		assertEquals(List.of("0 a x 1", "1 a y 2"), records(journal));
+		assertEquals(2, journal.append("a", "z", "3"));
+	}
+
+	@Test
+	public void testTornRecordIsDiscarded() throws IOException {
+		journal.append("a", "x", "1");
+		journal.append("a", "y", "2");
+		journal.close();
+
+		try(FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+			// Corrupt the last byte of the second record's payload
+			channel.write(ByteBuffer.wrap(new byte[] { '?' }), 16 + 39 + 8 + 30);
+		}
+
+		journal = new EventJournal(file, 4096, 5);
+		assertEquals(List.of("0 a x 1"), records(journal));
+		assertEquals(1, journal.append("a", "z", "3"));
+		assertEquals(List.of("0 a x 1", "1 a z 3"), records(journal));
+	}
+
+	@Test(expected = InvalidStateSimulationException.class)
+	public void testFull() {
+		while(true)
+			journal.append("a", "x", "0123456789");
+	}
+
+	@Test(expected = InvalidStateSimulationException.class)
+	public void testAppendAfterClose() throws IOException {
+		journal.close();
+		journal.append("a", "x", "1");
+	}
+
+	@Test(expected = InvalidArgumentSimulationException.class)
+	public void testNotAJournal() throws IOException {
+		journal.close();
+		Files.write(file, new byte[] { 1, 2, 3, 4, 5, 6, 7, 8 });
+		journal = new EventJournal(file, 4096, 5);
+	}
+}
@@ -0,0 +1,50 @@
+package ca.ucalgary.seng300.simulation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+@SuppressWarnings("javadoc")
+public class LatencyHistogramTest {
+	@Test
+	public void testBucketsAreContiguous() {
+		assertEquals(0, LatencyHistogram.indexOf(0));
+		assertEquals(15, LatencyHistogram.indexOf(15));
+		assertEquals(16, LatencyHistogram.indexOf(16));
+
+		for(int i = 0; i < 959; i++)
+			assertEquals(i + 1, LatencyHistogram.indexOf(LatencyHistogram.highestValueIn(i) + 1));
+
+		assertEquals(959, LatencyHistogram.indexOf(Long.MAX_VALUE));
+	}
+
+	@Test
+	public void testPercentilesArePrecise() {
+		LatencyHistogram histogram = new LatencyHistogram();
+
+		for(long v = 1; v <= 1000; v++)
+			histogram.record(v * 1000);
+
+		LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+		assertEquals(1000, snapshot.getCount());
+		assertEquals(1_000_000, snapshot.getMax());
+		assertEquals(500_500, snapshot.getMean(), 0.001);
+
+		long p50 = snapshot.getValueAtPercentile(0.5);
+		assertTrue(p50 >= 500_000 && p50 <= 500_000 * 1.07);
+		assertEquals(1_000_000, snapshot.getValueAtPercentile(1));
+	}
+
+	@Test
+	public void testEmpty() {
+		LatencyHistogram.Snapshot snapshot = new LatencyHistogram().snapshot();
+		assertEquals(0, snapshot.getCount());
+		assertEquals(0, snapshot.getValueAtPercentile(0.99));
+	}
+
+	@Test(expected = InvalidArgumentSimulationException.class)
+	public void testBadPercentile() {
+		new LatencyHistogram().snapshot().getValueAtPercentile(1.5);
+	}
+}
@@ -0,0 +1,82 @@
+package ca.ucalgary.seng300.simulation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.jjjwelectronics.AbstractDevice;
+import com.jjjwelectronics.IDevice;
+import com.jjjwelectronics.IDeviceListener;
+import com.thelocalmarketplace.hardware.external.CardIssuer;
+
+import powerutility.PowerGrid;
+
+@SuppressWarnings("javadoc")
+public class MetricsTest {
+	@Before
+	public void setup() {
+		PowerGrid.engageUninterruptiblePowerSource();
+		PowerGrid.instance().forcePowerRestore();
+	}
+
+	@After
+	public void teardown() {
+		PowerGrid.reconnectToMains();
+	}
+
+	@Test
+	public void testDisabledByDefault() {
+		assertEquals(0, Metrics.start(null));
+		Metrics.stop(null, "nothing", 0);
+		assertNull(new CardIssuer("Bank", 10).getMetrics());
+	}
+
+	@Test
+	public void testIssuerOperationsAreTimed() {
+		CardIssuer issuer = new CardIssuer("Bank", 10);
+		Metrics metrics = new Metrics();
+		issuer.setMetrics(metrics);
+
+		issuer.authorizeHold("1234", 10);
+		issuer.authorizeHold("1234", 10);
+		issuer.releaseHold("1234", 0);
+
+		Metrics.Snapshot snapshot = metrics.snapshot();
+		assertEquals(2, snapshot.getOperations().get("authorizeHold").getCount());
+		assertEquals(1, snapshot.getOperations().get("releaseHold").getCount());
+		assertTrue(snapshot.toString().contains("authorizeHold"));
+	}
+
+	@Test
+	public void testDispatchIsTimed() {
+		AbstractDevice<IDeviceListener> device = new AbstractDevice<IDeviceListener>() {};
+		Metrics metrics = new Metrics();
+		device.setMetrics(metrics);
+		device.plugIn(PowerGrid.instance());
+		device.register(new IDeviceListener() {
+			@Override
+			public void aDeviceHasBeenEnabled(IDevice<? extends IDeviceListener> device) {}
+
+			@Override
+			public void aDeviceHasBeenDisabled(IDevice<? extends IDeviceListener> device) {}
+
+			@Override
+			public void aDeviceHasBeenTurnedOn(IDevice<? extends IDeviceListener> device) {}
+
+			@Override
+			public void aDeviceHasBeenTurnedOff(IDevice<? extends IDeviceListener> device) {}
+		});
+
+		device.turnOn();
+		device.turnOff();
+		device.turnOn();
+
+		Metrics.Snapshot snapshot = metrics.snapshot();
+		assertEquals(2, snapshot.getDispatches().get("aDeviceHasBeenTurnedOn").getCount());
+		assertEquals(1, snapshot.getDispatches().get("aDeviceHasBeenTurnedOff").getCount());
+	}
+}
@@ -0,0 +1,36 @@
+package ca.ucalgary.seng300.simulation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+import java.util.SplittableRandom;
+
+import org.junit.Test;
+
+@SuppressWarnings("javadoc")
+public class RandomnessTest {
+	@Test
+	public void testSeededStreamsRepeat() {
+		Randomness.seed(7);
+		SplittableRandom a1 = Randomness.newStream();
+		SplittableRandom b1 = Randomness.newStream();
+
+		Randomness.seed(7);
+		SplittableRandom a2 = Randomness.newStream();
+		SplittableRandom b2 = Randomness.newStream();
+
+		for(int i = 0; i < 100; i++) {
+			assertEquals(a1.nextLong(), a2.nextLong());
+			assertEquals(b1.nextLong(), b2.nextLong());
+		}
+	}
+
+	@Test
+	public void testStreamsAreIndependent() {
+		Randomness.seed(7);
+		SplittableRandom a = Randomness.newStream();
+		SplittableRandom b = Randomness.newStream();
+
+		assertNotEquals(a.nextLong(), b.nextLong());
+	}
+}
@@ -2,9 +2,14 @@ package com.jjjwelectronics;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -13,6 +18,7 @@ import com.jjjwelectronics.AbstractDevice;
 import com.jjjwelectronics.IDevice;
 import com.jjjwelectronics.IDeviceListener;
 
+import ca.ucalgary.seng300.simulation.InvalidArgumentSimulationException;
 import ca.ucalgary.seng300.simulation.InvalidStateSimulationException;
 import ca.ucalgary.seng300.simulation.NullPointerSimulationException;
 import powerutility.NoPowerException;
@@ -128,6 +134,33 @@ public class AbstractDeviceTest {
 		assertEquals(1, found);
 	}
 
+	@Test
+	public void testEventRaisedByListenerFollowsIt() {
+		List<String> events = new ArrayList<>();
+		device.register(new IDeviceListener() {
+			@Override
+			public void aDeviceHasBeenEnabled(IDevice<? extends IDeviceListener> device) {
+				events.add("enabled");
+				device.disable();
+				events.add("enabled done");
+			}
+
+			@Override
+			public void aDeviceHasBeenDisabled(IDevice<? extends IDeviceListener> device) {
+				events.add("disabled");
+			}
+
+			@Override
+			public void aDeviceHasBeenTurnedOn(IDevice<? extends IDeviceListener> device) {}
+
+			@Override
+			public void aDeviceHasBeenTurnedOff(IDevice<? extends IDeviceListener> device) {}
+		});
+		device.enable();
+		assertEquals(List.of("enabled", "enabled done", "disabled"), events);
+		assertTrue(device.isDisabled());
+	}
+
 	@Test
 	public void testEnableWithListener() {
 		device.register(new IDeviceListener() {
@@ -221,4 +254,134 @@ public class AbstractDeviceTest {
 		device.turnOff();
 		assertFalse(device.isPoweredUp());
 	}
+
+	@Test
+	public void testOutageIsPushedToDevice() {
+		assertTrue(device.isPoweredUp());
+		PowerGrid.instance().forcePowerOutage();
+
+		try {
+			device.isPoweredUp();
+			fail();
+		}
+		catch(NoPowerException e) {}
+
+		PowerGrid.instance().forcePowerRestore();
+		assertTrue(device.isPoweredUp());
+	}
+
+	@Test
+	public void testListenersSnapshot() {
+		IDeviceListener listener = new IDeviceListener() {
+			@Override
+			public void aDeviceHasBeenEnabled(IDevice<? extends IDeviceListener> device) {}
+
+			@Override
+			public void aDeviceHasBeenDisabled(IDevice<? extends IDeviceListener> device) {}
+
+			@Override
+			public void aDeviceHasBeenTurnedOn(IDevice<? extends IDeviceListener> device) {}
+
+			@Override
+			public void aDeviceHasBeenTurnedOff(IDevice<? extends IDeviceListener> device) {}
+		};
+		device.register(listener);
+		List<IDeviceListener> before = device.listeners();
+		assertSame(before, device.listeners());
+
+		device.register(listener);
+		assertEquals(1, before.size());
+		assertEquals(2, device.listeners().size());
+
+		assertTrue(device.deregister(listener));
+		assertEquals(1, device.listeners().size());
+		assertFalse(device.deregister(null));
+
+		try {
+			device.listeners().clear();
+			fail();
+		}
+		catch(UnsupportedOperationException e) {}
+	}
+
+	private class RecordingListener implements IDeviceListener {
+		private final String name;
+		private final List<String> events;
+
+		RecordingListener(String name, List<String> events) {
+			this.name = name;
+			this.events = events;
+		}
+
+		@Override
+		public void aDeviceHasBeenEnabled(IDevice<? extends IDeviceListener> device) {
+			events.add(name + " enabled");
+		}
+
+		@Override
+		public void aDeviceHasBeenDisabled(IDevice<? extends IDeviceListener> device) {
+			events.add(name + " disabled");
+		}
+
+		@Override
+		public void aDeviceHasBeenTurnedOn(IDevice<? extends IDeviceListener> device) {
+			events.add(name + " on");
+		}
+
+		@Override
+		public void aDeviceHasBeenTurnedOff(IDevice<? extends IDeviceListener> device) {
+			events.add(name + " off");
+		}
+	}
+
+	@Test
+	public void testInterestMasks() {
+		List<String> events = new ArrayList<>();
+		device.register(new RecordingListener("a", events), "aDeviceHasBeenTurnedOn");
+		device.register(new RecordingListener("b", events));
+		device.register(new RecordingListener("c", events), "aDeviceHasBeenDisabled", "aDeviceHasBeenTurnedOn");
+
+		device.turnOff();
+		device.turnOn();
+		device.disable();
+		device.enable();
+		device.turnOff();
+
+		assertEquals(List.of("b off", "a on", "b on", "c on", "b disabled", "c disabled", "b enabled", "b off"), events);
+		assertEquals(3, device.listeners().size());
+	}
+
+	@Test(expected = InvalidArgumentSimulationException.class)
+	public void testInterestInUnknownEvent() {
+		device.register(new RecordingListener("a", new ArrayList<>()), "aDeviceHasExploded");
+	}
+
+	@Test
+	public void testInterestInNonListenerMethod() {
+		try {
+			device.register(new RecordingListener("a", new ArrayList<>()), "toString");
+			fail();
+		}
+		catch(InvalidArgumentSimulationException e) {}
+
+		assertTrue(device.listeners().isEmpty());
+	}
+
+	@Test
+	public void testConcurrentTurnOnAnnouncesOnce() throws InterruptedException {
+		List<String> events = Collections.synchronizedList(new ArrayList<>());
+		device.turnOff();
+		device.register(new RecordingListener("a", events), "aDeviceHasBeenTurnedOn");
+
+		Thread[] threads = new Thread[8];
+		for(int i = 0; i < threads.length; i++) {
+			threads[i] = new Thread(() -> device.turnOn());
+			threads[i].start();
+		}
+		for(Thread thread : threads)
+			thread.join();
+
+		assertEquals(List.of("a on"), events);
+		assertTrue(device.isPoweredUp());
+	}
 }
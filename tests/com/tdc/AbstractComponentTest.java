@@ -3,14 +3,22 @@ package com.tdc;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
+import ca.ucalgary.seng300.simulation.InvalidArgumentSimulationException;
 import ca.ucalgary.seng300.simulation.NullPointerSimulationException;
 import powerutility.NoPowerException;
 import powerutility.PowerGrid;
+import powerutility.PowerSurge;
+import powerutility.VirtualClockFaultScheduler;
 
 @SuppressWarnings("javadoc")
 public class AbstractComponentTest {
@@ -125,4 +133,90 @@ public class AbstractComponentTest {
 		device.disconnect();
 		device.isDisabled();
 	}
+
+	@Test
+	public void testObserversAreNotifiedOutsideTheLockInOrder() {
+		device.connect(PowerGrid.instance());
+		device.activate();
+		List<String> events = new ArrayList<>();
+		device.attach(new IComponentObserver() {
+			@Override
+			public void enabled(IComponent<? extends IComponentObserver> component) {
+				events.add("enabled");
+			}
+
+			@Override
+			public void disabled(IComponent<? extends IComponentObserver> component) {
+				assertFalse(Thread.holdsLock(device));
+				events.add("disabled");
+				device.enable();
+				events.add("disabled done");
+			}
+
+			@Override
+			public void turnedOn(IComponent<? extends IComponentObserver> component) {}
+
+			@Override
+			public void turnedOff(IComponent<? extends IComponentObserver> component) {}
+		});
+
+		device.disable();
+
+		assertEquals(List.of("disabled", "disabled done", "enabled"), events);
+		assertFalse(device.isDisabled());
+	}
+
+	@Test
+	@SuppressWarnings("deprecation")
+	public void testObserversView() {
+		IComponentObserver observer = new IComponentObserver() {
+			@Override
+			public void enabled(IComponent<? extends IComponentObserver> component) {}
+
+			@Override
+			public void disabled(IComponent<? extends IComponentObserver> component) {}
+
+			@Override
+			public void turnedOn(IComponent<? extends IComponentObserver> component) {}
+
+			@Override
+			public void turnedOff(IComponent<? extends IComponentObserver> component) {}
+		};
+
+		try {
+			device.attach(observer, "hashCode");
+			fail();
+		}
+		catch(InvalidArgumentSimulationException e) {}
+
+		device.observers.add(observer);
+		assertEquals(List.of(observer), device.observers());
+		assertTrue(device.observers.remove(observer));
+		assertTrue(device.observers.isEmpty());
+		assertFalse(device.detach(observer));
+	}
+
+	@Test
+	public void testRandomSurgeReachesComponent() {
+		PowerGrid grid = new PowerGrid();
+		VirtualClockFaultScheduler clock = new VirtualClockFaultScheduler();
+		grid.setFaultScheduler(clock);
+		grid.setFaultProbabilities(0, 10000);
+		device.connect(grid);
+		assertTrue(device.hasPower());
+
+		clock.advance(10, TimeUnit.MILLISECONDS);
+
+		try {
+			device.hasPower();
+			fail();
+		}
+		catch(PowerSurge e) {}
+
+		grid.setFaultProbabilities(0, 0);
+		clock.advance(10, TimeUnit.MILLISECONDS);
+		assertTrue(device.hasPower());
+		clock.advance(1, TimeUnit.SECONDS);
+		assertTrue(device.hasPower());
+	}
 }
@@ -0,0 +1,112 @@
+package com.tdc;
+
+import static org.junit.Assert.assertEquals;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Currency;
+import java.util.List;
+import java.util.Locale;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.tdc.coin.Coin;
+import com.tdc.coin.CoinStorageUnit;
+
+import ca.ucalgary.seng300.simulation.InvalidArgumentSimulationException;
+import powerutility.PowerGrid;
+
+@SuppressWarnings("javadoc")
+public class CashEventCoalescerTest {
+	private CoinStorageUnit storage;
+	private Coin coin;
+	private List<String> events;
+
+	@Before
+	public void setup() {
+		PowerGrid.engageUninterruptiblePowerSource();
+		PowerGrid.instance().forcePowerRestore();
+		storage = new CoinStorageUnit(100);
+		storage.connect(PowerGrid.instance());
+		storage.activate();
+		coin = new Coin(Currency.getInstance(Locale.CANADA), BigDecimal.ONE);
+		events = new ArrayList<>();
+		storage.getEventCoalescer().attach(new CoalescedCashObserver() {
+			@Override
+			public void cashAdded(IComponent<? extends IComponentObserver> component, int count, int level) {
+				events.add("added " + count + " -> " + level);
+			}
+
+			@Override
+			public void cashRemoved(IComponent<? extends IComponentObserver> component, int count, int level) {
+				events.add("removed " + count + " -> " + level);
+			}
+
+			@Override
+			public void thresholdCrossed(IComponent<? extends IComponentObserver> component, int threshold, int level) {
+				events.add("crossed " + threshold + " -> " + level);
+			}
+		});
+	}
+
+	@After
+	public void teardown() {
+		PowerGrid.reconnectToMains();
+	}
+
+	@Test
+	public void testBatches() throws Exception {
+		storage.getEventCoalescer().setBatchSize(10);
+
+		for(int i = 0; i < 25; i++)
+			storage.receive(coin);
+
+		assertEquals(List.of("added 10 -> 10", "added 10 -> 20"), events);
+
+		storage.getEventCoalescer().flush();
+		assertEquals("added 5 -> 25", events.get(2));
+		assertEquals(3, events.size());
+	}
+
+	@Test
+	public void testDefaultBatchSize() throws Exception {
+		for(int i = 0; i < CashEventCoalescer.DEFAULT_BATCH_SIZE; i++)
+			storage.receive(coin);
+
+		assertEquals(List.of("added 10 -> 10"), events);
+	}
+
+	@Test
+	public void testThresholds() throws Exception {
+		storage.getEventCoalescer().setThresholds(5, 50);
+
+		for(int i = 0; i < 7; i++)
+			storage.receive(coin);
+
+		assertEquals(List.of("added 5 -> 5", "crossed 5 -> 5"), events);
+
+		storage.unload();
+		assertEquals(List.of("added 5 -> 5", "crossed 5 -> 5", "added 2 -> 7", "crossed 5 -> 0"), events);
+	}
+
+	@Test
+	public void testLoadFlushes() throws Exception {
+		storage.receive(coin);
+		storage.load(coin, coin);
+		storage.getEventCoalescer().flush();
+
+		assertEquals(List.of("added 1 -> 1"), events);
+	}
+
+	@Test(expected = InvalidArgumentSimulationException.class)
+	public void testBadBatchSize() {
+		storage.getEventCoalescer().setBatchSize(0);
+	}
+
+	@Test(expected = InvalidArgumentSimulationException.class)
+	public void testBadThreshold() {
+		storage.getEventCoalescer().setThresholds(3, 0);
+	}
+}
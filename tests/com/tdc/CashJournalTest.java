@@ -0,0 +1,127 @@
+package com.tdc;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Currency;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.tdc.coin.Coin;
+import com.tdc.coin.CoinDispenser;
+import com.tdc.coin.CoinStorageUnit;
+
+import ca.ucalgary.seng300.simulation.EventJournal;
+import powerutility.PowerGrid;
+
+@SuppressWarnings("javadoc")
+public class CashJournalTest {
+	private Path file;
+	private EventJournal journal;
+	private Currency currency;
+
+	@Before
+	public void setup() throws IOException {
+		PowerGrid.engageUninterruptiblePowerSource();
+		PowerGrid.instance().forcePowerRestore();
+		file = Files.createTempFile("journal", ".bin");
+		Files.delete(file);
+		journal = new EventJournal(file, 1 << 16, 5);
+		currency = Currency.getInstance(Locale.CANADA);
+	}
+
+	@After
+	public void teardown() throws IOException {
+		journal.close();
+		Files.deleteIfExists(file);
+		PowerGrid.reconnectToMains();
+	}
+
+	@Test
+	public void testStorageUnitContentsAreRebuilt() throws Exception {
+		CoinStorageUnit storage = new CoinStorageUnit(10);
+		storage.connect(PowerGrid.instance());
+		storage.activate();
+		storage.setJournal(journal.writer("storage"));
+
+		Coin quarter = new Coin(currency, new BigDecimal("0.25"));
+		Coin loonie = new Coin(currency, BigDecimal.ONE);
+		storage.load(quarter, quarter);
+		storage.receive(loonie);
+
+		Map<String, List<String>> contents = CashJournal.contents(journal);
+		assertEquals(List.of("CAD 0.25", "CAD 0.25", "CAD 1.00"), contents.get("storage"));
+
+		Coin[] coins = CashJournal.decodeCoins(contents.get("storage"));
+		assertEquals(new BigDecimal("0.25"), coins[0].getValue());
+		assertEquals(currency, coins[2].getCurrency());
+
+		storage.unload();
+		assertEquals(null, CashJournal.contents(journal).get("storage"));
+	}
+
+	@Test
+	public void testDispenserRemovalsAreReplayed() throws Exception {
+		CoinDispenser dispenser = new CoinDispenser(10);
+		dispenser.connect(PowerGrid.instance());
+		dispenser.activate();
+		dispenser.sink = new Sink<Coin>() {
+			@Override
+			public void receive(Coin cash) {}
+
+			@Override
+			public boolean hasSpace() {
+				return true;
+			}
+		};
+		dispenser.setJournal(journal.writer("dispenser"));
+
+		Coin dime = new Coin(currency, new BigDecimal("0.10"));
+		dispenser.load(dime, dime, dime);
+		dispenser.emit();
+
+		assertEquals(List.of("CAD 0.10", "CAD 0.10"), CashJournal.contents(journal).get("dispenser"));
+	}
+
+	@Test
+	public void testEqualValuesAtDifferentScalesMatch() throws Exception {
+		CoinDispenser dispenser = new CoinDispenser(10, true);
+		dispenser.connect(PowerGrid.instance());
+		dispenser.activate();
+		dispenser.sink = new Sink<Coin>() {
+			@Override
+			public void receive(Coin cash) {}
+
+			@Override
+			public boolean hasSpace() {
+				return true;
+			}
+		};
+		dispenser.setJournal(journal.writer("dispenser"));
+
+		dispenser.load(new Coin(currency, new BigDecimal("0.25")));
+		dispenser.receive(new Coin(currency, new BigDecimal("0.250")));
+		dispenser.emit();
+		dispenser.emit();
+
+		assertEquals(null, CashJournal.contents(journal).get("dispenser"));
+	}
+
+	@Test
+	public void testNothingIsRecordedWithoutAJournal() throws Exception {
+		CoinStorageUnit storage = new CoinStorageUnit(10);
+		storage.connect(PowerGrid.instance());
+		storage.activate();
+		storage.receive(new Coin(currency, BigDecimal.ONE));
+
+		assertEquals(0, CashJournal.contents(journal).size());
+	}
+}
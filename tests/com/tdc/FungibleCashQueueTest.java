@@ -0,0 +1,84 @@
+package com.tdc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import ca.ucalgary.seng300.simulation.NullPointerSimulationException;
+
+@SuppressWarnings("javadoc")
+public class FungibleCashQueueTest {
+	private FungibleCashQueue<String> queue;
+
+	@Before
+	public void setup() {
+		queue = new FungibleCashQueue<>(String::equals);
+	}
+
+	@Test
+	public void testRunsAreCounted() {
+		String a = new String("a");
+
+		for(int i = 0; i < 1000; i++)
+			queue.add(new String("a"));
+
+		queue.add(new String("b"));
+		queue.add(a);
+
+		assertEquals(1002, queue.size());
+		assertEquals(3, queue.getRunCount());
+	}
+
+	@Test
+	public void testFirstInFirstOut() {
+		queue.add("a");
+		queue.add("a");
+		queue.add("b");
+		queue.add("a");
+
+		List<String> out = new ArrayList<>();
+		String s;
+
+		while((s = queue.poll()) != null)
+			out.add(s);
+
+		assertEquals(List.of("a", "a", "b", "a"), out);
+		assertEquals(0, queue.getRunCount());
+		assertNull(queue.peek());
+	}
+
+	@Test
+	public void testFirstOfRunComesOut() {
+		String first = new String("a");
+		queue.add(first);
+		queue.add(new String("a"));
+
+		assertSame(first, queue.poll());
+		assertSame(first, queue.poll());
+	}
+
+	@Test
+	public void testIterationAndDrain() {
+		queue.add("a");
+		queue.add("a");
+		queue.add("b");
+
+		assertEquals(List.of("a", "a", "b"), new ArrayList<>(queue));
+
+		List<String> drained = queue.drain();
+		assertEquals(0, queue.size());
+		assertEquals(List.of("a", "a", "b"), drained);
+		assertEquals("b", drained.get(2));
+	}
+
+	@Test(expected = NullPointerSimulationException.class)
+	public void testNull() {
+		queue.add(null);
+	}
+}
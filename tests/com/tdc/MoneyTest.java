@@ -0,0 +1,75 @@
+package com.tdc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigDecimal;
+import java.util.Currency;
+
+import org.junit.Test;
+
+import ca.ucalgary.seng300.simulation.InvalidArgumentSimulationException;
+import ca.ucalgary.seng300.simulation.NullPointerSimulationException;
+
+@SuppressWarnings("javadoc")
+public class MoneyTest {
+	private Currency cad = Currency.getInstance("CAD");
+	private Currency usd = Currency.getInstance("USD");
+	private Currency jpy = Currency.getInstance("JPY");
+
+	@Test
+	public void testMinorUnits() {
+		Money money = Money.of(cad, new BigDecimal("0.25"));
+
+		assertEquals(25, money.getMinorUnits());
+		assertEquals(2, money.getScale());
+		assertEquals(cad, money.getCurrency());
+		assertEquals(new BigDecimal("0.25"), money.toBigDecimal());
+		assertEquals("0.25 CAD", money.toString());
+		assertEquals(1000, Money.of(jpy, new BigDecimal("1000")).getMinorUnits());
+	}
+
+	@Test
+	public void testEqualityIgnoresScale() {
+		Money a = Money.of(cad, new BigDecimal("0.1"));
+		Money b = Money.of(cad, new BigDecimal("0.100"));
+
+		assertEquals(a, b);
+		assertEquals(a.hashCode(), b.hashCode());
+		assertEquals(Money.of(cad, BigDecimal.ONE), Money.of(cad, new BigDecimal("1.00")));
+		assertNotEquals(a, Money.of(usd, new BigDecimal("0.1")));
+	}
+
+	@Test
+	public void testFinerThanMinorUnit() {
+		Money money = Money.of(cad, new BigDecimal("0.005"));
+
+		assertEquals(5, money.getMinorUnits());
+		assertEquals(3, money.getScale());
+		assertEquals(money, Money.of(cad, new BigDecimal("0.0050")));
+		assertTrue(money.compareTo(Money.of(cad, new BigDecimal("0.01"))) < 0);
+	}
+
+	@Test
+	public void testOrdering() {
+		assertTrue(Money.of(cad, BigDecimal.TEN).compareTo(Money.of(cad, new BigDecimal(2))) > 0);
+		assertTrue(Money.of(cad, BigDecimal.TEN).compareTo(Money.of(usd, BigDecimal.ONE)) < 0);
+		assertEquals(0, Money.of(cad, new BigDecimal("5.0")).compareTo(Money.of(cad, new BigDecimal(5))));
+	}
+
+	@Test(expected = InvalidArgumentSimulationException.class)
+	public void testTooLarge() {
+		Money.of(cad, new BigDecimal("1e30"));
+	}
+
+	@Test(expected = NullPointerSimulationException.class)
+	public void testNullCurrency() {
+		Money.of(null, BigDecimal.ONE);
+	}
+
+	@Test(expected = NullPointerSimulationException.class)
+	public void testNullAmount() {
+		Money.of(cad, null);
+	}
+}
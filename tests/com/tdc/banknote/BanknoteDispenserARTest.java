@@ -1,6 +1,7 @@
 package com.tdc.banknote;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import java.math.BigDecimal;
@@ -17,9 +18,11 @@ import com.tdc.DisabledException;
 import com.tdc.IComponent;
 import com.tdc.IComponentObserver;
 import com.tdc.NoCashAvailableException;
+import com.tdc.Sink;
 import com.tdc.StandardSinkStub;
 import com.tdc.banknote.AbstractBanknoteDispenser;
 import com.tdc.banknote.Banknote;
+import com.tdc.banknote.BanknoteDispensationSlot;
 import com.tdc.banknote.BanknoteDispenser;
 import com.tdc.banknote.BanknoteDispenserObserver;
 import com.tdc.banknote.BanknoteInsertionSlot;
@@ -119,6 +122,11 @@ public class BanknoteDispenserARTest {
 				fail();
 			}
 
+			@Override
+			public void banknotesRemoved(IBanknoteDispenser dispenser, Banknote... banknotes) {
+				fail();
+			}
+
 			@Override
 			public void banknoteAdded(IBanknoteDispenser dispenser, Banknote banknote) {
 				fail();
@@ -190,6 +198,11 @@ public class BanknoteDispenserARTest {
 				fail();
 			}
 
+			@Override
+			public void banknotesRemoved(IBanknoteDispenser dispenser, Banknote... banknotes) {
+				fail();
+			}
+
 			@Override
 			public void banknoteAdded(IBanknoteDispenser dispenser, Banknote banknote) {
 				fail();
@@ -253,6 +266,10 @@ public class BanknoteDispenserARTest {
 				found();
 			}
 
+			@Override
+			public void banknotesRemoved(IBanknoteDispenser dispenser, Banknote... banknotes) {
+			}
+
 			@Override
 			public void banknoteAdded(IBanknoteDispenser dispenser, Banknote banknote) {
 				fail();
@@ -328,6 +345,10 @@ public class BanknoteDispenserARTest {
 				found();
 			}
 
+			@Override
+			public void banknotesRemoved(IBanknoteDispenser dispenser, Banknote... banknotes) {
+			}
+
 			@Override
 			public void banknoteAdded(IBanknoteDispenser dispenser, Banknote banknote) {
 				fail();
@@ -461,6 +482,11 @@ public class BanknoteDispenserARTest {
 			public void banknoteRemoved(IBanknoteDispenser dispenser, Banknote banknote) {
 				fail();
 			}
+
+			@Override
+			public void banknotesRemoved(IBanknoteDispenser dispenser, Banknote... banknotes) {
+				fail();
+			}
 		});
 		dispenser.receive(banknote);
 		assertEquals(1, found);
@@ -490,4 +516,73 @@ public class BanknoteDispenserARTest {
 		dispenser.disconnect();
 		dispenser.hasSpace();
 	}
+
+	@Test
+	public void testBatchEmitIntoSlot() throws Exception {
+		BanknoteDispensationSlot slot = new BanknoteDispensationSlot();
+		slot.connect(PowerGrid.instance());
+		slot.activate();
+		dispenser.sink = slot;
+
+		for(int i = 0; i < 25; i++)
+			dispenser.load(banknote);
+
+		try {
+			dispenser.emit(21);
+			fail();
+		}
+		catch(CashOverloadException e) {}
+
+		assertEquals(25, dispenser.size());
+
+		dispenser.emit(20);
+		assertEquals(5, dispenser.size());
+		slot.dispense();
+		assertEquals(20, slot.removeDanglingBanknotes().size());
+	}
+
+	@Test
+	public void testBatchEmitRefusedPartwayIsTakenBack() throws Exception {
+		BanknoteDispensationSlot slot = new BanknoteDispensationSlot();
+		slot.connect(PowerGrid.instance());
+		slot.activate();
+		int[] received = { 0 };
+
+		dispenser.sink = new Sink<Banknote>() {
+			@Override
+			public void receive(Banknote banknote) throws CashOverloadException, DisabledException {
+				if(++received[0] == 3)
+					throw new CashOverloadException();
+
+				slot.receive(banknote);
+			}
+
+			@Override
+			public boolean hasSpace() {
+				return slot.hasSpace();
+			}
+
+			@Override
+			public boolean hasSpace(int count) {
+				return slot.hasSpace(count);
+			}
+
+			@Override
+			public boolean retract(List<Banknote> banknotes) {
+				return slot.retract(banknotes);
+			}
+		};
+
+		for(int i = 0; i < 5; i++)
+			dispenser.load(banknote);
+
+		try {
+			dispenser.emit(4);
+			fail();
+		}
+		catch(CashOverloadException e) {}
+
+		assertEquals(5, dispenser.size());
+		assertTrue(slot.hasSpace(slot.getCapacity()));
+	}
 }
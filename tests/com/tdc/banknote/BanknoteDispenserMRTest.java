@@ -108,6 +108,11 @@ public class BanknoteDispenserMRTest {
 				fail();
 			}
 
+			@Override
+			public void banknotesRemoved(IBanknoteDispenser dispenser, Banknote... banknotes) {
+				fail();
+			}
+
 			@Override
 			public void banknoteAdded(IBanknoteDispenser dispenser, Banknote banknote) {
 				fail();
@@ -179,6 +184,11 @@ public class BanknoteDispenserMRTest {
 				fail();
 			}
 
+			@Override
+			public void banknotesRemoved(IBanknoteDispenser dispenser, Banknote... banknotes) {
+				fail();
+			}
+
 			@Override
 			public void banknoteAdded(IBanknoteDispenser dispenser, Banknote banknote) {
 				fail();
@@ -241,6 +251,10 @@ public class BanknoteDispenserMRTest {
 				found();
 			}
 
+			@Override
+			public void banknotesRemoved(IBanknoteDispenser dispenser, Banknote... banknotes) {
+			}
+
 			@Override
 			public void banknoteAdded(IBanknoteDispenser dispenser, Banknote banknote) {
 				fail();
@@ -316,6 +330,10 @@ public class BanknoteDispenserMRTest {
 				found();
 			}
 
+			@Override
+			public void banknotesRemoved(IBanknoteDispenser dispenser, Banknote... banknotes) {
+			}
+
 			@Override
 			public void banknoteAdded(IBanknoteDispenser dispenser, Banknote banknote) {
 				fail();
@@ -6,7 +6,10 @@ import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Currency;
+import java.util.List;
 import java.util.Locale;
 
 import org.junit.After;
@@ -16,6 +19,7 @@ import org.junit.Test;
 import com.tdc.CashOverloadException;
 import com.tdc.ComponentFailure;
 import com.tdc.DisabledException;
+import com.tdc.Disposition;
 import com.tdc.IComponent;
 import com.tdc.IComponentObserver;
 import com.tdc.StandardSinkStub;
@@ -24,6 +28,7 @@ import com.tdc.banknote.BanknoteInsertionSlot;
 import com.tdc.banknote.BanknoteInsertionSlotObserver;
 import com.tdc.banknote.BanknoteStorageUnit;
 
+import ca.ucalgary.seng300.simulation.NullPointerSimulationException;
 import ca.ucalgary.seng300.simulation.SimulationException;
 import powerutility.NoPowerException;
 import powerutility.PowerGrid;
@@ -107,6 +112,9 @@ public class BanknoteInsertionSlotTest {
 				fail();
 			}
 
+			@Override
+			public void banknotesInserted(BanknoteInsertionSlot slot, int count) {}
+
 			@Override
 			public void banknoteInserted(BanknoteInsertionSlot slot) {
 				found++;
@@ -171,6 +179,9 @@ public class BanknoteInsertionSlotTest {
 				fail();
 			}
 
+			@Override
+			public void banknotesInserted(BanknoteInsertionSlot slot, int count) {}
+
 			@Override
 			public void banknoteInserted(BanknoteInsertionSlot slot) {
 				fail();
@@ -253,6 +264,9 @@ public class BanknoteInsertionSlotTest {
 				found++;
 			}
 
+			@Override
+			public void banknotesInserted(BanknoteInsertionSlot slot, int count) {}
+
 			@Override
 			public void banknoteInserted(BanknoteInsertionSlot slot) {
 				fail();
@@ -310,6 +324,9 @@ public class BanknoteInsertionSlotTest {
 				fail();
 			}
 
+			@Override
+			public void banknotesInserted(BanknoteInsertionSlot slot, int count) {}
+
 			@Override
 			public void banknoteInserted(BanknoteInsertionSlot slot) {
 				fail();
@@ -358,4 +375,166 @@ public class BanknoteInsertionSlotTest {
 		slot.disactivate();
 		slot.hasSpace();
 	}
+
+	private BanknoteStorageUnit feedThroughValidator(int capacity) {
+		BanknoteValidator validator = new BanknoteValidator(currency,
+			new BigDecimal[] { new BigDecimal(5), new BigDecimal(10) });
+		validator.connect(PowerGrid.instance());
+		validator.activate();
+		BanknoteStorageUnit storage = new BanknoteStorageUnit(capacity);
+		storage.connect(PowerGrid.instance());
+		storage.activate();
+		slot.sink = validator;
+		validator.source = slot;
+		validator.sink = storage;
+		return storage;
+	}
+
+	private static List<Banknote> rejected(Banknote[] stack, List<Disposition> dispositions) {
+		List<Banknote> rejected = new ArrayList<>();
+
+		for(int i = 0; i < stack.length; i++)
+			if(dispositions.get(i) == Disposition.REJECTED)
+				rejected.add(stack[i]);
+
+		return rejected;
+	}
+
+	@Test
+	public void testReceiveAllReachesPerBanknoteObservers() throws DisabledException, CashOverloadException {
+		slot.attach(new BanknoteInsertionSlotObserver() {
+			@Override
+			public void banknoteInserted(BanknoteInsertionSlot slot) {
+				found++;
+			}
+
+			@Override
+			public void banknoteEjected(BanknoteInsertionSlot slot) {}
+
+			@Override
+			public void banknoteRemoved(BanknoteInsertionSlot slot) {}
+
+			@Override
+			public void enabled(IComponent<? extends IComponentObserver> component) {}
+
+			@Override
+			public void disabled(IComponent<? extends IComponentObserver> component) {}
+
+			@Override
+			public void turnedOn(IComponent<? extends IComponentObserver> component) {}
+
+			@Override
+			public void turnedOff(IComponent<? extends IComponentObserver> component) {}
+		}, "banknoteInserted");
+
+		slot.receiveAll(banknote, banknote);
+
+		assertEquals(2, found);
+	}
+
+	@Test
+	public void testReceiveAllThroughValidator() throws DisabledException, CashOverloadException {
+		BanknoteStorageUnit storage = feedThroughValidator(10);
+		Banknote five = new Banknote(currency, new BigDecimal(5));
+		Banknote ten = new Banknote(currency, BigDecimal.TEN);
+		Banknote seven = new Banknote(currency, new BigDecimal(7));
+		Banknote foreign = new Banknote(Currency.getInstance(Locale.US), new BigDecimal(5));
+		Banknote[] stack = { five, seven, ten, foreign, five };
+
+		List<Disposition> dispositions = slot.receiveAll(stack);
+
+		assertEquals(stack.length, dispositions.size());
+		assertEquals(Disposition.REJECTED, dispositions.get(1));
+		assertEquals(Disposition.REJECTED, dispositions.get(3));
+		List<Banknote> rejected = rejected(stack, dispositions);
+		assertEquals(stack.length - rejected.size(), storage.getBanknoteCount());
+		assertTrue(slot.hasDanglingBanknotes());
+		assertEquals(rejected, slot.removeDanglingBanknotes());
+		assertFalse(slot.hasDanglingBanknotes());
+	}
+
+	@Test
+	public void testReceiveAllReturnsOverflow() throws DisabledException, CashOverloadException {
+		BanknoteStorageUnit storage = feedThroughValidator(2);
+		Banknote[] stack = new Banknote[4];
+		Arrays.fill(stack, new Banknote(currency, BigDecimal.TEN));
+
+		List<Disposition> dispositions = slot.receiveAll(stack);
+
+		int accepted = stack.length - rejected(stack, dispositions).size();
+		assertTrue(accepted <= 2);
+		assertEquals(accepted, storage.getBanknoteCount());
+		assertEquals(stack.length - accepted, slot.removeDanglingBanknotes().size());
+	}
+
+	@Test
+	public void testReceiveAllWhenSinkIsFull() throws DisabledException, CashOverloadException {
+		slot.sink = new StandardSinkStub<>(false);
+		found = 0;
+		slot.attach(new BanknoteInsertionSlotObserver() {
+			@Override
+			public void enabled(IComponent<? extends IComponentObserver> component) {}
+
+			@Override
+			public void disabled(IComponent<? extends IComponentObserver> component) {}
+
+			@Override
+			public void turnedOn(IComponent<? extends IComponentObserver> component) {}
+
+			@Override
+			public void turnedOff(IComponent<? extends IComponentObserver> component) {}
+
+			@Override
+			public void banknotesInserted(BanknoteInsertionSlot slot, int count) {
+				assertEquals(2, count);
+				found++;
+			}
+
+			@Override
+			public void banknoteInserted(BanknoteInsertionSlot slot) {
+				fail();
+			}
+
+			@Override
+			public void banknoteEjected(BanknoteInsertionSlot slot) {
+				found++;
+			}
+
+			@Override
+			public void banknoteRemoved(BanknoteInsertionSlot slot) {}
+		});
+
+		assertEquals(Arrays.asList(Disposition.REJECTED, Disposition.REJECTED), slot.receiveAll(banknote, banknote));
+		assertEquals(2, found);
+		assertEquals(banknote, slot.removeDanglingBanknote());
+		assertTrue(slot.hasDanglingBanknotes());
+		assertEquals(banknote, slot.removeDanglingBanknote());
+		assertFalse(slot.hasDanglingBanknotes());
+	}
+
+	@Test(expected = CashOverloadException.class)
+	public void testReceiveAllWhenDangling() throws DisabledException, CashOverloadException {
+		slot.reject(banknote);
+		slot.receiveAll(banknote);
+	}
+
+	@Test
+	public void testReceiveAllWithNullBanknoteMovesNothing() throws DisabledException, CashOverloadException {
+		BanknoteStorageUnit storage = feedThroughValidator(10);
+
+		try {
+			slot.receiveAll(banknote, null);
+			fail();
+		}
+		catch(NullPointerSimulationException e) {
+			assertEquals(0, storage.getBanknoteCount());
+			assertFalse(slot.hasDanglingBanknotes());
+		}
+	}
+
+	@Test(expected = DisabledException.class)
+	public void testReceiveAllWhenDisabled() throws DisabledException, CashOverloadException {
+		slot.disable();
+		slot.receiveAll(banknote);
+	}
 }
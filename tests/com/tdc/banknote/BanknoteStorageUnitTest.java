@@ -177,8 +177,7 @@ public class BanknoteStorageUnitTest {
 			}
 		});
 		List<Banknote> result = unit.unload();
-		assertEquals(1, result.size());
-		assertEquals(null, result.get(0));
+		assertEquals(0, result.size());
 		assertEquals(1, found);
 	}
 
@@ -335,4 +334,24 @@ public class BanknoteStorageUnitTest {
 		unit.receive(banknote);
 		assertFalse(unit.hasSpace());
 	}
+
+	@Test
+	public void testTalliesByDenomination() throws CashOverloadException, DisabledException {
+		unit = new BanknoteStorageUnit(10);
+		unit.connect(PowerGrid.instance());
+		unit.activate();
+		BigDecimal five = new BigDecimal(5);
+		unit.load(new Banknote(currency, five), new Banknote(currency, five));
+		unit.receive(banknote);
+
+		assertEquals(2, unit.getBanknoteCount(currency, five));
+		assertEquals(1, unit.getBanknoteCount(currency, BigDecimal.ONE));
+		assertEquals(2, unit.getBanknoteCounts(currency).size());
+		assertEquals(0, new BigDecimal(11).compareTo(unit.getTotalValue(currency)));
+
+		List<Banknote> unloaded = unit.unload();
+		assertEquals(3, unloaded.size());
+		assertEquals(0, unit.getBanknoteCount(currency, five));
+		assertEquals(BigDecimal.ZERO, unit.getTotalValue(currency));
+	}
 }
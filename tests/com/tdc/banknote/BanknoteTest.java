@@ -35,4 +35,31 @@ public class BanknoteTest {
 	public void testZeroValue() {
 		new Banknote(currency, BigDecimal.ZERO);
 	}
+
+	@Test
+	public void testFlyweight() {
+		Banknote a = Banknote.of(currency, new BigDecimal("5"));
+		Banknote b = Banknote.of(currency, new BigDecimal("5.000"));
+
+		assertTrue(a == b);
+		assertEquals(new BigDecimal("5.00"), a.getDenomination());
+		assertEquals(new Banknote(currency, new BigDecimal("5.0")).getMoney(), a.getMoney());
+		assertTrue(a != Banknote.of(currency, BigDecimal.TEN));
+	}
+
+	@Test(expected = SimulationException.class)
+	public void testFlyweightZeroValue() {
+		Banknote.of(currency, BigDecimal.ZERO);
+	}
+
+	@Test
+	public void testEighteenDigits() {
+		BigDecimal value = new BigDecimal("1234567890123456.78");
+		assertEquals(value, new Banknote(currency, value).getMoney().toBigDecimal());
+	}
+
+	@Test(expected = SimulationException.class)
+	public void testTooManyDigits() {
+		new Banknote(currency, new BigDecimal("1.0000000000000000001"));
+	}
 }
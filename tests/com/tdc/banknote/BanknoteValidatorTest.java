@@ -5,7 +5,9 @@ import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import java.math.BigDecimal;
+import java.util.Collections;
 import java.util.Currency;
+import java.util.List;
 import java.util.Locale;
 
 import org.junit.After;
@@ -15,6 +17,7 @@ import org.junit.Test;
 import com.tdc.CashOverloadException;
 import com.tdc.ComponentFailure;
 import com.tdc.DisabledException;
+import com.tdc.Disposition;
 import com.tdc.IComponent;
 import com.tdc.IComponentObserver;
 import com.tdc.NoCashAvailableException;
@@ -114,6 +117,9 @@ public class BanknoteValidatorTest {
 				fail();
 			}
 
+			@Override
+			public void goodBanknotes(BanknoteValidator validator, Currency currency, BigDecimal... denominations) {}
+
 			@Override
 			public void goodBanknote(BanknoteValidator validator, Currency currency, BigDecimal value) {
 				found++;
@@ -163,6 +169,9 @@ public class BanknoteValidatorTest {
 				fail();
 			}
 
+			@Override
+			public void goodBanknotes(BanknoteValidator validator, Currency currency, BigDecimal... denominations) {}
+
 			@Override
 			public void goodBanknote(BanknoteValidator validator, Currency currency, BigDecimal value) {
 				retry = true;
@@ -221,6 +230,9 @@ public class BanknoteValidatorTest {
 				fail();
 			}
 
+			@Override
+			public void goodBanknotes(BanknoteValidator validator, Currency currency, BigDecimal... denominations) {}
+
 			@Override
 			public void goodBanknote(BanknoteValidator validator, Currency currency, BigDecimal value) {
 				fail();
@@ -265,6 +277,9 @@ public class BanknoteValidatorTest {
 				fail();
 			}
 
+			@Override
+			public void goodBanknotes(BanknoteValidator validator, Currency currency, BigDecimal... denominations) {}
+
 			@Override
 			public void goodBanknote(BanknoteValidator validator, Currency currency, BigDecimal value) {
 				fail();
@@ -315,6 +330,9 @@ public class BanknoteValidatorTest {
 				fail();
 			}
 
+			@Override
+			public void goodBanknotes(BanknoteValidator validator, Currency currency, BigDecimal... denominations) {}
+
 			@Override
 			public void goodBanknote(BanknoteValidator validator, Currency currency, BigDecimal value) {
 				fail();
@@ -450,4 +468,94 @@ public class BanknoteValidatorTest {
 		validator.disactivate();
 		validator.reject(null);
 	}
+
+	private BanknoteStorageUnit storage(int capacity) {
+		BanknoteStorageUnit unit = new BanknoteStorageUnit(capacity);
+		unit.connect(PowerGrid.instance());
+		unit.activate();
+		return unit;
+	}
+
+	private int count(List<Disposition> dispositions, Disposition disposition) {
+		return Collections.frequency(dispositions, disposition);
+	}
+
+	@Test
+	public void testRecyclingOverflowsToStorage() throws DisabledException, CashOverloadException {
+		BanknoteStorageUnit recycler = storage(2);
+		BanknoteStorageUnit overflow = storage(10);
+		validator.source = new StandardSourceStub<Banknote>(validator);
+		validator.sink = overflow;
+		validator.setupRecycling(Collections.singletonMap(BigDecimal.ONE, recycler));
+
+		List<Disposition> dispositions = validator
+			.receiveAll(Collections.nCopies(5, new Banknote(currency, BigDecimal.ONE)));
+
+		int rejected = count(dispositions, Disposition.REJECTED);
+		assertEquals(Math.min(2, 5 - rejected), recycler.getBanknoteCount());
+		assertEquals(recycler.getBanknoteCount(), count(dispositions, Disposition.ACCEPTED));
+		assertEquals(overflow.getBanknoteCount(), count(dispositions, Disposition.OVERFLOWED));
+		assertEquals(5 - rejected, recycler.getBanknoteCount() + overflow.getBanknoteCount());
+	}
+
+	@Test
+	public void testRecyclingFollowsTrackedDispenser() throws DisabledException, CashOverloadException {
+		BanknoteDispenser dispenser = new BanknoteDispenser();
+		dispenser.connect(PowerGrid.instance());
+		dispenser.activate();
+
+		for(int i = 0; i < dispenser.getCapacity() - 2; i++)
+			dispenser.load(banknote);
+
+		BanknoteStorageUnit overflow = storage(10);
+		validator.source = new StandardSourceStub<Banknote>(validator);
+		validator.sink = overflow;
+		validator.setupRecycling(Collections.singletonMap(BigDecimal.ONE, dispenser));
+		validator.trackDispenser(BigDecimal.ONE, dispenser);
+
+		int stored = 0;
+
+		while(stored < 4) {
+			List<Disposition> dispositions = validator.receiveAll(Collections.singletonList(banknote));
+			stored += 1 - count(dispositions, Disposition.REJECTED);
+		}
+
+		assertEquals(dispenser.getCapacity(), dispenser.size());
+		assertEquals(2, overflow.getBanknoteCount());
+	}
+
+	@Test
+	public void testRecyclingSingleBanknote() throws DisabledException, CashOverloadException {
+		BanknoteStorageUnit recycler = storage(1);
+		BanknoteStorageUnit overflow = storage(10);
+		validator.source = new StandardSourceStub<Banknote>(validator) {
+			@Override
+			public void reject(Banknote banknote) {
+				retry = true;
+			}
+		};
+		validator.sink = overflow;
+		validator.setupRecycling(Collections.singletonMap(BigDecimal.ONE, recycler));
+
+		for(int i = 0; i < 2; i++) {
+			do {
+				retry = false;
+				validator.receive(banknote);
+			}
+			while(retry);
+		}
+
+		assertEquals(1, recycler.getBanknoteCount());
+		assertEquals(1, overflow.getBanknoteCount());
+	}
+
+	@Test(expected = SimulationException.class)
+	public void testRecycleUnsupportedDenomination() {
+		validator.setupRecycling(Collections.singletonMap(BigDecimal.TEN, storage(1)));
+	}
+
+	@Test(expected = SimulationException.class)
+	public void testTrackUnrecycledDenomination() {
+		validator.trackDispenser(BigDecimal.ONE, new BanknoteDispenser());
+	}
 }
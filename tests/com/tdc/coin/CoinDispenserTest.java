@@ -6,6 +6,7 @@ import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.Currency;
 import java.util.List;
 import java.util.Locale;
@@ -19,8 +20,10 @@ import com.tdc.DisabledException;
 import com.tdc.IComponent;
 import com.tdc.IComponentObserver;
 import com.tdc.NoCashAvailableException;
+import com.tdc.Sink;
 import com.tdc.StandardSinkStub;
 import com.tdc.StandardSourceStub;
+import com.thelocalmarketplace.hardware.CoinTray;
 
 import ca.ucalgary.seng300.simulation.NullPointerSimulationException;
 import ca.ucalgary.seng300.simulation.SimulationException;
@@ -145,6 +148,11 @@ public class CoinDispenserTest {
 				fail();
 			}
 
+			@Override
+			public void coinsRemoved(ICoinDispenser dispenser, Coin... coins) {
+				fail();
+			}
+
 			@Override
 			public void coinAdded(ICoinDispenser dispenser, Coin coin) {
 				found++;
@@ -206,6 +214,11 @@ public class CoinDispenserTest {
 				fail();
 			}
 
+			@Override
+			public void coinsRemoved(ICoinDispenser dispenser, Coin... coins) {
+				fail();
+			}
+
 			@Override
 			public void coinAdded(ICoinDispenser dispenser, Coin coin) {
 				found++;
@@ -289,6 +302,10 @@ public class CoinDispenserTest {
 				found++;
 			}
 
+			@Override
+			public void coinsRemoved(ICoinDispenser dispenser, Coin... coins) {
+			}
+
 			@Override
 			public void coinAdded(ICoinDispenser dispenser, Coin coin) {
 				fail();
@@ -357,6 +374,11 @@ public class CoinDispenserTest {
 				fail();
 			}
 
+			@Override
+			public void coinsRemoved(ICoinDispenser dispenser, Coin... coins) {
+				fail();
+			}
+
 			@Override
 			public void coinAdded(ICoinDispenser dispenser, Coin coin) {
 				fail();
@@ -414,6 +436,10 @@ public class CoinDispenserTest {
 				found++;
 			}
 
+			@Override
+			public void coinsRemoved(ICoinDispenser dispenser, Coin... coins) {
+			}
+
 			@Override
 			public void coinAdded(ICoinDispenser dispenser, Coin coin) {
 				fail();
@@ -486,6 +512,11 @@ public class CoinDispenserTest {
 				fail();
 			}
 
+			@Override
+			public void coinsRemoved(ICoinDispenser dispenser, Coin... coins) {
+				fail();
+			}
+
 			@Override
 			public void coinAdded(ICoinDispenser dispenser, Coin coin) {
 				fail();
@@ -546,6 +577,11 @@ public class CoinDispenserTest {
 				fail();
 			}
 
+			@Override
+			public void coinsRemoved(ICoinDispenser dispenser, Coin... coins) {
+				fail();
+			}
+
 			@Override
 			public void coinAdded(ICoinDispenser dispenser, Coin coin) {
 				found++;
@@ -614,4 +650,260 @@ public class CoinDispenserTest {
 		dispenser.disactivate();
 		dispenser.reject(null);
 	}
+
+	@Test
+	public void testBatchEmit() throws Exception {
+		dispenser = new CoinDispenser(5);
+		dispenser.connect(PowerGrid.instance());
+		dispenser.activate();
+		CoinTray tray = new CoinTray(5);
+		dispenser.sink = tray;
+		Coin coin = new Coin(currency, BigDecimal.ONE);
+		dispenser.load(coin, coin, coin);
+		List<Integer> batches = new ArrayList<>();
+		dispenser.attach(new CoinDispenserObserver() {
+			@Override
+			public void enabled(IComponent<? extends IComponentObserver> component) {}
+
+			@Override
+			public void disabled(IComponent<? extends IComponentObserver> component) {}
+
+			@Override
+			public void turnedOn(IComponent<? extends IComponentObserver> component) {}
+
+			@Override
+			public void turnedOff(IComponent<? extends IComponentObserver> component) {}
+
+			@Override
+			public void coinsFull(ICoinDispenser dispenser) {
+				fail();
+			}
+
+			@Override
+			public void coinsEmpty(ICoinDispenser dispenser) {
+				found++;
+			}
+
+			@Override
+			public void coinAdded(ICoinDispenser dispenser, Coin coin) {
+				fail();
+			}
+
+			@Override
+			public void coinRemoved(ICoinDispenser dispenser, Coin coin) {
+				fail();
+			}
+
+			@Override
+			public void coinsRemoved(ICoinDispenser dispenser, Coin... coins) {
+				batches.add(coins.length);
+			}
+
+			@Override
+			public void coinsLoaded(ICoinDispenser dispenser, Coin... coins) {
+				fail();
+			}
+
+			@Override
+			public void coinsUnloaded(ICoinDispenser dispenser, Coin... coins) {
+				fail();
+			}
+		});
+
+		dispenser.emit(2);
+		assertEquals(1, dispenser.size());
+		assertEquals(List.of(2), batches);
+		assertEquals(0, found);
+
+		dispenser.emit(1);
+		assertEquals(0, dispenser.size());
+		assertEquals(List.of(2, 1), batches);
+		assertEquals(1, found);
+		assertEquals(3, tray.collectCoins().stream().filter(c -> c != null).count());
+	}
+
+	@Test
+	public void testBatchEmitIsAllOrNothing() throws Exception {
+		dispenser = new CoinDispenser(5);
+		dispenser.connect(PowerGrid.instance());
+		dispenser.activate();
+		CoinTray tray = new CoinTray(2);
+		dispenser.sink = tray;
+		Coin coin = new Coin(currency, BigDecimal.ONE);
+		dispenser.load(coin, coin, coin);
+
+		try {
+			dispenser.emit(3);
+			fail();
+		}
+		catch(CashOverloadException e) {}
+
+		try {
+			dispenser.emit(4);
+			fail();
+		}
+		catch(NoCashAvailableException e) {}
+
+		assertEquals(3, dispenser.size());
+		assertEquals(0, tray.collectCoins().stream().filter(c -> c != null).count());
+	}
+
+	@Test
+	public void testBatchEmitRefusedPartway() throws Exception {
+		dispenser = new CoinDispenser(5);
+		dispenser.connect(PowerGrid.instance());
+		dispenser.activate();
+		List<Coin> received = new ArrayList<>();
+		dispenser.sink = new Sink<Coin>() {
+			@Override
+			public void receive(Coin coin) throws CashOverloadException {
+				if(received.size() == 1)
+					throw new CashOverloadException();
+
+				received.add(coin);
+			}
+
+			@Override
+			public boolean hasSpace() {
+				return true;
+			}
+
+			@Override
+			public boolean hasSpace(int count) {
+				return true;
+			}
+		};
+		Coin coin = new Coin(currency, BigDecimal.ONE);
+		dispenser.load(coin, coin, coin);
+
+		try {
+			dispenser.emit(3);
+			fail();
+		}
+		catch(CashOverloadException e) {}
+
+		assertEquals(1, received.size());
+		assertEquals(2, dispenser.size());
+	}
+
+	@Test
+	public void testBatchEmitRefusedPartwayIsTakenBack() throws Exception {
+		dispenser = new CoinDispenser(5);
+		dispenser.connect(PowerGrid.instance());
+		dispenser.activate();
+		CoinTray tray = new CoinTray(3);
+		Coin rejected = new Coin(currency, BigDecimal.ONE);
+
+		// Another component fills the tray while the batch is being delivered
+		dispenser.sink = new Sink<Coin>() {
+			@Override
+			public void receive(Coin coin) throws CashOverloadException, DisabledException {
+				tray.receive(coin);
+
+				if(tray.hasSpace())
+					tray.receive(rejected);
+			}
+
+			@Override
+			public boolean hasSpace() {
+				return tray.hasSpace();
+			}
+
+			@Override
+			public boolean hasSpace(int count) {
+				return tray.hasSpace(count);
+			}
+
+			@Override
+			public boolean retract(List<Coin> coins) {
+				return tray.retract(coins);
+			}
+		};
+		Coin coin = new Coin(currency, BigDecimal.ONE);
+		dispenser.load(coin, coin, coin);
+
+		try {
+			dispenser.emit(3);
+			fail();
+		}
+		catch(CashOverloadException e) {}
+
+		assertEquals(3, dispenser.size());
+		assertEquals(List.of(rejected), tray.collectCoins());
+	}
+
+	@Test
+	public void testBatchEmitReachesPerCoinObservers() throws Exception {
+		dispenser = new CoinDispenser(5);
+		dispenser.connect(PowerGrid.instance());
+		dispenser.activate();
+		dispenser.sink = new CoinTray(5);
+		Coin coin = new Coin(currency, BigDecimal.ONE);
+		dispenser.load(coin, coin, coin);
+		dispenser.attach(new CoinDispenserObserver() {
+			@Override
+			public void coinRemoved(ICoinDispenser dispenser, Coin coin) {
+				found++;
+			}
+
+			@Override
+			public void coinsFull(ICoinDispenser dispenser) {}
+
+			@Override
+			public void coinsEmpty(ICoinDispenser dispenser) {}
+
+			@Override
+			public void coinAdded(ICoinDispenser dispenser, Coin coin) {}
+
+			@Override
+			public void coinsLoaded(ICoinDispenser dispenser, Coin... coins) {}
+
+			@Override
+			public void coinsUnloaded(ICoinDispenser dispenser, Coin... coins) {}
+
+			@Override
+			public void enabled(IComponent<? extends IComponentObserver> component) {}
+
+			@Override
+			public void disabled(IComponent<? extends IComponentObserver> component) {}
+
+			@Override
+			public void turnedOn(IComponent<? extends IComponentObserver> component) {}
+
+			@Override
+			public void turnedOff(IComponent<? extends IComponentObserver> component) {}
+		}, "coinRemoved");
+
+		dispenser.emit(2);
+		assertEquals(2, found);
+	}
+
+	@Test(expected = SimulationException.class)
+	public void testBatchEmitBadCount() throws Exception {
+		dispenser.emit(0);
+	}
+
+	@Test
+	public void testFungibleStorage() throws Exception {
+		dispenser = new CoinDispenser(1000, true);
+		dispenser.connect(PowerGrid.instance());
+		dispenser.activate();
+		CoinTray tray = new CoinTray(10);
+		dispenser.sink = tray;
+
+		for(int i = 0; i < 1000; i++)
+			dispenser.receive(new Coin(currency, new BigDecimal("0.25")));
+
+		assertTrue(dispenser.isFungible());
+		assertEquals(1000, dispenser.size());
+
+		dispenser.emit(2);
+		assertEquals(998, dispenser.size());
+		assertEquals(new BigDecimal("0.25"), tray.collectCoins().get(0).getValue());
+
+		List<Coin> unloaded = dispenser.unload();
+		assertEquals(998, unloaded.size());
+		assertEquals(currency, unloaded.get(997).getCurrency());
+		assertEquals(0, dispenser.size());
+	}
 }
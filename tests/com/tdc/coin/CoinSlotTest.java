@@ -4,8 +4,13 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.fail;
 
 import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Currency;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 
 import org.junit.After;
 import org.junit.Before;
@@ -13,14 +18,18 @@ import org.junit.Test;
 
 import com.tdc.CashOverloadException;
 import com.tdc.DisabledException;
+import com.tdc.Disposition;
 import com.tdc.IComponent;
 import com.tdc.IComponentObserver;
 import com.tdc.NoCashAvailableException;
+import com.tdc.Sink;
 import com.tdc.StandardSinkStub;
 import com.tdc.coin.Coin;
 import com.tdc.coin.CoinSlot;
 import com.tdc.coin.CoinSlotObserver;
+import com.thelocalmarketplace.hardware.CoinTray;
 
+import ca.ucalgary.seng300.simulation.InvalidArgumentSimulationException;
 import ca.ucalgary.seng300.simulation.SimulationException;
 import powerutility.NoPowerException;
 import powerutility.PowerGrid;
@@ -109,6 +118,9 @@ public class CoinSlotTest {
 				// ignore
 			}
 
+			@Override
+			public void coinsInserted(CoinSlot slot, int count) {}
+
 			@Override
 			public void coinInserted(CoinSlot slot) {
 				fail();
@@ -144,6 +156,9 @@ public class CoinSlotTest {
 				// ignore
 			}
 
+			@Override
+			public void coinsInserted(CoinSlot slot, int count) {}
+
 			@Override
 			public void coinInserted(CoinSlot slot) {
 				fail();
@@ -155,6 +170,55 @@ public class CoinSlotTest {
 		assertEquals(1, found);
 	}
 
+	private class DualObserver implements CoinSlotObserver, CoinStorageUnitObserver {
+		@Override
+		public void coinInserted(CoinSlot slot) {
+			found++;
+		}
+
+		@Override
+		public void coinsInserted(CoinSlot slot, int count) {}
+
+		@Override
+		public void coinAdded(CoinStorageUnit unit) {}
+
+		@Override
+		public void coinsFull(CoinStorageUnit unit) {}
+
+		@Override
+		public void coinsLoaded(CoinStorageUnit unit) {}
+
+		@Override
+		public void coinsUnloaded(CoinStorageUnit unit) {}
+
+		@Override
+		public void enabled(IComponent<? extends IComponentObserver> component) {}
+
+		@Override
+		public void disabled(IComponent<? extends IComponentObserver> component) {}
+
+		@Override
+		public void turnedOn(IComponent<? extends IComponentObserver> component) {}
+
+		@Override
+		public void turnedOff(IComponent<? extends IComponentObserver> component) {}
+	}
+
+	@Test
+	public void testInterestsAreCheckedAgainstTheObserverInterface() throws Exception {
+		DualObserver observer = new DualObserver();
+
+		try {
+			slot.attach(observer, "coinAdded");
+			fail();
+		}
+		catch(InvalidArgumentSimulationException e) {}
+
+		slot.attach(observer, "coinInserted");
+		slot.receive(coin);
+		assertEquals(2, found);
+	}
+
 	@Test(expected = SimulationException.class)
 	public void testBadAccept() throws CashOverloadException, DisabledException {
 		slot.receive(null);
@@ -188,6 +252,9 @@ public class CoinSlotTest {
 				// ignore
 			}
 
+			@Override
+			public void coinsInserted(CoinSlot slot, int count) {}
+
 			@Override
 			public void coinInserted(CoinSlot slot) {
 				found++;
@@ -247,4 +314,168 @@ public class CoinSlotTest {
 		slot.disactivate();
 		slot.hasSpace();
 	}
+
+	@Test
+	public void testReceiveAllIntoPlainSink() throws DisabledException, CashOverloadException {
+		int[] events = new int[1];
+		slot.attach(new CoinSlotObserver() {
+			@Override
+			public void enabled(IComponent<? extends IComponentObserver> component) {}
+
+			@Override
+			public void disabled(IComponent<? extends IComponentObserver> component) {}
+
+			@Override
+			public void turnedOn(IComponent<? extends IComponentObserver> component) {}
+
+			@Override
+			public void turnedOff(IComponent<? extends IComponentObserver> component) {}
+
+			@Override
+			public void coinsInserted(CoinSlot slot, int count) {
+				events[0] += count;
+			}
+
+			@Override
+			public void coinInserted(CoinSlot slot) {
+				fail();
+			}
+		});
+
+		List<Disposition> dispositions = slot.receiveAll(coin, new Coin(currency, BigDecimal.TEN));
+
+		assertEquals(Arrays.asList(Disposition.ACCEPTED, Disposition.ACCEPTED), dispositions);
+		assertEquals(2, found);
+		assertEquals(2, events[0]);
+	}
+
+	@Test
+	public void testReceiveAllReachesPerCoinObservers() throws DisabledException, CashOverloadException {
+		int[] events = new int[1];
+		slot.attach(new CoinSlotObserver() {
+			@Override
+			public void enabled(IComponent<? extends IComponentObserver> component) {}
+
+			@Override
+			public void disabled(IComponent<? extends IComponentObserver> component) {}
+
+			@Override
+			public void turnedOn(IComponent<? extends IComponentObserver> component) {}
+
+			@Override
+			public void turnedOff(IComponent<? extends IComponentObserver> component) {}
+
+			@Override
+			public void coinInserted(CoinSlot slot) {
+				events[0]++;
+			}
+		}, "coinInserted");
+
+		slot.receiveAll(coin, coin, coin);
+
+		assertEquals(3, events[0]);
+	}
+
+	@Test
+	public void testReceiveAllThroughValidator() throws DisabledException, CashOverloadException {
+		CoinValidator validator = new CoinValidator(currency, Arrays.asList(BigDecimal.ONE));
+		validator.connect(PowerGrid.instance());
+		validator.activate();
+		CoinDispenser dispenser = new CoinDispenser(2);
+		dispenser.connect(PowerGrid.instance());
+		dispenser.activate();
+		int[] counts = new int[3];
+		Map<BigDecimal, Sink<Coin>> map = new HashMap<>();
+		map.put(BigDecimal.ONE, dispenser);
+		validator.setup(new StandardSinkStub<Coin>(true) {
+			@Override
+			public void receive(Coin thing) {
+				counts[0]++;
+			}
+		}, map, new StandardSinkStub<Coin>(true) {
+			@Override
+			public void receive(Coin thing) {
+				counts[1]++;
+			}
+		});
+		validator.trackDispenser(BigDecimal.ONE, dispenser);
+		validator.attach(new CoinValidatorObserver() {
+			@Override
+			public void enabled(IComponent<? extends IComponentObserver> component) {}
+
+			@Override
+			public void disabled(IComponent<? extends IComponentObserver> component) {}
+
+			@Override
+			public void turnedOn(IComponent<? extends IComponentObserver> component) {}
+
+			@Override
+			public void turnedOff(IComponent<? extends IComponentObserver> component) {}
+
+			@Override
+			public void validCoinsDetected(CoinValidator validator, BigDecimal... values) {
+				counts[2]++;
+			}
+
+			@Override
+			public void validCoinDetected(CoinValidator validator, BigDecimal value) {
+				fail();
+			}
+
+			@Override
+			public void invalidCoinDetected(CoinValidator validator) {}
+		});
+		slot.sink = validator;
+
+		Coin foreign = new Coin(Currency.getInstance(Locale.US), BigDecimal.ONE);
+		List<Disposition> dispositions = slot.receiveAll(coin, coin, foreign, coin, coin, coin);
+
+		assertEquals(6, dispositions.size());
+		assertEquals(Disposition.REJECTED, dispositions.get(2));
+		assertEquals(counts[0], Collections.frequency(dispositions, Disposition.REJECTED));
+		assertEquals(dispenser.size(), Collections.frequency(dispositions, Disposition.ACCEPTED));
+		assertEquals(counts[1], Collections.frequency(dispositions, Disposition.OVERFLOWED));
+		assertEquals(2, dispenser.size());
+		assertEquals(1, counts[2]);
+	}
+
+	@Test
+	public void testReceiveAllWithTrayFillingMidBatch() throws DisabledException, CashOverloadException {
+		CoinValidator validator = new CoinValidator(currency, Arrays.asList(BigDecimal.ONE));
+		validator.connect(PowerGrid.instance());
+		validator.activate();
+		CoinDispenser dispenser = new CoinDispenser(5);
+		dispenser.connect(PowerGrid.instance());
+		dispenser.activate();
+		CoinTray tray = new CoinTray(1);
+		Map<BigDecimal, Sink<Coin>> map = new HashMap<>();
+		map.put(BigDecimal.ONE, dispenser);
+		validator.setup(tray, map, new StandardSinkStub<Coin>(true));
+		slot.sink = validator;
+
+		Coin foreign = new Coin(Currency.getInstance(Locale.US), BigDecimal.ONE);
+		List<Disposition> dispositions = slot.receiveAll(foreign, foreign, coin, foreign, coin);
+
+		assertEquals(Arrays.asList(Disposition.REJECTED, Disposition.REFUSED, Disposition.ACCEPTED,
+			Disposition.REFUSED, Disposition.ACCEPTED), dispositions);
+		assertEquals(2, dispenser.size());
+		assertEquals(1, tray.collectCoins().size());
+	}
+
+	@Test
+	public void testReceiveAllWithNullCoinMovesNothing() throws DisabledException, CashOverloadException {
+		try {
+			slot.receiveAll(coin, null);
+			fail();
+		}
+		catch(SimulationException e) {
+			assertEquals(0, found);
+		}
+	}
+
+	@Test(expected = DisabledException.class)
+	public void testReceiveAllWhenDisabled() throws DisabledException, CashOverloadException {
+		slot.disable();
+		slot.receiveAll(coin);
+	}
 }
@@ -347,4 +347,37 @@ public class CoinStorageUnitTest {
 		storage.disactivate();
 		storage.hasSpace();
 	}
+
+	@Test
+	public void testTalliesByDenomination() throws CashOverloadException, DisabledException {
+		storage = new CoinStorageUnit(10);
+		storage.connect(PowerGrid.instance());
+		storage.activate();
+		BigDecimal quarter = new BigDecimal("0.25");
+		storage.load(new Coin(currency, quarter), new Coin(currency, quarter));
+		storage.receive(coin);
+
+		assertEquals(2, storage.getCoinCount(currency, quarter));
+		assertEquals(1, storage.getCoinCount(currency, BigDecimal.ONE));
+		assertEquals(0, storage.getCoinCount(currency, BigDecimal.TEN));
+		assertEquals(2, storage.getCoinCounts(currency).size());
+		assertEquals(0, new BigDecimal("1.50").compareTo(storage.getTotalValue(currency)));
+		assertEquals(BigDecimal.ZERO, storage.getTotalValue(Currency.getInstance("USD")));
+
+		List<Coin> unloaded = storage.unload();
+		assertEquals(3, unloaded.size());
+		assertEquals(coin, unloaded.get(2));
+		assertEquals(0, storage.getCoinCount(currency, quarter));
+		assertEquals(BigDecimal.ZERO, storage.getTotalValue(currency));
+
+		storage.receive(coin);
+		assertEquals(1, storage.getCoinCount());
+		assertEquals(1, storage.unload().size());
+	}
+
+	@Test(expected = NoPowerException.class)
+	public void testTotalValueWithoutPower() {
+		storage.disactivate();
+		storage.getTotalValue(currency);
+	}
 }
@@ -35,4 +35,31 @@ public class CoinTest {
 	public void testZeroValue() {
 		new Coin(currency, BigDecimal.ZERO);
 	}
+
+	@Test
+	public void testFlyweight() {
+		Coin a = Coin.of(currency, new BigDecimal("5"));
+		Coin b = Coin.of(currency, new BigDecimal("5.000"));
+
+		assertTrue(a == b);
+		assertEquals(new BigDecimal("5.00"), a.getValue());
+		assertEquals(new Coin(currency, new BigDecimal("5.0")).getMoney(), a.getMoney());
+		assertTrue(a != Coin.of(currency, BigDecimal.TEN));
+	}
+
+	@Test(expected = SimulationException.class)
+	public void testFlyweightZeroValue() {
+		Coin.of(currency, BigDecimal.ZERO);
+	}
+
+	@Test
+	public void testEighteenDigits() {
+		BigDecimal value = new BigDecimal("1234567890123456.78");
+		assertEquals(value, new Coin(currency, value).getMoney().toBigDecimal());
+	}
+
+	@Test(expected = SimulationException.class)
+	public void testTooManyDigits() {
+		new Coin(currency, new BigDecimal("1.0000000000000000001"));
+	}
 }
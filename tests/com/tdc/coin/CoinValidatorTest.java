@@ -1,6 +1,7 @@
 package com.tdc.coin;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
@@ -98,6 +99,50 @@ public class CoinValidatorTest {
 		while(found == 0);
 	}
 
+	@Test
+	public void testDownstreamObserversRunOutsideTheValidatorLock() throws Exception {
+		CoinStorageUnit unit = new CoinStorageUnit(100);
+		unit.connect(PowerGrid.instance());
+		unit.activate();
+		unit.attach(new CoinStorageUnitObserver() {
+			@Override
+			public void coinAdded(CoinStorageUnit unit) {
+				assertFalse(Thread.holdsLock(validator));
+				found++;
+			}
+
+			@Override
+			public void coinsFull(CoinStorageUnit unit) {}
+
+			@Override
+			public void coinsLoaded(CoinStorageUnit unit) {}
+
+			@Override
+			public void coinsUnloaded(CoinStorageUnit unit) {}
+
+			@Override
+			public void enabled(IComponent<? extends IComponentObserver> component) {}
+
+			@Override
+			public void disabled(IComponent<? extends IComponentObserver> component) {}
+
+			@Override
+			public void turnedOn(IComponent<? extends IComponentObserver> component) {}
+
+			@Override
+			public void turnedOff(IComponent<? extends IComponentObserver> component) {}
+		});
+
+		Map<BigDecimal, Sink<Coin>> map = new HashMap<>();
+		map.put(BigDecimal.ONE, unit);
+		validator.setup(new StandardSinkStub<>(true), map, new StandardSinkStub<>(true));
+
+		do {
+			validator.receive(new Coin(currency, BigDecimal.ONE));
+		}
+		while(found == 0);
+	}
+
 	@Test(expected = NullPointerSimulationException.class)
 	public void testSetupWithNullOverflow() {
 		Map<BigDecimal, Sink<Coin>> map = new HashMap<>();
@@ -158,6 +203,11 @@ public class CoinValidatorTest {
 		new CoinValidator(currency, Arrays.asList(BigDecimal.ONE, BigDecimal.ONE));
 	}
 
+	@Test(expected = SimulationException.class)
+	public void testBadDenomination5() {
+		new CoinValidator(currency, Arrays.asList(new BigDecimal("0.1"), new BigDecimal("0.10")));
+	}
+
 	@Test(expected = SimulationException.class)
 	public void testBadConnect() {
 		Map<BigDecimal, Sink<Coin>> map = new HashMap<>();
@@ -449,6 +499,9 @@ public class CoinValidatorTest {
 				// ignore
 			}
 
+			@Override
+			public void validCoinsDetected(CoinValidator validator, BigDecimal... values) {}
+
 			@Override
 			public void validCoinDetected(CoinValidator validator, BigDecimal value) {
 				found++;
@@ -497,6 +550,9 @@ public class CoinValidatorTest {
 				// ignore
 			}
 
+			@Override
+			public void validCoinsDetected(CoinValidator validator, BigDecimal... values) {}
+
 			@Override
 			public void validCoinDetected(CoinValidator validator, BigDecimal value) {
 				fail();
@@ -535,4 +591,44 @@ public class CoinValidatorTest {
 		validator.disactivate();
 		validator.reject(null);
 	}
+
+	@Test
+	public void testRoutingFollowsTrackedDispenser() throws DisabledException, CashOverloadException {
+		CoinDispenser dispenser = new CoinDispenser(3);
+		dispenser.connect(PowerGrid.instance());
+		dispenser.activate();
+		int[] overflow = new int[1];
+		Map<BigDecimal, Sink<Coin>> map = new HashMap<>();
+		map.put(BigDecimal.ONE, dispenser);
+		validator.setup(new FoundOnReceiveSinkStub(true), map, new StandardSinkStub<Coin>(true) {
+			@Override
+			public void receive(Coin thing) {
+				overflow[0]++;
+			}
+		});
+		validator.trackDispenser(new BigDecimal("1.00"), dispenser);
+
+		for(int i = 0; i < 10; i++)
+			validator.receive(new Coin(currency, BigDecimal.ONE));
+
+		assertEquals(3, dispenser.size());
+		assertEquals(10 - found - 3, overflow[0]);
+
+		dispenser.unload();
+
+		for(int i = 0; i < 10; i++)
+			validator.receive(new Coin(currency, BigDecimal.ONE));
+
+		assertEquals(3, dispenser.size());
+	}
+
+	@Test(expected = SimulationException.class)
+	public void testTrackUnsupportedDenomination() {
+		validator.trackDispenser(BigDecimal.TEN, new CoinDispenser(3));
+	}
+
+	@Test(expected = NullPointerSimulationException.class)
+	public void testTrackNullDispenser() {
+		validator.trackDispenser(BigDecimal.ONE, null);
+	}
 }
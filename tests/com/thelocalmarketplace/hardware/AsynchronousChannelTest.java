@@ -0,0 +1,244 @@
+package com.thelocalmarketplace.hardware;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Test;
+
+import com.tdc.CashOverloadException;
+import com.tdc.Disposition;
+import com.tdc.Sink;
+
+import ca.ucalgary.seng300.simulation.InvalidArgumentSimulationException;
+import ca.ucalgary.seng300.simulation.InvalidStateSimulationException;
+import ca.ucalgary.seng300.simulation.NullPointerSimulationException;
+
+@SuppressWarnings("javadoc")
+public class AsynchronousChannelTest {
+	private AsynchronousChannel<String> channel;
+
+	private static class RecordingSink implements Sink<String> {
+		final List<String> received = new CopyOnWriteArrayList<>();
+		final List<Thread> threads = new CopyOnWriteArrayList<>();
+		final CountDownLatch gate;
+		final boolean full;
+
+		RecordingSink(CountDownLatch gate, boolean full) {
+			this.gate = gate;
+			this.full = full;
+		}
+
+		@Override
+		public void receive(String thing) throws CashOverloadException {
+			if(full)
+				throw new CashOverloadException();
+
+			try {
+				if(gate != null)
+					gate.await();
+			}
+			catch(InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+
+			threads.add(Thread.currentThread());
+			received.add(thing);
+		}
+
+		@Override
+		public boolean hasSpace() {
+			return !full;
+		}
+	}
+
+	@After
+	public void teardown() {
+		if(channel != null)
+			channel.close();
+	}
+
+	@Test
+	public void testDeliversInOrderOnItsOwnThread() throws CashOverloadException, InterruptedException {
+		RecordingSink sink = new RecordingSink(null, false);
+		channel = new AsynchronousChannel<>(sink, null, 10);
+
+		channel.receive("a");
+		channel.receive("b");
+		channel.receive("c");
+
+		assertTrue(channel.awaitDelivery(5000));
+		assertEquals(Arrays.asList("a", "b", "c"), sink.received);
+		assertFalse(sink.threads.contains(Thread.currentThread()));
+		assertEquals(0, channel.getInFlightCount());
+	}
+
+	@Test
+	public void testSpaceReflectsThingsInFlight() throws CashOverloadException, InterruptedException {
+		CountDownLatch gate = new CountDownLatch(1);
+		RecordingSink sink = new RecordingSink(gate, false);
+		channel = new AsynchronousChannel<>(sink, null, 2);
+
+		channel.receive("a");
+		channel.receive("b");
+		assertFalse(channel.hasSpace());
+		assertEquals(2, channel.getInFlightCount());
+
+		try {
+			channel.receive("c");
+			fail();
+		}
+		catch(CashOverloadException e) {
+			// expected
+		}
+
+		gate.countDown();
+		assertTrue(channel.awaitDelivery(5000));
+		assertTrue(channel.hasSpace());
+		assertTrue(channel.hasSpace(2));
+		assertEquals(Arrays.asList("a", "b"), sink.received);
+	}
+
+	@Test
+	public void testBatchIsAllOrNothing() throws CashOverloadException, InterruptedException {
+		CountDownLatch gate = new CountDownLatch(1);
+		RecordingSink sink = new RecordingSink(gate, false);
+		channel = new AsynchronousChannel<>(sink, null, 3);
+
+		List<Disposition> dispositions = channel.receiveAll(Arrays.asList("a", "b"));
+		assertEquals(Arrays.asList(Disposition.IN_FLIGHT, Disposition.IN_FLIGHT), dispositions);
+
+		try {
+			channel.receiveAll(Arrays.asList("c", "d"));
+			fail();
+		}
+		catch(CashOverloadException e) {
+			assertEquals(2, channel.getInFlightCount());
+		}
+
+		gate.countDown();
+		assertTrue(channel.awaitDelivery(5000));
+		assertEquals(Arrays.asList("a", "b"), sink.received);
+	}
+
+	@Test
+	public void testRefusedThingsGoToFallback() throws CashOverloadException, InterruptedException {
+		RecordingSink fallback = new RecordingSink(null, false);
+		channel = new AsynchronousChannel<>(new RecordingSink(null, true), fallback, 5);
+
+		channel.receive("a");
+
+		assertTrue(channel.awaitDelivery(5000));
+		assertEquals(Arrays.asList("a"), fallback.received);
+		assertTrue(channel.clearJam().isEmpty());
+	}
+
+	@Test
+	public void testRefusedThingsJamWithoutFallback() throws CashOverloadException, InterruptedException {
+		channel = new AsynchronousChannel<>(new RecordingSink(null, true), new RecordingSink(null, true), 5);
+
+		channel.receive("a");
+		channel.receive("b");
+
+		assertTrue(channel.awaitDelivery(5000));
+		assertEquals(Arrays.asList("a", "b"), channel.clearJam());
+		assertTrue(channel.clearJam().isEmpty());
+	}
+
+	@Test
+	public void testAwaitTimesOut() throws CashOverloadException, InterruptedException {
+		CountDownLatch gate = new CountDownLatch(1);
+		channel = new AsynchronousChannel<>(new RecordingSink(gate, false), null, 5);
+
+		channel.receive("a");
+
+		assertFalse(channel.awaitDelivery(50));
+		gate.countDown();
+		assertTrue(channel.awaitDelivery(5000));
+	}
+
+	@Test
+	public void testCloseDeliversThingsInFlight() throws CashOverloadException, InterruptedException {
+		CountDownLatch gate = new CountDownLatch(1);
+		RecordingSink sink = new RecordingSink(gate, false);
+		channel = new AsynchronousChannel<>(sink, null, 5);
+
+		channel.receive("a");
+		channel.close();
+		assertFalse(channel.hasSpace());
+
+		try {
+			channel.receive("b");
+			fail();
+		}
+		catch(InvalidStateSimulationException e) {
+			// expected
+		}
+
+		gate.countDown();
+		assertTrue(channel.awaitDelivery(5000));
+		assertEquals(Arrays.asList("a"), sink.received);
+		assertTrue(sink.threads.get(0).isDaemon());
+		sink.threads.get(0).join(TimeUnit.SECONDS.toMillis(5));
+		assertFalse(sink.threads.get(0).isAlive());
+	}
+
+	@Test
+	public void testIdleChannelsHoldNoThreads() throws CashOverloadException, InterruptedException {
+		int before = deliveryThreads();
+		List<AsynchronousChannel<String>> channels = new ArrayList<>();
+
+		for(int i = 0; i < 50; i++)
+			channels.add(new AsynchronousChannel<>(new RecordingSink(null, false), null, 1));
+
+		assertTrue(deliveryThreads() <= before);
+
+		for(AsynchronousChannel<String> c : channels)
+			c.receive("a");
+
+		for(AsynchronousChannel<String> c : channels)
+			assertTrue(c.awaitDelivery(5000));
+
+		long deadline = System.currentTimeMillis() + 5000;
+
+		while(deliveryThreads() > 0 && System.currentTimeMillis() < deadline)
+			Thread.sleep(50);
+
+		assertEquals(0, deliveryThreads());
+	}
+
+	private static int deliveryThreads() {
+		int count = 0;
+
+		for(Thread thread : Thread.getAllStackTraces().keySet())
+			if(thread.getName().equals("AsynchronousChannel"))
+				count++;
+
+		return count;
+	}
+
+	@Test(expected = NullPointerSimulationException.class)
+	public void testNullThing() throws CashOverloadException {
+		channel = new AsynchronousChannel<>(new RecordingSink(null, false), null, 1);
+		channel.receive(null);
+	}
+
+	@Test(expected = NullPointerSimulationException.class)
+	public void testNullSink() {
+		new AsynchronousChannel<String>(null, null, 1);
+	}
+
+	@Test(expected = InvalidArgumentSimulationException.class)
+	public void testBadCapacity() {
+		new AsynchronousChannel<>(new RecordingSink(null, false), null, 0);
+	}
+}
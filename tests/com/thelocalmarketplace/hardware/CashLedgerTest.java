@@ -0,0 +1,209 @@
+package com.thelocalmarketplace.hardware;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Currency;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.tdc.banknote.Banknote;
+import com.tdc.banknote.BanknoteDispensationSlot;
+import com.tdc.banknote.BanknoteDispenser;
+import com.tdc.banknote.BanknoteStorageUnit;
+import com.tdc.banknote.IBanknoteDispenser;
+import com.tdc.coin.Coin;
+import com.tdc.coin.CoinDispenser;
+import com.tdc.coin.CoinStorageUnit;
+import com.tdc.coin.ICoinDispenser;
+
+import ca.ucalgary.seng300.simulation.NullPointerSimulationException;
+import powerutility.PowerGrid;
+
+@SuppressWarnings("javadoc")
+public class CashLedgerTest {
+	private static final BigDecimal QUARTER = new BigDecimal("0.25");
+	private static final BigDecimal LOONIE = BigDecimal.ONE;
+	private static final BigDecimal FIVE = new BigDecimal(5);
+
+	private Currency currency;
+	private Map<BigDecimal, ICoinDispenser> coinDispensers;
+	private Map<BigDecimal, IBanknoteDispenser> banknoteDispensers;
+	private CoinDispenser quarters;
+	private BanknoteDispenser fives;
+	private CoinStorageUnit coinStorage;
+	private BanknoteStorageUnit banknoteStorage;
+
+	@Before
+	public void setup() throws Exception {
+		PowerGrid.engageUninterruptiblePowerSource();
+		PowerGrid.instance().forcePowerRestore();
+		currency = Currency.getInstance(Locale.CANADA);
+
+		CoinTray tray = new CoinTray(100);
+		quarters = new CoinDispenser(100);
+		quarters.connect(PowerGrid.instance());
+		quarters.activate();
+		quarters.sink = tray;
+		quarters.load(new Coin(currency, QUARTER), new Coin(currency, QUARTER));
+
+		BanknoteDispensationSlot slot = new BanknoteDispensationSlot();
+		slot.connect(PowerGrid.instance());
+		slot.activate();
+		fives = new BanknoteDispenser();
+		fives.connect(PowerGrid.instance());
+		fives.activate();
+		fives.sink = slot;
+
+		coinStorage = new CoinStorageUnit(100);
+		coinStorage.connect(PowerGrid.instance());
+		coinStorage.activate();
+		coinStorage.load(new Coin(currency, LOONIE));
+
+		banknoteStorage = new BanknoteStorageUnit(100);
+		banknoteStorage.connect(PowerGrid.instance());
+		banknoteStorage.activate();
+
+		coinDispensers = new HashMap<>();
+		coinDispensers.put(QUARTER, quarters);
+		banknoteDispensers = new HashMap<>();
+		banknoteDispensers.put(FIVE, fives);
+	}
+
+	@After
+	public void teardown() {
+		PowerGrid.reconnectToMains();
+	}
+
+	private CashLedger ledger() {
+		return new CashLedger(currency, coinDispensers, banknoteDispensers, coinStorage, banknoteStorage);
+	}
+
+	@Test
+	public void testCountsExistingCash() {
+		CashLedger.Snapshot snapshot = ledger().getSnapshot();
+
+		assertEquals(4, snapshot.getComponents().size());
+		assertEquals(2, snapshot.getCount("coinDispenser 0.25", QUARTER));
+		assertEquals(1, snapshot.getCount("coinStorage", LOONIE));
+		assertEquals(0, snapshot.getValue("banknoteDispenser 5").signum());
+		assertEquals(0, new BigDecimal("1.50").compareTo(snapshot.getTotalValue()));
+	}
+
+	@Test
+	public void testFollowsDispensers() throws Exception {
+		CashLedger ledger = ledger();
+		long version = ledger.getSnapshot().getVersion();
+
+		quarters.emit();
+		fives.load(new Banknote(currency, FIVE), new Banknote(currency, FIVE));
+		fives.emit();
+
+		CashLedger.Snapshot snapshot = ledger.getSnapshot();
+		assertEquals(1, snapshot.getCount("coinDispenser 0.25", QUARTER));
+		assertEquals(1, snapshot.getCount("banknoteDispenser 5", FIVE));
+		assertEquals(0, new BigDecimal("6.25").compareTo(snapshot.getTotalValue()));
+		assertTrue(snapshot.getVersion() > version);
+
+		quarters.unload();
+		assertEquals(0, ledger.getSnapshot().getValue("coinDispenser 0.25").signum());
+		assertTrue(ledger.getSnapshot().getCounts("coinDispenser 0.25").isEmpty());
+	}
+
+	@Test
+	public void testFollowsStorageUnits() throws Exception {
+		CashLedger ledger = ledger();
+
+		coinStorage.receive(new Coin(currency, QUARTER));
+		banknoteStorage.receive(new Banknote(currency, FIVE));
+
+		CashLedger.Snapshot snapshot = ledger.getSnapshot();
+		Map<BigDecimal, Integer> counts = snapshot.getCounts("coinStorage");
+		assertEquals(List.of(new BigDecimal("0.25"), new BigDecimal("1.00")), new ArrayList<>(counts.keySet()));
+		assertEquals(0, new BigDecimal("1.25").compareTo(snapshot.getValue("coinStorage")));
+		assertEquals(1, snapshot.getCount("banknoteStorage", FIVE));
+
+		coinStorage.unload();
+		banknoteStorage.unload();
+		assertEquals(0, new BigDecimal("0.50").compareTo(ledger.getSnapshot().getTotalValue()));
+	}
+
+	@Test
+	public void testSnapshotIsImmutable() throws Exception {
+		CashLedger ledger = ledger();
+		CashLedger.Snapshot before = ledger.getSnapshot();
+
+		quarters.emit();
+
+		assertEquals(2, before.getCount("coinDispenser 0.25", QUARTER));
+		assertEquals(1, ledger.getSnapshot().getCount("coinDispenser 0.25", QUARTER));
+	}
+
+	@Test
+	public void testDetach() throws Exception {
+		CashLedger ledger = ledger();
+		ledger.detach();
+		CashLedger.Snapshot before = ledger.getSnapshot();
+
+		quarters.emit();
+		coinStorage.receive(new Coin(currency, QUARTER));
+
+		assertSame(before, ledger.getSnapshot());
+	}
+
+	@Test
+	public void testConcurrentUpdatesAreNotLost() throws Exception {
+		CoinDispenser loonies = new CoinDispenser(1000);
+		loonies.connect(PowerGrid.instance());
+		loonies.activate();
+		coinDispensers.put(LOONIE, loonies);
+		CashLedger ledger = ledger();
+
+		Thread a = new Thread(() -> {
+			try {
+				for(int i = 0; i < 50; i++)
+					quarters.receive(new Coin(currency, QUARTER));
+			}
+			catch(Exception e) {
+				throw new RuntimeException(e);
+			}
+		});
+		Thread b = new Thread(() -> {
+			try {
+				for(int i = 0; i < 50; i++)
+					loonies.receive(new Coin(currency, LOONIE));
+			}
+			catch(Exception e) {
+				throw new RuntimeException(e);
+			}
+		});
+		a.start();
+		b.start();
+		a.join();
+		b.join();
+
+		CashLedger.Snapshot snapshot = ledger.getSnapshot();
+		assertEquals(52, snapshot.getCount("coinDispenser 0.25", QUARTER));
+		assertEquals(50, snapshot.getCount("coinDispenser 1", LOONIE));
+		assertEquals(0, new BigDecimal("64.00").compareTo(snapshot.getTotalValue()));
+	}
+
+	@Test(expected = NullPointerSimulationException.class)
+	public void testNullStation() {
+		new CashLedger(null);
+	}
+
+	@Test(expected = NullPointerSimulationException.class)
+	public void testNullStorage() {
+		new CashLedger(currency, coinDispensers, banknoteDispensers, null, banknoteStorage);
+	}
+}
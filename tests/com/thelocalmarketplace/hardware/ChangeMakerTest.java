@@ -0,0 +1,347 @@
+package com.thelocalmarketplace.hardware;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Currency;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.tdc.CashOverloadException;
+import com.tdc.DisabledException;
+import com.tdc.NoCashAvailableException;
+import com.tdc.Sink;
+import com.tdc.banknote.Banknote;
+import com.tdc.banknote.BanknoteDispensationSlot;
+import com.tdc.banknote.BanknoteDispenser;
+import com.tdc.banknote.IBanknoteDispenser;
+import com.tdc.coin.Coin;
+import com.tdc.coin.CoinDispenser;
+import com.tdc.coin.ICoinDispenser;
+
+import powerutility.PowerGrid;
+
+@SuppressWarnings("javadoc")
+public class ChangeMakerTest {
+	private Currency currency;
+	private Map<BigDecimal, ICoinDispenser> coinDispensers;
+	private Map<BigDecimal, IBanknoteDispenser> banknoteDispensers;
+	private BanknoteDispensationSlot slot;
+	private CoinTray tray;
+
+	@Before
+	public void setup() {
+		PowerGrid.engageUninterruptiblePowerSource();
+		PowerGrid.instance().forcePowerRestore();
+		currency = Currency.getInstance(Locale.CANADA);
+		coinDispensers = new HashMap<>();
+		banknoteDispensers = new HashMap<>();
+		slot = new BanknoteDispensationSlot();
+		slot.connect(PowerGrid.instance());
+		slot.activate();
+		tray = new CoinTray(100);
+	}
+
+	@After
+	public void teardown() {
+		PowerGrid.reconnectToMains();
+	}
+
+	private void addCoins(String denomination, int count) throws Exception {
+		BigDecimal value = new BigDecimal(denomination);
+		CoinDispenser dispenser = new CoinDispenser(100);
+		dispenser.connect(PowerGrid.instance());
+		dispenser.activate();
+		dispenser.sink = tray;
+
+		for(int i = 0; i < count; i++)
+			dispenser.load(new Coin(currency, value));
+
+		coinDispensers.put(value, dispenser);
+	}
+
+	private void addBanknotes(String denomination, int count) throws Exception {
+		BigDecimal value = new BigDecimal(denomination);
+		BanknoteDispenser dispenser = new BanknoteDispenser();
+		dispenser.connect(PowerGrid.instance());
+		dispenser.activate();
+		dispenser.sink = slot;
+
+		for(int i = 0; i < count; i++)
+			dispenser.load(new Banknote(currency, value));
+
+		banknoteDispensers.put(value, dispenser);
+	}
+
+	private ChangeMaker maker() {
+		return new ChangeMaker(coinDispensers, banknoteDispensers, slot, tray);
+	}
+
+	@Test
+	public void testNonCanonicalDenominations() throws Exception {
+		addCoins("1", 10);
+		addCoins("3", 10);
+		addCoins("4", 10);
+
+		ChangeMaker.Plan plan = maker().plan(new BigDecimal("6"));
+		assertEquals(2, plan.getCount());
+		assertEquals(Integer.valueOf(2), plan.getCoins().get(new BigDecimal("3")));
+	}
+
+	@Test
+	public void testLargeAmountsStayExact() throws Exception {
+		addCoins("1", 100);
+		addCoins("7", 100);
+		addCoins("10", 100);
+
+		int[] fewest = new int[301];
+
+		for(int v = 1; v <= 300; v++) {
+			fewest[v] = fewest[v - 1] + 1;
+
+			if(v >= 7)
+				fewest[v] = Math.min(fewest[v], fewest[v - 7] + 1);
+
+			if(v >= 10)
+				fewest[v] = Math.min(fewest[v], fewest[v - 10] + 1);
+		}
+
+		ChangeMaker maker = maker();
+
+		for(int v = 300; v >= 0; v--)
+			assertEquals(fewest[v], maker.plan(BigDecimal.valueOf(v)).getCount());
+	}
+
+	@Test
+	public void testDepletedDispenser() throws Exception {
+		addCoins("1", 10);
+		addCoins("3", 1);
+		addCoins("4", 10);
+
+		ChangeMaker.Plan plan = maker().plan(new BigDecimal("6"));
+		assertEquals(3, plan.getCount());
+		assertEquals(new BigDecimal("6"), plan.getTotal());
+		assertNull(plan.getCoins().get(new BigDecimal("3")));
+	}
+
+	@Test
+	public void testImpossible() throws Exception {
+		addCoins("0.25", 10);
+		addCoins("0.10", 1);
+
+		ChangeMaker maker = maker();
+		assertNull(maker.plan(new BigDecimal("0.15")));
+		assertNull(maker.plan(new BigDecimal("0.051")));
+		assertNull(maker.plan(new BigDecimal("100")));
+		assertEquals(0, maker.plan(BigDecimal.ZERO).getCount());
+	}
+
+	@Test
+	public void testDispenseMixed() throws Exception {
+		addCoins("0.25", 10);
+		addCoins("1", 10);
+		addBanknotes("5", 10);
+		addBanknotes("20", 10);
+
+		ChangeMaker.Plan plan = maker().dispense(new BigDecimal("26.50"));
+
+		assertEquals(Integer.valueOf(1), plan.getBanknotes().get(new BigDecimal("20")));
+		assertEquals(Integer.valueOf(1), plan.getBanknotes().get(new BigDecimal("5")));
+		assertEquals(Integer.valueOf(1), plan.getCoins().get(new BigDecimal("1")));
+		assertEquals(Integer.valueOf(2), plan.getCoins().get(new BigDecimal("0.25")));
+		assertEquals(2, slot.removeDanglingBanknotes().size());
+		assertEquals(3, tray.collectCoins().stream().filter(c -> c != null).count());
+		assertEquals(8, coinDispensers.get(new BigDecimal("0.25")).size());
+	}
+
+	@Test(expected = NoCashAvailableException.class)
+	public void testDispenseImpossible() throws Exception {
+		addCoins("0.25", 1);
+		maker().dispense(new BigDecimal("0.50"));
+	}
+
+	@Test
+	public void testPayInWaves() throws Exception {
+		addBanknotes("5", 50);
+
+		ChangeMaker.Payout payout = maker().pay(new BigDecimal("150"));
+		assertEquals(1, payout.getWaveCount());
+		assertEquals(10, payout.getRemainingCount());
+		assertFalse(payout.isComplete());
+
+		assertEquals(20, slot.removeDanglingBanknotes().size());
+		assertEquals(2, payout.getWaveCount());
+		assertTrue(payout.isComplete());
+		assertNull(payout.getFailure());
+
+		assertEquals(10, slot.removeDanglingBanknotes().size());
+		assertFalse(slot.hasDanglingBanknotes());
+		assertEquals(20, banknoteDispensers.get(new BigDecimal("5")).size());
+	}
+
+	@Test
+	public void testRollback() throws Exception {
+		addCoins("1", 10);
+		addCoins("0.25", 10);
+		addBanknotes("5", 10);
+		Coin earlier = new Coin(currency, BigDecimal.ONE);
+		tray.receive(earlier);
+		coinDispensers.get(new BigDecimal("0.25")).disable();
+
+		ChangeMaker maker = maker();
+
+		try {
+			maker.pay(new BigDecimal("6.25"));
+			fail();
+		}
+		catch(DisabledException e) {}
+
+		assertEquals(10, banknoteDispensers.get(new BigDecimal("5")).size());
+		assertEquals(10, coinDispensers.get(BigDecimal.ONE).size());
+		assertFalse(slot.hasDanglingBanknotes());
+		assertTrue(slot.hasSpace(slot.getCapacity()));
+		assertEquals(1, tray.collectCoins().size());
+
+		coinDispensers.get(new BigDecimal("0.25")).enable();
+		assertTrue(maker.pay(new BigDecimal("6.25")).isComplete());
+	}
+
+	@Test
+	public void testTrayOverflowMovesNothing() throws Exception {
+		tray = new CoinTray(2);
+		addCoins("1", 10);
+		addBanknotes("5", 10);
+
+		try {
+			maker().pay(new BigDecimal("8"));
+			fail();
+		}
+		catch(CashOverloadException e) {}
+
+		assertEquals(10, banknoteDispensers.get(new BigDecimal("5")).size());
+		assertEquals(10, coinDispensers.get(BigDecimal.ONE).size());
+		assertFalse(slot.hasDanglingBanknotes());
+	}
+
+	@Test
+	public void testReservations() throws Exception {
+		addBanknotes("5", 3);
+
+		ChangeMaker maker = maker();
+		ChangeMaker.Payout payout = maker.begin(new BigDecimal("10"));
+		assertNull(maker.plan(new BigDecimal("10")));
+		assertNotNull(maker.plan(new BigDecimal("5")));
+
+		payout.cancel();
+		assertTrue(payout.isCancelled());
+		assertNotNull(maker.plan(new BigDecimal("15")));
+	}
+
+	@Test
+	public void testWaveWhileSlotOccupied() throws Exception {
+		addBanknotes("5", 30);
+
+		ChangeMaker.Payout payout = maker().begin(new BigDecimal("125"));
+		payout.dispenseWave();
+
+		try {
+			payout.dispenseWave();
+			fail();
+		}
+		catch(CashOverloadException e) {}
+
+		assertTrue(payout.isCancelled());
+		assertEquals(5, payout.getRemainingCount());
+		assertEquals(10, banknoteDispensers.get(new BigDecimal("5")).size());
+	}
+
+	@Test
+	public void testPayWhileSlotOccupiedReleasesReservation() throws Exception {
+		addBanknotes("5", 30);
+		IBanknoteDispenser dispenser = banknoteDispensers.get(new BigDecimal("5"));
+		dispenser.emit(slot.getCapacity());
+		slot.dispense();
+		BigDecimal stock = new BigDecimal("5").multiply(BigDecimal.valueOf(dispenser.size()));
+
+		ChangeMaker maker = maker();
+
+		try {
+			maker.pay(new BigDecimal("5"));
+			fail();
+		}
+		catch(CashOverloadException e) {}
+
+		assertNotNull(maker.plan(stock));
+	}
+
+	@Test
+	public void testRollbackLeavesOtherCoinsInTray() throws Exception {
+		addCoins("1", 10);
+		addCoins("0.25", 10);
+		CoinDispenser dispenser = (CoinDispenser)coinDispensers.get(BigDecimal.ONE);
+		List<Coin> loaded = new ArrayList<>(dispenser.unload());
+		dispenser.load(loaded.toArray(new Coin[0]));
+		Coin rejected = new Coin(currency, BigDecimal.ONE);
+
+		// A coin rejected by the validator lands in the tray between this wave's coins
+		dispenser.sink = new Sink<Coin>() {
+			@Override
+			public void receive(Coin coin) throws CashOverloadException, DisabledException {
+				tray.receive(coin);
+
+				if(coin == loaded.get(0))
+					tray.receive(rejected);
+			}
+
+			@Override
+			public boolean hasSpace() {
+				return tray.hasSpace();
+			}
+
+			@Override
+			public boolean hasSpace(int count) {
+				return tray.hasSpace(count);
+			}
+		};
+		coinDispensers.get(new BigDecimal("0.25")).disable();
+
+		try {
+			maker().pay(new BigDecimal("2.25"));
+			fail();
+		}
+		catch(DisabledException e) {}
+
+		assertEquals(Arrays.asList(rejected), tray.collectCoins());
+		List<Coin> back = dispenser.unload();
+		assertEquals(10, back.size());
+		assertFalse(back.contains(rejected));
+	}
+
+	@Test
+	public void testEmitIntoFullSlot() throws Exception {
+		addBanknotes("5", 30);
+		IBanknoteDispenser dispenser = banknoteDispensers.get(new BigDecimal("5"));
+		dispenser.emit(slot.getCapacity());
+
+		try {
+			dispenser.emit();
+			fail();
+		}
+		catch(CashOverloadException e) {}
+
+		assertEquals(10, dispenser.size());
+	}
+}
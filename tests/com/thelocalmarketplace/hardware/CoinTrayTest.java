@@ -1,9 +1,11 @@
 package com.thelocalmarketplace.hardware;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 import java.math.BigDecimal;
+import java.util.Arrays;
 import java.util.Currency;
 import java.util.List;
 import java.util.Locale;
@@ -62,7 +64,7 @@ public class CoinTrayTest {
 	@Test(expected = CashOverloadException.class)
 	public void testAcceptOverflow() throws CashOverloadException, DisabledException {
 		tray.receive(coin);
-		assertEquals(true, tray.hasSpace());
+		assertEquals(false, tray.hasSpace());
 		tray.receive(coin);
 	}
 
@@ -98,4 +100,28 @@ public class CoinTrayTest {
 		assertTrue(coins != null);
 		assertTrue(coins.isEmpty());
 	}
+
+	@Test
+	public void testRetract() throws CashOverloadException, DisabledException {
+		tray = new CoinTray(3);
+		Coin other = new Coin(currency, BigDecimal.ONE);
+		Coin last = new Coin(currency, BigDecimal.ONE);
+		tray.receive(coin);
+		tray.receive(other);
+		tray.receive(last);
+
+		assertTrue(tray.retract(Arrays.asList(coin, last)));
+
+		assertTrue(tray.hasSpace(2));
+		assertEquals(Arrays.asList(other), tray.collectCoins());
+	}
+
+	@Test
+	public void testRetractMissingCoinTakesNothing() throws CashOverloadException, DisabledException {
+		tray.receive(coin);
+
+		assertFalse(tray.retract(Arrays.asList(coin, new Coin(currency, BigDecimal.ONE))));
+
+		assertEquals(Arrays.asList(coin), tray.collectCoins());
+	}
 }
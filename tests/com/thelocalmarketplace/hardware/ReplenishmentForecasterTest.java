@@ -0,0 +1,170 @@
+package com.thelocalmarketplace.hardware;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.Currency;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.tdc.banknote.IBanknoteDispenser;
+import com.tdc.coin.Coin;
+import com.tdc.coin.CoinDispenser;
+import com.tdc.coin.ICoinDispenser;
+
+import ca.ucalgary.seng300.simulation.InvalidArgumentSimulationException;
+import ca.ucalgary.seng300.simulation.NullPointerSimulationException;
+import powerutility.PowerGrid;
+import powerutility.VirtualClockFaultScheduler;
+
+@SuppressWarnings("javadoc")
+public class ReplenishmentForecasterTest {
+	private static final BigDecimal QUARTER = new BigDecimal("0.25");
+
+	private Currency currency;
+	private VirtualClockFaultScheduler clock;
+	private ReplenishmentForecaster forecaster;
+	private CoinDispenser quarters;
+
+	@Before
+	public void setup() throws Exception {
+		PowerGrid.engageUninterruptiblePowerSource();
+		PowerGrid.instance().forcePowerRestore();
+		currency = Currency.getInstance(Locale.CANADA);
+		clock = new VirtualClockFaultScheduler();
+		forecaster = new ReplenishmentForecaster(clock::currentTimeMillis, 60000);
+
+		quarters = new CoinDispenser(100);
+		quarters.connect(PowerGrid.instance());
+		quarters.activate();
+		quarters.sink = new CoinTray(1000);
+	}
+
+	@After
+	public void teardown() {
+		forecaster.detach();
+		PowerGrid.reconnectToMains();
+	}
+
+	private void load(int count) throws Exception {
+		for(int i = 0; i < count; i++)
+			quarters.load(new Coin(currency, QUARTER));
+	}
+
+	private void watch() {
+		Map<BigDecimal, ICoinDispenser> coinDispensers = Collections.singletonMap(QUARTER, quarters);
+		Map<BigDecimal, IBanknoteDispenser> banknoteDispensers = Collections.emptyMap();
+		forecaster.watch(null, coinDispensers, banknoteDispensers);
+	}
+
+	@Test
+	public void testIdleDispenserNeedsNothing() throws Exception {
+		load(50);
+		watch();
+		clock.advance(1, TimeUnit.MINUTES);
+
+		ReplenishmentForecaster.Forecast forecast = forecaster.getForecasts().get(0);
+		assertEquals("coinDispenser 0.25", forecast.getComponent());
+		assertEquals(50, forecast.getLevel());
+		assertEquals(ReplenishmentForecaster.NEVER, forecast.getTimeToEmpty());
+		assertEquals(ReplenishmentForecaster.NEVER, forecast.getTimeToFull());
+		assertTrue(forecaster.getPlan(TimeUnit.HOURS.toMillis(1)).isEmpty());
+	}
+
+	@Test
+	public void testForecastsEmptying() throws Exception {
+		load(50);
+		watch();
+
+		for(int i = 0; i < 10; i++) {
+			clock.advance(1, TimeUnit.SECONDS);
+			quarters.emit();
+		}
+
+		ReplenishmentForecaster.Forecast forecast = forecaster.getForecasts().get(0);
+		assertEquals(40, forecast.getLevel());
+		assertEquals(1.0, forecast.getPayoutRate(), 0.15);
+		assertTrue(forecast.getTimeToEmpty() > 30000 && forecast.getTimeToEmpty() < 50000);
+		assertEquals(ReplenishmentForecaster.NEVER, forecast.getTimeToFull());
+
+		assertTrue(forecaster.getPlan(10000).isEmpty());
+		List<ReplenishmentForecaster.Refill> plan = forecaster.getPlan(60000);
+		assertEquals(1, plan.size());
+		assertEquals(60, plan.get(0).getChange());
+	}
+
+	@Test
+	public void testForecastsFilling() throws Exception {
+		load(80);
+		watch();
+
+		for(int i = 0; i < 10; i++) {
+			clock.advance(500, TimeUnit.MILLISECONDS);
+			quarters.receive(new Coin(currency, QUARTER));
+		}
+
+		ReplenishmentForecaster.Forecast forecast = forecaster.getForecasts().get(0);
+		assertEquals(90, forecast.getLevel());
+		assertEquals(2.0, forecast.getIntakeRate(), 0.3);
+		assertTrue(forecast.getTimeToFull() > 3000 && forecast.getTimeToFull() < 7000);
+
+		List<ReplenishmentForecaster.Refill> plan = forecaster.getPlan(20000);
+		assertEquals(1, plan.size());
+		int change = plan.get(0).getChange();
+		assertTrue(change < -20 && change > -40);
+	}
+
+	@Test
+	public void testLoadingChangesLevelButNotRate() throws Exception {
+		load(10);
+		watch();
+		clock.advance(1, TimeUnit.SECONDS);
+		load(20);
+
+		ReplenishmentForecaster.Forecast forecast = forecaster.getForecasts().get(0);
+		assertEquals(30, forecast.getLevel());
+		assertEquals(0.0, forecast.getIntakeRate(), 0);
+
+		quarters.unload();
+		assertEquals(0, forecaster.getForecasts().get(0).getLevel());
+	}
+
+	@Test
+	public void testDetach() throws Exception {
+		load(10);
+		watch();
+		forecaster.detach();
+		assertTrue(forecaster.getForecasts().isEmpty());
+
+		quarters.emit();
+		assertTrue(forecaster.getForecasts().isEmpty());
+	}
+
+	@Test(expected = NullPointerSimulationException.class)
+	public void testNullClock() {
+		new ReplenishmentForecaster(null, 1000);
+	}
+
+	@Test(expected = InvalidArgumentSimulationException.class)
+	public void testBadHalfLife() {
+		new ReplenishmentForecaster(0);
+	}
+
+	@Test(expected = InvalidArgumentSimulationException.class)
+	public void testNegativeHorizon() {
+		forecaster.getPlan(-1);
+	}
+
+	@Test(expected = NullPointerSimulationException.class)
+	public void testNullStation() {
+		forecaster.watch((ISelfCheckoutStation)null);
+	}
+}
@@ -241,6 +241,9 @@ public class SelfCheckoutStationTest {
 				fail();
 			}
 
+			@Override
+			public void banknotesInserted(BanknoteInsertionSlot slot, int count) {}
+
 			@Override
 			public void banknoteInserted(BanknoteInsertionSlot slot) {
 				banknoteAdded++;
@@ -303,6 +306,9 @@ public class SelfCheckoutStationTest {
 				fail();
 			}
 
+			@Override
+			public void validCoinsDetected(CoinValidator validator, BigDecimal... values) {}
+
 			@Override
 			public void validCoinDetected(CoinValidator validator, BigDecimal value) {}
 		});
@@ -348,6 +354,11 @@ public class SelfCheckoutStationTest {
 				fail();
 			}
 
+			@Override
+			public void coinsRemoved(ICoinDispenser dispenser, Coin... coins) {
+				fail();
+			}
+
 			@Override
 			public void coinsLoaded(ICoinDispenser dispenser, Coin... coins) {
 				fail();
@@ -417,6 +428,10 @@ public class SelfCheckoutStationTest {
 				banknoteReturned++;
 			}
 
+			@Override
+			public void banknotesRemoved(IBanknoteDispenser device, Banknote... banknotes) {
+			}
+
 			@Override
 			public void turnedOn(IComponent<? extends IComponentObserver> component) {
 				fail();
@@ -4,6 +4,8 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.GregorianCalendar;
@@ -15,6 +17,7 @@ import org.junit.Test;
 
 import com.thelocalmarketplace.hardware.external.CardIssuer;
 
+import ca.ucalgary.seng300.simulation.EventJournal;
 import ca.ucalgary.seng300.simulation.SimulationException;
 
 @SuppressWarnings("javadoc")
@@ -247,4 +250,30 @@ public class CardIssuerTest {
 		issuer.addCardData("1", "me", tomorrow, "111", 10);
 		issuer.authorizeHold("1", 0.0);
 	}
+
+	@Test
+	public void testHoldsAreRestoredFromJournal() throws Exception {
+		Path file = Files.createTempFile("journal", ".bin");
+		Files.delete(file);
+
+		try(EventJournal journal = new EventJournal(file, 4096, 5)) {
+			issuer.setJournal(journal.writer("issuer"));
+			issuer.addCardData("1", "me", tomorrow, "111", 100);
+			long hold = issuer.authorizeHold("1", 60);
+			long released = issuer.authorizeHold("1", 10);
+			assertTrue(issuer.releaseHold("1", released));
+
+			CardIssuer restored = new CardIssuer("", 10);
+			restored.addCardData("1", "me", tomorrow, "111", 100);
+			restored.restoreFrom(journal, "issuer");
+
+			assertEquals(-1, restored.authorizeHold("1", 50));
+			assertTrue(restored.postTransaction("1", hold, 60));
+			assertEquals(-1, restored.authorizeHold("1", 50));
+			assertTrue(restored.authorizeHold("1", 40) >= 0);
+		}
+		finally {
+			Files.deleteIfExists(file);
+		}
+	}
 }
@@ -0,0 +1,72 @@
+package powerutility;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Test;
+
+import powerutility.PowerGrid.PowerSource;
+import powerutility.PowerGrid.PowerState;
+
+@SuppressWarnings("javadoc")
+public class PowerGridRegistryTest {
+	@After
+	public void teardown() {
+		for(String name : PowerGridRegistry.names())
+			PowerGridRegistry.remove(name);
+	}
+
+	@Test
+	public void testObtainCreatesOnce() {
+		PowerGrid grid = PowerGridRegistry.obtain("aisle 1");
+
+		assertSame(grid, PowerGridRegistry.obtain("aisle 1"));
+		assertSame(grid, PowerGridRegistry.lookup("aisle 1"));
+		assertNotSame(grid, PowerGrid.instance());
+		assertNull(PowerGridRegistry.lookup("aisle 2"));
+	}
+
+	@Test
+	public void testRegisterAndRemove() {
+		PowerGrid grid = new PowerGrid();
+
+		assertNull(PowerGridRegistry.register("b", grid));
+		PowerGridRegistry.obtain("a");
+		assertEquals("[a, b]", PowerGridRegistry.names().toString());
+
+		assertSame(grid, PowerGridRegistry.remove("b"));
+		assertNull(PowerGridRegistry.lookup("b"));
+	}
+
+	@Test(expected = NullPointerException.class)
+	public void testNullName() {
+		PowerGridRegistry.obtain(null);
+	}
+
+	@Test
+	public void testGridsAreIndependent() {
+		PowerGrid a = PowerGridRegistry.obtain("a");
+		PowerGrid b = PowerGridRegistry.obtain("b");
+
+		a.setSource(PowerSource.DISCONNECTED);
+		b.setFaultProbabilities(0, 0);
+
+		assertEquals(PowerState.OUTAGE, a.getState());
+		assertTrue(b.hasPower());
+		assertEquals(PowerSource.MAINS, b.getSource());
+		assertEquals(0, b.getProbabilityOfPowerSurge());
+		assertEquals(10000, a.getProbabilityOfPowerFailure());
+
+		a.setSource(PowerSource.UNINTERRUPTIBLE);
+		assertTrue(a.hasPower());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testBadProbability() {
+		new PowerGrid().setFaultProbabilities(10001, 0);
+	}
+}
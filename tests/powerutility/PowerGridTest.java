@@ -1,5 +1,7 @@
 package powerutility;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
@@ -7,6 +9,8 @@ import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
+import powerutility.PowerGrid.PowerState;
+
 @SuppressWarnings("javadoc")
 public class PowerGridTest {
 	// For use as a Java application: needed as JUnit captures the exceptions
@@ -98,4 +102,57 @@ public class PowerGridTest {
 		pg.forcePowerOutage();
 		pg.hasPower();
 	}
+
+	private PowerState lastState;
+	private int changes;
+
+	@Test
+	public void testListenerIsInformedOfTransitions() {
+		PowerGrid pg = PowerGrid.instance();
+		PowerGrid.engageUninterruptiblePowerSource();
+		PowerGridListener listener = new PowerGridListener() {
+			@Override
+			public void powerStateChanged(PowerGrid grid, PowerState state) {
+				lastState = state;
+				changes++;
+			}
+		};
+
+		pg.register(listener);
+		assertEquals(PowerState.NORMAL, lastState);
+		assertEquals(1, changes);
+
+		pg.forcePowerOutage();
+		assertEquals(PowerState.OUTAGE, lastState);
+		pg.forcePowerOutage();
+		assertEquals(2, changes);
+
+		pg.forcePowerRestore();
+		assertEquals(PowerState.NORMAL, lastState);
+
+		assertTrue(pg.deregister(listener));
+		assertFalse(pg.deregister(listener));
+		pg.forcePowerSurge();
+		assertEquals(PowerState.NORMAL, lastState);
+		assertEquals(3, changes);
+	}
+
+	@Test
+	public void testSourceFaultsAreClearedBySwitchingSource() {
+		PowerGrid pg = PowerGrid.instance();
+
+		PowerGrid.disconnect();
+		assertEquals(PowerState.OUTAGE, pg.getState());
+		PowerGrid.engageUninterruptiblePowerSource();
+		assertTrue(pg.hasPower());
+
+		PowerGrid.engageFaultyPowerSource();
+		assertEquals(PowerState.SURGE, pg.getState());
+		PowerGrid.engageUninterruptiblePowerSource();
+		assertTrue(pg.hasPower());
+
+		pg.forcePowerOutage();
+		PowerGrid.engageUninterruptiblePowerSource();
+		assertEquals(PowerState.OUTAGE, pg.getState());
+	}
 }
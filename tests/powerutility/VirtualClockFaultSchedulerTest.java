@@ -0,0 +1,114 @@
+package powerutility;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import powerutility.PowerGrid.PowerState;
+
+@SuppressWarnings("javadoc")
+public class VirtualClockFaultSchedulerTest {
+	private VirtualClockFaultScheduler clock;
+	private List<String> events;
+
+	@Before
+	public void setup() {
+		clock = new VirtualClockFaultScheduler();
+		events = new ArrayList<>();
+		PowerGrid.reconnectToMains();
+	}
+
+	@After
+	public void teardown() {
+		PowerGrid.reconnectToMains();
+		PowerGrid.instance().forcePowerRestore();
+	}
+
+	@Test
+	public void testTasksRunInOrder() {
+		clock.schedule(() -> events.add("b"), 20, TimeUnit.MILLISECONDS);
+		clock.schedule(() -> events.add("a"), 10, TimeUnit.MILLISECONDS);
+		Future<?> cancelled = clock.schedule(() -> events.add("c"), 15, TimeUnit.MILLISECONDS);
+		cancelled.cancel(false);
+
+		clock.advance(5, TimeUnit.MILLISECONDS);
+		assertTrue(events.isEmpty());
+
+		clock.advance(1, TimeUnit.SECONDS);
+		assertEquals(List.of("a", "b"), events);
+		assertEquals(1005, clock.currentTimeMillis());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testCannotGoBackwards() {
+		clock.advance(-1, TimeUnit.MILLISECONDS);
+	}
+
+	private PowerGridListener record(List<String> log, VirtualClockFaultScheduler scheduler) {
+		return new PowerGridListener() {
+			@Override
+			public void powerStateChanged(PowerGrid grid, PowerState state) {
+				log.add(scheduler.currentTimeMillis() + ":" + state);
+			}
+		};
+	}
+
+	@Test
+	public void testSeededGridsFaultIdentically() {
+		VirtualClockFaultScheduler otherClock = new VirtualClockFaultScheduler();
+		List<String> otherEvents = new ArrayList<>();
+
+		PowerGrid grid = new PowerGrid();
+		grid.setFaultScheduler(clock);
+		grid.setSeed(42);
+		PowerGridListener listener = record(events, clock);
+		grid.register(listener);
+
+		PowerGrid other = new PowerGrid();
+		other.setFaultScheduler(otherClock);
+		other.setSeed(42);
+		PowerGridListener otherListener = record(otherEvents, otherClock);
+		other.register(otherListener);
+
+		clock.advance(1, TimeUnit.HOURS);
+		otherClock.advance(1, TimeUnit.HOURS);
+
+		assertTrue(events.size() > 1);
+		assertEquals(events, otherEvents);
+	}
+
+	@Test
+	public void testIdleGridSchedulesNothing() {
+		PowerGrid grid = new PowerGrid();
+		grid.setFaultScheduler(clock);
+		PowerGridListener listener = record(events, clock);
+		grid.register(listener);
+		assertTrue(grid.deregister(listener));
+		events.clear();
+
+		clock.advance(1, TimeUnit.HOURS);
+		assertTrue(events.isEmpty());
+		assertTrue(grid.hasPower());
+	}
+
+	@Test
+	public void testNoFaultsFromUninterruptiblePowerSource() {
+		PowerGrid grid = new PowerGrid();
+		grid.setSource(PowerGrid.PowerSource.UNINTERRUPTIBLE);
+		grid.setFaultScheduler(clock);
+		PowerGridListener listener = record(events, clock);
+		grid.register(listener);
+
+		clock.advance(1, TimeUnit.HOURS);
+		assertEquals(1, events.size());
+		assertEquals(PowerState.NORMAL, grid.getState());
+	}
+}